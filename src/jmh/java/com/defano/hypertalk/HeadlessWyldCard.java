@@ -0,0 +1,78 @@
+package com.defano.hypertalk;
+
+import com.defano.wyldcard.NavigationManager;
+import com.defano.wyldcard.StackManager;
+import com.defano.wyldcard.WyldCard;
+import com.defano.wyldcard.awt.keyboard.KeyboardManager;
+import com.defano.wyldcard.awt.keyboard.RoboticTypist;
+import com.defano.wyldcard.awt.mouse.MouseManager;
+import com.defano.wyldcard.cursor.CursorManager;
+import com.defano.wyldcard.menu.main.WyldCardMenuBar;
+import com.defano.wyldcard.part.editor.PartEditManager;
+import com.defano.wyldcard.part.wyldcard.WyldCardPart;
+import com.defano.wyldcard.pattern.PatternManager;
+import com.defano.wyldcard.runtime.manager.*;
+import com.defano.wyldcard.search.SearchManager;
+import com.defano.wyldcard.sound.SoundManager;
+import com.defano.wyldcard.sound.SpeechPlaybackManager;
+import com.defano.wyldcard.window.DialogManager;
+import com.defano.wyldcard.window.WindowManager;
+import com.google.inject.AbstractModule;
+import com.google.inject.Guice;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Assembles a headless WyldCard object graph suitable for benchmarking the HyperTalk interpreter and runtime outside
+ * of the Swing application.
+ * <p>
+ * All UI-bound managers are bound to (deep-stubbed) mocks, as in unit tests; the WyldCard part, however, is real so
+ * that system properties like the itemDelimiter are resolved exactly as they would be in the running application.
+ */
+public class HeadlessWyldCard {
+
+    private static boolean initialized = false;
+
+    private HeadlessWyldCard() {
+    }
+
+    /**
+     * Creates the WyldCard singleton, if it has not already been created. Safe to invoke from every benchmark's setup
+     * method.
+     */
+    public static synchronized void initialize() {
+        if (!initialized) {
+            System.setProperty("java.awt.headless", "true");
+            WyldCard.setInjector(Guice.createInjector(new HeadlessAssembly()));
+            initialized = true;
+        }
+    }
+
+    private static class HeadlessAssembly extends AbstractModule {
+        @Override
+        protected void configure() {
+            bind(StackManager.class).toInstance(mock(StackManager.class, RETURNS_DEEP_STUBS));
+            bind(MouseManager.class).toInstance(mock(MouseManager.class, RETURNS_DEEP_STUBS));
+            bind(KeyboardManager.class).toInstance(mock(KeyboardManager.class, RETURNS_DEEP_STUBS));
+            bind(WindowManager.class).toInstance(mock(WindowManager.class, RETURNS_DEEP_STUBS));
+            bind(PaintManager.class).toInstance(mock(PaintManager.class, RETURNS_DEEP_STUBS));
+            bind(FileManager.class).toInstance(mock(FileManager.class, RETURNS_DEEP_STUBS));
+            bind(FontManager.class).toInstance(mock(FontManager.class, RETURNS_DEEP_STUBS));
+            bind(SelectionManager.class).toInstance(mock(SelectionManager.class, RETURNS_DEEP_STUBS));
+            bind(SoundManager.class).toInstance(mock(SoundManager.class, RETURNS_DEEP_STUBS));
+            bind(SearchManager.class).toInstance(mock(SearchManager.class, RETURNS_DEEP_STUBS));
+            bind(PartEditManager.class).toInstance(mock(PartEditManager.class, RETURNS_DEEP_STUBS));
+            bind(PatternManager.class).toInstance(mock(PatternManager.class, RETURNS_DEEP_STUBS));
+            bind(PeriodicMessageManager.class).toInstance(mock(PeriodicMessageManager.class, RETURNS_DEEP_STUBS));
+            bind(CursorManager.class).toInstance(mock(CursorManager.class, RETURNS_DEEP_STUBS));
+            bind(PartToolManager.class).toInstance(mock(PartToolManager.class, RETURNS_DEEP_STUBS));
+            bind(SpeechPlaybackManager.class).toInstance(mock(SpeechPlaybackManager.class, RETURNS_DEEP_STUBS));
+            bind(WyldCardMenuBar.class).toInstance(mock(WyldCardMenuBar.class, RETURNS_DEEP_STUBS));
+            bind(NavigationManager.class).toInstance(mock(NavigationManager.class, RETURNS_DEEP_STUBS));
+            bind(RoboticTypist.class).toInstance(mock(RoboticTypist.class, RETURNS_DEEP_STUBS));
+            bind(DialogManager.class).toInstance(mock(DialogManager.class, RETURNS_DEEP_STUBS));
+            bind(WyldCardPart.class).toInstance(new WyldCardPart());
+        }
+    }
+}
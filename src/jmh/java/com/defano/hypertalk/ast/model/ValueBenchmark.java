@@ -0,0 +1,94 @@
+package com.defano.hypertalk.ast.model;
+
+import com.defano.hypertalk.HeadlessWyldCard;
+import com.defano.hypertalk.exception.HtSemanticException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of HyperTalk value arithmetic and of coercing string-backed values to numbers, booleans, points
+ * and rectangles.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValueBenchmark {
+
+    private Value integer;
+    private Value decimal;
+    private Value bool;
+    private Value rect;
+    private Value text;
+
+    @Setup
+    public void setup() {
+        HeadlessWyldCard.initialize();
+
+        integer = new Value("1234");
+        decimal = new Value("3.14159");
+        bool = new Value("true");
+        rect = new Value("10,20,110,220");
+        text = new Value("The quick brown fox");
+    }
+
+    @Benchmark
+    public Value addIntegers() throws HtSemanticException {
+        return new Value("17").add(integer);
+    }
+
+    @Benchmark
+    public Value multiplyDecimals() throws HtSemanticException {
+        return new Value("2.5").multipliedBy(decimal);
+    }
+
+    @Benchmark
+    public Value countingLoop() throws HtSemanticException {
+        Value counter = new Value(0);
+        Value one = new Value(1);
+
+        for (int index = 0; index < 100; index++) {
+            counter = counter.add(one);
+        }
+
+        return counter;
+    }
+
+    @Benchmark
+    public Value compareNumbers() {
+        return new Value("99").isLessThan(integer);
+    }
+
+    @Benchmark
+    public long coerceToLong() {
+        return new Value("1234").longValue();
+    }
+
+    @Benchmark
+    public double coerceToDouble() {
+        return new Value("3.14159").doubleValue();
+    }
+
+    @Benchmark
+    public boolean coerceToBoolean() {
+        return new Value("true").booleanValue();
+    }
+
+    @Benchmark
+    public Object coerceToRectangle() {
+        return new Value("10,20,110,220").rectangleValue();
+    }
+
+    @Benchmark
+    public boolean cachedCoercions() {
+        return integer.isInteger() && decimal.isNumber() && bool.isBoolean() && rect.isRect();
+    }
+
+    @Benchmark
+    public Value concatenate() {
+        return text.concat(integer);
+    }
+}
@@ -0,0 +1,118 @@
+package com.defano.hypertalk.util;
+
+import com.defano.hypertalk.HeadlessWyldCard;
+import com.defano.hypertalk.ast.expression.LiteralExp;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.ast.model.chunk.Chunk;
+import com.defano.hypertalk.ast.model.chunk.ChunkType;
+import com.defano.hypertalk.ast.model.enums.Preposition;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.wyldcard.runtime.ExecutionContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of addressing line, item and word chunks of a value (i.e., `get line 5 of x`, `put y into item 3
+ * of x`) relative to the size of the value.
+ * <p>
+ * The `...OfValue` benchmarks address chunks of the same {@link Value} on each invocation (as does a script looping
+ * over the lines of a variable) and so measure lookups against the value's cached chunk index; the
+ * `...OfNewValue` benchmarks address a fresh value each time, paying to index it on every invocation.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChunkUtilsBenchmark {
+
+    @Param({"10", "1000", "100000"})
+    public int lines;
+
+    private ExecutionContext context;
+    private String text;
+    private int middle;
+    private Value value;
+    private Chunk middleLine;
+    private Chunk middleItem;
+
+    @Setup
+    public void setup() {
+        HeadlessWyldCard.initialize();
+        context = ExecutionContext.unboundInstance();
+
+        StringBuilder builder = new StringBuilder();
+        for (int line = 1; line <= lines; line++) {
+            builder.append("word").append(line).append(" item,second item,third item").append('\n');
+        }
+
+        text = builder.toString();
+        middle = Math.max(1, lines / 2);
+        value = new Value(text);
+        middleLine = new Chunk(ChunkType.LINE, new LiteralExp(null, middle));
+        middleItem = new Chunk(ChunkType.ITEM, new LiteralExp(null, middle));
+    }
+
+    @Benchmark
+    public String getLine() {
+        return ChunkUtils.getChunk(context, ChunkType.LINE, text, middle, 0);
+    }
+
+    @Benchmark
+    public String getItem() {
+        return ChunkUtils.getChunk(context, ChunkType.ITEM, text, middle, 0);
+    }
+
+    @Benchmark
+    public String getWord() {
+        return ChunkUtils.getChunk(context, ChunkType.WORD, text, middle, 0);
+    }
+
+    @Benchmark
+    public String getLineRange() {
+        return ChunkUtils.getChunk(context, ChunkType.LINERANGE, text, 1, middle);
+    }
+
+    @Benchmark
+    public int countLines() {
+        return ChunkUtils.getCount(context, ChunkType.LINE, text);
+    }
+
+    @Benchmark
+    public Value getLineOfValue() throws HtException {
+        return value.getChunk(context, middleLine);
+    }
+
+    @Benchmark
+    public Value getItemOfValue() throws HtException {
+        return value.getChunk(context, middleItem);
+    }
+
+    @Benchmark
+    public int countLinesOfValue() {
+        return value.lineCount(context);
+    }
+
+    @Benchmark
+    public Value getLineOfNewValue() throws HtException {
+        return new Value(text).getChunk(context, middleLine);
+    }
+
+    @Benchmark
+    public String putIntoLine() throws HtSemanticException {
+        return ChunkUtils.putChunk(context, ChunkType.LINE, Preposition.INTO, text, middle, 0, "replacement");
+    }
+
+    @Benchmark
+    public String putAfterItem() throws HtSemanticException {
+        return ChunkUtils.putChunk(context, ChunkType.ITEM, Preposition.AFTER, text, middle, 0, "appended");
+    }
+
+    @Benchmark
+    public String putBeforeWord() throws HtSemanticException {
+        return ChunkUtils.putChunk(context, ChunkType.WORD, Preposition.BEFORE, text, middle, 0, "prefix");
+    }
+}
@@ -0,0 +1,80 @@
+package com.defano.wyldcard.property;
+
+import com.defano.hypertalk.HeadlessWyldCard;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.ast.model.enums.Owner;
+import com.defano.wyldcard.part.builder.ButtonModelBuilder;
+import com.defano.wyldcard.part.builder.CardModelBuilder;
+import com.defano.wyldcard.part.button.ButtonModel;
+import com.defano.wyldcard.part.card.CardModel;
+import com.defano.wyldcard.part.model.PartModel;
+import com.defano.wyldcard.part.stack.StackModel;
+import com.defano.wyldcard.runtime.ExecutionContext;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of getting and setting part properties, including computed properties (like `rect` and `loc`)
+ * that are derived from several other properties and properties addressed by an alias.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertiesModelBenchmark {
+
+    private ExecutionContext context;
+    private ButtonModel button;
+    private Value name;
+    private Value loc;
+
+    @Setup
+    public void setup() {
+        HeadlessWyldCard.initialize();
+        context = ExecutionContext.unboundInstance();
+
+        CardModel card = new CardModelBuilder(new StackModel()).withId(1).build();
+        button = new ButtonModelBuilder(Owner.CARD, card)
+                .withId(1)
+                .withName("My Button")
+                .withBounds(new Rectangle(10, 20, 100, 40))
+                .build();
+
+        name = new Value("Renamed Button");
+        loc = new Value("60,40");
+    }
+
+    @Benchmark
+    public Value getName() {
+        return button.get(context, PartModel.PROP_NAME);
+    }
+
+    @Benchmark
+    public Value getRect() {
+        return button.get(context, PartModel.PROP_RECT);
+    }
+
+    @Benchmark
+    public Value getAlias() {
+        return button.get(context, "bottomright");
+    }
+
+    @Benchmark
+    public boolean hasProperty() {
+        return button.hasProperty("autohilite");
+    }
+
+    @Benchmark
+    public void setName() {
+        button.set(context, PartModel.PROP_NAME, name);
+    }
+
+    @Benchmark
+    public void setLoc() {
+        button.set(context, PartModel.PROP_LOC, loc);
+    }
+}
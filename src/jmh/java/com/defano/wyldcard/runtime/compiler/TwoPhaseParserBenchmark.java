@@ -0,0 +1,78 @@
+package com.defano.wyldcard.runtime.compiler;
+
+import com.defano.hypertalk.HeadlessWyldCard;
+import com.defano.hypertalk.exception.HtException;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the cost of compiling HyperTalk script text into an abstract syntax tree, comparing the fast (SLL) first
+ * parsing phase with the slower (LL) fallback phase.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TwoPhaseParserBenchmark {
+
+    private static final String HANDLER_SCRIPT =
+            "on mouseUp\n" +
+            "  put the ticks into startTime\n" +
+            "  repeat with n = 1 to the number of lines in cd fld 1\n" +
+            "    if line n of cd fld 1 contains \"#\" then\n" +
+            "      put offset(\"#\", line n of cd fld 1) into firstChar\n" +
+            "      put the number of chars in line n of cd fld 1 into lastChar\n" +
+            "      delete chars firstChar to lastChar of line n of cd fld 1\n" +
+            "    end if\n" +
+            "  end repeat\n" +
+            "  put the ticks - startTime into duration\n" +
+            "  put \"Completed in \" & duration / 60.0 & \" seconds\"\n" +
+            "end mouseUp\n" +
+            "\n" +
+            "function fib n\n" +
+            "  if n < 2 then return n\n" +
+            "  return fib(n - 1) + fib(n - 2)\n" +
+            "end fib\n" +
+            "\n" +
+            "on openCard\n" +
+            "  global gVisits\n" +
+            "  add 1 to gVisits\n" +
+            "  set the name of card button 1 to \"Visit\" && gVisits\n" +
+            "  repeat for 3 times\n" +
+            "    put item 2 of the loc of card button 1 after field \"log\"\n" +
+            "  end repeat\n" +
+            "end openCard\n";
+
+    private static final String SCRIPTLET = "put word 2 of line 3 of card field \"data\" & return after x";
+
+    private String script;
+
+    @Setup
+    public void setup() {
+        HeadlessWyldCard.initialize();
+        script = TwoPhaseParser.commentNonHandlerLines(HANDLER_SCRIPT);
+    }
+
+    @Benchmark
+    public Object parseScript() throws HtException {
+        return TwoPhaseParser.parseScript(CompilationUnit.SCRIPT, HANDLER_SCRIPT);
+    }
+
+    @Benchmark
+    public Object parseScriptSLL() {
+        return TwoPhaseParser.parseSLL(CompilationUnit.SCRIPT, script);
+    }
+
+    @Benchmark
+    public Object parseScriptLL() throws HtException {
+        return TwoPhaseParser.parseLL(CompilationUnit.SCRIPT, script);
+    }
+
+    @Benchmark
+    public Object parseScriptlet() throws HtException {
+        return TwoPhaseParser.parseScript(CompilationUnit.SCRIPTLET, SCRIPTLET);
+    }
+}
@@ -0,0 +1,110 @@
+package com.defano.wyldcard.runtime.executor;
+
+import com.defano.hypertalk.HeadlessWyldCard;
+import com.defano.hypertalk.ast.model.NamedBlock;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.ast.model.specifier.PartSpecifier;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.wyldcard.part.builder.CardModelBuilder;
+import com.defano.wyldcard.part.card.CardModel;
+import com.defano.wyldcard.part.model.PartModel;
+import com.defano.wyldcard.part.stack.StackModel;
+import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.compiler.HotHandlerCompiler;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures end-to-end interpreter throughput by executing recursive and loop-heavy user-defined functions attached to
+ * a card script.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ScriptExecutorBenchmark {
+
+    private static final String SCRIPT =
+            "function fib n\n" +
+            "  if n < 2 then return n\n" +
+            "  return fib(n - 1) + fib(n - 2)\n" +
+            "end fib\n" +
+            "\n" +
+            "function buildReport\n" +
+            "  repeat with i = 1 to 500\n" +
+            "    put \"Line\" && i & return after report\n" +
+            "  end repeat\n" +
+            "  return the number of lines in report\n" +
+            "end buildReport\n" +
+            "\n" +
+            "function countingLoop\n" +
+            "  repeat with i = 1 to 10000000\n" +
+            "    put total + i into total\n" +
+            "  end repeat\n" +
+            "  return total\n" +
+            "end countingLoop\n";
+
+    @Param({"15"})
+    public int n;
+
+    /**
+     * When true, handlers are compiled into closures once hot; when false, every invocation walks the syntax tree.
+     */
+    @Param({"true", "false"})
+    public boolean compileHotHandlers;
+
+    private CardModel card;
+    private ExecutionContext context;
+    private NamedBlock fib;
+    private NamedBlock buildReport;
+    private NamedBlock countingLoop;
+
+    @Setup
+    public void setup() {
+        HeadlessWyldCard.initialize();
+        HotHandlerCompiler.setEnabled(compileHotHandlers);
+
+        card = new CardModelBuilder(new StackModel()).withId(1).withScript(SCRIPT).build();
+        context = new CardScriptContext(card);
+        fib = card.getScript(context).getNamedBlock("fib");
+        buildReport = card.getScript(context).getNamedBlock("buildReport");
+        countingLoop = card.getScript(context).getNamedBlock("countingLoop");
+    }
+
+    @Benchmark
+    public Value recursiveFunction() throws HtException {
+        return ScriptExecutor.blockingExecuteFunction(context, null, card.getMe(context), card.getBreakpoints(), fib, Collections.singletonList(new Value(n)));
+    }
+
+    @Benchmark
+    public Value stringBuildingLoop() throws HtException {
+        return ScriptExecutor.blockingExecuteFunction(context, null, card.getMe(context), card.getBreakpoints(), buildReport, Collections.emptyList());
+    }
+
+    @Benchmark
+    public Value countingLoop() throws HtException {
+        return ScriptExecutor.blockingExecuteFunction(context, null, card.getMe(context), card.getBreakpoints(), countingLoop, Collections.emptyList());
+    }
+
+    /**
+     * An execution context that resolves every part to the benchmark's card so that recursive function calls can be
+     * dispatched without a displayed stack.
+     */
+    private static class CardScriptContext extends ExecutionContext {
+        private final PartModel card;
+
+        private CardScriptContext(PartModel card) {
+            this.card = card;
+            unbind();
+        }
+
+        @Override
+        public PartModel getPart(PartSpecifier ps) {
+            return card;
+        }
+    }
+}
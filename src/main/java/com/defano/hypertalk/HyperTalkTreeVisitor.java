@@ -27,6 +27,7 @@ import com.defano.hypertalk.parser.HyperTalkBaseVisitor;
 import com.defano.hypertalk.parser.HyperTalkParser;
 import com.defano.wyldcard.part.model.PartModel;
 import com.defano.wyldcard.part.wyldcard.WyldCardProperties;
+import com.defano.wyldcard.runtime.symbol.SymbolLayout;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
@@ -48,6 +49,9 @@ import org.antlr.v4.runtime.tree.TerminalNode;
  */
 public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
+    // Slots assigned to the local variables of the handler or function presently being visited; null when outside one
+    private SymbolLayout locals;
+
     @Override
     public Object visitHandlerScript(HyperTalkParser.HandlerScriptContext ctx) {
         Script script = (Script) visit(ctx.script());
@@ -509,34 +513,67 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitNoArgHandler(HyperTalkParser.NoArgHandlerContext ctx) {
+        locals = new SymbolLayout();
         StatementList statements = ctx.statementList() == null ? new StatementList() : (StatementList) visit(ctx.statementList());
         String onId = ctx.symbol().size() > 0 ? (String) visit(ctx.symbol(0)) : null;
         String endId = ctx.symbol().size() > 1 ? (String) visit(ctx.symbol(1)) : null;
-        return new NamedBlock(ctx, onId, endId, statements);
+        return new NamedBlock(ctx, onId, endId, new ParameterList(), statements, endLocals(null));
     }
 
     @Override
     public Object visitArgHandler(HyperTalkParser.ArgHandlerContext ctx) {
+        locals = new SymbolLayout();
         StatementList statements = ctx.statementList() == null ? new StatementList() : (StatementList) visit(ctx.statementList());
         String onId = ctx.symbol().size() > 0 ? (String) visit(ctx.symbol(0)) : null;
         String endId = ctx.symbol().size() > 1 ? (String) visit(ctx.symbol(1)) : null;
-        return new NamedBlock(ctx, onId, endId, (ParameterList) visit(ctx.parameterList()), statements);
+        ParameterList parameters = (ParameterList) visit(ctx.parameterList());
+        return new NamedBlock(ctx, onId, endId, parameters, statements, endLocals(parameters));
     }
 
     @Override
     public Object visitNoArgFunction(HyperTalkParser.NoArgFunctionContext ctx) {
+        locals = new SymbolLayout();
         StatementList statements = ctx.statementList() == null ? new StatementList() : (StatementList) visit(ctx.statementList());
         String onId = ctx.symbol().size() > 0 ? (String) visit(ctx.symbol(0)) : null;
         String endId = ctx.symbol().size() > 1 ? (String) visit(ctx.symbol(1)) : null;
-        return new UserFunction(ctx, onId, endId, new ParameterList(), statements);
+        return new UserFunction(ctx, onId, endId, new ParameterList(), statements, endLocals(null));
     }
 
     @Override
     public Object visitArgFunction(HyperTalkParser.ArgFunctionContext ctx) {
+        locals = new SymbolLayout();
         StatementList statements = ctx.statementList() == null ? new StatementList() : (StatementList) visit(ctx.statementList());
         String onId = ctx.symbol().size() > 0 ? (String) visit(ctx.symbol(0)) : null;
         String endId = ctx.symbol().size() > 1 ? (String) visit(ctx.symbol(1)) : null;
-        return new UserFunction(ctx, onId, endId, (ParameterList) visit(ctx.parameterList()), statements);
+        ParameterList parameters = (ParameterList) visit(ctx.parameterList());
+        return new UserFunction(ctx, onId, endId, parameters, statements, endLocals(parameters));
+    }
+
+    /**
+     * Assigns a slot to a variable referenced by the handler or function presently being visited.
+     *
+     * @param symbol The name of the variable
+     * @return The variable's slot, or -1 if not visiting a handler or function
+     */
+    private int resolveLocal(String symbol) {
+        return locals == null ? -1 : locals.resolve(symbol);
+    }
+
+    /**
+     * Completes the slot layout of the handler or function presently being visited.
+     *
+     * @param parameters The handler's parameters (which are also local variables), or null if it has none
+     * @return The completed layout
+     */
+    private SymbolLayout endLocals(ParameterList parameters) {
+        SymbolLayout layout = locals;
+        locals = null;
+
+        if (parameters != null) {
+            parameters.list.forEach(layout::resolve);
+        }
+
+        return layout;
     }
 
     @Override
@@ -1184,7 +1221,8 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitWithLoop(HyperTalkParser.WithLoopContext ctx) {
-        return new RepeatWith((String) visit(ctx.ID()), (RepeatRange) visit(ctx.range()));
+        String symbol = (String) visit(ctx.ID());
+        return new RepeatWith(symbol, resolveLocal(symbol), (RepeatRange) visit(ctx.range()));
     }
 
     @Override
@@ -1324,7 +1362,8 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitVariableContainer(HyperTalkParser.VariableContainerContext ctx) {
-        return new VariableExp(ctx, (String) visit(ctx.symbol()));
+        String symbol = (String) visit(ctx.symbol());
+        return new VariableExp(ctx, symbol, resolveLocal(symbol));
     }
 
     @Override
@@ -1831,22 +1870,22 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitBinaryOpExp(HyperTalkParser.BinaryOpExpContext ctx) {
-        return BinaryOperatorExp.forOperator(ctx, BinaryOperator.fromName(ctx.op.getText()), (Expression) visit(ctx.expression(0)), (Expression) visit(ctx.expression(1)));
+        return ConstantFolder.fold(ctx, BinaryOperatorExp.forOperator(ctx, BinaryOperator.fromName(ctx.op.getText()), (Expression) visit(ctx.expression(0)), (Expression) visit(ctx.expression(1))));
     }
 
     @Override
     public Object visitPowOpExp(HyperTalkParser.PowOpExpContext ctx) {
-        return BinaryOperatorExp.forOperator(ctx, BinaryOperator.EXP, (Expression) visit(ctx.expression(0)), (Expression) visit(ctx.expression(1)));
+        return ConstantFolder.fold(ctx, BinaryOperatorExp.forOperator(ctx, BinaryOperator.EXP, (Expression) visit(ctx.expression(0)), (Expression) visit(ctx.expression(1))));
     }
 
     @Override
     public Object visitBinaryAndExp(HyperTalkParser.BinaryAndExpContext ctx) {
-        return BinaryOperatorExp.forOperator(ctx, BinaryOperator.AND, (Expression) visit(ctx.expression(0)), (Expression) visit(ctx.expression(1)));
+        return ConstantFolder.fold(ctx, BinaryOperatorExp.forOperator(ctx, BinaryOperator.AND, (Expression) visit(ctx.expression(0)), (Expression) visit(ctx.expression(1))));
     }
 
     @Override
     public Object visitBinaryOrExp(HyperTalkParser.BinaryOrExpContext ctx) {
-        return BinaryOperatorExp.forOperator(ctx, BinaryOperator.OR, (Expression) visit(ctx.expression(0)), (Expression) visit(ctx.expression(1)));
+        return ConstantFolder.fold(ctx, BinaryOperatorExp.forOperator(ctx, BinaryOperator.OR, (Expression) visit(ctx.expression(0)), (Expression) visit(ctx.expression(1))));
     }
 
     @Override
@@ -1856,12 +1895,12 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitNegateExp(HyperTalkParser.NegateExpContext ctx) {
-        return UnaryOperatorExp.forOperator(ctx, UnaryOperator.NEGATE, (Expression) visit(ctx.expression()));
+        return ConstantFolder.fold(ctx, UnaryOperatorExp.forOperator(ctx, UnaryOperator.NEGATE, (Expression) visit(ctx.expression())));
     }
 
     @Override
     public Object visitNotExp(HyperTalkParser.NotExpContext ctx) {
-        return UnaryOperatorExp.forOperator(ctx, UnaryOperator.NOT, (Expression) visit(ctx.expression()));
+        return ConstantFolder.fold(ctx, UnaryOperatorExp.forOperator(ctx, UnaryOperator.NOT, (Expression) visit(ctx.expression())));
     }
 
     @Override
@@ -2012,7 +2051,7 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitExpressionTerm(HyperTalkParser.ExpressionTermContext ctx) {
-        return new GroupExp(ctx, (Expression) visit(ctx.expression()));
+        return ConstantFolder.fold(ctx, new GroupExp(ctx, (Expression) visit(ctx.expression())));
     }
 
     @Override
@@ -2143,7 +2182,7 @@ public class HyperTalkTreeVisitor extends HyperTalkBaseVisitor<Object> {
 
     @Override
     public Object visitPropertySymbolValueExp(HyperTalkParser.PropertySymbolValueExpContext ctx) {
-        return new VariableExp(ctx, ctx.getText());
+        return new VariableExp(ctx, ctx.getText(), resolveLocal(ctx.getText()));
     }
 
     @Override
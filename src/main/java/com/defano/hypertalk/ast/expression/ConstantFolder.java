@@ -0,0 +1,51 @@
+package com.defano.hypertalk.ast.expression;
+
+import com.defano.hypertalk.exception.HtException;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+/**
+ * Simplifies expressions as the abstract syntax tree is built, so that work which produces the same result every time
+ * a script runs is done only once, when the script is compiled.
+ * <p>
+ * Operators whose operands are all constant (see {@link Expression#isConstant()}) are evaluated and replaced with a
+ * {@link LiteralExp} of their value; for example, `"a" & return & "b"` compiles to a single literal. Parentheses
+ * around a literal are dropped; parentheses around any other expression are preserved, because a grouped expression
+ * is factored differently than an un-grouped one (see {@link Expression#factor(com.defano.wyldcard.runtime.ExecutionContext, com.defano.hypertalk.ast.expression.factor.FactorAssociation...)}).
+ * Constants like `return`, `tab`, `empty` and `pi` are already literals when parsed.
+ * <p>
+ * Because the tree is built from the bottom up, folding each operator as it is constructed folds every constant
+ * sub-expression in the script. An expression that produces an error (like `1 / 0`) is left as-is so that the error
+ * is reported (with its location) when, and only if, the expression is evaluated.
+ * <p>
+ * Folding is safe only while a number's string form is independent of the execution context; should a HyperTalk
+ * property like 'numberFormat' come to affect how arithmetic results are stringified, operators producing numbers
+ * must no longer be folded.
+ */
+public class ConstantFolder {
+
+    private ConstantFolder() {
+    }
+
+    /**
+     * Gets the simplest expression equivalent to the given expression.
+     *
+     * @param context    The parser context of the expression being folded
+     * @param expression The expression to fold, whose sub-expressions have already been folded
+     * @return A literal equivalent to the expression, if the expression is constant, otherwise the expression itself.
+     */
+    public static Expression fold(ParserRuleContext context, Expression expression) {
+        if (expression instanceof LiteralExp || !expression.isConstant()) {
+            return expression;
+        }
+
+        if (expression instanceof GroupExp && ((GroupExp) expression).expression instanceof LiteralExp) {
+            return ((GroupExp) expression).expression;
+        }
+
+        try {
+            return new LiteralExp(context, expression.evaluate(null));
+        } catch (HtException | RuntimeException e) {
+            return expression;
+        }
+    }
+}
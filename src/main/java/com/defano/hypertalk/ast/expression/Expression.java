@@ -58,6 +58,18 @@ public abstract class Expression extends ASTNode {
         throw new IllegalStateException("Bug! Contextualized exception not thrown.");
     }
 
+    /**
+     * Determines if this expression always evaluates to the same value, without side effects and without regard to the
+     * execution context, such that it may be evaluated once when the script is compiled. See {@link ConstantFolder}.
+     * <p>
+     * Expressions are not constant unless they say otherwise.
+     *
+     * @return True if this expression is a constant; false otherwise
+     */
+    public boolean isConstant() {
+        return false;
+    }
+
     /**
      * Evaluates this expression as a list of comma-separated values.
      * <p>
@@ -21,4 +21,9 @@ public class GroupExp extends Expression {
     protected Value onEvaluate(ExecutionContext context) throws HtException {
         return expression.evaluate(context);
     }
+
+    @Override
+    public boolean isConstant() {
+        return expression.isConstant();
+    }
 }
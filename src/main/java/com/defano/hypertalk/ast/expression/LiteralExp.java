@@ -79,4 +79,9 @@ public class LiteralExp extends Expression {
     public Value onEvaluate(ExecutionContext context) {
         return literal;
     }
+
+    @Override
+    public boolean isConstant() {
+        return true;
+    }
 }
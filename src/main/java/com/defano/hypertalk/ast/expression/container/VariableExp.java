@@ -9,21 +9,35 @@ import org.antlr.v4.runtime.ParserRuleContext;
 public class VariableExp extends ContainerExp {
 
     private final String symbol;
+    private final int slot;         // Slot assigned to this variable in the enclosing handler; -1 outside of handlers
 
     public VariableExp(ParserRuleContext context, String symbol) {
+        this(context, symbol, -1);
+    }
+
+    public VariableExp(ParserRuleContext context, String symbol, int slot) {
         super(context);
         this.symbol = symbol;
+        this.slot = slot;
+    }
+
+    public String getSymbol() {
+        return symbol;
+    }
+
+    public int getSlot() {
+        return slot;
     }
 
     @Override
     public Value onEvaluate(ExecutionContext context) throws HtException {
-        Value value = context.getVariable(symbol);
+        Value value = context.getVariable(symbol, slot);
         return chunkOf(context, value, getChunk());
     }
 
     @Override
     public void putValue(ExecutionContext context, Value value, Preposition preposition) throws HtException {
-        context.setVariable(symbol, preposition, getChunk(), value);
+        context.setVariable(symbol, slot, preposition, getChunk(), value);
     }
 
 }
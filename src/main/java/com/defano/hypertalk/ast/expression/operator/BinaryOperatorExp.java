@@ -27,6 +27,61 @@ public abstract class BinaryOperatorExp extends Expression {
         return rhs.evaluate(context);
     }
 
+    public Expression getLhs() {
+        return lhs;
+    }
+
+    public Expression getRhs() {
+        return rhs;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Binary operators always evaluate both operands, in the order given by {@link #isRhsEvaluatedFirst()}, and then
+     * apply the operator to their values.
+     */
+    @Override
+    protected Value onEvaluate(ExecutionContext context) throws HtException {
+        if (isRhsEvaluatedFirst()) {
+            Value right = rhs(context);
+            return apply(lhs(context), right);
+        }
+
+        return apply(lhs(context), rhs(context));
+    }
+
+    /**
+     * Determines if the right-hand operand is evaluated before the left-hand operand. Operands are usually evaluated
+     * left to right, but the order is observable when an operand has side effects (i.e., calls a function that sets
+     * 'the result'), so operators that have always evaluated their container first keep doing so.
+     *
+     * @return True if the right-hand operand is evaluated first; false if the left-hand operand is
+     */
+    public boolean isRhsEvaluatedFirst() {
+        return false;
+    }
+
+    /**
+     * Applies this operator to the evaluated values of its operands.
+     *
+     * @param left  The value of the left-hand operand
+     * @param right The value of the right-hand operand
+     * @return The result of the operation
+     * @throws HtException Thrown if the operator cannot be applied to the given values
+     */
+    public abstract Value apply(Value left, Value right) throws HtException;
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Operators are pure functions of their operands; operators that are not must override this method.
+     */
+    @Override
+    public boolean isConstant() {
+        return lhs.isConstant() && rhs.isConstant();
+    }
+
     public static BinaryOperatorExp forOperator(ParserRuleContext ctx, BinaryOperator op, Expression lhs, Expression rhs) {
 
         switch (op) {
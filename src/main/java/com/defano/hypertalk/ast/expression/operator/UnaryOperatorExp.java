@@ -23,6 +23,16 @@ public abstract class UnaryOperatorExp extends Expression {
         return rhs.evaluate(context);
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * Operators are pure functions of their operand; operators that are not must override this method.
+     */
+    @Override
+    public boolean isConstant() {
+        return rhs.isConstant();
+    }
+
     public static UnaryOperatorExp forOperator(ParserRuleContext ctx, UnaryOperator op, Expression rhs) {
         switch (op) {
             case NOT:
@@ -4,7 +4,6 @@ import com.defano.hypertalk.ast.expression.Expression;
 import com.defano.hypertalk.ast.expression.operator.BinaryOperatorExp;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.exception.HtException;
-import com.defano.wyldcard.runtime.ExecutionContext;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 public class GreaterThanOp extends BinaryOperatorExp {
@@ -14,7 +13,7 @@ public class GreaterThanOp extends BinaryOperatorExp {
     }
 
     @Override
-    protected Value onEvaluate(ExecutionContext context) throws HtException {
-        return lhs(context).isGreaterThan(rhs(context));
+    public Value apply(Value left, Value right) throws HtException {
+        return left.isGreaterThan(right);
     }
 }
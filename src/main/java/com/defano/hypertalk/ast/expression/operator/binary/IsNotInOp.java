@@ -4,7 +4,6 @@ import com.defano.hypertalk.ast.expression.Expression;
 import com.defano.hypertalk.ast.expression.operator.BinaryOperatorExp;
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.exception.HtException;
-import com.defano.wyldcard.runtime.ExecutionContext;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 public class IsNotInOp extends BinaryOperatorExp {
@@ -14,7 +13,12 @@ public class IsNotInOp extends BinaryOperatorExp {
     }
 
     @Override
-    protected Value onEvaluate(ExecutionContext context) throws HtException {
-        return new Value(!rhs(context).contains(lhs(context)));
+    public boolean isRhsEvaluatedFirst() {
+        return true;
+    }
+
+    @Override
+    public Value apply(Value left, Value right) throws HtException {
+        return new Value(!right.contains(left));
     }
 }
@@ -57,4 +57,9 @@ public class ThereIsAOp extends UnaryOperatorExp {
 
         return new Value(found.get());
     }
+
+    @Override
+    public boolean isConstant() {
+        return false;       // Parts and menus come and go
+    }
 }
@@ -17,4 +17,9 @@ public class ThereIsNoOp extends UnaryOperatorExp {
     protected Value onEvaluate(ExecutionContext context) throws HtException {
         return new ThereIsAOp(super.getParserContext(), rhs).evaluate(context).not();
     }
+
+    @Override
+    public boolean isConstant() {
+        return false;       // Parts and menus come and go
+    }
 }
@@ -5,9 +5,12 @@ import com.defano.hypertalk.ast.statement.StatementList;
 import com.defano.hypertalk.exception.HtSyntaxException;
 import com.defano.hypertalk.exception.HtUncheckedSemanticException;
 import org.antlr.v4.runtime.ParserRuleContext;
+import com.defano.wyldcard.runtime.compiler.CompiledStatement;
+import com.defano.wyldcard.runtime.symbol.SymbolLayout;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
 import java.util.Collection;
+import java.util.concurrent.atomic.AtomicInteger;
 
 public class NamedBlock {
 
@@ -15,6 +18,10 @@ public class NamedBlock {
     public final StatementList statements;
     public final ParameterList parameters;
     public final ParserRuleContext context;
+    public final SymbolLayout locals;           // Slots assigned to this block's local variables
+
+    private final AtomicInteger invocations = new AtomicInteger();
+    private volatile CompiledStatement compiled;    // Compiled form of this block's statements, once it becomes hot
 
     /**
      * Wraps a list of statements in an NamedBlock object whose name is unused.
@@ -31,6 +38,10 @@ public class NamedBlock {
     }
 
     public NamedBlock (ParserRuleContext context, String onName, String endName, ParameterList parameters, StatementList body) {
+        this(context, onName, endName, parameters, body, SymbolLayout.EMPTY);
+    }
+
+    public NamedBlock (ParserRuleContext context, String onName, String endName, ParameterList parameters, StatementList body, SymbolLayout locals) {
         if (onName == null) {
             throw new HtUncheckedSemanticException(new HtSyntaxException("Missing 'on' clause in handler definition.", context.getStart()));
         }
@@ -47,12 +58,35 @@ public class NamedBlock {
         this.statements = body;
         this.parameters = parameters;
         this.context = context;
+        this.locals = locals;
     }
 
     public Collection<Statement> findStatementsOnLine(int line) {
         return statements.findStatementsOnLine(line);
     }
 
+    /**
+     * Records an invocation of this block. See {@link com.defano.wyldcard.runtime.compiler.HotHandlerCompiler}.
+     *
+     * @return The number of times this block has been invoked, including this invocation
+     */
+    public int countInvocation() {
+        return invocations.incrementAndGet();
+    }
+
+    /**
+     * Gets the compiled form of this block's statements.
+     *
+     * @return The compiled statements, or null if this block has not been compiled
+     */
+    public CompiledStatement getCompiled() {
+        return compiled;
+    }
+
+    public void setCompiled(CompiledStatement compiled) {
+        this.compiled = compiled;
+    }
+
     public Integer getLineNumber() {
         if (context != null && context.getStart() != null) {
             return context.getStart().getLine();
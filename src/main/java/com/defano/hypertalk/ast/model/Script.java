@@ -13,7 +13,6 @@ public class Script {
     private final Map<BlockName, Integer> handlerEndingLine = new HashMap<>();
     private final Map<BlockName, NamedBlock> functions = new HashMap<>();
     private StatementList statements = null;
-    private Collection<Integer> appliedBreakpoints = new ArrayList<>();
     
     public Script () {
     }
@@ -104,25 +103,6 @@ public class Script {
         return statements;
     }
 
-    public void applyBreakpoints(Collection<Integer> breakpointLines) {
-
-        // Clear previously-applied breakpoints
-        for (int oldBreakpoint : appliedBreakpoints) {
-            for (Statement found : findStatementsOnLine(oldBreakpoint + 1)) {
-                found.setBreakpoint(false);
-            }
-        }
-
-        // Apply the new set
-        for (int line : breakpointLines) {
-            for (Statement found : findStatementsOnLine(line + 1)) {
-                found.setBreakpoint(true);
-            }
-        }
-
-        this.appliedBreakpoints = breakpointLines;
-    }
-
     public Collection<Statement> findStatementsOnLine(int line) {
         ArrayList<Statement> foundStatements = new ArrayList<>();
 
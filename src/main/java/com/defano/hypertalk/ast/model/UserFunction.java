@@ -1,6 +1,7 @@
 package com.defano.hypertalk.ast.model;
 
 import com.defano.hypertalk.ast.statement.StatementList;
+import com.defano.wyldcard.runtime.symbol.SymbolLayout;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 public class UserFunction extends NamedBlock {
@@ -8,4 +9,8 @@ public class UserFunction extends NamedBlock {
     public UserFunction (ParserRuleContext context, String onName, String endName, ParameterList parameters, StatementList statements) {
         super(context, onName, endName, parameters, statements);
     }
+
+    public UserFunction (ParserRuleContext context, String onName, String endName, ParameterList parameters, StatementList statements, SymbolLayout locals) {
+        super(context, onName, endName, parameters, statements, locals);
+    }
 }
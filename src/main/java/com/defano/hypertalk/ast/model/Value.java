@@ -10,8 +10,10 @@ import com.defano.hypertalk.ast.model.enums.SortStyle;
 import com.defano.hypertalk.comparator.StyledComparable;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.hypertalk.util.ChunkIndex;
 import com.defano.hypertalk.util.ChunkUtils;
 import com.defano.hypertalk.util.DateUtils;
+import com.defano.hypertalk.util.Range;
 import com.defano.wyldcard.runtime.ExecutionContext;
 
 import java.awt.*;
@@ -19,18 +21,41 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
-import java.util.regex.Matcher;
 
 /**
  * Representation of a value in HyperTalk; all script values (literals, variables, properties, etc.) are represented by
  * this type. Every value is stored internally as a Java String and converted to {@link Integer}, {@link Double},
  * {@link Boolean}, {@link Point} or {@link Rectangle} as requested at runtime.
  * <p>
+ * The exception is values created from a number (i.e., the result of arithmetic), which are stored natively as a
+ * {@code long} or {@code double} and are not converted to a String until one is needed. A counter incremented in a loop
+ * is thus never formatted and re-parsed between one increment and the next. The integers 0 through 1023 are shared
+ * (see {@link #ofInteger(long)}).
+ * <p>
  * Instances of this class are effectively immutable.
+ * <p>
+ * Values produced by appending text to a large value (i.e., `put x after y` or `y & x`) are backed by a growable
+ * buffer that may be shared with the value that was appended to; the appended value's string is produced lazily, the
+ * first time it is needed. Because a value only ever "sees" the first {@code appendLength} characters of the buffer,
+ * sharing the buffer is invisible to users of this class.
  */
 public class Value implements StyledComparable<Value>, Serializable {
 
-    private final String stringValue;
+    // Values longer than this are appended to in place (when possible) rather than copied on each append
+    private static final int APPEND_BUFFER_THRESHOLD = 256;
+
+    // Shared instances of the most frequently produced integers (loop counters, indices, small sums)
+    private static final Value[] SMALL_INTEGERS = new Value[1024];
+
+    static {
+        for (int index = 0; index < SMALL_INTEGERS.length; index++) {
+            SMALL_INTEGERS[index] = new Value((long) index);
+        }
+    }
+
+    private String stringValue;                 // Null until needed when backed by an append buffer or numeric
+    private final StringBuilder appendBuffer;   // Buffer shared with values appended to this one; null if not buffered
+    private final int appendLength;             // Number of characters of the append buffer belonging to this value
 
     // A flag to indicate value represents a quoted literal (useful when disambiguating 'card button 1' from 'card
     // button "1"'. The latter refers to a card button _named_ "1"; the former refers to card button number 1)
@@ -45,6 +70,12 @@ public class Value implements StyledComparable<Value>, Serializable {
     private boolean parsedFloat;
     private boolean parsedBoolean;
 
+    // Offsets of each chunk in this value; built the first time a chunk of the given type is addressed
+    private transient ChunkIndex charIndex;
+    private transient ChunkIndex wordIndex;
+    private transient ChunkIndex itemIndex;     // Rebuilt should the item delimiter change
+    private transient ChunkIndex lineIndex;
+
     /**
      * Creates a new Value representing the empty string, equivalent to `new Value("")`
      */
@@ -81,17 +112,23 @@ public class Value implements StyledComparable<Value>, Serializable {
 
         if (v instanceof Value) {
             this.isQuotedLiteral = ((Value) v).isQuotedLiteral;
+
+            // Copies have the same chunks as the original
+            this.charIndex = ((Value) v).charIndex;
+            this.wordIndex = ((Value) v).wordIndex;
+            this.itemIndex = ((Value) v).itemIndex;
+            this.lineIndex = ((Value) v).lineIndex;
         }
     }
 
     /**
-     * Creates a new Value representing a long integer.
+     * Creates a new Value representing a long integer. See {@link #ofInteger(long)}, which avoids creating a new value
+     * for small integers.
      *
      * @param v The initial value
      */
     public Value(long v) {
-        this(String.valueOf(v));
-        longValue = v;
+        this(v, (double) v);
     }
 
     /**
@@ -100,8 +137,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      * @param f The initial value
      */
     public Value(double f) {
-        this(String.valueOf(f));
-        floatValue = f;
+        this(null, f);
     }
 
     /**
@@ -152,6 +188,8 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value(String v) {
         this.stringValue = v == null ? "" : v;
+        this.appendBuffer = null;
+        this.appendLength = 0;
 
         // Special case: empty string is a valid int and float
         if (v == null || v.trim().equals("")) {
@@ -161,6 +199,36 @@ public class Value implements StyledComparable<Value>, Serializable {
         }
     }
 
+    /**
+     * Creates a new, natively numeric Value. Its string form (identical to the {@link String#valueOf} form of the
+     * number) is produced the first time it is needed.
+     *
+     * @param longValue  The integer value, or null if the value is not an integer
+     * @param floatValue The floating point value
+     */
+    private Value(Long longValue, double floatValue) {
+        this.appendBuffer = null;
+        this.appendLength = 0;
+
+        // A double's string form always has a decimal point (or exponent), so it never parses as an integer
+        this.longValue = longValue;
+        this.floatValue = floatValue;
+        this.parsedLong = true;
+        this.parsedFloat = true;
+        this.parsedBoolean = true;
+    }
+
+    /**
+     * Creates a new Value representing the first {@code length} characters of an append buffer.
+     *
+     * @param appendBuffer The append buffer backing this value
+     * @param length       The number of characters in the buffer belonging to this value
+     */
+    private Value(StringBuilder appendBuffer, int length) {
+        this.appendBuffer = appendBuffer;
+        this.appendLength = length;
+    }
+
     /**
      * Creates a new value of the given string and flags the value as a quoted literal.
      * <p>
@@ -176,6 +244,17 @@ public class Value implements StyledComparable<Value>, Serializable {
         return v;
     }
 
+    /**
+     * Gets a Value representing a long integer, equivalent to `new Value(v)`. Values of the integers 0 through 1023 are
+     * shared rather than created anew.
+     *
+     * @param v The integer value
+     * @return A value of the given integer.
+     */
+    public static Value ofInteger(long v) {
+        return v >= 0 && v < SMALL_INTEGERS.length ? SMALL_INTEGERS[(int) v] : new Value(v);
+    }
+
     /**
      * Creates a line-delimited Value of Values. For example, "1\n2\n3".
      *
@@ -301,12 +380,49 @@ public class Value implements StyledComparable<Value>, Serializable {
             case REPLACING:
                 return new Value(mutator.toString());
             case AFTER:
-                return new Value(mutable.toString() + mutator.toString());
+                return ofAppended(mutable, mutator);
             default:
                 throw new IllegalArgumentException("Bug! Unhandled preposition.");
         }
     }
 
+    /**
+     * Creates a new Value equal to the concatenation of two values.
+     * <p>
+     * When the existing value is large, the result is backed by an append buffer. If the existing value already owns
+     * the tail of its append buffer (that is, no other value has been appended to it yet) the new text is appended to
+     * the buffer in place and the buffer is shared. This makes the common idiom of repeatedly appending to a variable
+     * (`repeat ... put x & return after theResult`) linear, rather than quadratic, in the length of the result.
+     *
+     * @param mutable The existing value (unmodified by this method)
+     * @param mutator The value to be appended to the existing value
+     * @return The new value
+     */
+    private static Value ofAppended(Value mutable, Value mutator) {
+        String suffix = mutator.toString();
+
+        // Attempt to extend the buffer in place; only possible if no other value has been appended to mutable
+        if (mutable.appendBuffer != null) {
+            synchronized (mutable.appendBuffer) {
+                if (mutable.appendBuffer.length() == mutable.appendLength) {
+                    mutable.appendBuffer.append(suffix);
+                    return new Value(mutable.appendBuffer, mutable.appendBuffer.length());
+                }
+            }
+        }
+
+        String prefix = mutable.toString();
+        int length = prefix.length() + suffix.length();
+
+        // Small values are cheaper to copy than to buffer
+        if (length < APPEND_BUFFER_THRESHOLD) {
+            return new Value(prefix + suffix);
+        }
+
+        StringBuilder buffer = new StringBuilder(length * 2).append(prefix).append(suffix);
+        return new Value(buffer, buffer.length());
+    }
+
     /**
      * Determines if this value represents an integer (whole number). All integers are numbers, but not all numbers are
      * integers.
@@ -399,7 +515,7 @@ public class Value implements StyledComparable<Value>, Serializable {
         }
 
         try {
-            longValue = Long.parseLong(stringValue.trim());
+            longValue = Long.parseLong(toString().trim());
         } catch (NumberFormatException e) {
             longValue = null;
         }
@@ -419,7 +535,7 @@ public class Value implements StyledComparable<Value>, Serializable {
         }
 
         try {
-            floatValue = Double.parseDouble(stringValue.trim());
+            floatValue = Double.parseDouble(toString().trim());
         } catch (NumberFormatException e) {
             floatValue = null;
         }
@@ -438,9 +554,9 @@ public class Value implements StyledComparable<Value>, Serializable {
             return booleanValue;
         }
 
-        if (stringValue.trim().equalsIgnoreCase("true")) {
+        if (toString().trim().equalsIgnoreCase("true")) {
             booleanValue = true;
-        } else if (stringValue.trim().equalsIgnoreCase("false")) {
+        } else if (toString().trim().equalsIgnoreCase("false")) {
             booleanValue = false;
         } else {
             booleanValue = null;
@@ -580,8 +696,8 @@ public class Value implements StyledComparable<Value>, Serializable {
     public List<Value> getListItems() {
         ArrayList<Value> items = new ArrayList<>();
 
-        if (!stringValue.isEmpty()) {
-            for (String thisItem : stringValue.split(",")) {
+        if (!toString().isEmpty()) {
+            for (String thisItem : toString().split(",")) {
                 items.add(new Value(thisItem));
             }
         }
@@ -673,16 +789,59 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     @SuppressWarnings("WeakerAccess")
     public List<Value> getChunks(ExecutionContext context, ChunkType type) {
-        Matcher matcher = ChunkUtils.getRegexForChunkType(context, type).matcher(stringValue);
-        ArrayList<Value> chunks = new ArrayList<>();
+        ChunkIndex index = getChunkIndex(context, type);
+        ArrayList<Value> chunks = new ArrayList<>(index.getCount());
 
-        while (matcher.find()) {
-            chunks.add(new Value(matcher.group()));
+        for (int chunk = 0; chunk < index.getCount(); chunk++) {
+            Range range = index.getRangeAt(chunk);
+            chunks.add(new Value(toString().substring(range.start, range.end)));
         }
 
         return chunks;
     }
 
+    /**
+     * Gets an index of the chunks of the given type in this value. The index is built the first time chunks of the
+     * given type are addressed and reused thereafter, making repeated chunk expressions over a large value (i.e.,
+     * `line n of x` evaluated inside a loop) constant-time after the first.
+     *
+     * @param context The execution context.
+     * @param type    The chunk type (i.e., word, item, line)
+     * @return An index of the chunks of the requested type
+     */
+    private ChunkIndex getChunkIndex(ExecutionContext context, ChunkType type) {
+        switch (type) {
+            case CHAR:
+            case CHARRANGE:
+                if (charIndex == null) {
+                    charIndex = ChunkUtils.getChunkIndex(context, type, toString());
+                }
+                return charIndex;
+            case WORD:
+            case WORDRANGE:
+                if (wordIndex == null) {
+                    wordIndex = ChunkUtils.getChunkIndex(context, type, toString());
+                }
+                return wordIndex;
+            case LINE:
+            case LINERANGE:
+                if (lineIndex == null) {
+                    lineIndex = ChunkUtils.getChunkIndex(context, type, toString());
+                }
+                return lineIndex;
+            case ITEM:
+            case ITEMRANGE:
+                ChunkIndex index = itemIndex;
+                String itemDelimiter = ChunkUtils.getItemDelimiter(context);
+                if (index == null || !index.isDelimitedBy(itemDelimiter)) {
+                    index = itemIndex = ChunkIndex.ofItems(toString(), itemDelimiter);
+                }
+                return index;
+            default:
+                throw new RuntimeException("Bug! Not implemented: " + type);
+        }
+    }
+
     /**
      * Returns the number of items held in this value.
      *
@@ -690,7 +849,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      * @return The number of items held in this value.
      */
     public int itemCount(ExecutionContext context) {
-        return ChunkUtils.getCount(context, ChunkType.ITEM, stringValue);
+        return getChunkIndex(context, ChunkType.ITEM).getCount();
     }
 
     /**
@@ -700,7 +859,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      * @return The number of words held in this value.
      */
     public int wordCount(ExecutionContext context) {
-        return ChunkUtils.getCount(context, ChunkType.WORD, stringValue);
+        return getChunkIndex(context, ChunkType.WORD).getCount();
     }
 
     /**
@@ -710,7 +869,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      * @return The number of chars held in this value.
      */
     public int charCount(ExecutionContext context) {
-        return ChunkUtils.getCount(context, ChunkType.CHAR, stringValue);
+        return getChunkIndex(context, ChunkType.CHAR).getCount();
     }
 
     /**
@@ -720,7 +879,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      * @return The number of lines held in this value.
      */
     public int lineCount(ExecutionContext context) {
-        return ChunkUtils.getCount(context, ChunkType.LINE, stringValue);
+        return getChunkIndex(context, ChunkType.LINE).getCount();
     }
 
     /**
@@ -754,7 +913,9 @@ public class Value implements StyledComparable<Value>, Serializable {
         if (endVal != null)
             endIdx = endVal.integerValue();
 
-        Value chunkValue = new Value(ChunkUtils.getChunk(context, c.type, stringValue, startIdx, endIdx));
+        ChunkIndex index = getChunkIndex(context, c.type);
+        Range range = c.type.isRange() ? index.getRange(startIdx, endIdx) : index.getRange(startIdx);
+        Value chunkValue = new Value(toString().substring(range.start, range.end));
 
         // If a composite chunk; evaluate right hand of the expression first
         if (c instanceof CompositeChunk) {
@@ -770,7 +931,16 @@ public class Value implements StyledComparable<Value>, Serializable {
      * @return True if the value is empty, false otherwise.
      */
     public boolean isEmpty() {
-        return stringValue.equals("");
+        return !isUnformattedNumber() && toString().isEmpty();
+    }
+
+    /**
+     * Determines if this value is a number that has not yet been converted to a string.
+     *
+     * @return True if this value is natively numeric and has no string form yet
+     */
+    private boolean isUnformattedNumber() {
+        return stringValue == null && appendBuffer == null;
     }
 
     /**
@@ -851,12 +1021,12 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value multipliedBy(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + stringValue + "' cannot be multiplied by '" + v + "'.");
+            throw new HtSemanticException("The value '" + toString() + "' cannot be multiplied by '" + v + "'.");
         }
 
         try {
             if (isInteger() && v.isInteger()) {
-                return new Value(Math.multiplyExact(longValue(), v.longValue()));
+                return ofInteger(Math.multiplyExact(longValue(), v.longValue()));
             } else {
                 return new Value(doubleValue() * v.doubleValue());
             }
@@ -875,7 +1045,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value dividedBy(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + stringValue + "' cannot be divided by " + v + '.');
+            throw new HtSemanticException("The value '" + toString() + "' cannot be divided by " + v + '.');
         }
 
         if (v.isZero()) {
@@ -907,7 +1077,7 @@ public class Value implements StyledComparable<Value>, Serializable {
         }
 
         try {
-            return new Value((int) (doubleValue() / v.doubleValue()));
+            return ofInteger((int) (doubleValue() / v.doubleValue()));
         } catch (ArithmeticException e) {
             throw new HtSemanticException("Cannot divide " + toString() + " by zero.");
         }
@@ -922,12 +1092,12 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value add(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + v + "' cannot be added to '" + stringValue + "'.");
+            throw new HtSemanticException("The value '" + v + "' cannot be added to '" + toString() + "'.");
         }
 
         try {
             if (isInteger() && v.isInteger())
-                return new Value(Math.addExact(longValue(), v.longValue()));
+                return ofInteger(Math.addExact(longValue(), v.longValue()));
             else
                 return new Value(doubleValue() + v.doubleValue());
         } catch (ArithmeticException e) {
@@ -944,12 +1114,12 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value subtract(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + v + "' cannot be subtracted from '" + stringValue + "'.");
+            throw new HtSemanticException("The value '" + v + "' cannot be subtracted from '" + toString() + "'.");
         }
 
         try {
             if (isInteger() && v.isInteger())
-                return new Value(Math.subtractExact(longValue(), v.longValue()));
+                return ofInteger(Math.subtractExact(longValue(), v.longValue()));
             else
                 return new Value(doubleValue() - v.doubleValue());
         } catch (ArithmeticException e) {
@@ -966,7 +1136,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value exponentiate(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + stringValue + "' cannot be raised to the power of '" + v + "'.");
+            throw new HtSemanticException("The value '" + toString() + "' cannot be raised to the power of '" + v + "'.");
         }
 
         return new Value(Math.pow(doubleValue(), v.doubleValue()));
@@ -981,11 +1151,11 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value mod(Value v) throws HtSemanticException {
         if (!isNumber() || !v.isNumber()) {
-            throw new HtSemanticException("The value '" + v + "' cannot be mod by '" + stringValue + "'.");
+            throw new HtSemanticException("The value '" + v + "' cannot be mod by '" + toString() + "'.");
         }
 
         if (isInteger() && v.isInteger())
-            return new Value(longValue() % v.longValue());
+            return ofInteger(longValue() % v.longValue());
         else
             return new Value(doubleValue() % v.doubleValue());
     }
@@ -998,7 +1168,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value not() throws HtSemanticException {
         if (!isBoolean())
-            throw new HtSemanticException("Expected a logical value here, but got '" + stringValue + "'.");
+            throw new HtSemanticException("Expected a logical value here, but got '" + toString() + "'.");
 
         return new Value(!booleanValue());
     }
@@ -1011,11 +1181,11 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value negate() throws HtSemanticException {
         if (isInteger())
-            return new Value(longValue() * -1);
+            return ofInteger(longValue() * -1);
         else if (isNumber())
             return new Value(doubleValue() * -1);
         else {
-            throw new HtSemanticException("Expected a number here, but got '" + stringValue + "'.");
+            throw new HtSemanticException("Expected a number here, but got '" + toString() + "'.");
         }
     }
 
@@ -1030,7 +1200,7 @@ public class Value implements StyledComparable<Value>, Serializable {
 
         // Allow for short circuit evaluation
         if (!isBoolean()) {
-            throw new HtSemanticException("Expected a logical value here, but got '" + stringValue + "'.");
+            throw new HtSemanticException("Expected a logical value here, but got '" + toString() + "'.");
         }
 
         if (!v.isBoolean()) {
@@ -1050,7 +1220,7 @@ public class Value implements StyledComparable<Value>, Serializable {
     public Value or(Value v) throws HtSemanticException {
 
         if (!isBoolean()) {
-            throw new HtSemanticException("Expected a logical value here, but got '" + stringValue + "'.");
+            throw new HtSemanticException("Expected a logical value here, but got '" + toString() + "'.");
         }
 
         if (!v.isBoolean()) {
@@ -1067,7 +1237,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      * @return The resultant value
      */
     public Value concat(Value v) {
-        return new Value(stringValue + v.toString());
+        return ofAppended(this, v);
     }
 
     /**
@@ -1080,7 +1250,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value isWithin(Value v) throws HtSemanticException {
         if (!isPoint() || !v.isRect()) {
-            throw new HtSemanticException("Cannot determine if '" + stringValue + "' is within the bounds of '" + v.toString() + "'.");
+            throw new HtSemanticException("Cannot determine if '" + toString() + "' is within the bounds of '" + v.toString() + "'.");
         }
 
         return new Value(v.rectangleValue().contains(pointValue()));
@@ -1095,9 +1265,9 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value trunc() throws HtSemanticException {
         if (isInteger()) {
-            return new Value(integerValue());
+            return ofInteger(integerValue());
         } else if (isNumber()) {
-            return new Value((int) doubleValue());
+            return ofInteger((int) doubleValue());
         }
 
         throw new HtSemanticException("Cannot trunc the value '" + toString() + "' because it is not a number.");
@@ -1111,7 +1281,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     public Value round() throws HtSemanticException {
         if (isNumber()) {
-            return new Value(Math.round(doubleValue()));
+            return ofInteger(Math.round(doubleValue()));
         }
 
         throw new HtSemanticException("Expected a number, but got " + this);
@@ -1153,7 +1323,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      * @return True if the given value can be found within this value
      */
     public boolean contains(Value v) {
-        return stringValue.toLowerCase().contains(v.toString().toLowerCase());
+        return toString().toLowerCase().contains(v.toString().toLowerCase());
     }
 
     /**
@@ -1162,6 +1332,18 @@ public class Value implements StyledComparable<Value>, Serializable {
      * @return The string representation of this value.
      */
     public String toString() {
+        if (stringValue == null) {
+            if (appendBuffer != null) {
+                synchronized (appendBuffer) {
+                    stringValue = appendBuffer.substring(0, appendLength);
+                }
+            } else if (longValue != null) {
+                stringValue = String.valueOf((long) longValue);
+            } else {
+                stringValue = String.valueOf((double) floatValue);
+            }
+        }
+
         return stringValue;
     }
 
@@ -1196,8 +1378,8 @@ public class Value implements StyledComparable<Value>, Serializable {
         else if (isInteger() && otherValue.isInteger()) {
             // Weird special case: "" is a valid number (zero), but is not equal to 0
             // Thus, '2 * "" = 0', but '0 <> ""' -- don't believe me, try it in HyperCard!
-            if (stringValue.equals("") || otherValue.stringValue.equals("")) {
-                return stringValue.equals(otherValue.stringValue);
+            if (isEmpty() || otherValue.isEmpty()) {
+                return isEmpty() && otherValue.isEmpty();
             } else {
                 return this.integerValue() == otherValue.integerValue();
             }
@@ -1219,7 +1401,7 @@ public class Value implements StyledComparable<Value>, Serializable {
      */
     @Override
     public int hashCode() {
-        return stringValue.hashCode();
+        return toString().hashCode();
     }
 
     /**
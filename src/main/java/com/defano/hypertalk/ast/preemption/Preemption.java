@@ -12,4 +12,13 @@ import com.defano.hypertalk.exception.HtNoSuchPropertyException;
  * {@link HtNoSuchPropertyException} or {@link com.defano.hypertalk.exception.HtException}).
  */
 public class Preemption extends Exception {
+
+    /**
+     * Creates a preemption without capturing a stack trace. Preemptions are thrown routinely (every 'return', 'next
+     * repeat' or 'exit' statement produces one) and are always caught by the interpreter, so the cost of filling in
+     * the Java stack trace of a deeply recursive script would be paid for nothing.
+     */
+    public Preemption() {
+        super(null, null, false, false);
+    }
 }
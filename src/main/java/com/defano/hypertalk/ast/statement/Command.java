@@ -2,10 +2,12 @@ package com.defano.hypertalk.ast.statement;
 
 import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.ast.preemption.Preemption;
+import com.defano.wyldcard.debug.message.HandlerInvocationCache;
+import com.defano.wyldcard.message.HandlerResolutionCache;
 import com.defano.wyldcard.message.Message;
 import com.defano.wyldcard.message.MessageBuilder;
+import com.defano.wyldcard.part.card.CardModel;
 import com.defano.wyldcard.runtime.ExecutionContext;
-import com.defano.wyldcard.runtime.executor.observer.MessageCompletionObserver;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
 import org.antlr.v4.runtime.ParserRuleContext;
@@ -22,12 +24,14 @@ import java.util.concurrent.CountDownLatch;
  * This base class provides logic for sending the command's name to the current card hierarchy and invoking the
  * subclass's implementation of the command ({@link Statement#onExecute(ExecutionContext)}) if and only if the command was not trapped by the
  * card.
+ * <p>
+ * A command node may be executed by several scripts at once (compiled scripts are shared between parts, and handlers
+ * may run concurrently on different threads), so whether the message was trapped is tracked per execution, not in the
+ * node.
  */
-public abstract class Command extends Statement implements MessageCompletionObserver {
+public abstract class Command extends Statement {
 
     private final String messageName;
-    private boolean trapped = false;
-    private CountDownLatch cdl = new CountDownLatch(1);
 
     protected Command(ParserRuleContext context, String messageName) {
         super(context);
@@ -36,19 +40,27 @@ public abstract class Command extends Statement implements MessageCompletionObse
 
     @Override
     public final void execute(ExecutionContext context) throws HtException, Preemption {
-        if (messageName != null) {
-            cdl = new CountDownLatch(1);
+        boolean trapped = false;
+
+        if (messageName != null && isDispatchRequired(context)) {
+            CountDownLatch cdl = new CountDownLatch(1);
+            boolean[] wasTrapped = new boolean[1];
 
             // Send command message to current card
             Message message = MessageBuilder.named(messageName).withArguments(getEvaluatedMessageArguments(context)).build();
-            context.getCurrentCard().getPartModel().receiveMessage(context, this, message, this);
+            context.getCurrentCard().getPartModel().receiveMessage(context, this, message, (msg, isTrapped, err) -> {
+                wasTrapped[0] = isTrapped;
+                cdl.countDown();
+            });
 
-            // Wait for command handler to finish executing
+            // Handlers run on this (script) thread and have already finished; wait only if they were dispatched elsewhere
             try {
                 cdl.await();
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
             }
+
+            trapped = wasTrapped[0];
         }
 
         // Do not execute this command if handler trapped the message
@@ -62,6 +74,26 @@ public abstract class Command extends Statement implements MessageCompletionObse
         }
     }
 
+    /**
+     * Determines if this command's message needs to be sent to the current card's message passing hierarchy. When no
+     * script in the hierarchy handles the message (the common case), the message could not be trapped, so there's no
+     * need to evaluate its arguments and wait on the script executor to pass it through each part.
+     * <p>
+     * The message is always sent when the message watcher is observing handler invocations (so that it can display
+     * the unhandled message) or when there is no target (so that the card is recorded as the target).
+     *
+     * @param context The execution context.
+     * @return True if the message must be sent; false if it is known that no part will trap it
+     */
+    public boolean isDispatchRequired(ExecutionContext context) {
+        if (context.getTarget() == null || HandlerInvocationCache.getInstance().hasObservers()) {
+            return true;
+        }
+
+        CardModel card = context.getCurrentCard().getPartModel();
+        return HandlerResolutionCache.getInstance().getHandlingPart(context, card, messageName) != null;
+    }
+
     /**
      * Gets the arguments to be passed to the command handler. Override in subclasses for commands whose associated
      * message accepts arguments.
@@ -73,13 +105,4 @@ public abstract class Command extends Statement implements MessageCompletionObse
     protected List<Value> getEvaluatedMessageArguments(ExecutionContext context) throws HtException {
         return new ArrayList<>();
     }
-
-    /**
-     * {@inheritDoc
-     */
-    @Override
-    public void onMessagePassed(Message message, boolean wasTrapped, HtException err) {
-        this.trapped = wasTrapped;
-        cdl.countDown();
-    }
 }
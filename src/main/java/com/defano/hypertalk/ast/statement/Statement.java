@@ -12,14 +12,9 @@ import org.antlr.v4.runtime.ParserRuleContext;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.CountDownLatch;
 
 public abstract class Statement extends ASTNode {
 
-    private boolean breakpoint;         // Breakpoint applied to this line
-    private CountDownLatch hold;        // Latch used to pause execution during breakpoint debugging
-    private boolean abortFlag;          // Indicates script should be aborted when breakpoint is released
-
     public Statement(ParserRuleContext context) {
         super(context);
     }
@@ -67,12 +62,18 @@ public abstract class Statement extends ASTNode {
         return false;
     }
 
-    public void setBreakpoint(boolean isBreakpoint) {
-        this.breakpoint = isBreakpoint;
-    }
-
-    public boolean hasBreakpoint() {
-        return isPermanentBreakpoint() || breakpoint;
+    /**
+     * Determines if this statement is a breakpoint; either a permanent breakpoint, or a line marked as a breakpoint in
+     * the script of the part that is presently executing it.
+     * <p>
+     * Compiled statements are shared between all parts having identical scripts, so user-marked breakpoints are not
+     * a property of the statement itself, but of the stack frame in which the statement is executing.
+     *
+     * @param context The execution context.
+     * @return True if this statement is a breakpoint, false otherwise.
+     */
+    public boolean hasBreakpoint(ExecutionContext context) {
+        return isPermanentBreakpoint() || (getToken() != null && context.getStackFrame().isBreakpoint(getToken().getLine()));
     }
 
     /**
@@ -83,41 +84,10 @@ public abstract class Statement extends ASTNode {
         if (DebugContext.getInstance().isBreakpoint(context, this)) {
             DebugContext.getInstance().debug(context, this);
 
-            if (abortFlag) {
-                abortFlag = false;
+            if (DebugContext.getInstance().wasAborted()) {
                 throw new ExitToHyperCard();
             }
         }
     }
 
-    /**
-     * Pauses execution of this script until {@link #release()} is invoked.
-     */
-    public void hold() {
-        try {
-            hold = new CountDownLatch(1);
-            hold.await();
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-    }
-
-    /**
-     * Resumes execution of this script. Has no effect if the thread was not paused via a call to {@link #hold()}
-     */
-    public void release() {
-        if (hold != null) {
-            hold.countDown();
-        }
-    }
-
-    /**
-     * Aborts execution of this script (equivalent to invoking 'exit to hypercard').
-     */
-    public void abort() {
-        if (hold != null) {
-            abortFlag = true;
-            release();
-        }
-    }
 }
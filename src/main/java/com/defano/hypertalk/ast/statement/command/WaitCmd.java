@@ -7,10 +7,13 @@ import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.ast.model.enums.TimeUnit;
 import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.executor.WaitMonitor;
 import org.antlr.v4.runtime.ParserRuleContext;
 
 public class WaitCmd extends Command {
 
+    private static final long MAX_REEVALUATION_INTERVAL_MS = 100;   // Re-evaluate at least this often, changes or not
+
     private final Expression expression;
     private final TimeUnit units;
     private final Boolean polarity;
@@ -49,11 +52,20 @@ public class WaitCmd extends Command {
         }
 
         else {
+            // Re-evaluate the condition only when something it may depend on changes (see WaitMonitor)
+            WaitMonitor monitor = WaitMonitor.getInstance();
+            long changeCount = monitor.getChangeCount();
+
             while (expression.evaluate(context).booleanValue() != polarity) {
+                if (context.didAbort()) {
+                    throw new HtSemanticException("Script aborted.");
+                }
+
                 try {
-                    Thread.sleep(10);
+                    changeCount = monitor.awaitChange(changeCount, MAX_REEVALUATION_INTERVAL_MS);
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
+                    return;
                 }
             }
         }
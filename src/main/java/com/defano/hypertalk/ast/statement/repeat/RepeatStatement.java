@@ -56,6 +56,7 @@ public class RepeatStatement extends Statement {
     private void executeRepeatWith(ExecutionContext context) throws HtException, Preemption {
         RepeatWith with = (RepeatWith) range;
         String symbol = with.symbol;
+        int slot = with.slot;
         RepeatRange withRange = with.range;
 
         Value fromValue = withRange.from.evaluate(context);
@@ -75,7 +76,7 @@ public class RepeatStatement extends Statement {
                 throw new HtSemanticException("Start of repeat range is greater than end: " + from + " > " + to);
 
             for (int index = from; index <= to; index++) {
-                context.setVariable(symbol, new Value(index));
+                context.setVariable(symbol, slot, Value.ofInteger(index));
                 iterate(context);
             }
         }
@@ -85,7 +86,7 @@ public class RepeatStatement extends Statement {
                 throw new HtSemanticException("End of repeat range is less than start: " + to + " > " + from);
 
             for (int index = from; index >= to; index--) {
-                context.setVariable(symbol, new Value(index));
+                context.setVariable(symbol, slot, Value.ofInteger(index));
                 iterate(context);
             }
         }
@@ -3,10 +3,12 @@ package com.defano.hypertalk.ast.statement.repeat;
 public class RepeatWith extends RepeatSpecifier {
 
     public final String symbol;
+    public final int slot;          // Slot assigned to the loop variable in the enclosing handler; -1 outside of handlers
     public final RepeatRange range;
     
-    public RepeatWith (String symbol, RepeatRange range) {
+    public RepeatWith (String symbol, int slot, RepeatRange range) {
         this.symbol = symbol;
+        this.slot = slot;
         this.range = range;
     }
 }
@@ -0,0 +1,320 @@
+package com.defano.hypertalk.util;
+
+import com.defano.hypertalk.ast.model.enums.Ordinal;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * An index of the character offsets of every chunk (i.e., every line, word or item) in a string. Building an index
+ * requires a single scan of the string; thereafter, the range of any chunk, and the number of chunks, can be looked up
+ * in constant time.
+ * <p>
+ * Chunk boundaries are found by a hand-written scan of the string's characters (no regular expressions, matchers or
+ * substrings are involved). Chunks are delimited as follows:
+ * <ul>
+ * <li>Words are runs of non-whitespace characters (whitespace being space, tab, line feed, vertical tab, form feed and
+ * carriage return).</li>
+ * <li>Lines are separated by a line terminator (line feed, carriage return, CR-LF, next-line, line separator or
+ * paragraph separator); a terminator at the end of the string does not begin a new, empty line.</li>
+ * <li>Items are separated by the item delimiter; every delimiter begins a new (possibly empty) item, including one at
+ * the end of the string.</li>
+ * </ul>
+ * An empty string contains no words, lines or items.
+ * <p>
+ * Indices are immutable and are typically cached by the {@link com.defano.hypertalk.ast.model.Value} that they index
+ * so that repeated chunk expressions over the same value (i.e., `repeat with i = 1 to the number of lines in x` ...
+ * `get line i of x`) do not rescan the value on each access.
+ */
+public class ChunkIndex {
+
+    private final int length;           // Length of the indexed string
+    private final int count;            // Number of chunks in the indexed string
+    private final int[] starts;         // Start offset of each chunk, inclusive; null when chunk n occupies char n
+    private final int[] ends;           // End offset of each chunk, exclusive; null when chunk n occupies char n
+    private final String delimiter;     // Item delimiter in effect when this index was created; null for other chunks
+
+    private ChunkIndex(int length, int count, int[] starts, int[] ends, String delimiter) {
+        this.length = length;
+        this.count = count;
+        this.starts = starts;
+        this.ends = ends;
+        this.delimiter = delimiter;
+    }
+
+    /**
+     * Indexes every word in the given string.
+     *
+     * @param value The string to index
+     * @return The index
+     */
+    public static ChunkIndex ofWords(String value) {
+        return scanWords(value, new Scan(true)).toIndex(value, null);
+    }
+
+    /**
+     * Indexes every line in the given string.
+     *
+     * @param value The string to index
+     * @return The index
+     */
+    public static ChunkIndex ofLines(String value) {
+        return scanLines(value, new Scan(true)).toIndex(value, null);
+    }
+
+    /**
+     * Indexes every item in the given string.
+     *
+     * @param value         The string to index
+     * @param itemDelimiter The item delimiter; when empty, a non-empty string consists of a single item
+     * @return The index
+     */
+    public static ChunkIndex ofItems(String value, String itemDelimiter) {
+        return scanItems(value, itemDelimiter, new Scan(true)).toIndex(value, itemDelimiter);
+    }
+
+    /**
+     * Counts the words in the given string without indexing them.
+     *
+     * @param value The string whose words should be counted
+     * @return The number of words in the string
+     */
+    public static int countWords(String value) {
+        return scanWords(value, new Scan(false)).count;
+    }
+
+    /**
+     * Counts the lines in the given string without indexing them.
+     *
+     * @param value The string whose lines should be counted
+     * @return The number of lines in the string
+     */
+    public static int countLines(String value) {
+        return scanLines(value, new Scan(false)).count;
+    }
+
+    /**
+     * Counts the items in the given string without indexing them.
+     *
+     * @param value         The string whose items should be counted
+     * @param itemDelimiter The item delimiter
+     * @return The number of items in the string
+     */
+    public static int countItems(String value, String itemDelimiter) {
+        return scanItems(value, itemDelimiter, new Scan(false)).count;
+    }
+
+    /**
+     * Indexes every character in the given string. Characters are counted by code point, so a surrogate pair (i.e., an
+     * emoji) is a single character chunk, as it is when characters are matched by regular expression.
+     * <p>
+     * Strings without surrogate pairs (the overwhelmingly common case) require no storage beyond the index itself.
+     *
+     * @param value The string to index
+     * @return The index
+     */
+    public static ChunkIndex ofChars(String value) {
+        int length = value.length();
+        int count = value.codePointCount(0, length);
+
+        if (count == length) {
+            return new ChunkIndex(length, count, null, null, null);
+        }
+
+        int[] starts = new int[count];
+        int[] ends = new int[count];
+        for (int index = 0, offset = 0; index < count; index++) {
+            starts[index] = offset;
+            offset += Character.charCount(value.codePointAt(offset));
+            ends[index] = offset;
+        }
+
+        return new ChunkIndex(length, count, starts, ends, null);
+    }
+
+    /**
+     * Gets the number of chunks in the indexed string.
+     *
+     * @return The number of chunks
+     */
+    public int getCount() {
+        return count;
+    }
+
+    /**
+     * Determines if this index was built for items delimited by the given item delimiter.
+     *
+     * @param itemDelimiter The item delimiter
+     * @return True if this index may be used to address items delimited by itemDelimiter
+     */
+    public boolean isDelimitedBy(String itemDelimiter) {
+        return delimiter != null && delimiter.equals(itemDelimiter);
+    }
+
+    /**
+     * Gets the range of characters identified by a single chunk.
+     *
+     * @param number The chunk number, counting from 1, or one of the reserved {@link Ordinal} values (last, middle or
+     *               any)
+     * @return The range of characters in the chunk, or a zero-length range at the end of the string if no such chunk
+     * exists.
+     */
+    public Range getRange(int number) {
+        int index;
+
+        if (number == Ordinal.LAST.intValue()) {
+            index = count - 1;
+        } else if (number == Ordinal.MIDDLE.intValue()) {
+            index = count / 2;
+        } else if (number == Ordinal.ANY.intValue() && count > 0) {
+            index = new Random().nextInt(count);
+        } else {
+            index = number - 1;
+        }
+
+        if (index < 0 || index >= count) {
+            return new Range(length, length);
+        }
+
+        return getRangeAt(index);
+    }
+
+    /**
+     * Gets the range of characters identified by a range of chunks (i.e., `lines 3 to 5`).
+     *
+     * @param start The first chunk in the range, inclusive, counting from 1.
+     * @param end   The last chunk in the range, inclusive, counting from 1.
+     * @return The range of characters spanned by the chunks
+     */
+    public Range getRange(int start, int end) {
+        return new Range(getRange(start).start, getRange(end).end);
+    }
+
+    /**
+     * Gets the range of characters occupied by the chunk at a zero-based position in the index.
+     *
+     * @param index The zero-based index of the chunk; must be less than {@link #getCount()}
+     * @return The range of characters in the chunk
+     */
+    public Range getRangeAt(int index) {
+        if (starts == null) {
+            return new Range(index, index + 1);
+        }
+
+        return new Range(starts[index], ends[index]);
+    }
+
+    private static Scan scanWords(String value, Scan chunks) {
+        int length = value.length();
+
+        for (int offset = 0; offset < length; ) {
+            while (offset < length && isWhitespace(value.charAt(offset))) {
+                offset++;
+            }
+
+            if (offset < length) {
+                int start = offset;
+                while (offset < length && !isWhitespace(value.charAt(offset))) {
+                    offset++;
+                }
+                chunks.add(start, offset);
+            }
+        }
+
+        return chunks;
+    }
+
+    private static Scan scanLines(String value, Scan chunks) {
+        int length = value.length();
+
+        for (int offset = 0; offset < length; ) {
+            int start = offset;
+            while (offset < length && !isLineTerminator(value.charAt(offset))) {
+                offset++;
+            }
+            chunks.add(start, offset);
+
+            // Skip the terminator; CR-LF terminates a single line
+            if (offset < length) {
+                offset += value.startsWith("\r\n", offset) ? 2 : 1;
+            }
+        }
+
+        return chunks;
+    }
+
+    private static Scan scanItems(String value, String itemDelimiter, Scan chunks) {
+        int length = value.length();
+        int delimiterLength = itemDelimiter.length();
+
+        if (length == 0) {
+            return chunks;
+        } else if (delimiterLength == 0) {
+            return chunks.add(0, length);
+        }
+
+        int start = 0;
+        if (delimiterLength == 1) {
+            char delimiter = itemDelimiter.charAt(0);
+            for (int offset = 0; offset < length; offset++) {
+                if (value.charAt(offset) == delimiter) {
+                    chunks.add(start, offset);
+                    start = offset + 1;
+                }
+            }
+        } else {
+            for (int offset = value.indexOf(itemDelimiter); offset >= 0; offset = value.indexOf(itemDelimiter, start)) {
+                chunks.add(start, offset);
+                start = offset + delimiterLength;
+            }
+        }
+
+        return chunks.add(start, length);
+    }
+
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    private static boolean isLineTerminator(char c) {
+        return c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029';
+    }
+
+    /**
+     * Accumulates the chunks found while scanning a string; records the offsets of each chunk only when building an
+     * index.
+     */
+    private static class Scan {
+        private final boolean indexing;
+        private int[] starts;
+        private int[] ends;
+        private int count;
+
+        private Scan(boolean indexing) {
+            this.indexing = indexing;
+            if (indexing) {
+                starts = new int[16];
+                ends = new int[16];
+            }
+        }
+
+        private Scan add(int start, int end) {
+            if (indexing) {
+                if (count == starts.length) {
+                    starts = Arrays.copyOf(starts, count * 2);
+                    ends = Arrays.copyOf(ends, count * 2);
+                }
+
+                starts[count] = start;
+                ends[count] = end;
+            }
+
+            count++;
+            return this;
+        }
+
+        private ChunkIndex toIndex(String value, String delimiter) {
+            return new ChunkIndex(value.length(), count, starts, ends, delimiter);
+        }
+    }
+}
@@ -9,18 +9,9 @@ import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.wyldcard.WyldCard;
 import com.defano.wyldcard.part.wyldcard.WyldCardProperties;
 import com.defano.wyldcard.runtime.ExecutionContext;
-import com.google.common.collect.Lists;
-
-import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 public class ChunkUtils {
 
-    private static final Pattern CHAR_REGEX = Pattern.compile("[\\s\\S]");
-    private static final Pattern WORD_REGEX = Pattern.compile("\\S+");
-    private static final Pattern LINE_REGEX = Pattern.compile("(?m)^.*$");
-
     /**
      * Gets a chunk of a value. For example, 'the last line of x'
      *
@@ -130,78 +121,59 @@ public class ChunkUtils {
      * @return The number of found chunks
      */
     public static int getCount(ExecutionContext context, ChunkType chunkType, String value) {
-        Pattern pattern = getRegexForChunkType(context, chunkType);
-        Matcher matcher = pattern.matcher(value);
-        return getMatchCount(matcher);
+        switch (chunkType) {
+            case CHAR:
+            case CHARRANGE:
+                return value.codePointCount(0, value.length());
+            case WORD:
+            case WORDRANGE:
+                return ChunkIndex.countWords(value);
+            case LINE:
+            case LINERANGE:
+                return ChunkIndex.countLines(value);
+            case ITEM:
+            case ITEMRANGE:
+                return ChunkIndex.countItems(value, getItemDelimiter(context));
+            default:
+                throw new RuntimeException("Bug! Not implemented: " + chunkType);
+        }
     }
 
     /**
-     * Gets a regular expression useful in matching tokens of the given ChunkType.
+     * Indexes every chunk of the specified type in value.
      *
      * @param context   The execution context.
-     * @param chunkType The ChunkType whose regular expression should be returned.
-     * @return The regex for the given chunk type.
+     * @param chunkType The type of chunk to index; characters, words, lines or items.
+     * @param value     The value whose chunks are to be indexed.
+     * @return An index of the chunks in value
      */
-    @SuppressWarnings("StringBufferReplaceableByString")
-    public static Pattern getRegexForChunkType(ExecutionContext context, ChunkType chunkType) {
-
+    public static ChunkIndex getChunkIndex(ExecutionContext context, ChunkType chunkType, String value) {
         switch (chunkType) {
             case CHAR:
             case CHARRANGE:
-                return CHAR_REGEX;
+                return ChunkIndex.ofChars(value);
             case WORD:
             case WORDRANGE:
-                return WORD_REGEX;
+                return ChunkIndex.ofWords(value);
             case LINE:
             case LINERANGE:
-                return LINE_REGEX;
+                return ChunkIndex.ofLines(value);
             case ITEM:
             case ITEMRANGE:
-                String itemDelimiterRegex = getItemDelimiterRegex(context);
-                StringBuilder patternBuilder = new StringBuilder();
-
-                // Match empty item in first position (i.e., ",2,3" -- item 3 is '3')
-                patternBuilder.append("^(?=").append(itemDelimiterRegex).append(")|");
-
-                // Match empty item in last position (i.e., "1,2,3," -- item 4 is '')
-                patternBuilder.append("(?<=").append(itemDelimiterRegex).append(")$|");
-
-                // Match empty item mid-list (i.e., "1,,2,3" -- item 2 is '')
-                patternBuilder.append("(?<=").append(itemDelimiterRegex).append(")(?=").append(itemDelimiterRegex).append(")|");
-
-                // Normal case: Match all non-delimiter characters between delimiters (i.e., "1,2,3" -- item 2 is '2')
-                patternBuilder.append("[^").append(itemDelimiterRegex).append("]+");
-
-                return Pattern.compile(patternBuilder.toString());
-
+                return ChunkIndex.ofItems(value, getItemDelimiter(context));
             default:
                 throw new RuntimeException("Bug! Not implemented: " + chunkType);
         }
     }
 
     /**
-     * Converts the item delimiter string (which may contain regex special characters) into a valid regular expression
-     * by pre-pending special characters with an escape '\'.
+     * Gets the current item delimiter (the value of WyldCard's `itemDelimiter` property).
      *
      * @param context The execution context.
-     * @return A valid regular expression matching strings that are equal to item delimiter string literal.
+     * @return The item delimiter string
      */
-    @SuppressWarnings("UnstableApiUsage")
-    private static String getItemDelimiterRegex(ExecutionContext context) {
-        List<Character> specialChars = Lists.charactersOf("[\\^$.|?*+()");
-
-        String itemDelimiter = WyldCard.getInstance().getWyldCardPart().get(context, WyldCardProperties.PROP_ITEMDELIMITER).toString();
-        StringBuilder itemDelimiterRegex = new StringBuilder();
-
-        for (char thisChar : itemDelimiter.toCharArray()) {
-            if (specialChars.contains(thisChar)) {
-                itemDelimiterRegex.append("\\");
-            }
-
-            itemDelimiterRegex.append(thisChar);
-        }
-
-        return itemDelimiterRegex.toString();
+    public static String getItemDelimiter(ExecutionContext context) {
+        return WyldCard.getInstance().getWyldCardPart().get(context, WyldCardProperties.PROP_ITEMDELIMITER).toString();
     }
 
     /**
@@ -225,28 +197,12 @@ public class ChunkUtils {
                 return "\n";
             case ITEMRANGE:
             case ITEM:
-                return WyldCard.getInstance().getWyldCardPart().get(context, WyldCardProperties.PROP_ITEMDELIMITER).toString();
+                return getItemDelimiter(context);
             default:
                 throw new RuntimeException("Bug! Not implemented: " + chunkType);
         }
     }
 
-    /**
-     * Returns the number of pattern matches present in the given reg-ex matcher. Note that this is not the same
-     * as the group count and cannot be retrieved with match.groupCount().
-     *
-     * @param matcher The regex matcher to count.
-     * @return The number of pattern matches present.
-     */
-    static int getMatchCount(Matcher matcher) {
-        int matchCount = 0;
-        while (matcher.find()) {
-            matchCount++;
-        }
-        matcher.reset();
-        return matchCount;
-    }
-
     private static String putSingleChunk(ExecutionContext context, ChunkType c, Preposition p, String value, int start, String replacement) {
         switch (p) {
             case BEFORE:
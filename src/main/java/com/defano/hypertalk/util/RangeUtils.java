@@ -9,10 +9,6 @@ import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.wyldcard.runtime.ExecutionContext;
 
-import java.util.Random;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
-
 public class RangeUtils {
 
     /**
@@ -39,9 +35,7 @@ public class RangeUtils {
      * @return The range of characters identified.
      */
     public static Range getRange(ExecutionContext context, String value, ChunkType chunkType, int start, int end) {
-        Range startRange = getRange(context, value, chunkType, start);
-        Range endRange = getRange(context, value, chunkType, end);
-        return new Range(startRange.start, endRange.end);
+        return ChunkUtils.getChunkIndex(context, chunkType, value).getRange(start, end);
     }
 
     /**
@@ -54,25 +48,7 @@ public class RangeUtils {
      * @return The range of characters identified by this chunk.
      */
     public static Range getRange(ExecutionContext context, String value, ChunkType chunkType, int count) {
-        Pattern pattern = ChunkUtils.getRegexForChunkType(context, chunkType);
-        Matcher matcher = pattern.matcher(value);
-        int matchCount = ChunkUtils.getMatchCount(matcher);
-
-        if (count == Ordinal.LAST.intValue()) {
-            advanceToMatch(matcher, matchCount - 1);
-        } else if (count == Ordinal.MIDDLE.intValue()) {
-            advanceToMatch(matcher, matchCount / 2);
-        } else if (count == Ordinal.ANY.intValue() && matchCount > 0) {
-            advanceToMatch(matcher, new Random().nextInt(matchCount));
-        } else {
-            advanceToMatch(matcher, count - 1);
-        }
-
-        try {
-            return new Range(matcher.start(), matcher.end());
-        } catch (IllegalStateException e) {
-            return new Range(value.length(), value.length());
-        }
+        return ChunkUtils.getChunkIndex(context, chunkType, value).getRange(count);
     }
 
     /**
@@ -134,11 +110,4 @@ public class RangeUtils {
         return new Range(in.start + range.start, in.start + range.start + (range.end - range.start));
     }
 
-    @SuppressWarnings("ResultOfMethodCallIgnored")
-    private static void advanceToMatch(Matcher matcher, int index) {
-        while (index-- >= 0) {
-            matcher.find();
-        }
-    }
-
 }
@@ -18,6 +18,7 @@ import com.defano.wyldcard.runtime.manager.IdleObserver;
 import com.defano.wyldcard.runtime.manager.PaintManager;
 import com.defano.wyldcard.runtime.manager.PartToolManager;
 import com.defano.wyldcard.runtime.manager.PeriodicMessageManager;
+import com.defano.wyldcard.serializer.BinarySerializer;
 import com.defano.wyldcard.serializer.Serializer;
 import com.defano.wyldcard.thread.Invoke;
 import com.defano.wyldcard.util.ImageLayerUtils;
@@ -221,7 +222,16 @@ public class WyldCardStackManager implements StackNavigationObserver, StackManag
             try {
                 LOG.debug("Serializing stack {} to file {}.", stackModel, file.getName());
 
-                Serializer.serialize(file, stackModel);
+                long generation = stackModel.getModificationJournal().getGeneration();
+
+                // Re-saving a stack to its own file writes only what changed; saving elsewhere writes a complete file
+                if (file.equals(stackModel.getSavedStackFileProvider().blockingFirst().orElse(null))) {
+                    BinarySerializer.append(file, stackModel);
+                } else {
+                    BinarySerializer.serialize(file, stackModel);
+                }
+
+                stackModel.getModificationJournal().markSaved(generation);
                 stackModel.setSavedStackFile(context, file);
                 context.setResult(new Value());
             } catch (IOException e) {
@@ -4,6 +4,7 @@ import com.defano.jmonet.canvas.JMonetCanvas;
 import com.defano.wyldcard.WyldCard;
 import com.defano.wyldcard.part.stack.StackModel;
 import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.executor.WaitMonitor;
 import com.google.inject.Singleton;
 
 import javax.swing.FocusManager;
@@ -44,6 +45,9 @@ public class WyldCardKeyboardManager implements KeyboardManager {
 
             fireGlobalKeyListeners(e);
 
+            // Scripts waiting on the keyboard (or for command-period) need to re-evaluate
+            WaitMonitor.getInstance().notifyChanged();
+
             // When no UI element has keyboard focus, send key press events to the displayed card
             if (FocusManager.getCurrentManager().getFocusOwner() == null || FocusManager.getCurrentManager().getFocusOwner() instanceof JMonetCanvas) {
                 delegateKeyEventToFocusedCard(e);
@@ -3,6 +3,7 @@ package com.defano.wyldcard.awt.mouse;
 import com.defano.wyldcard.WyldCard;
 import com.defano.wyldcard.part.card.CardPart;
 import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.executor.WaitMonitor;
 import com.defano.hypertalk.exception.HtSemanticException;
 import com.google.inject.Singleton;
 
@@ -33,7 +34,7 @@ public class WyldCardMouseManager implements MouseManager {
      */
     @Override
     public void start() {
-        Toolkit.getDefaultToolkit().addAWTEventListener(listener, AWTEvent.MOUSE_EVENT_MASK);
+        Toolkit.getDefaultToolkit().addAWTEventListener(listener, AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK);
     }
 
     /**
@@ -166,6 +167,9 @@ public class WyldCardMouseManager implements MouseManager {
             mouseIsDown = false;
             fireOnMouseReleased();
         }
+
+        // Scripts waiting on the mouse (or its location) need to re-evaluate
+        WaitMonitor.getInstance().notifyChanged();
     };
 
     private void fireOnMousePressed() {
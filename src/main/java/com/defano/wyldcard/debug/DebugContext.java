@@ -12,6 +12,10 @@ import io.reactivex.Observable;
 import io.reactivex.subjects.BehaviorSubject;
 
 import javax.swing.*;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
 
 /**
  * Represents the state of the WyldCard debugger.
@@ -23,9 +27,12 @@ import javax.swing.*;
  * Prior to executing any statement, the HyperTalk AST is responsible for checking if the statement represents a
  * breakpoint (via {@link #isBreakpoint(ExecutionContext, Statement)}. If this check returns true, the statement
  * should call {@link #debug(ExecutionContext, Statement)} to activate the debugger. A call to this method will pause
- * execution of the calling thread via {@link Statement#hold()} then display the script editor (in debug mode) for
+ * execution of the calling thread until the debugger is resumed then display the script editor (in debug mode) for
  * part whose script is being executed.
  * <p>
+ * Compiled statements are shared between all parts having identical scripts, so the state of a paused execution is
+ * kept here, keyed by the paused thread, and never on the statement at which it paused.
+ * <p>
  * Piece of cake!
  */
 public class DebugContext {
@@ -36,15 +43,23 @@ public class DebugContext {
     private boolean stepOver, stepInto, stepOut;    // Step modes
     private int debugStackDepth;                    // Last captured stack depth
     private ScriptEditor editor;                    // Editor being used as debugger UI
-    private Statement debugStatement;               // Statement that caused the breakpoint
     private Thread debugThread;                     // Script execution thread we're debugging
     private ExecutionContext debugContext;          // Last captured script execution context
 
+    // Latches holding each paused script thread, and threads whose script should exit when released
+    private final Map<Thread, CountDownLatch> holds = new ConcurrentHashMap<>();
+    private final Set<Thread> aborts = ConcurrentHashMap.newKeySet();
+
     // When true, a script has paused execution due to a breakpoint
     private BehaviorSubject<Boolean> isExecutionPaused = BehaviorSubject.createDefault(false);
     private BehaviorSubject<Boolean> isTracing = BehaviorSubject.createDefault(false);
     private BehaviorSubject<Boolean> isDebugging = BehaviorSubject.createDefault(false);
 
+    // Mirrors of the latest values emitted by isTracing and isDebugging; read before executing every statement, so
+    // these must be cheaper than a blocking read of the subject
+    private volatile boolean tracing;
+    private volatile boolean debugging;
+
     private DebugContext() {
     }
 
@@ -83,10 +98,9 @@ public class DebugContext {
         debugThread = Thread.currentThread();
         debugStackDepth = context.getStackDepth();
         editor = showDebugEditor(context, context.getStackFrame().getMe());
-        debugStatement = statement;
 
         // Notify observers
-        isDebugging.onNext(true);
+        setDebugging(true);
         isExecutionPaused.onNext(true);
 
         // Focus the debugger window and update the context of the variable watcher
@@ -97,7 +111,7 @@ public class DebugContext {
         });
 
         // Special case: When tracing, delay the configured amount, remove the trace highlight and keep going.
-        if (isTracing.blockingFirst()) {
+        if (tracing) {
             try {
                 Thread.sleep(traceDelayMs);
                 Invoke.onDispatch(() -> editor.getEditor().clearTraceHighlights());
@@ -108,7 +122,7 @@ public class DebugContext {
 
         // Not tracing: Block the current thread; must be last thing we do
         else {
-            statement.hold();
+            hold();
         }
     }
 
@@ -119,11 +133,28 @@ public class DebugContext {
         resume(true);
     }
 
+    /**
+     * Resumes the debugged thread and aborts its script (equivalent to the script invoking 'exit to hypercard'). Has
+     * no effect if there is no thread presently being debugged.
+     */
     public void abort() {
-        debugStatement.abort();
+        Thread thread = debugThread;
+        if (isDebugging() && thread != null && holds.containsKey(thread)) {
+            aborts.add(thread);
+        }
         resume(true);
     }
 
+    /**
+     * Determines if the debugger aborted the script executing on the current thread while it was paused, and clears
+     * the indication. A statement invokes this after returning from {@link #debug(ExecutionContext, Statement)}.
+     *
+     * @return True if the current thread's script should exit.
+     */
+    public boolean wasAborted() {
+        return aborts.remove(Thread.currentThread());
+    }
+
     /**
      * Resumes execution of the debugged thread, optionally releasing the active script editor from debug mode.
      *
@@ -135,11 +166,11 @@ public class DebugContext {
             SwingUtilities.invokeLater(() -> editor.getEditor().clearTraceHighlights());
 
             isExecutionPaused.onNext(false);
-            debugStatement.release();
+            release(debugThread);
 
             if (releaseDebugger) {
-                isDebugging.onNext(false);
-                isTracing.onNext(false);
+                setDebugging(false);
+                setTracing(false);
 
                 SwingUtilities.invokeLater(() -> {
                     editor.getEditor().finishDebugging();
@@ -162,8 +193,8 @@ public class DebugContext {
      */
     public void toggleTrace() {
         if (isDebugging()) {
-            isTracing.onNext(!isTracing.blockingFirst());
-            resume(!isTracing.blockingFirst());
+            setTracing(!tracing);
+            resume(!tracing);
         }
     }
 
@@ -226,7 +257,7 @@ public class DebugContext {
      * @return True if a script is being debugging somewhere.
      */
     public boolean isDebugging() {
-        return isDebugging.blockingFirst();
+        return debugging;
     }
 
     /**
@@ -274,18 +305,23 @@ public class DebugContext {
             return false;
         }
 
+        // Not debugging; only a marked breakpoint can stop execution
+        if (!debugging) {
+            return statement.hasBreakpoint(context);
+        }
+
         // Can only debug one thread at a time; other threads are ignored
-        if (isDebugging() && !isActiveDebugThread()) {
+        if (!isActiveDebugThread()) {
             return false;
         }
 
         // Statement has a breakpoint (user marked line as breakpoint)
-        if (statement.hasBreakpoint()) {
+        if (statement.hasBreakpoint(context)) {
             return true;
         }
 
         // In trace mode, every statement is a breakpoint
-        if (isTracing.blockingFirst()) {
+        if (tracing) {
             return true;
         }
 
@@ -311,15 +347,52 @@ public class DebugContext {
         this.traceDelayMs = traceDelayMs;
     }
 
+    private void setDebugging(boolean debugging) {
+        this.debugging = debugging;
+        isDebugging.onNext(debugging);
+    }
+
+    private void setTracing(boolean tracing) {
+        this.tracing = tracing;
+        isTracing.onNext(tracing);
+    }
+
     private void clearDebugContext() {
         debugContext = null;
         debugThread = null;
-        debugStatement = null;
         stepOut = false;
         stepInto = false;
         stepOver = false;
     }
 
+    /**
+     * Pauses execution of the current thread until {@link #release(Thread)} is invoked with it.
+     */
+    private void hold() {
+        CountDownLatch latch = new CountDownLatch(1);
+        holds.put(Thread.currentThread(), latch);
+
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            holds.remove(Thread.currentThread(), latch);
+        }
+    }
+
+    /**
+     * Resumes execution of the given thread. Has no effect if the thread was not paused via a call to {@link #hold()}.
+     *
+     * @param thread The paused thread
+     */
+    private void release(Thread thread) {
+        CountDownLatch latch = thread == null ? null : holds.get(thread);
+        if (latch != null) {
+            latch.countDown();
+        }
+    }
+
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     private boolean isActiveDebugThread() {
         return Thread.currentThread().equals(debugThread);
@@ -12,6 +12,8 @@ public class HandlerInvocationCache {
     private final List<HandlerInvocationObserver> handlerInvocationObservers = new ArrayList<>();
     private final Map<String, List<HandlerInvocation>> invocationMap = new HashMap<>();
 
+    private volatile boolean observed = false;
+
     private HandlerInvocationCache() {}
 
     public static HandlerInvocationCache getInstance() {
@@ -30,17 +32,29 @@ public class HandlerInvocationCache {
     @RunOnDispatch
     public void addObserver(HandlerInvocationObserver observer) {
         handlerInvocationObservers.add(observer);
+        observed = true;
     }
 
     @RunOnDispatch
     public void removeObserver(HandlerInvocationObserver observer) {
         handlerInvocationObservers.remove(observer);
+        observed = !handlerInvocationObservers.isEmpty();
 
         if (handlerInvocationObservers.isEmpty()) {
             clear();
         }
     }
 
+    /**
+     * Determines if any observer (i.e., the message watcher) is listening for handler invocations. Safe to invoke from
+     * any thread.
+     *
+     * @return True if handler invocations are being observed
+     */
+    public boolean hasObservers() {
+        return observed;
+    }
+
     public void clear() {
         invocationMap.clear();
     }
@@ -0,0 +1,169 @@
+package com.defano.wyldcard.importer;
+
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.wyldcard.font.TextStyleSpecifier;
+import com.defano.wyldcard.part.field.FieldModel;
+import com.defano.wyldcard.stackreader.HyperCardStack;
+import com.defano.wyldcard.stackreader.block.*;
+import com.defano.wyldcard.stackreader.enums.FontStyle;
+import com.defano.wyldcard.stackreader.enums.PartFlag;
+import com.defano.wyldcard.stackreader.enums.PartType;
+import com.defano.wyldcard.stackreader.record.PartContentRecord;
+import com.defano.wyldcard.stackreader.record.PartRecord;
+import com.defano.wyldcard.stackreader.record.StyleRecord;
+import com.defano.wyldcard.stackreader.record.StyleSpanRecord;
+import com.defano.wyldcard.util.PackedImageUtils;
+
+import javax.swing.text.AttributeSet;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.StyledDocument;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The decoded contents of a HyperCard card or background: its bitmap, and the styled text of the fields it holds.
+ * <p>
+ * Decoding a layer's bitmap and applying the style spans of its text account for most of the time spent importing a
+ * stack. Because decoding reads only the (immutable) blocks of the stack, and not the stack model being built from
+ * them, the contents of many layers can be decoded concurrently and then added to the stack model in card order.
+ */
+class LayerContents {
+
+    private final BufferedImage image;
+    private final Map<Integer, StyledDocument> partText = new HashMap<>();
+    private final Map<Integer, StyledDocument> backgroundPartText = new HashMap<>();
+
+    private LayerContents(BufferedImage image) {
+        this.image = image;
+    }
+
+    /**
+     * Decodes the contents of a card or background. May be invoked from any thread.
+     *
+     * @param layer     The card or background block to decode
+     * @param textStyle The style in which text is inserted into a new field, before its style spans are applied
+     * @return The decoded contents of the layer
+     */
+    static LayerContents decode(CardLayerBlock layer, AttributeSet textStyle) {
+        LayerContents contents = new LayerContents(PackedImageUtils.pack(layer.getImage()));
+        BackgroundBlock background = layer instanceof CardBlock ? ((CardBlock) layer).getBkgndBlock() : (BackgroundBlock) layer;
+
+        for (PartContentRecord pcr : layer.getContents()) {
+            if (pcr.isBackgroundPart()) {
+                PartRecord field = getField(background, pcr.getRawPartId());
+
+                // A card holds the unshared text of background fields; a background holds their shared text
+                if (field != null && isSharedText(field) == (layer == background)) {
+                    contents.getTextMap(layer == background).put((int) field.getPartId(), decodeText(layer.getStack(), field, pcr, textStyle));
+                }
+            } else {
+                PartRecord field = getField(layer, -pcr.getRawPartId());
+
+                if (field != null) {
+                    contents.partText.put((int) field.getPartId(), decodeText(layer.getStack(), field, pcr, textStyle));
+                }
+            }
+        }
+
+        return contents;
+    }
+
+    /**
+     * Gets the decoded image of this layer.
+     *
+     * @return The packed image of this layer, or null if the layer has no image
+     */
+    BufferedImage getImage() {
+        return image;
+    }
+
+    /**
+     * Gets the decoded text of a field on this layer; that is, a card field's text, or a background field's shared
+     * text.
+     *
+     * @param partId The ID of the field
+     * @return The field's text, or null if the layer holds no text for the field
+     */
+    StyledDocument getPartText(int partId) {
+        return partText.get(partId);
+    }
+
+    /**
+     * Gets the decoded unshared text of a background field on this card.
+     *
+     * @param partId The ID of the background field
+     * @return The field's text on this card, or null if the card holds no text for the field
+     */
+    StyledDocument getBackgroundPartText(int partId) {
+        return backgroundPartText.get(partId);
+    }
+
+    private Map<Integer, StyledDocument> getTextMap(boolean isLayerPart) {
+        return isLayerPart ? partText : backgroundPartText;
+    }
+
+    private static StyledDocument decodeText(HyperCardStack stack, PartRecord field, PartContentRecord pcr, AttributeSet textStyle) {
+        FontTableBlock fontTableBlock = stack.getBlock(FontTableBlock.class);
+        String fontFamily = fontTableBlock.getFont(field.getTextFontId()).getFontName();
+        StyledDocument document = FieldModel.newStyledDocument(fontFamily, field.getTextSize());
+
+        try {
+            if (pcr.getText() != null && !pcr.getText().isEmpty()) {
+                document.insertString(0, pcr.getText(), textStyle);
+            }
+        } catch (BadLocationException e) {
+            throw new IllegalStateException("Bug! Can't insert text into an empty document.", e);
+        }
+
+        if (pcr.isPlaintext()) {
+            applyStyle(document, 0, TextStyleSpecifier.fromFontFamily(fontFamily));
+            applyStyle(document, 0, TextStyleSpecifier.fromFontSize(field.getTextSize()));
+            applyStyle(document, 0, TextStyleSpecifier.fromFontStyle(new Value(FontStyle.asHypertalkList(field.getFontStyles()))));
+        } else {
+            applyStyleSpans(document, stack, field, fontFamily, pcr.getStyleSpans());
+        }
+
+        return document;
+    }
+
+    private static void applyStyleSpans(StyledDocument document, HyperCardStack stack, PartRecord field, String fontFamily, StyleSpanRecord[] styleSpans) {
+        FontTableBlock fontTableBlock = stack.getBlock(FontTableBlock.class);
+        StyleTableBlock styleTableBlock = stack.getBlock(StyleTableBlock.class);
+
+        for (StyleSpanRecord record : styleSpans) {
+            StyleRecord style = styleTableBlock.getStyle(record.getStyleId());
+            int position = record.getTextPosition();
+
+            if (style.getFontId() != -1) {
+                applyStyle(document, position, TextStyleSpecifier.fromFontFamily(fontTableBlock.getFont(style.getFontId()).getFontName()));
+            } else {
+                applyStyle(document, position, TextStyleSpecifier.fromFontFamily(fontFamily));
+            }
+
+            if (style.getFontSize() != -1) {
+                applyStyle(document, position, TextStyleSpecifier.fromFontSize(style.getFontSize()));
+            } else {
+                applyStyle(document, position, TextStyleSpecifier.fromFontSize(field.getTextSize()));
+            }
+
+            applyStyle(document, position, TextStyleSpecifier.fromFontStyle(new Value(FontStyle.asHypertalkList(style.getStyles()))));
+        }
+    }
+
+    private static void applyStyle(StyledDocument document, int start, TextStyleSpecifier style) {
+        document.setCharacterAttributes(start, document.getLength() - start, style.toAttributeSet(), false);
+    }
+
+    private static PartRecord getField(CardLayerBlock layer, int partId) {
+        return Arrays.stream(layer.getParts())
+                .filter(p -> p.getPartId() == partId && p.getPartType() == PartType.FIELD)
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static boolean isSharedText(PartRecord field) {
+        return Arrays.stream(field.getFlags()).anyMatch(f -> f == PartFlag.SHARED_TEXT);
+    }
+}
@@ -1,6 +1,7 @@
 package com.defano.wyldcard.importer;
 
 import com.defano.hypertalk.ast.model.Value;
+import com.defano.wyldcard.WyldCard;
 import com.defano.wyldcard.part.bkgnd.BackgroundModel;
 import com.defano.wyldcard.part.builder.*;
 import com.defano.wyldcard.part.button.ButtonModel;
@@ -16,14 +17,21 @@ import com.defano.wyldcard.stackreader.misc.ImportException;
 import com.defano.wyldcard.stackreader.misc.UnsupportedVersionException;
 import com.defano.wyldcard.stackreader.record.*;
 import com.defano.wyldcard.thread.Invoke;
+import com.google.common.base.Throwables;
 
+import javax.swing.text.AttributeSet;
+import javax.swing.text.StyledDocument;
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
 
 public class StackFormatConverter {
 
+    // Number of cards whose contents may be decoded ahead of the card being added to the stack
+    private static final int DECODE_AHEAD = Runtime.getRuntime().availableProcessors() * 4;
+
     private final ConversionStatusObserver status;
     private final ConversionProgressObserver progress;
 
@@ -35,6 +43,10 @@ public class StackFormatConverter {
     /**
      * Asynchronously converts a HyperCard stack file to a WyldCard document in the form of a {@link StackModel} object.
      * <p>
+     * The contents of cards and backgrounds (their bitmaps and styled text) are decoded concurrently on the fork-join
+     * pool, a bounded number of cards ahead of the card being added to the stack; cards are added to the stack one at a
+     * time, in card order.
+     * <p>
      * This method can take a while depending on the size of the stack being converted. It therefore provides two
      * callbacks, one for indicating that the process has completed, the other for reporting progress (measured in terms
      * of number of cards imported).
@@ -71,13 +83,20 @@ public class StackFormatConverter {
         } catch (ImportException e) {
             status.onConversionFailed("File is not a HyperCard stack or the stack is corrupted.", e);
         } catch (Exception t) {
-            status.onConversionFailed("An unexpected error occurred while reading the stack file.", t);
+            // Blocks are parsed as they're needed; a malformed block may be discovered partway through the conversion
+            if (Throwables.getCausalChain(t).stream().anyMatch(c -> c instanceof ImportException)) {
+                status.onConversionFailed("File is not a HyperCard stack or the stack is corrupted.", t);
+            } else {
+                status.onConversionFailed("An unexpected error occurred while reading the stack file.", t);
+            }
         }
     }
 
     private StackModel buildStack(ExecutionContext context, String name, HyperCardStack hcStack) {
 
         List<CardBlock> cardBlocks = hcStack.getCardBlocks();
+        Set<Integer> markedCardIds = getMarkedCardIds(hcStack);
+        AttributeSet textStyle = WyldCard.getInstance().getFontManager().getFocusedTextStyle().toAttributeSet();
 
         StackBlock stackBlock = hcStack.getBlock(StackBlock.class);
         StackModel stackModel = new StackModelBuilder()
@@ -87,97 +106,76 @@ public class StackFormatConverter {
                 .withScript(stackBlock.getStackScript())
                 .build();
 
+        Map<Integer, CompletableFuture<LayerContents>> backgroundContents = new HashMap<>();
+        Deque<CompletableFuture<LayerContents>> cardContents = new ArrayDeque<>();
+        int decodedCards = 0;
+
         for (int cardIdx = 0; cardIdx < cardBlocks.size(); cardIdx++) {
-            buildCard(context, cardBlocks.get(cardIdx), stackModel);
+
+            // Start decoding the cards (and any backgrounds not yet seen) up to a fixed distance ahead of this one
+            for (; decodedCards < cardBlocks.size() && decodedCards <= cardIdx + DECODE_AHEAD; decodedCards++) {
+                CardBlock cardBlock = cardBlocks.get(decodedCards);
+                backgroundContents.computeIfAbsent(cardBlock.getBkgndId(), id -> decode(cardBlock.getBkgndBlock(), textStyle));
+                cardContents.add(decode(cardBlock, textStyle));
+            }
+
+            CardBlock cardBlock = cardBlocks.get(cardIdx);
+            buildCard(context, cardBlock, cardContents.remove().join(), backgroundContents.get(cardBlock.getBkgndId()), markedCardIds, stackModel);
             progress.onConversionProgressUpdate(cardIdx + 1, cardBlocks.size(), "Importing card " + (cardIdx + 1) + " of " + cardBlocks.size() + ".");
         }
 
         return stackModel;
     }
 
-    private void buildCard(ExecutionContext context, CardBlock cardBlock, StackModel stackModel) {
+    private CompletableFuture<LayerContents> decode(CardLayerBlock block, AttributeSet textStyle) {
+        return CompletableFuture.supplyAsync(() -> LayerContents.decode(block, textStyle), ForkJoinPool.commonPool());
+    }
+
+    private void buildCard(ExecutionContext context, CardBlock cardBlock, LayerContents contents, CompletableFuture<LayerContents> backgroundContents, Set<Integer> markedCardIds, StackModel stackModel) {
 
         // Create card
         CardModel cardModel = new CardModelBuilder(stackModel)
                 .withId(cardBlock.getBlockId())
                 .withBackgroundId(cardBlock.getBkgndId())
                 .withName(cardBlock.getName())
-                .withIsMarked(isCardMarked(cardBlock.getBlockId(), cardBlock.getStack()))
+                .withIsMarked(markedCardIds.contains(cardBlock.getBlockId()))
                 .withCantDelete(Arrays.stream(cardBlock.getFlags()).anyMatch(f -> f == LayerFlag.CANT_DELETE))
                 .withDontSearch(Arrays.stream(cardBlock.getFlags()).anyMatch(f -> f == LayerFlag.DONT_SEARCH))
                 .withShowPict(Arrays.stream(cardBlock.getFlags()).noneMatch(f -> f == LayerFlag.HIDE_PICTURE))
-                .withImage(cardBlock.getImage())
+                .withImage(contents.getImage())
                 .withScript(cardBlock.getScript())
                 .build();
 
         // Create background (if does not exist)
-        buildBackground(cardBlock.getBkgndBlock(), stackModel);
+        buildBackground(cardBlock.getBkgndBlock(), backgroundContents, stackModel);
 
         // Create all buttons and fields and on this card
-        buildParts(cardBlock.getParts(), cardModel, cardBlock);
+        buildParts(cardBlock.getParts(), cardModel, cardBlock, contents);
 
         // Set card-contextual properties (unshared field text, button hilite, etc.)
         for (PartContentRecord pcr : cardBlock.getContents()) {
             applyUnsharedButtonHilite(context, pcr, cardModel);
-            applyTextContents(context, pcr, cardModel, false);
-            applyTextStyles(context, pcr, cardModel, cardBlock, false);
         }
 
-        // Set background-contextual properties (shared text styles)
-        for (PartContentRecord pcr : cardBlock.getBkgndBlock().getContents()) {
-            applyTextContents(context, pcr, cardModel, true);
-            applyTextStyles(context, pcr, cardModel, cardBlock, true);
+        for (FieldModel field : cardModel.getBackgroundModel().getFieldModels()) {
+            applyUnsharedText(context, field, contents.getBackgroundPartText(field.getId()), cardModel);
         }
 
         stackModel.addCard(cardModel);
     }
 
     /**
-     * Apply text style data from a given {@link PartContentRecord} to a field on a given card (or its background).
+     * Sets the unshared text of a background field on a given card. Has no effect if the text is null.
      *
-     * @param context    The execution context
-     * @param pcr        The part content record providing style data
-     * @param cardModel  The model of the card that contains the field (or the background field)
-     * @param cardBlock  The HyperCard stack's {@link CardBlock} or {@link BackgroundBlock}
-     * @param sharedText When true, style applies to shared text, when false, style applies to unshared text.
+     * @param context   The execution context
+     * @param field     The background field
+     * @param text      The decoded text of the field on the card
+     * @param cardModel The model of the card on which the text appears
      */
-    private void applyTextStyles(ExecutionContext context, PartContentRecord pcr, CardModel cardModel, CardLayerBlock cardBlock, boolean sharedText) {
-        FieldModel field;
-
-        if (pcr.isBackgroundPart()) {
-            field = cardModel.getBackgroundModel().getFieldModels().stream()
-                    .filter(f -> f.getId() == pcr.getRawPartId())
-                    .findFirst()
-                    .orElse(null);
-        } else {
-            field = cardModel.getFieldModels().stream()
-                    .filter(f -> f.getId() == -pcr.getRawPartId())
-                    .findFirst()
-                    .orElse(null);
-        }
-
-        if (field != null && (!sharedText || field.get(context, FieldModel.PROP_SHAREDTEXT).booleanValue())) {
-            int cardId = cardModel.getId();
-
-            if (pcr.isPlaintext()) {
-                field.applyFont(context, cardId, 0, field.get(context, FieldModel.PROP_TEXTFONT).toString());
-                field.applyFontSize(context, cardId, 0, field.get(context, FieldModel.PROP_TEXTSIZE).integerValue());
-                field.applyFontStyle(context, cardId, 0, field.get(context, FieldModel.PROP_TEXTSTYLE));
-            } else {
-                applyStyleSpans(context, field, cardModel.getId(), cardBlock.getStack(), pcr.getStyleSpans());
-            }
-        }
-    }
-
-    private void applyTextContents(ExecutionContext context, PartContentRecord pcr, CardModel cardModel, boolean sharedText) {
-        if (pcr.isBackgroundPart()) {
-            FieldModel field = cardModel.getBackgroundModel().getField(pcr.getRawPartId());
-
-            // Set un-shared text value
-            if (field != null && (!sharedText || field.get(context, FieldModel.PROP_SHAREDTEXT).booleanValue())) {
-                field.setCurrentCardId(cardModel.getId());
-                field.set(context, FieldModel.PROP_TEXT, new Value(pcr.getText()));
-            }
+    private void applyUnsharedText(ExecutionContext context, FieldModel field, StyledDocument text, CardModel cardModel) {
+        if (text != null) {
+            field.setCurrentCardId(cardModel.getId());
+            field.setStyledDocument(context, text);
         }
     }
 
@@ -203,7 +201,7 @@ public class StackFormatConverter {
         }
     }
 
-    private void buildBackground(BackgroundBlock backgroundBlock, StackModel stackModel) {
+    private void buildBackground(BackgroundBlock backgroundBlock, CompletableFuture<LayerContents> backgroundContents, StackModel stackModel) {
         int backgroundId = backgroundBlock.getBlockId();
 
         // Skip building background if it already exists
@@ -211,29 +209,30 @@ public class StackFormatConverter {
             return;
         }
 
+        LayerContents contents = backgroundContents.join();
         BackgroundModel backgroundModel = new BackgroundModelBuilder(stackModel)
                 .withName(backgroundBlock.getName())
                 .withId(backgroundId)
                 .withCantDelete(Arrays.stream(backgroundBlock.getFlags()).anyMatch(f -> f == LayerFlag.CANT_DELETE))
                 .withDontSearch(Arrays.stream(backgroundBlock.getFlags()).anyMatch(f -> f == LayerFlag.DONT_SEARCH))
                 .withShowPict(Arrays.stream(backgroundBlock.getFlags()).noneMatch(f -> f == LayerFlag.HIDE_PICTURE))
-                .withImage(backgroundBlock.getImage())
+                .withImage(contents.getImage())
                 .withScript(backgroundBlock.getScript())
                 .build();
 
         // Create all buttons and fields
-        buildParts(backgroundBlock.getParts(), backgroundModel, backgroundBlock);
+        buildParts(backgroundBlock.getParts(), backgroundModel, backgroundBlock, contents);
 
         stackModel.addBackground(backgroundModel);
     }
 
-    private void buildParts(PartRecord[] parts, CardLayer parent, CardLayerBlock block) {
+    private void buildParts(PartRecord[] parts, CardLayer parent, CardLayerBlock block, LayerContents contents) {
         for (int partNumber = 0; partNumber < parts.length; partNumber++) {
             PartRecord partRecord = parts[partNumber];
             if (partRecord.getPartType() == PartType.BUTTON) {
                 buildButton(partRecord, partNumber, parent, block);
             } else {
-                buildField(partRecord, partNumber, parent, block);
+                buildField(partRecord, partNumber, parent, block, contents.getPartText(partRecord.getPartId()));
             }
         }
     }
@@ -269,7 +268,7 @@ public class StackFormatConverter {
         parent.addPartModel(buttonModel);
     }
 
-    private void buildField(PartRecord partRecord, int partNumber, CardLayer parent, CardLayerBlock block) {
+    private void buildField(PartRecord partRecord, int partNumber, CardLayer parent, CardLayerBlock block, StyledDocument text) {
 
         FieldModel fieldModel = new FieldModelBuilder(parent.getType().asOwner(), parent.getParentPartModel())
                 .withPartNumber(partNumber)
@@ -288,7 +287,8 @@ public class StackFormatConverter {
                 .withTextFont(block.getStack().getBlock(FontTableBlock.class).getFont(partRecord.getTextFontId()).getFontName())
                 .withTextStyle(FontStyle.asHypertalkList(partRecord.getFontStyles()))
                 .withTextAlign(partRecord.getTextAlign().name())
-                .withText(block.getPartContents(partRecord.getPartId()).getText())
+                .withText(text == null ? block.getPartContents(partRecord.getPartId()).getText() : null)
+                .withStyledDocument(text)
                 .withAutoTab(Arrays.stream(partRecord.getFlags()).anyMatch(f -> f == PartFlag.AUTO_TAB))
                 .withLockText(Arrays.stream(partRecord.getFlags()).anyMatch(f -> f == PartFlag.LOCK_TEXT))
                 .withAutoSelect(Arrays.stream(partRecord.getExtendedFlags()).anyMatch(f -> f == ExtendedPartFlag.AUTO_SELECT))
@@ -301,43 +301,19 @@ public class StackFormatConverter {
         parent.addPartModel(fieldModel);
     }
 
-    private void applyStyleSpans(ExecutionContext context, FieldModel fieldModel, int cardId, HyperCardStack stack, StyleSpanRecord[] styleSpans) {
-
-        FontTableBlock fontTableBlock = stack.getBlock(FontTableBlock.class);
-        StyleTableBlock styleTableBlock = stack.getBlock(StyleTableBlock.class);
-
-        for (StyleSpanRecord record : styleSpans) {
-            StyleRecord style = styleTableBlock.getStyle(record.getStyleId());
-            int position = record.getTextPosition();
-
-            if (style.getFontId() != -1) {
-                fieldModel.applyFont(context, cardId, position, fontTableBlock.getFont(style.getFontId()).getFontName());
-            } else {
-                fieldModel.applyFont(context, cardId, position, fieldModel.get(context, FieldModel.PROP_TEXTFONT).toString());
-            }
-
-            if (style.getFontSize() != -1) {
-                fieldModel.applyFontSize(context, cardId, position, (int) style.getFontSize());
-            } else {
-                fieldModel.applyFontSize(context, cardId, position, fieldModel.get(context, FieldModel.PROP_TEXTSIZE).integerValue());
-            }
-
-            String styleString = FontStyle.asHypertalkList(style.getStyles());
-            fieldModel.applyFontStyle(context, cardId, position, new Value(styleString));
-        }
-    }
+    private Set<Integer> getMarkedCardIds(HyperCardStack stack) {
+        Set<Integer> markedCardIds = new HashSet<>();
 
-    private boolean isCardMarked(int cardId, HyperCardStack stack) {
+        // Some stacks may not have a page block (ostensibly, this implies that the stack has no marked cards...?)
         for (PageBlock thisPage : stack.getBlocks(PageBlock.class)) {
             for (PageEntryRecord thisEntry : thisPage.getPageEntries()) {
-                if (thisEntry.getCardId() == cardId) {
-                    return Arrays.stream(thisEntry.getFlags()).anyMatch(f -> f == PageFlag.MARKED_CARD);
+                if (Arrays.stream(thisEntry.getFlags()).anyMatch(f -> f == PageFlag.MARKED_CARD)) {
+                    markedCardIds.add(thisEntry.getCardId());
                 }
             }
         }
 
-        // Some stacks may not have a page block (ostensibly, this implies that the stack has no marked cards...?)
-        return false;
+        return markedCardIds;
     }
 
 }
@@ -0,0 +1,143 @@
+package com.defano.wyldcard.message;
+
+import com.defano.hypertalk.ast.model.Script;
+import com.defano.wyldcard.WyldCard;
+import com.defano.wyldcard.runtime.ExecutionContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A cache of which part (if any) in a message passing hierarchy implements a handler for a given message.
+ * <p>
+ * Most messages (notably those sent by built-in commands, like `put` or `add`) are not handled by any script in the
+ * hierarchy. Resolving a message against the cache lets the sender of such a message skip dispatching it through each
+ * part of the hierarchy (which requires fetching each part's script and waiting on the script executor) when it's
+ * known that no part will trap it.
+ * <p>
+ * Entries are keyed by the message name and the parts that make up the hierarchy, so navigating to a different card,
+ * background or stack (or any other change to the hierarchy) naturally resolves to a different entry. Changing the
+ * script of any part invalidates the entire cache (see {@link #invalidate()}).
+ */
+public class HandlerResolutionCache {
+
+    private static final HandlerResolutionCache instance = new HandlerResolutionCache();
+    private static final int MAX_ENTRIES = 1024;
+
+    private final Map<Resolution, Optional<Messagable>> resolutions = new ConcurrentHashMap<>();
+    private volatile long generation = 0;
+
+    private HandlerResolutionCache() {}
+
+    public static HandlerResolutionCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Finds the first part in the message passing hierarchy starting at the given recipient whose script implements a
+     * handler for the named message. WyldCard itself (the last part in every hierarchy) is never considered to
+     * implement a handler.
+     *
+     * @param context     The execution context
+     * @param recipient   The part to which the message is initially sent
+     * @param messageName The name of the message
+     * @return The first part in the hierarchy whose script handles the message, or null if no part handles it
+     */
+    public Messagable getHandlingPart(ExecutionContext context, Messagable recipient, String messageName) {
+        List<Messagable> hierarchy = getHierarchy(context, recipient);
+        Resolution key = new Resolution(messageName.toLowerCase(), hierarchy);
+        Optional<Messagable> handlingPart = resolutions.get(key);
+
+        if (handlingPart == null) {
+            long resolvedGeneration = generation;
+            handlingPart = resolve(context, hierarchy, messageName);
+
+            synchronized (this) {
+                // Don't cache a resolution made against a script that changed while it was being resolved
+                if (resolvedGeneration == generation) {
+                    if (resolutions.size() >= MAX_ENTRIES) {
+                        resolutions.clear();
+                    }
+                    resolutions.put(key, handlingPart);
+                }
+            }
+        }
+
+        return handlingPart.orElse(null);
+    }
+
+    /**
+     * Invalidates all cached resolutions. Should be invoked whenever the script of any part changes.
+     */
+    public synchronized void invalidate() {
+        generation++;
+        resolutions.clear();
+    }
+
+    private List<Messagable> getHierarchy(ExecutionContext context, Messagable recipient) {
+        List<Messagable> hierarchy = new ArrayList<>(4);
+        Messagable part = recipient;
+
+        while (part != null && part != WyldCard.getInstance().getWyldCardPart()) {
+            hierarchy.add(part);
+            part = part.getNextMessageRecipient(context, part.getMe(context).getType());
+        }
+
+        return hierarchy;
+    }
+
+    private Optional<Messagable> resolve(ExecutionContext context, List<Messagable> hierarchy, String messageName) {
+        for (Messagable part : hierarchy) {
+            Script script = part.getScript(context);
+            if (script != null && script.getHandler(messageName) != null) {
+                return Optional.of(part);
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    /**
+     * A message name paired with the parts (compared by identity) of the hierarchy it was sent to.
+     */
+    private static class Resolution {
+        private final String messageName;
+        private final List<Messagable> hierarchy;
+
+        private Resolution(String messageName, List<Messagable> hierarchy) {
+            this.messageName = messageName;
+            this.hierarchy = hierarchy;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Resolution that = (Resolution) o;
+            if (!messageName.equals(that.messageName) || hierarchy.size() != that.hierarchy.size()) {
+                return false;
+            }
+
+            for (int index = 0; index < hierarchy.size(); index++) {
+                if (hierarchy.get(index) != that.hierarchy.get(index)) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = messageName.hashCode();
+            for (Messagable part : hierarchy) {
+                hash = 31 * hash + System.identityHashCode(part);
+            }
+            return hash;
+        }
+    }
+}
@@ -17,6 +17,7 @@ import com.defano.wyldcard.runtime.ExecutionContext;
 import com.defano.wyldcard.thread.ThreadChecker;
 
 import java.awt.event.KeyEvent;
+import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
 
 /**
@@ -41,6 +42,13 @@ public interface Messagable {
      */
     PartSpecifier getMe(ExecutionContext context);
 
+    /**
+     * Gets the lines of this part's script (counting from zero) that are marked as breakpoints.
+     *
+     * @return The breakpoint-marked lines of this part's script
+     */
+    Collection<Integer> getBreakpoints();
+
     /**
      * Asynchronously handles a message sent to this part's message passing hierarchy.
      * <p>
@@ -131,7 +139,7 @@ public interface Messagable {
         }
 
         // Attempt to invoke command handler in this part and listen for completion
-        ScriptExecutor.asyncExecuteHandler(context, initiator, getMe(context), getScript(context), message, (me, script, handler, trappedMessage, exception) -> {
+        ScriptExecutor.asyncExecuteHandler(context, initiator, getMe(context), getBreakpoints(), getScript(context), message, (me, script, handler, trappedMessage, exception) -> {
 
             // Did message generate an error
             if (exception != null) {
@@ -215,7 +223,7 @@ public interface Messagable {
             function = target.getScript(context).getNamedBlock(message.getMessageName());
         }
 
-        return ScriptExecutor.blockingExecuteFunction(context, initiator, target.getMe(context), function, message.evaluateArguments(context));
+        return ScriptExecutor.blockingExecuteFunction(context, initiator, target.getMe(context), target.getBreakpoints(), function, message.evaluateArguments(context));
     }
 
     /**
@@ -13,6 +13,10 @@ import com.defano.wyldcard.part.model.PartModel;
 import com.defano.wyldcard.part.stack.StackModel;
 import com.defano.wyldcard.runtime.ExecutionContext;
 import com.defano.wyldcard.serializer.BufferedImageSerializer;
+import com.defano.wyldcard.serializer.LazyImage;
+import com.defano.wyldcard.serializer.SectionRevision;
+import com.defano.wyldcard.serializer.Sectioned;
+import com.defano.wyldcard.util.PackedImageUtils;
 import com.defano.hypertalk.ast.model.enums.Owner;
 import com.defano.hypertalk.ast.model.enums.PartType;
 import com.defano.hypertalk.ast.model.Value;
@@ -28,7 +32,7 @@ import java.util.List;
  * A data model representing a card background. There is no view associated with this model; rather this data is
  * incorporated/merged into the {@link CardPart} controller object when rendered.
  */
-public class BackgroundModel extends PartModel implements LayeredPartFinder, CardLayer {
+public class BackgroundModel extends PartModel implements LayeredPartFinder, CardLayer, Sectioned {
 
     public static final String PROP_ID = "id";
     public static final String PROP_NAME = "name";
@@ -39,10 +43,12 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder, Car
     public static final String PROP_ABBREVNAME = "abbreviated name";
     public static final String PROP_LONGNAME = "long name";
 
-    private BufferedImage backgroundImage;
+    private LazyImage backgroundImage;
     private final Collection<ButtonModel> buttonModels = new ArrayList<>();
     private final Collection<FieldModel> fieldModels = new ArrayList<>();
 
+    private transient SectionRevision sectionRevision;
+
     public BackgroundModel(StackModel model) {
         super(PartType.BACKGROUND, Owner.STACK, model);
 
@@ -60,6 +66,8 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder, Car
     public void postConstructBackgroundModel() {
         super.postConstructPartModel();
 
+        sectionRevision = new SectionRevision();
+
         findProperty(PROP_NAME).value().applyOnGetTransform((context, model, raw) -> {
             if (raw == null || raw.isEmpty()) {
                 return new Value("bkgnd id " + model.get(context, PROP_ID));
@@ -74,6 +82,14 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder, Car
         define(PROP_SHORTNAME).asComputedReadOnlyValue((context, model) -> new Value(getShortName(context)));
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SectionRevision getSectionRevision() {
+        return sectionRevision;
+    }
+
     @Override
     public Collection<PartModel> getPartModels(ExecutionContext context) {
         Collection<PartModel> models = new ArrayList<>();
@@ -134,6 +150,8 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder, Car
         } else {
             throw new IllegalStateException("Bug! This part cannot be added to the background: " + model);
         }
+
+        recordModification();
     }
 
     private void addFieldModel(FieldModel model) {
@@ -159,17 +177,27 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder, Car
             default:
                 throw new IllegalArgumentException("Bug! Can't delete this kind of part from a background: " + model.getType());
         }
+
+        recordModification();
     }
 
     public void setBackgroundImage(BufferedImage image) {
-        this.backgroundImage = image;
+        this.backgroundImage = image == null ? null : new LazyImage(image);
+        recordModification();
     }
 
+    /**
+     * Returns the image of this background, expanded from its packed form to an ARGB image suitable for display and
+     * painting.
+     *
+     * @param dimension The size of the (empty) image to return if this background has no image
+     * @return The background image
+     */
     public BufferedImage getBackgroundImage(Dimension dimension) {
         if (this.backgroundImage == null) {
             return BufferedImageSerializer.emptyImage(dimension);
         } else {
-            return this.backgroundImage;
+            return PackedImageUtils.expand(this.backgroundImage.get());
         }
     }
 
@@ -177,6 +205,16 @@ public class BackgroundModel extends PartModel implements LayeredPartFinder, Car
         return this.backgroundImage != null;
     }
 
+    /**
+     * Decodes this background's graphics, if not already in memory. See {@link CardModel#prefetchContent()}.
+     */
+    public void prefetchContent() {
+        LazyImage image = this.backgroundImage;
+        if (image != null) {
+            image.get();
+        }
+    }
+
     public boolean hasName() {
         try {
             return !findProperty(PROP_NAME).value().get(new ExecutionContext(), null).isEmpty();
@@ -5,6 +5,8 @@ import com.defano.hypertalk.ast.model.Value;
 import com.defano.wyldcard.part.field.FieldModel;
 import com.defano.wyldcard.part.model.PartModel;
 
+import javax.swing.text.StyledDocument;
+
 public class FieldModelBuilder extends PartModelBuilder<FieldModel, FieldModelBuilder> {
 
     private final FieldModel fieldModel;
@@ -31,6 +33,13 @@ public class FieldModelBuilder extends PartModelBuilder<FieldModel, FieldModelBu
         return this;
     }
 
+    public FieldModelBuilder withStyledDocument(StyledDocument v) {
+        if (v != null) {
+            this.fieldModel.setStyledDocument(context, v);
+        }
+        return this;
+    }
+
     public FieldModelBuilder withDontWrap(Object v) {
         this.fieldModel.set(context, FieldModel.PROP_DONTWRAP, new Value(v));
         return this;
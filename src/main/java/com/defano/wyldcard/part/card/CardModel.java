@@ -15,8 +15,12 @@ import com.defano.wyldcard.part.model.PartModel;
 import com.defano.wyldcard.part.stack.StackModel;
 import com.defano.wyldcard.runtime.ExecutionContext;
 import com.defano.wyldcard.serializer.BufferedImageSerializer;
+import com.defano.wyldcard.serializer.LazyImage;
+import com.defano.wyldcard.serializer.SectionRevision;
+import com.defano.wyldcard.serializer.Sectioned;
 import com.defano.wyldcard.serializer.Serializer;
 import com.defano.wyldcard.thread.Invoke;
+import com.defano.wyldcard.util.PackedImageUtils;
 
 import javax.annotation.PostConstruct;
 import java.awt.*;
@@ -29,7 +33,7 @@ import java.util.Collection;
  * controller object.
  */
 @SuppressWarnings("WeakerAccess")
-public class CardModel extends PartModel implements LayeredPartFinder, NamedPart, CardLayer {
+public class CardModel extends PartModel implements LayeredPartFinder, NamedPart, CardLayer, Sectioned {
 
     public static final String PROP_ID = "id";
     public static final String PROP_MARKED = "marked";
@@ -50,9 +54,10 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
     private final Collection<FieldModel> fields = new ArrayList<>();
     private final Collection<ButtonModel> buttons = new ArrayList<>();
     private int backgroundId;
-    private BufferedImage cardImage;
+    private LazyImage cardImage;
 
     private transient CardModelObserver observer;
+    private transient SectionRevision sectionRevision;
 
     public CardModel(StackModel parentPartModel) {
         super(PartType.CARD, Owner.STACK, parentPartModel);
@@ -75,6 +80,8 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
     public void postConstructCardModel() {
         super.postConstructPartModel();
 
+        sectionRevision = new SectionRevision();
+
         define(PROP_NUMBER).asComputedReadOnlyValue((context, model) -> new Value(((OrderedPartFinder) ((CardModel) model).getParentPartModel()).getPartNumber(context, (CardModel) model, PartType.CARD)));
 
         define(PROP_OWNER).asComputedReadOnlyValue((context, model) -> new Value(getBackgroundModel().getName(context)));
@@ -113,6 +120,14 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
         define(PROP_HEIGHT, PROP_WIDTH, StackModel.PROP_RESIZABLE).byDelegatingToModel(context -> context.getCurrentStack().getStackModel());
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public SectionRevision getSectionRevision() {
+        return sectionRevision;
+    }
+
     @Override
     public Collection<FieldModel> getFieldModels() {
         return fields;
@@ -141,6 +156,7 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
             throw new IllegalArgumentException("Bug! Can't delete this kind of part from a card: " + partModel.getType());
         }
 
+        recordModification();
         firePartRemoved(context, partModel);
     }
 
@@ -155,6 +171,7 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
         }
 
         partModel.setParentPartModel(this);
+        recordModification();
     }
 
     /**
@@ -168,6 +185,7 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
 
     public void setBackgroundId(int backgroundId) {
         this.backgroundId = backgroundId;
+        recordModification();
     }
 
     public BackgroundModel getBackgroundModel() {
@@ -184,11 +202,14 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
      * @param image The card image.
      */
     public void setCardImage(BufferedImage image) {
-        this.cardImage = image;
+        this.cardImage = image == null ? null : new LazyImage(image);
+        recordModification();
     }
 
     /**
-     * Returns the image of this card's foreground.
+     * Returns the image of this card's foreground, decoding it from the stack file if it has not yet been loaded. The
+     * image is held in memory in a packed form, and is expanded to an ARGB image (suitable for display and painting)
+     * each time it is returned.
      *
      * @return The foreground image.
      */
@@ -196,7 +217,7 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
         if (cardImage == null) {
             return BufferedImageSerializer.emptyImage(dimension);
         } else {
-            return this.cardImage;
+            return PackedImageUtils.expand(this.cardImage.get());
         }
     }
 
@@ -204,6 +225,29 @@ public class CardModel extends PartModel implements LayeredPartFinder, NamedPart
         return cardImage != null;
     }
 
+    /**
+     * Decodes this card's graphics, its background's graphics and the text of every field as it appears on this card,
+     * if not already in memory, so that the card can later be displayed without waiting for them. Has no effect on the
+     * card's contents, and may be invoked from any thread.
+     */
+    public void prefetchContent() {
+        LazyImage image = this.cardImage;
+        if (image != null) {
+            image.get();
+        }
+
+        BackgroundModel background = getBackgroundModel();
+        background.prefetchContent();
+
+        for (FieldModel thisField : new ArrayList<>(fields)) {
+            thisField.prefetchContent(getId());
+        }
+
+        for (FieldModel thisField : new ArrayList<>(background.getFieldModels())) {
+            thisField.prefetchContent(getId());
+        }
+    }
+
     /**
      * Create's a deep copy of this card.
      *
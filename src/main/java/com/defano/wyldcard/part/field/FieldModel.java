@@ -13,14 +13,19 @@ import com.defano.wyldcard.part.field.styles.HyperCardTextField;
 import com.defano.wyldcard.part.finder.LayeredPartFinder;
 import com.defano.wyldcard.part.model.LogicalLinkObserver;
 import com.defano.wyldcard.part.model.PartModel;
+import com.defano.wyldcard.part.stack.StackModel;
 import com.defano.wyldcard.part.util.FieldUtilities;
 import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.search.TextKey;
+import com.defano.wyldcard.serializer.LazyDocument;
 import org.bitbucket.cowwoc.diffmatchpatch.DiffMatchPatch;
 
 import javax.annotation.PostConstruct;
 import javax.swing.*;
 import javax.swing.text.*;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * A data model representing a field. See {@link FieldPart} for the associated controller object. This model is a mess.
@@ -77,10 +82,10 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
     public static final String PROP_TEXTHEIGHT = "textheight";
     public static final String PROP_FIXEDLINEHEIGHT = "fixedlineheight";
 
-    private final Map<Integer, StyledDocument> unsharedText = new HashMap<>();
+    private final ConcurrentMap<Integer, LazyDocument> unsharedText = new ConcurrentHashMap<>();
     private final Set<Integer> sharedAutoSelection = new HashSet<>();
     private final Map<Integer, Set<Integer>> unsharedAutoSelection = new HashMap<>();
-    private StyledDocument sharedText;
+    private volatile LazyDocument sharedText;
 
     private transient FieldModelObserver observer;
     private transient Range selection;
@@ -167,7 +172,14 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
         return getStyledDocument(context, getCurrentCardId(context));
     }
 
-    private StyledDocument getStyledDocument(ExecutionContext context, int forCardId) {
+    /**
+     * Gets a Swing {@link StyledDocument} representing the rich text displayed in this field on a given card.
+     *
+     * @param context   The execution context.
+     * @param forCardId The ID of the card; ignored when this field's text is shared across cards.
+     * @return A StyledDocument representation of the contents of this field.
+     */
+    public StyledDocument getStyledDocument(ExecutionContext context, int forCardId) {
         if (isSharedText(context)) {
             return getSharedText(context);
         } else {
@@ -177,27 +189,58 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
 
     private StyledDocument getUnsharedText(ExecutionContext context, int cardId) {
         if (!unsharedText.containsKey(cardId)) {
-            unsharedText.put(cardId, getNewDocument(context));
+            unsharedText.put(cardId, new LazyDocument(getNewDocument(context)));
         }
 
-        return unsharedText.get(cardId);
+        return observe(unsharedText.get(cardId), cardId, false).get();
     }
 
     private StyledDocument getSharedText(ExecutionContext context) {
         if (sharedText == null) {
-            sharedText = getNewDocument(context);
+            sharedText = new LazyDocument(getNewDocument(context));
         }
 
-        return sharedText;
+        return observe(sharedText, getParentPartModel().getId(), true).get();
+    }
+
+    private LazyDocument observe(LazyDocument text, int cardId, boolean shared) {
+        TextKey key = TextKey.of(this, cardId, shared);
+        text.setModificationObserver(() -> recordTextModification(key));
+        return text;
+    }
+
+    /**
+     * Records a modification to this field's text, both in the stack (so that it is saved) and in the stack's search
+     * index (so that the text is re-indexed before it is next searched).
+     *
+     * @param key The key of the text that changed
+     */
+    private void recordTextModification(TextKey key) {
+        recordModification();
+
+        StackModel stack = getParentStackModel();
+        if (stack != null) {
+            stack.getSearchIndex().invalidate(key);
+        }
     }
 
     private StyledDocument getNewDocument(ExecutionContext context) {
-        Style as = StyleContext.getDefaultStyleContext().getStyle(StyleContext.DEFAULT_STYLE);
-        StyleConstants.setFontFamily(as, get(context, FieldModel.PROP_TEXTFONT).toString());
-        StyleConstants.setFontSize(as, get(context, FieldModel.PROP_TEXTSIZE).integerValue());
+        return newStyledDocument(get(context, FieldModel.PROP_TEXTFONT).toString(), get(context, FieldModel.PROP_TEXTSIZE).integerValue());
+    }
 
+    /**
+     * Creates an empty document whose default style has the given font family and size, as the text of a new field
+     * would. Does not modify any shared style, and so may be invoked from any thread.
+     *
+     * @param fontFamily The default font family of the document
+     * @param fontSize   The default font size of the document
+     * @return The new document
+     */
+    public static StyledDocument newStyledDocument(String fontFamily, int fontSize) {
         StyleContext sc = new StyleContext();
-        sc.addStyle(StyleContext.DEFAULT_STYLE, as);
+        Style as = sc.getStyle(StyleContext.DEFAULT_STYLE);
+        StyleConstants.setFontFamily(as, fontFamily);
+        StyleConstants.setFontSize(as, fontSize);
 
         DefaultStyledDocument doc = new DefaultStyledDocument(sc);
         doc.setCharacterAttributes(0, 1, as, true);
@@ -205,6 +248,24 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
         return doc;
     }
 
+    /**
+     * Decodes the text of this field as it appears on a given card, if not already in memory. Does not create text for
+     * cards that have none, and may be invoked from any thread.
+     *
+     * @param forCardId The ID of the card whose text should be decoded
+     */
+    public void prefetchContent(int forCardId) {
+        LazyDocument text = sharedText;
+        if (text != null) {
+            text.get();
+        }
+
+        text = unsharedText.get(forCardId);
+        if (text != null) {
+            text.get();
+        }
+    }
+
     /**
      * Persists the given StyledDocument data into this model. Affects either the shared document data, or the unshared
      * data depending on whether the field is in the background and has the sharedText property.
@@ -214,9 +275,21 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
      */
     public void setStyledDocument(ExecutionContext context, StyledDocument doc) {
         if (isSharedText(context)) {
-            sharedText = doc;
+            if (sharedText == null) {
+                sharedText = observe(new LazyDocument(doc), getParentPartModel().getId(), true);
+                recordTextModification(TextKey.of(this, getParentPartModel().getId(), true));
+            } else {
+                observe(sharedText, getParentPartModel().getId(), true).set(doc);
+            }
         } else {
-            unsharedText.put(getCurrentCardId(context), doc);
+            int cardId = getCurrentCardId(context);
+            LazyDocument text = unsharedText.get(cardId);
+            if (text == null) {
+                unsharedText.put(cardId, observe(new LazyDocument(doc), cardId, false));
+                recordTextModification(TextKey.of(this, cardId, false));
+            } else {
+                observe(text, cardId, false).set(doc);
+            }
         }
     }
 
@@ -226,7 +299,7 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
      * @param context The execution context.
      * @return True if the model should use sharedText data; false otherwise.
      */
-    private boolean isSharedText(ExecutionContext context) {
+    public boolean isSharedText(ExecutionContext context) {
         return getOwner() == Owner.CARD || get(context, PROP_SHAREDTEXT).booleanValue();
     }
 
@@ -528,6 +601,7 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
             }
 
             getAutoSelectedLines(context).add(lineNumber);
+            recordModification();
             fireAutoSelectChangeObserver(context, getAutoSelectedLines(context));
         }
     }
@@ -547,6 +621,7 @@ public class FieldModel extends CardLayerPartModel implements AddressableSelecti
             autoSelection.add(line);
         }
 
+        recordModification();
         fireAutoSelectChangeObserver(context, autoSelection);
     }
 
@@ -369,11 +369,28 @@ public abstract class HyperCardTextField extends JScrollPane implements
 
     @RunOnDispatch
     private void setActiveTextAlign(ExecutionContext context, Value v) {
-        SimpleAttributeSet alignment = new SimpleAttributeSet();
-        StyleConstants.setAlignment(alignment, FontUtils.getAlignmentStyleForValue(v));
-        textPane.getStyledDocument().setParagraphAttributes(0, textPane.getStyledDocument().getLength(), alignment, false);
+        int align = FontUtils.getAlignmentStyleForValue(v);
 
-        syncModelToView(context);
+        // Don't touch (and thereby modify) the document when it already has the requested alignment
+        if (!isTextAligned(align)) {
+            SimpleAttributeSet alignment = new SimpleAttributeSet();
+            StyleConstants.setAlignment(alignment, align);
+            textPane.getStyledDocument().setParagraphAttributes(0, textPane.getStyledDocument().getLength(), alignment, false);
+
+            syncModelToView(context);
+        }
+    }
+
+    private boolean isTextAligned(int align) {
+        Element root = textPane.getStyledDocument().getDefaultRootElement();
+
+        for (int index = 0; index < root.getElementCount(); index++) {
+            if (StyleConstants.getAlignment(root.getElement(index).getAttributes()) != align) {
+                return false;
+            }
+        }
+
+        return true;
     }
 
     @RunOnDispatch
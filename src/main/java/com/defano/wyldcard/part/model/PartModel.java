@@ -11,16 +11,20 @@ import com.defano.hypertalk.ast.model.specifier.PartSpecifier;
 import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.wyldcard.WyldCard;
+import com.defano.wyldcard.message.HandlerResolutionCache;
 import com.defano.wyldcard.message.Messagable;
 import com.defano.wyldcard.part.button.ButtonModel;
 import com.defano.wyldcard.part.card.CardDisplayLayer;
 import com.defano.wyldcard.part.card.CardModel;
 import com.defano.wyldcard.part.field.FieldModel;
+import com.defano.wyldcard.part.stack.ModificationJournal;
 import com.defano.wyldcard.part.stack.StackModel;
 import com.defano.wyldcard.property.SimplePropertiesModel;
 import com.defano.wyldcard.runtime.compiler.CompilationUnit;
 import com.defano.wyldcard.runtime.compiler.ScriptCompiler;
 import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.serializer.SectionRevision;
+import com.defano.wyldcard.serializer.Sectioned;
 import com.defano.wyldcard.thread.Invoke;
 import com.defano.wyldcard.window.WindowBuilder;
 import com.defano.wyldcard.window.layout.*;
@@ -28,9 +32,10 @@ import com.defano.wyldcard.window.layout.*;
 import javax.annotation.PostConstruct;
 import java.awt.*;
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.HashSet;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * A base model object for all HyperCard "parts" that Defines properties common to all part objects.
@@ -67,6 +72,7 @@ public abstract class PartModel extends SimplePropertiesModel implements Messaga
 
     private transient PartModel parentPartModel;
     private transient Script compiledScript;
+    private transient Set<Integer> breakpoints;
     private transient long deferCompilation = 0;
     private transient long scriptHash;
 
@@ -173,10 +179,7 @@ public abstract class PartModel extends SimplePropertiesModel implements Messaga
                 .withGetter((context, model) -> checkpoints)
                 .withSetter((context, model, value) -> {
                     PartModel.this.checkpoints = value;
-                    Script script = getScript(context);
-                    if (script != null) {
-                        script.applyBreakpoints(getBreakpoints());
-                    }
+                    applyCheckpoints(context);
                 });
     }
 
@@ -253,7 +256,9 @@ public abstract class PartModel extends SimplePropertiesModel implements Messaga
                 Script script = (Script) ScriptCompiler.blockingCompile(CompilationUnit.SCRIPT, scriptText);
 
                 if (script != null) {
-                    return setScript(script, scriptText.hashCode());
+                    this.compiledScript = script;
+                    this.scriptHash = scriptText.hashCode();
+                    return script;
                 }
             } catch (HtException e) {
                 deferCompilation = System.currentTimeMillis() + 5000;
@@ -266,12 +271,58 @@ public abstract class PartModel extends SimplePropertiesModel implements Messaga
         return this.compiledScript == null ? new Script() : this.compiledScript;
     }
 
-    private synchronized Script setScript(Script script, long scriptHash) {
-        this.compiledScript = script;
-        this.scriptHash = scriptHash;
-        this.compiledScript.applyBreakpoints(getBreakpoints());
+    /**
+     * Installs a script that was compiled ahead of need (i.e., when the stack containing this part was opened). Has no
+     * effect if this part's script has changed since the given text was read, or has already been compiled.
+     *
+     * @param scriptText The script text that was compiled
+     * @param script     The compiled script, or null if the script is empty
+     */
+    public synchronized void setPrecompiledScript(String scriptText, Script script) {
+        if (script != null && scriptText.hashCode() != scriptHash && scriptText.equals(getScriptText(null))) {
+            this.compiledScript = script;
+            this.scriptHash = scriptText.hashCode();
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onPropertySet(ExecutionContext context, String propertyName) {
+        if (PROP_SCRIPT.equalsIgnoreCase(propertyName)) {
+            HandlerResolutionCache.getInstance().invalidate();
+        }
+    }
 
-        return script;
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void onPropertyModified(ExecutionContext context, String propertyName) {
+        recordModification();
+    }
+
+    /**
+     * Records a modification to this part in the {@link ModificationJournal} of the stack containing it, and in the
+     * {@link SectionRevision} of the card or background containing it (so that the card or background is re-written
+     * when the stack is next saved). Has no effect on the journal if this part does not (yet) belong to a stack.
+     */
+    protected void recordModification() {
+        for (PartModel part = this; part != null; part = part.getParentPartModel()) {
+            if (part instanceof Sectioned) {
+                SectionRevision revision = ((Sectioned) part).getSectionRevision();
+                if (revision != null) {
+                    revision.recordModification();
+                }
+            } else if (part instanceof StackModel) {
+                ModificationJournal journal = ((StackModel) part).getModificationJournal();
+                if (journal != null) {
+                    journal.recordModification();
+                }
+                return;
+            }
+        }
     }
 
     private boolean isScriptDirty(ExecutionContext context) {
@@ -394,6 +445,7 @@ public abstract class PartModel extends SimplePropertiesModel implements Messaga
 
     public void setScriptEditorCaretPosition(int scriptEditorCaretPosition) {
         this.scriptEditorCaretPosition = scriptEditorCaretPosition;
+        recordModification();
     }
 
     public Point getScriptEditorLocation() {
@@ -403,23 +455,43 @@ public abstract class PartModel extends SimplePropertiesModel implements Messaga
 
     public void setScriptEditorLocation(Value scriptEditorLocation) {
         this.scriptEditorLocation = scriptEditorLocation;
+        recordModification();
     }
 
     /**
-     * Gets a list of integers represents the number of each line of the script that should be marked with a breakpoint.
+     * Gets the set of integers representing the number of each line of the script (counting from zero) that should be
+     * marked with a breakpoint.
+     * <p>
+     * The returned set is a live view; it is updated in place whenever this part's checkpoints change so that a script
+     * already executing observes newly added (or removed) breakpoints.
      *
-     * @return The list of breakpoint-marked lines in the script.
+     * @return The set of breakpoint-marked lines in the script.
      */
-    public List<Integer> getBreakpoints() {
-        ExecutionContext context = new ExecutionContext();
-        ArrayList<Integer> breakpoints = new ArrayList<>();
-        List<Value> breakpointValues = get(context, PROP_CHECKPOINTS).getItems(context);
-        for (Value thisBreakpoint : breakpointValues) {
-            breakpoints.add(thisBreakpoint.integerValue());
+    @Override
+    public synchronized Set<Integer> getBreakpoints() {
+        if (breakpoints == null) {
+            breakpoints = new CopyOnWriteArraySet<>();
+            applyCheckpoints(new ExecutionContext());
         }
         return breakpoints;
     }
 
+    /**
+     * Synchronizes the live set of breakpoint-marked lines with the value of this part's checkpoints property.
+     *
+     * @param context The execution context.
+     */
+    private synchronized void applyCheckpoints(ExecutionContext context) {
+        Set<Integer> lines = new HashSet<>();
+        for (Value thisBreakpoint : checkpoints.getItems(context)) {
+            lines.add(thisBreakpoint.integerValue());
+        }
+
+        Set<Integer> breakpoints = getBreakpoints();
+        breakpoints.retainAll(lines);
+        breakpoints.addAll(lines);
+    }
+
     /**
      * Show the script editor for this part.
      * <p>
@@ -551,4 +623,4 @@ public abstract class PartModel extends SimplePropertiesModel implements Messaga
     public int hashCode() {
         return Objects.hash(type, getId(), getOwner());
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.defano.wyldcard.part.stack;
+
+import com.defano.wyldcard.part.card.CardModel;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Speculatively decodes the graphics and field text of the cards adjacent to the displayed card (that is, the cards
+ * displayed by 'go next' and 'go prev') on a background thread, so that navigating to them doesn't wait on PNG and RTF
+ * decoding on the dispatch thread.
+ * <p>
+ * Prefetched content is held like any other lazily-decoded content (see
+ * {@link com.defano.wyldcard.serializer.LazyContent}), so it may be evicted again if memory is needed before it is
+ * used. Only the most recent request is honored; navigating again before a prefetch completes cancels it.
+ */
+class CardPrefetcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(CardPrefetcher.class);
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("card-prefetch").setDaemon(true).build());
+
+    private Future<?> pending;
+
+    /**
+     * Prefetches the content of the cards before and after the given card (wrapping around the ends of the stack).
+     *
+     * @param stack     The stack containing the card
+     * @param cardIndex The index of the card that is now displayed
+     */
+    synchronized void prefetchNeighbors(StackModel stack, int cardIndex) {
+        if (pending != null) {
+            pending.cancel(false);
+        }
+
+        int cardCount = stack.getCardCount();
+        if (cardCount < 2) {
+            return;
+        }
+
+        CardModel next = stack.getCardModel((cardIndex + 1) % cardCount);
+        CardModel prev = stack.getCardModel((cardIndex + cardCount - 1) % cardCount);
+
+        pending = executor.submit(() -> {
+            prefetch(next);
+            if (prev != next) {
+                prefetch(prev);
+            }
+        });
+    }
+
+    private void prefetch(CardModel card) {
+        try {
+            card.prefetchContent();
+        } catch (RuntimeException e) {
+            // Card may have been deleted or modified while prefetching; it'll be loaded when (if) it's displayed
+            LOG.debug("Failed to prefetch card content.", e);
+        }
+    }
+}
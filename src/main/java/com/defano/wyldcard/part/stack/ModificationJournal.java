@@ -0,0 +1,60 @@
+package com.defano.wyldcard.part.stack;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Tracks modifications made to a stack since it was last saved (or opened), replacing the need to compare the stack
+ * against its saved file to determine if it has unsaved changes.
+ * <p>
+ * The journal maintains a generation number that is incremented on every modification to the stack: a property of
+ * the stack or one of its parts being set to a new value, a field's text being edited, a card or background picture
+ * being painted, or a card, background, button or field being added, removed or reordered. Saving the stack records
+ * the generation that was saved; the stack has unsaved changes whenever the current generation differs from it.
+ * <p>
+ * Recording a modification is cheap (a single atomic increment), so it may be performed on any thread and from
+ * frequently executed code paths. Observers wishing to act on changes (like an autosave) may poll
+ * {@link #getGeneration()}.
+ */
+public class ModificationJournal {
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile long savedGeneration;
+
+    /**
+     * Records that the stack has been modified.
+     *
+     * @return The generation number of the stack after this modification
+     */
+    public long recordModification() {
+        return generation.incrementAndGet();
+    }
+
+    /**
+     * Gets the current generation number of the stack; the number increases every time the stack is modified.
+     *
+     * @return The current generation number
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+    /**
+     * Records that the given generation of the stack has been saved (or was just opened). The generation should be
+     * retrieved via {@link #getGeneration()} before the stack is serialized, so that modifications made while the
+     * stack is being saved are not mistaken for having been saved.
+     *
+     * @param savedGeneration The generation that was saved
+     */
+    public void markSaved(long savedGeneration) {
+        this.savedGeneration = savedGeneration;
+    }
+
+    /**
+     * Determines if the stack has been modified since it was last saved or opened.
+     *
+     * @return True if there are unsaved modifications; false otherwise
+     */
+    public boolean isModified() {
+        return generation.get() != savedGeneration;
+    }
+}
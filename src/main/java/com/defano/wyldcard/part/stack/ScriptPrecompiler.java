@@ -0,0 +1,156 @@
+package com.defano.wyldcard.part.stack;
+
+import com.defano.hypertalk.ast.model.Script;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.wyldcard.WyldCard;
+import com.defano.wyldcard.part.bkgnd.BackgroundModel;
+import com.defano.wyldcard.part.card.CardModel;
+import com.defano.wyldcard.part.model.PartModel;
+import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.compiler.CompilationUnit;
+import com.defano.wyldcard.runtime.compiler.ScriptCompiler;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Compiles every script in a stack on a pool of background threads when the stack is opened, so that handlers are
+ * compiled before the messages they handle are first sent (rather than one at a time, on the script thread, as each
+ * part first receives a message).
+ * <p>
+ * Scripts of the stack and of its current card and background (the parts that receive 'openStack' and 'openCard') are
+ * compiled first. Each compiled script is installed in its part via {@link PartModel#setPrecompiledScript(String,
+ * Script)}, which ignores the result if the script has been edited (or compiled on demand) in the meantime. Syntax
+ * errors found while precompiling are reported together, in a single error dialog, once every script has compiled.
+ * <p>
+ * Unlike {@link ScriptCompiler#asyncBestEffortCompile}, which discards queued work each time it is invoked, every
+ * script submitted to this pool is compiled unless the stack is closed first.
+ */
+class ScriptPrecompiler {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ScriptPrecompiler.class);
+    private static final int MAX_PRECOMPILE_THREADS = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+    private static final ExecutorService executor = Executors.newFixedThreadPool(MAX_PRECOMPILE_THREADS, new ThreadFactoryBuilder().setNameFormat("script-precompiler-%d").setDaemon(true).build());
+
+    private volatile boolean canceled;
+
+    /**
+     * Begins compiling the scripts of every part in the given stack. Returns immediately.
+     *
+     * @param context The execution context of the stack being opened
+     * @param stack   The stack whose scripts should be compiled
+     */
+    void precompile(ExecutionContext context, StackModel stack) {
+        canceled = false;
+
+        List<CompletableFuture<HtException>> compilations = new ArrayList<>();
+        for (PartModel part : getPartsInCompilationOrder(stack)) {
+            String scriptText = part.getScriptText(null);
+
+            if (!scriptText.trim().isEmpty()) {
+                compilations.add(CompletableFuture.supplyAsync(() -> compile(context, part, scriptText), executor));
+            }
+        }
+
+        CompletableFuture.allOf(compilations.toArray(new CompletableFuture[0])).thenRun(() -> {
+            List<HtException> errors = new ArrayList<>();
+            for (CompletableFuture<HtException> compilation : compilations) {
+                HtException error = compilation.join();
+                if (error != null) {
+                    errors.add(error);
+                }
+            }
+
+            if (!canceled) {
+                reportErrors(errors);
+            }
+        });
+    }
+
+    /**
+     * Abandons any scripts that have not yet been compiled, and suppresses the error report. Scripts already compiled
+     * remain installed in their parts.
+     */
+    void cancel() {
+        canceled = true;
+    }
+
+    private HtException compile(ExecutionContext context, PartModel part, String scriptText) {
+        if (canceled) {
+            return null;
+        }
+
+        try {
+            part.setPrecompiledScript(scriptText, (Script) ScriptCompiler.blockingCompile(CompilationUnit.SCRIPT, scriptText));
+            return null;
+        } catch (HtException e) {
+            if (e.getBreadcrumb() != null) {
+                e.getBreadcrumb().setContext(context);
+                e.getBreadcrumb().setPart(part.getPartSpecifier(context));
+            }
+            return e;
+        } catch (RuntimeException e) {
+            // Part may have been deleted while compiling; its script will be compiled when (if) it's needed
+            LOG.debug("Failed to precompile script.", e);
+            return null;
+        }
+    }
+
+    private void reportErrors(List<HtException> errors) {
+        for (HtException error : errors) {
+            LOG.warn("Syntax error in script: {}", error.getMessage());
+        }
+
+        if (errors.size() == 1) {
+            WyldCard.getInstance().showErrorDialog(errors.get(0));
+        } else if (errors.size() > 1) {
+            HtException first = errors.get(0);
+            WyldCard.getInstance().showErrorDialog(new HtException(errors.size() + " scripts in this stack contain errors. The first: " + first.getMessage(), first));
+        }
+    }
+
+    private List<PartModel> getPartsInCompilationOrder(StackModel stack) {
+        // Parts of different cards may share an ID (and thus be equal); we need every one of them
+        Set<PartModel> parts = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<PartModel> ordered = new ArrayList<>();
+
+        CardModel currentCard = stack.getCurrentCard();
+        addPart(parts, ordered, stack);
+        addLayer(parts, ordered, currentCard.getBackgroundModel());
+        addLayer(parts, ordered, currentCard);
+
+        for (CardModel card : stack.getCardModels()) {
+            addLayer(parts, ordered, card.getBackgroundModel());
+            addLayer(parts, ordered, card);
+        }
+
+        return ordered;
+    }
+
+    private void addLayer(Set<PartModel> parts, List<PartModel> ordered, BackgroundModel background) {
+        if (addPart(parts, ordered, background)) {
+            background.getButtonModels().forEach(b -> addPart(parts, ordered, b));
+            background.getFieldModels().forEach(f -> addPart(parts, ordered, f));
+        }
+    }
+
+    private void addLayer(Set<PartModel> parts, List<PartModel> ordered, CardModel card) {
+        if (addPart(parts, ordered, card)) {
+            card.getButtonModels().forEach(b -> addPart(parts, ordered, b));
+            card.getFieldModels().forEach(f -> addPart(parts, ordered, f));
+        }
+    }
+
+    private boolean addPart(Set<PartModel> parts, List<PartModel> ordered, PartModel part) {
+        if (parts.add(part)) {
+            ordered.add(part);
+            return true;
+        }
+        return false;
+    }
+}
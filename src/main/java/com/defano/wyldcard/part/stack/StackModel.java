@@ -17,7 +17,7 @@ import com.defano.wyldcard.part.finder.StackPartFinder;
 import com.defano.wyldcard.part.model.PartModel;
 import com.defano.wyldcard.pattern.WyldCardPatternFactory;
 import com.defano.wyldcard.runtime.ExecutionContext;
-import com.defano.wyldcard.serializer.Serializer;
+import com.defano.wyldcard.search.SearchIndex;
 import io.reactivex.Observable;
 import io.reactivex.subjects.BehaviorSubject;
 import io.reactivex.subjects.Subject;
@@ -26,8 +26,6 @@ import javax.annotation.PostConstruct;
 import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.util.List;
 import java.util.*;
 import java.util.stream.Collectors;
@@ -55,6 +53,8 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
     private transient Subject<Optional<File>> savedStackFileProvider;
     private transient int nextPartId = new Random().nextInt();
     private transient boolean isBeingClosed = false;
+    private transient SearchIndex searchIndex;
+    private transient ModificationJournal modificationJournal;
 
     public StackModel() {
         super(PartType.STACK, Owner.HYPERCARD, null);
@@ -80,6 +80,7 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
         super.postConstructPartModel();
 
         savedStackFileProvider = BehaviorSubject.createDefault(Optional.empty());
+        modificationJournal = new ModificationJournal();
 
         // User patterns may be missing from serialized object form; rehydrate empty map in this case
         if (userPatterns == null) {
@@ -145,7 +146,21 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
             filename = filename.substring(0, filename.length() - FILE_EXTENSION.length());
         }
 
+        // Naming the stack after the file it was saved to (or opened from) does not modify it
+        boolean wasModified = modificationJournal.isModified();
         set(context, PROP_NAME, new Value(filename));
+        if (!wasModified) {
+            modificationJournal.markSaved(modificationJournal.getGeneration());
+        }
+    }
+
+    /**
+     * Gets the journal recording modifications made to this stack since it was last saved or opened.
+     *
+     * @return The stack's modification journal
+     */
+    public ModificationJournal getModificationJournal() {
+        return modificationJournal;
     }
 
     public int getNextButtonId(int parentPartId) {
@@ -174,24 +189,29 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
 
     public void addCard(CardModel cardModel) {
         cardModels.add(cardModel);
+        recordModification();
     }
 
     public void addCard(CardModel cardModel, int atIndex) {
         cardModels.add(atIndex, cardModel);
+        recordModification();
     }
 
     public void addBackground(BackgroundModel backgroundModel) {
         backgroundModels.put(backgroundModel.getId(), backgroundModel);
+        recordModification();
     }
 
     public int newBackground() {
         int newBackgroundId = getNextBackgroundId();
         backgroundModels.put(newBackgroundId, new BackgroundModelBuilder(this).withId(newBackgroundId).build());
+        recordModification();
         return newBackgroundId;
     }
 
     public void deleteCurrentCard() {
         cardModels.remove(currentCardIndex);
+        recordModification();
     }
 
     public String getStackName(ExecutionContext context) {
@@ -208,6 +228,7 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
 
     public void setCardModels(List<CardModel> cardModels) {
         this.cardModels = cardModels;
+        recordModification();
     }
 
     public CardModel getCardModel(int index) {
@@ -295,6 +316,19 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
         return backgroundModels.size();
     }
 
+    /**
+     * Gets the index of words appearing in the fields of this stack, used to answer `find` queries.
+     *
+     * @return The stack's search index
+     */
+    public synchronized SearchIndex getSearchIndex() {
+        if (searchIndex == null) {
+            searchIndex = new SearchIndex();
+        }
+
+        return searchIndex;
+    }
+
     public List<CardModel> getMarkedCards(ExecutionContext context) {
         return getCardModels().stream()
                 .filter(c -> c.get(context, CardModel.PROP_MARKED).booleanValue())
@@ -319,6 +353,7 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
 
     public void createIcon(String name, BufferedImage image) {
         userIcons.put(name, image);
+        recordModification();
     }
 
     public List<ButtonIcon> getUserIcons() {
@@ -337,6 +372,7 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
     public void setUserPattern(int patternId, BufferedImage pattern) {
         userPatterns.put(patternId, pattern);
         WyldCardPatternFactory.getInstance().invalidatePatternCache();
+        recordModification();
     }
 
     /**
@@ -358,22 +394,14 @@ public class StackModel extends PartModel implements StackPartFinder, NamedPart
     }
 
     /**
-     * A cheesy and expensive mechanism to determine if the user has made a change to the stack since it was last opened.
+     * Determines if the user has made a change to the stack since it was last saved or opened. See
+     * {@link ModificationJournal}.
      *
      * @return True if the stack has changes; false otherwise
      */
     public boolean isDirty() {
-        Optional<File> stackFile = savedStackFileProvider.blockingFirst();
-
-        if (stackFile.isPresent()) {
-            try {
-                String savedStack = new String(Files.readAllBytes(stackFile.get().toPath()), StandardCharsets.UTF_8);
-                String currentStack = Serializer.serialize(this);
-
-                return !isEmpty() && !savedStack.equalsIgnoreCase(currentStack);
-            } catch (Exception e) {
-                return true;
-            }
+        if (savedStackFileProvider.blockingFirst().isPresent()) {
+            return !isEmpty() && modificationJournal.isModified();
         }
 
         return !isEmpty();
@@ -43,6 +43,8 @@ public class StackPart implements Part<StackModel>, PropertyChangeObserver {
 
     private final StackModel stackModel;
     private final CurtainManager curtainManager = new CurtainManager();
+    private final CardPrefetcher cardPrefetcher = new CardPrefetcher();
+    private final ScriptPrecompiler scriptPrecompiler = new ScriptPrecompiler();
     private final Set<StackObserver> stackObservers = new HashSet<>();
     private final Set<StackNavigationObserver> stackNavigationObservers = new HashSet<>();
     private final Subject<Integer> cardCountProvider = BehaviorSubject.createDefault(0);
@@ -406,6 +408,9 @@ public class StackPart implements Part<StackModel>, PropertyChangeObserver {
             // Reactivate paint tool on new card's canvas
             WyldCard.getInstance().getPaintManager().reactivateTool(currentCard.getActiveCanvas());
 
+            // Get the cards on either side of this one ready to be displayed next
+            cardPrefetcher.prefetchNeighbors(stackModel, cardIndex);
+
             return currentCard;
 
         } catch (Exception e) {
@@ -486,6 +491,7 @@ public class StackPart implements Part<StackModel>, PropertyChangeObserver {
 
     @Override
     public void partOpened(ExecutionContext context) {
+        scriptPrecompiler.precompile(new ExecutionContext(this), getStackModel());
         currentCard = loadCard(context, getStackModel().getCurrentCardIndex());
         getStackModel().receiveMessage(context.bindStack(this), SystemMessage.OPEN_STACK);
 
@@ -495,6 +501,7 @@ public class StackPart implements Part<StackModel>, PropertyChangeObserver {
 
     @Override
     public void partClosed(ExecutionContext context) {
+        scriptPrecompiler.cancel();
         closeCard(context, null);
         fireOnStackClosed();
     }
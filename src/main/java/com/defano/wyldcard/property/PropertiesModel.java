@@ -26,6 +26,15 @@ public interface PropertiesModel {
      */
     void add(Property property);
 
+    /**
+     * Adds one or more aliases to an existing property in this model. Has no effect on the property's existing names.
+     *
+     * @param propertyName The case insensitive name of an existing property
+     * @param aliases      Additional names that the property should be known by
+     * @throws IllegalArgumentException Thrown if the property does not exist.
+     */
+    void addAliases(String propertyName, String... aliases);
+
     /**
      * Sets the value bound to the identified property without notifying observers that the value has been changed. This
      * method is intended to handle cases where setting a value could cause a cycle in the notification chain or
@@ -1,7 +1,6 @@
 package com.defano.wyldcard.property;
 
 import com.defano.wyldcard.property.value.PropertyValue;
-import com.google.common.collect.Lists;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 
@@ -12,7 +11,7 @@ import java.util.*;
  */
 public class Property {
 
-    private final transient ArrayList<String> aliases;      // All names that this property is known by, alphabetized
+    private final transient ArrayList<String> aliases;      // All names that this property is known by, alphabetized; interned
     private final PropertyValue value;                      // The value of this property
 
     /**
@@ -31,8 +30,8 @@ public class Property {
         }
 
         this.value = value;
-        this.aliases = Lists.newArrayList(aliases);
-        Collections.sort(this.aliases);
+        this.aliases = new ArrayList<>(aliases.length);
+        addAliases(aliases);
     }
 
     /**
@@ -61,10 +60,23 @@ public class Property {
      * @param aliases Additional aliases that this property should be known by.
      */
     public void addAliases(String... aliases) {
-        this.aliases.addAll(Lists.newArrayList(aliases));
+        // Every part defines the same few dozen property names; share a single copy of each
+        for (String alias : aliases) {
+            this.aliases.add(alias.intern());
+        }
+
         Collections.sort(this.aliases);
     }
 
+    /**
+     * Gets all names that this property is known by, including its primary name.
+     *
+     * @return An unmodifiable, alphabetized list of this property's names and aliases.
+     */
+    public List<String> aliases() {
+        return Collections.unmodifiableList(aliases);
+    }
+
     /**
      * Gets the {@link PropertyValue} associated with this property.
      *
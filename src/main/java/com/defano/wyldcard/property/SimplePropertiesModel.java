@@ -9,24 +9,36 @@ import com.defano.wyldcard.part.model.PropertyChangeObserver;
 import com.defano.wyldcard.property.builder.PropertyBuilder;
 import com.defano.wyldcard.property.builder.PropertyValueBuilder;
 import com.defano.wyldcard.property.value.BasicValue;
+import com.defano.wyldcard.property.value.ConcreteValue;
 import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.executor.WaitMonitor;
 import com.defano.wyldcard.thread.Invoke;
 
 import javax.annotation.PostConstruct;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class SimplePropertiesModel implements PropertiesModel, PropertyBuilder {
 
     // List of stored properties
     private final PropertyList properties = new PropertyList();
 
+    // Index of stored properties by each of their names and aliases (not serialized; rebuilt from the property list)
+    private transient Map<String, Property> propertyIndex = new ConcurrentHashMap<>();
+
     // Observers (not serialized)
     private transient Set<PropertyChangeObserver> propertyChangeObservers = new HashSet<>();
 
     @PostConstruct
     protected void postConstructAdvancedPropertiesModel() {
         propertyChangeObservers = new HashSet<>();
+
+        propertyIndex = new ConcurrentHashMap<>();
+        for (Property thisProperty : properties) {
+            index(thisProperty);
+        }
     }
 
     /**
@@ -35,6 +47,7 @@ public class SimplePropertiesModel implements PropertiesModel, PropertyBuilder {
     @Override
     public void clear() {
         properties.clear();
+        propertyIndex.clear();
     }
 
     /**
@@ -45,9 +58,13 @@ public class SimplePropertiesModel implements PropertiesModel, PropertyBuilder {
         Property existingProperty = findProperty(property.name());
         if (existingProperty != null) {
             properties.remove(existingProperty);
+            for (String alias : existingProperty.aliases()) {
+                propertyIndex.remove(alias, existingProperty);
+            }
         }
 
         properties.add(property);
+        index(property);
     }
 
     /**
@@ -66,6 +83,21 @@ public class SimplePropertiesModel implements PropertiesModel, PropertyBuilder {
         return new PropertyValueBuilder(this, propertyNames);
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addAliases(String propertyName, String... aliases) {
+        Property p = findProperty(propertyName);
+
+        if (p == null) {
+            throw new IllegalArgumentException("No such property '" + propertyName + "'.");
+        }
+
+        p.addAliases(aliases);
+        index(p);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -93,7 +125,13 @@ public class SimplePropertiesModel implements PropertiesModel, PropertyBuilder {
             throw new HtNoSuchPropertyException("No such property '" + propertyName + "'.");
         }
 
+        Value oldValue = getRawValue(p);
         p.value().set(context, propertyValue, this);
+        onPropertySet(context, p.name());
+        if (isModified(p, oldValue)) {
+            onPropertyModified(context, p.name());
+        }
+        WaitMonitor.getInstance().notifyChanged();
         fireOnPropertyChanged(context, p.name(), get(context, propertyName), propertyValue);
     }
 
@@ -134,11 +172,7 @@ public class SimplePropertiesModel implements PropertiesModel, PropertyBuilder {
      */
     @Override
     public Property findProperty(String propertyName) {
-        String canonicalName = propertyName.toLowerCase();
-        return properties.stream()
-                .filter(p -> p.matches(canonicalName))
-                .findFirst()
-                .orElse(null);
+        return propertyIndex.get(propertyName.toLowerCase());
     }
 
     /**
@@ -192,6 +226,43 @@ public class SimplePropertiesModel implements PropertiesModel, PropertyBuilder {
         propertyChangeObservers.remove(observer);
     }
 
+    /**
+     * Invoked synchronously after the value of a property has been set, irrespective of whether property change
+     * observers are notified. Subclasses may override this method to invalidate state derived from a property's value.
+     *
+     * @param context      The execution context
+     * @param propertyName The name of the property that was set
+     */
+    protected void onPropertySet(ExecutionContext context, String propertyName) {
+        // Nothing to do
+    }
+
+    /**
+     * Invoked synchronously after a property has been set to a value that differs from its previous value. Properties
+     * whose values are computed (and so whose previous value is unknown) are assumed to change whenever set.
+     *
+     * @param context      The execution context
+     * @param propertyName The name of the property that was modified
+     */
+    protected void onPropertyModified(ExecutionContext context, String propertyName) {
+        // Nothing to do
+    }
+
+    private Value getRawValue(Property property) {
+        return property.value() instanceof ConcreteValue ? ((ConcreteValue) property.value()).rawValue() : null;
+    }
+
+    private boolean isModified(Property property, Value oldValue) {
+        Value newValue = getRawValue(property);
+        return oldValue == null || newValue == null || !oldValue.toString().equals(newValue.toString());
+    }
+
+    private void index(Property property) {
+        for (String alias : property.aliases()) {
+            propertyIndex.put(alias, property);
+        }
+    }
+
     private void doSet(ExecutionContext context, String propertyName, Value propertyValue, boolean notifyObservers) {
         Property p = findProperty(propertyName);
 
@@ -200,7 +271,15 @@ public class SimplePropertiesModel implements PropertiesModel, PropertyBuilder {
         }
 
         try {
+            Value oldValue = getRawValue(p);
             p.value().set(context, propertyValue, this);
+            onPropertySet(context, p.name());
+            if (isModified(p, oldValue)) {
+                onPropertyModified(context, p.name());
+            }
+
+            // Wake waiting scripts even when observers aren't notified; 'wait until' may depend on this property
+            WaitMonitor.getInstance().notifyChanged();
 
             if (notifyObservers) {
                 fireOnPropertyChanged(context, p.name(), get(context, propertyName), propertyValue);
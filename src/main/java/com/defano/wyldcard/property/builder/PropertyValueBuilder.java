@@ -70,7 +70,7 @@ public class PropertyValueBuilder {
      * @param propertyName The name of the property that this property delegates to.
      */
     public void asAliasOf(String propertyName) {
-        model.findProperty(propertyName).addAliases(propertyNames);
+        model.addAliases(propertyName, propertyNames);
     }
 
     /**
@@ -21,6 +21,8 @@ import com.defano.wyldcard.part.stack.StackPart;
 import com.defano.wyldcard.runtime.callstack.CallStack;
 import com.defano.wyldcard.runtime.callstack.StackFrame;
 import com.defano.wyldcard.runtime.symbol.BasicSymbolTable;
+import com.defano.wyldcard.runtime.symbol.SlotSymbolTable;
+import com.defano.wyldcard.runtime.symbol.SymbolLayout;
 import com.defano.wyldcard.runtime.symbol.SymbolTable;
 
 import java.util.List;
@@ -229,8 +231,9 @@ public class ExecutionContext {
      * @param message   The name of the message (i.e., handler or function) that this frame represents.
      * @param me        The part which the 'me' keyword refers to in this context.
      * @param arguments Evaluated arguments passed to this handler or function.
+     * @param locals    The slots assigned to the local variables of the handler or function.
      */
-    public void pushStackFrame(ASTNode callingNode, String message, PartSpecifier me, List<Value> arguments) throws HtException {
+    public void pushStackFrame(ASTNode callingNode, String message, PartSpecifier me, List<Value> arguments, SymbolLayout locals) throws HtException {
 
         // Kill script execution before we overflow JVM call stack
         if (callStack.size() == MAX_CALL_STACK_DEPTH) {
@@ -238,7 +241,7 @@ public class ExecutionContext {
         }
 
         getStackFrame().setAstNode(callingNode);
-        callStack.push(new StackFrame(me, message, arguments));
+        callStack.push(new StackFrame(me, message, arguments, locals));
     }
 
     /**
@@ -322,10 +325,26 @@ public class ExecutionContext {
      * @param v      The value to assign it
      */
     public void setVariable(String symbol, Value v) {
-        if (globals.contains(symbol) && getStackFrame().isGlobalInScope(symbol))
+        setVariable(symbol, -1, v);
+    }
+
+    /**
+     * Sets (assigns) the given symbol (variable) to the given value within the current frame.
+     *
+     * @param symbol The name of the variable to assign
+     * @param slot   The slot assigned to the variable when its handler was compiled, or -1 if unknown
+     * @param v      The value to assign it
+     */
+    public void setVariable(String symbol, int slot, Value v) {
+        StackFrame frame = getStackFrame();
+        SlotSymbolTable locals = frame.getLocalVariables();
+
+        if (frame.isGlobalInScope(symbol) && globals.contains(symbol))
             globals.set(symbol, v);
+        else if (locals.isSlotOf(slot, symbol))
+            locals.set(slot, v);
         else
-            getStackFrame().getLocalVariables().set(symbol, v);
+            locals.set(symbol, v);
     }
 
     /**
@@ -340,10 +359,29 @@ public class ExecutionContext {
      * @throws HtException Thrown if an error occurs mutating the variable (i.e., an invalid chunk was specified)
      */
     public void setVariable(String symbol, Preposition preposition, Chunk chunk, Value value) throws HtException {
+        setVariable(symbol, -1, preposition, chunk, value);
+    }
+
+    /**
+     * Puts a value into the given variable, possibly mutating only a portion of the existing value depending on
+     * the given chunk and preposition supplied.
+     *
+     * @param symbol      The name of the symbol (variable) to change
+     * @param slot        The slot assigned to the variable when its handler was compiled, or -1 if unknown
+     * @param preposition A preposition indicating whether the value will be placed before, after, or into (replacing)
+     *                    the existing value
+     * @param chunk       A chunk of the variable to be mutated, or the entire value if null
+     * @param value       The value to be put into the mutated portion of the variable.
+     * @throws HtException Thrown if an error occurs mutating the variable (i.e., an invalid chunk was specified)
+     */
+    public void setVariable(String symbol, int slot, Preposition preposition, Chunk chunk, Value value) throws HtException {
 
         // When mutating the value of an un-scoped symbol, do not resolve the value of that symbol to be the symbols's
         // name itself.
-        Value mutable = isVariableInScope(symbol) ? getVariable(symbol) : new Value();
+        Value mutable = findVariable(symbol, slot);
+        if (mutable == null) {
+            mutable = new Value();
+        }
 
         // Operating on a chunk of the existing value
         if (chunk != null)
@@ -351,7 +389,7 @@ public class ExecutionContext {
         else
             mutable = Value.ofValue(mutable, preposition, value);
 
-        setVariable(symbol, mutable);
+        setVariable(symbol, slot, mutable);
     }
 
     /**
@@ -364,31 +402,43 @@ public class ExecutionContext {
      * @return The value of the requested symbol.
      */
     public Value getVariable(String symbol) {
-        Value value;
+        return getVariable(symbol, -1);
+    }
 
-        if (globals.contains(symbol) && getStackFrame().isGlobalInScope(symbol)) {
-            value = globals.get(symbol);
-        } else if (getStackFrame().getLocalVariables().contains(symbol)) {
-            value = getStackFrame().getLocalVariables().get(symbol);
-        }
+    /**
+     * Gets the value assigned to a symbol (variable); see {@link #getVariable(String)}.
+     *
+     * @param symbol The symbol/variable whose value should be retrieved.
+     * @param slot   The slot assigned to the variable when its handler was compiled, or -1 if unknown
+     * @return The value of the requested symbol.
+     */
+    public Value getVariable(String symbol, int slot) {
+        Value value = findVariable(symbol, slot);
 
         // Allow the user to refer to literals without quotation marks
-        else {
-            value = new Value(symbol);
-        }
-
-        return value;
+        return value == null ? new Value(symbol) : value;
     }
 
     /**
-     * Determines if the given symbol name refers to an in-scope variable (either local or global).
+     * Gets the value of an in-scope variable (either local or global).
      *
-     * @param symbol The symbol (variable name) to test
-     * @return True if the symbol is an in-scope variable, false otherwise
+     * @param symbol The symbol (variable name) to find
+     * @param slot   The slot assigned to the variable when its handler was compiled, or -1 if unknown
+     * @return The value of the variable, or null if the symbol is not an in-scope variable
      */
-    private boolean isVariableInScope(String symbol) {
-        return globals.contains(symbol) && getStackFrame().isGlobalInScope(symbol) ||
-                getStackFrame().getLocalVariables().contains(symbol);
+    private Value findVariable(String symbol, int slot) {
+        StackFrame frame = getStackFrame();
+        SlotSymbolTable locals = frame.getLocalVariables();
+
+        if (frame.isGlobalInScope(symbol) && globals.contains(symbol)) {
+            return globals.get(symbol);
+        } else if (locals.isSlotOf(slot, symbol)) {
+            return locals.get(slot);
+        } else if (locals.contains(symbol)) {
+            return locals.get(symbol);
+        } else {
+            return null;
+        }
     }
 
     /**
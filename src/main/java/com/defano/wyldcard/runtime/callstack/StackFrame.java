@@ -5,19 +5,14 @@ import com.defano.hypertalk.ast.model.Value;
 import com.defano.hypertalk.ast.model.specifier.PartMessageSpecifier;
 import com.defano.hypertalk.ast.model.specifier.PartSpecifier;
 import com.defano.wyldcard.runtime.ExecutionContext;
-import com.defano.wyldcard.runtime.symbol.BasicSymbolTable;
-import com.defano.wyldcard.runtime.symbol.CompositeSymbolTable;
-import com.defano.wyldcard.runtime.symbol.FilteredSymbolTable;
-import com.defano.wyldcard.runtime.symbol.SymbolTable;
+import com.defano.wyldcard.runtime.symbol.*;
 
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.*;
 
 public class StackFrame {
 
-    private final SymbolTable localVariables = new BasicSymbolTable();  // Local variables
-    private final List<String> globalsInScope = new ArrayList<>();      // Global variables that are in scope in this frame
+    private final SlotSymbolTable localVariables;                       // Local variables
+    private final Set<String> globalsInScope = new LinkedHashSet<>();   // Global variables that are in scope in this frame
 
     private long creationTime = System.currentTimeMillis();             // Time when this frame was created
     private List<Value> params = new ArrayList<>();                     // Arguments passed to this function/handler
@@ -25,6 +20,7 @@ public class StackFrame {
     private Value returnValue = new Value();                            // Value returned from this function
     private PartSpecifier me;                                           // The part that 'me' refers to
     private ASTNode astNode;
+    private Collection<Integer> breakpoints = Collections.emptySet();   // Breakpoint-marked lines in the executing script
 
     /**
      * Create a stack frame representing the invocation of unbound script text (i.e., text entered into the message
@@ -32,6 +28,7 @@ public class StackFrame {
      */
     public StackFrame() {
         this.me = new PartMessageSpecifier();
+        this.localVariables = new SlotSymbolTable(SymbolLayout.EMPTY);
     }
 
     /**
@@ -41,11 +38,13 @@ public class StackFrame {
      * @param message   The message being handled (i.e., the name of the handler or function)
      * @param arguments A list of evaluated arguments to be bound the handler's parameter list. May not be null; provide
      *                  an empty list for invocations not passing arguments.
+     * @param locals    The slots assigned to the local variables of the handler or function
      */
-    public StackFrame(PartSpecifier me, String message, List<Value> arguments) {
+    public StackFrame(PartSpecifier me, String message, List<Value> arguments, SymbolLayout locals) {
         this.message = message;
         this.me = me;
         this.params = arguments;
+        this.localVariables = new SlotSymbolTable(locals);
     }
 
     /**
@@ -75,7 +74,7 @@ public class StackFrame {
      *
      * @return In-scope local variables
      */
-    public SymbolTable getLocalVariables() {
+    public SlotSymbolTable getLocalVariables() {
         return localVariables;
     }
 
@@ -160,7 +159,7 @@ public class StackFrame {
      * @return True if the symbol is an in-scope global variable, false otherwise.
      */
     public boolean isGlobalInScope(String symbol) {
-        return globalsInScope.contains(symbol);
+        return !globalsInScope.isEmpty() && globalsInScope.contains(symbol);
     }
 
     /**
@@ -200,6 +199,36 @@ public class StackFrame {
         this.me = me;
     }
 
+    /**
+     * Sets the collection of script lines (counting from zero) that are marked as breakpoints in the script executing
+     * in this frame. Typically, this is a live view of the breakpoints of the part owning the script such that
+     * breakpoints added while the script is running take effect immediately.
+     *
+     * @param breakpoints The breakpoint-marked lines of the executing script
+     */
+    public void setBreakpoints(Collection<Integer> breakpoints) {
+        this.breakpoints = breakpoints;
+    }
+
+    /**
+     * Determines if the given line of the executing script is marked as a breakpoint.
+     *
+     * @param line The script line number, counting from one (as reported by the parser)
+     * @return True if the line is marked as a breakpoint
+     */
+    public boolean isBreakpoint(int line) {
+        return !breakpoints.isEmpty() && breakpoints.contains(line - 1);
+    }
+
+    /**
+     * Determines if any line of the executing script is marked as a breakpoint.
+     *
+     * @return True if the executing script has at least one breakpoint
+     */
+    public boolean hasBreakpoints() {
+        return !breakpoints.isEmpty();
+    }
+
     public String getStackTraceEntryString() {
         StringBuilder builder = new StringBuilder();
 
@@ -0,0 +1,343 @@
+package com.defano.wyldcard.runtime.compiler;
+
+import com.defano.hypertalk.ast.ASTNode;
+import com.defano.hypertalk.ast.expression.Expression;
+import com.defano.hypertalk.ast.expression.GroupExp;
+import com.defano.hypertalk.ast.expression.LiteralExp;
+import com.defano.hypertalk.ast.expression.container.VariableExp;
+import com.defano.hypertalk.ast.expression.operator.BinaryOperatorExp;
+import com.defano.hypertalk.ast.expression.operator.unary.NegateOp;
+import com.defano.hypertalk.ast.expression.operator.unary.NotOp;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.ast.preemption.Preemption;
+import com.defano.hypertalk.ast.preemption.TerminateHandlerPreemption;
+import com.defano.hypertalk.ast.preemption.TerminateIterationPreemption;
+import com.defano.hypertalk.ast.preemption.TerminateLoopPreemption;
+import com.defano.hypertalk.ast.statement.ExpressionStatement;
+import com.defano.hypertalk.ast.statement.ReturnStatement;
+import com.defano.hypertalk.ast.statement.Statement;
+import com.defano.hypertalk.ast.statement.StatementList;
+import com.defano.hypertalk.ast.statement.command.PutCmd;
+import com.defano.hypertalk.ast.statement.conditional.IfStatement;
+import com.defano.hypertalk.ast.statement.repeat.*;
+import com.defano.hypertalk.exception.Breadcrumb;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.wyldcard.runtime.ExecutionContext;
+
+/**
+ * Compiles the abstract syntax tree of a handler into a tree of closures, removing the per-node overhead of walking
+ * the tree: closures dispatch directly to their children, variables are read directly from their slots, operators
+ * are applied without re-entering the operator nodes, and no statement checks for an abort or a breakpoint (see
+ * {@link HotHandlerCompiler} for when compiled closures may execute).
+ * <p>
+ * Only the statements and expressions that dominate loop-heavy handlers are compiled: statement lists, 'if', 'repeat',
+ * 'put' into a variable, 'return', expression statements, literals, variables, and arithmetic, logical, comparison
+ * and concatenation operators. Every other node is executed by the tree-walker, so compiling never fails and compiled
+ * handlers behave identically to walked ones. Each compiled statement falls back to walking its tree whenever a
+ * breakpoint could be reached.
+ * <p>
+ * Errors are reported against the same script token as when walking the tree.
+ */
+public class ClosureCompiler {
+
+    private ClosureCompiler() {
+    }
+
+    /**
+     * Compiles a statement (or statement list).
+     *
+     * @param statement The statement to compile
+     * @return The compiled statement
+     */
+    public static CompiledStatement compile(Statement statement) {
+        if (statement instanceof StatementList) {
+            return compileStatementList((StatementList) statement);
+        }
+
+        CompiledStatement specialized = specialize(statement);
+
+        if (specialized == null) {
+            return statement::execute;
+        }
+
+        return context -> {
+            if (HotHandlerCompiler.isTreeWalkingRequired(context)) {
+                statement.execute(context);
+            } else {
+                try {
+                    specialized.execute(context);
+                } catch (HtException e) {
+                    throw contextualize(context, statement, e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Compiles an expression.
+     *
+     * @param expression The expression to compile
+     * @return The compiled expression
+     */
+    public static CompiledExpression compile(Expression expression) {
+        if (expression instanceof LiteralExp) {
+            Value literal = ((LiteralExp) expression).literal;
+            return context -> literal;
+        }
+
+        if (expression instanceof GroupExp) {
+            return compile(((GroupExp) expression).expression);
+        }
+
+        if (expression instanceof VariableExp && ((VariableExp) expression).getChunk() == null) {
+            String symbol = ((VariableExp) expression).getSymbol();
+            int slot = ((VariableExp) expression).getSlot();
+            return context -> context.getVariable(symbol, slot);
+        }
+
+        if (expression instanceof BinaryOperatorExp) {
+            BinaryOperatorExp operator = (BinaryOperatorExp) expression;
+            CompiledExpression lhs = compile(operator.getLhs());
+            CompiledExpression rhs = compile(operator.getRhs());
+
+            if (operator.isRhsEvaluatedFirst()) {
+                return context -> {
+                    try {
+                        Value right = rhs.evaluate(context);
+                        return operator.apply(lhs.evaluate(context), right);
+                    } catch (HtException e) {
+                        throw contextualize(context, operator, e);
+                    }
+                };
+            }
+
+            return context -> {
+                try {
+                    return operator.apply(lhs.evaluate(context), rhs.evaluate(context));
+                } catch (HtException e) {
+                    throw contextualize(context, operator, e);
+                }
+            };
+        }
+
+        if (expression instanceof NegateOp) {
+            CompiledExpression rhs = compile(((NegateOp) expression).rhs);
+
+            return context -> {
+                try {
+                    return rhs.evaluate(context).negate();
+                } catch (HtException e) {
+                    throw contextualize(context, expression, e);
+                }
+            };
+        }
+
+        if (expression instanceof NotOp) {
+            CompiledExpression rhs = compile(((NotOp) expression).rhs);
+
+            return context -> {
+                try {
+                    return rhs.evaluate(context).not();
+                } catch (HtException e) {
+                    throw contextualize(context, expression, e);
+                }
+            };
+        }
+
+        return expression::evaluate;
+    }
+
+    private static CompiledStatement compileStatementList(StatementList statementList) {
+        CompiledStatement[] statements = new CompiledStatement[statementList.list.size()];
+        for (int index = 0; index < statements.length; index++) {
+            statements[index] = compile(statementList.list.get(index));
+        }
+
+        if (statements.length == 1) {
+            return statements[0];
+        }
+
+        return context -> {
+            for (CompiledStatement statement : statements) {
+                statement.execute(context);
+            }
+        };
+    }
+
+    /**
+     * Compiles a statement that can be executed without walking its tree.
+     *
+     * @param statement The statement to compile
+     * @return The compiled statement, or null if the statement can only be executed by walking its tree
+     */
+    private static CompiledStatement specialize(Statement statement) {
+        if (statement instanceof IfStatement) {
+            return compileIf((IfStatement) statement);
+        } else if (statement instanceof RepeatStatement) {
+            return compileRepeat((RepeatStatement) statement);
+        } else if (statement instanceof PutCmd && ((PutCmd) statement).container instanceof VariableExp) {
+            return compilePut((PutCmd) statement);
+        } else if (statement instanceof ReturnStatement) {
+            CompiledExpression returnValue = compile(((ReturnStatement) statement).returnValue);
+
+            return context -> {
+                Value evaluatedReturnValue = returnValue.evaluate(context);
+                context.getStackFrame().setReturnValue(evaluatedReturnValue);
+                context.setResult(evaluatedReturnValue);
+                throw new TerminateHandlerPreemption(null);
+            };
+        } else if (statement instanceof ExpressionStatement && !(((ExpressionStatement) statement).expression instanceof VariableExp)) {
+            CompiledExpression expression = compile(((ExpressionStatement) statement).expression);
+            return context -> context.setIt(expression.evaluate(context));
+        }
+
+        return null;
+    }
+
+    private static CompiledStatement compileIf(IfStatement statement) {
+        CompiledExpression condition = compile(statement.condition);
+        CompiledStatement thenBranch = compile(statement.then.thenBranch);
+        CompiledStatement elseBranch = statement.then.elseBranch == null ? null : compile(statement.then.elseBranch);
+
+        return context -> {
+            if (booleanValueOf(condition.evaluate(context), "Condition expects a true or false value.")) {
+                thenBranch.execute(context);
+            } else if (elseBranch != null) {
+                elseBranch.execute(context);
+            }
+        };
+    }
+
+    private static CompiledStatement compilePut(PutCmd put) {
+        VariableExp container = (VariableExp) put.container;
+        CompiledExpression expression = compile(put.expression);
+
+        return context -> {
+            // A script in the message passing hierarchy may trap 'put'; only the command itself can send the message
+            if (put.isDispatchRequired(context)) {
+                put.execute(context);
+            } else {
+                container.putValue(context, expression.evaluate(context), put.preposition);
+            }
+        };
+    }
+
+    private static CompiledStatement compileRepeat(RepeatStatement statement) {
+        CompiledStatement body = compile(statement.statements);
+        RepeatSpecifier range = statement.range;
+        CompiledStatement loop;
+
+        if (range instanceof RepeatForever) {
+            loop = context -> {
+                while (true) {
+                    HotHandlerCompiler.checkAbort(context);
+                    iterate(context, body);
+                }
+            };
+        } else if (range instanceof RepeatCount) {
+            CompiledExpression count = compile(((RepeatCount) range).count);
+
+            loop = context -> {
+                Value countValue = count.evaluate(context);
+
+                if (!countValue.isNatural())
+                    throw new HtSemanticException("Repeat range must be a natural number, got '" + countValue + "' instead.");
+
+                int countIndex = countValue.integerValue();
+                while (countIndex-- > 0) {
+                    HotHandlerCompiler.checkAbort(context);
+                    iterate(context, body);
+                }
+            };
+        } else if (range instanceof RepeatDuration) {
+            CompiledExpression condition = compile(((RepeatDuration) range).condition);
+            boolean polarity = ((RepeatDuration) range).polarity;
+
+            loop = context -> {
+                while (booleanValueOf(condition.evaluate(context), "Repeat condition expects a true or false value.") == polarity) {
+                    HotHandlerCompiler.checkAbort(context);
+                    iterate(context, body);
+                }
+            };
+        } else if (range instanceof RepeatWith) {
+            loop = compileRepeatWith((RepeatWith) range, body);
+        } else {
+            throw new IllegalStateException("Bug! Unknown repeat type.");
+        }
+
+        return context -> {
+            try {
+                loop.execute(context);
+            } catch (TerminateLoopPreemption e) {
+                // Nothing to do except stop repeating
+            }
+        };
+    }
+
+    private static CompiledStatement compileRepeatWith(RepeatWith with, CompiledStatement body) {
+        String symbol = with.symbol;
+        int slot = with.slot;
+        boolean polarity = with.range.polarity;
+        CompiledExpression from = compile(with.range.from);
+        CompiledExpression to = compile(with.range.to);
+
+        return context -> {
+            Value fromValue = from.evaluate(context);
+            Value toValue = to.evaluate(context);
+
+            if (!fromValue.isInteger())
+                throw new HtSemanticException("Start of repeat range is not an integer value: '" + fromValue + "'");
+            if (!toValue.isInteger())
+                throw new HtSemanticException("End of repeat range is not an integer value: '" + toValue + "'");
+
+            int fromIndex = fromValue.integerValue();
+            int toIndex = toValue.integerValue();
+
+            if (polarity == RepeatRange.POLARITY_UPTO) {
+                if (fromIndex > toIndex)
+                    throw new HtSemanticException("Start of repeat range is greater than end: " + fromIndex + " > " + toIndex);
+
+                for (int index = fromIndex; index <= toIndex; index++) {
+                    HotHandlerCompiler.checkAbort(context);
+                    context.setVariable(symbol, slot, Value.ofInteger(index));
+                    iterate(context, body);
+                }
+            } else {
+                if (toIndex > fromIndex)
+                    throw new HtSemanticException("End of repeat range is less than start: " + toIndex + " > " + fromIndex);
+
+                for (int index = fromIndex; index >= toIndex; index--) {
+                    HotHandlerCompiler.checkAbort(context);
+                    context.setVariable(symbol, slot, Value.ofInteger(index));
+                    iterate(context, body);
+                }
+            }
+        };
+    }
+
+    private static void iterate(ExecutionContext context, CompiledStatement body) throws HtException, Preemption {
+        try {
+            body.execute(context);
+        } catch (TerminateIterationPreemption e) {
+            // Nothing to do; keep repeating
+        }
+    }
+
+    // Unlike Value#booleanValueOrError, does not construct an exception on every evaluation of a loop condition
+    private static boolean booleanValueOf(Value value, String error) throws HtSemanticException {
+        if (!value.isBoolean()) {
+            throw new HtSemanticException(error);
+        }
+
+        return value.booleanValue();
+    }
+
+    private static HtException contextualize(ExecutionContext context, ASTNode node, HtException e) {
+        if (e.getBreadcrumb() == null) {
+            e.setBreadcrumb(new Breadcrumb(context, node.getToken()));
+        }
+
+        return e;
+    }
+}
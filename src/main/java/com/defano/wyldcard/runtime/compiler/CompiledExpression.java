@@ -0,0 +1,15 @@
+package com.defano.wyldcard.runtime.compiler;
+
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.wyldcard.runtime.ExecutionContext;
+
+/**
+ * An expression compiled by {@link ClosureCompiler}; evaluating it produces the same value as evaluating the
+ * {@link com.defano.hypertalk.ast.expression.Expression} it was compiled from.
+ */
+@FunctionalInterface
+public interface CompiledExpression {
+
+    Value evaluate(ExecutionContext context) throws HtException;
+}
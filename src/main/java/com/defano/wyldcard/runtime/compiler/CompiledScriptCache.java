@@ -0,0 +1,224 @@
+package com.defano.wyldcard.runtime.compiler;
+
+import com.defano.hypertalk.exception.HtException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded, least-recently-used cache of compiled HyperTalk, keyed on script text and compilation unit.
+ * <p>
+ * Compiled abstract syntax trees are shared by every part whose script text is identical (i.e., many buttons carrying
+ * the same script, or cards cloned from a common template), so a cached tree must never carry state specific to any
+ * one part. Breakpoints, for example, are tracked by the part model and consulted via the executing stack frame, not
+ * applied to the tree.
+ * <p>
+ * Scripts that fail to compile are never cached by {@link #getCompiled(CompilationUnit, String)}; each compilation
+ * attempt of an erroneous script will re-throw the syntax error. Text evaluated at runtime (via
+ * {@link #getCompiledOrNull(CompilationUnit, String)}) is frequently not HyperTalk at all (i.e., the contents of a
+ * field being dereferenced as a part), so the cache also remembers that such text could not be compiled.
+ * <p>
+ * Two caches exist: one for the scripts of parts and one for text evaluated at runtime (by 'do', 'the value of' and
+ * implicit dereferencing), so that a script generating many distinct strings in a loop cannot evict compiled part
+ * scripts.
+ */
+public class CompiledScriptCache {
+
+    private static final int MAX_CACHED_SCRIPTS = 1024;
+    private static final int MAX_CACHED_EVALUATIONS = 512;
+    private static final CompiledScriptCache instance = new CompiledScriptCache(MAX_CACHED_SCRIPTS);
+    private static final CompiledScriptCache evaluationInstance = new CompiledScriptCache(MAX_CACHED_EVALUATIONS);
+
+    // Marks text that was found not to compile; never returned to callers
+    private static final Object NOT_COMPILABLE = new Object();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final Map<CacheKey, Object> cache;
+
+    CompiledScriptCache(int capacity) {
+        this.cache = new LinkedHashMap<CacheKey, Object>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<CacheKey, Object> eldest) {
+                if (size() > capacity) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static CompiledScriptCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Gets the cache of text compiled for evaluation at runtime.
+     *
+     * @return The evaluation cache
+     */
+    public static CompiledScriptCache getEvaluationInstance() {
+        return evaluationInstance;
+    }
+
+    /**
+     * Gets the compiled form of the given script text, compiling it on the current thread (and caching the result) if
+     * an equivalent script has not already been compiled.
+     * <p>
+     * Compilation occurs outside of the cache's lock so that compiling a large script on one thread does not block
+     * cache hits on another; should two threads race to compile the same script, the first result cached wins.
+     *
+     * @param compilationUnit The type of script/scriptlet to compile
+     * @param scriptText      The script text to parse.
+     * @return The compiled Script object (the root of the abstract syntax tree), or null if the script is empty
+     * @throws HtException Thrown if an error (i.e., syntax error) occurs when compiling.
+     */
+    public Object getCompiled(CompilationUnit compilationUnit, String scriptText) throws HtException {
+
+        // Nothing to cache for empty scripts
+        if (scriptText == null || scriptText.trim().isEmpty()) {
+            return null;
+        }
+
+        CacheKey key = new CacheKey(compilationUnit, scriptText);
+
+        Object cached = get(key);
+        if (cached != null && cached != NOT_COMPILABLE) {
+            hits.incrementAndGet();
+            return cached;
+        }
+
+        misses.incrementAndGet();
+
+        // Re-parse text known not to compile in order to re-throw its syntax error
+        return put(key, TwoPhaseParser.parseScript(compilationUnit, scriptText));
+    }
+
+    /**
+     * Gets the compiled form of the given text, as {@link #getCompiled(CompilationUnit, String)} does, but returns null
+     * instead of throwing a syntax error when the text does not compile. The failure is cached, so text that is not
+     * HyperTalk is parsed only once no matter how often it is evaluated.
+     *
+     * @param compilationUnit The type of script/scriptlet to compile
+     * @param scriptText      The text to parse.
+     * @return The compiled Script object, or null if the text is empty or not valid HyperTalk
+     */
+    public Object getCompiledOrNull(CompilationUnit compilationUnit, String scriptText) {
+
+        if (scriptText == null || scriptText.trim().isEmpty()) {
+            return null;
+        }
+
+        CacheKey key = new CacheKey(compilationUnit, scriptText);
+
+        Object cached = get(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+        } else {
+            misses.incrementAndGet();
+            try {
+                cached = put(key, TwoPhaseParser.parseScript(compilationUnit, scriptText));
+            } catch (HtException | RuntimeException e) {
+                cached = put(key, NOT_COMPILABLE);
+            }
+        }
+
+        return cached == NOT_COMPILABLE ? null : cached;
+    }
+
+    private Object get(CacheKey key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    private Object put(CacheKey key, Object compiled) {
+        if (compiled == null) {
+            return null;
+        }
+
+        synchronized (cache) {
+            Object existing = cache.get(key);
+            if (existing == null || existing == NOT_COMPILABLE) {
+                cache.put(key, compiled);
+                return compiled;
+            }
+            return existing;
+        }
+    }
+
+    /**
+     * Removes all compiled scripts from the cache. Does not reset the hit, miss or eviction counters.
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * Gets the number of compiled scripts presently held in the cache.
+     *
+     * @return The number of cached scripts
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Gets the number of compilation requests that were satisfied from the cache.
+     *
+     * @return The cache hit count
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Gets the number of compilation requests that required the script to be parsed (including requests for text
+     * previously found not to compile, which {@link #getCompiled(CompilationUnit, String)} re-parses).
+     *
+     * @return The cache miss count
+     */
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    /**
+     * Gets the number of compiled scripts that were discarded to keep the cache within its size bound.
+     *
+     * @return The eviction count
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private static class CacheKey {
+        private final CompilationUnit compilationUnit;
+        private final String scriptText;
+
+        private CacheKey(CompilationUnit compilationUnit, String scriptText) {
+            this.compilationUnit = compilationUnit;
+            this.scriptText = scriptText;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            CacheKey cacheKey = (CacheKey) o;
+            return compilationUnit == cacheKey.compilationUnit && scriptText.equals(cacheKey.scriptText);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(compilationUnit, scriptText);
+        }
+    }
+}
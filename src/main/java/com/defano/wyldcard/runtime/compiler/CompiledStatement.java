@@ -0,0 +1,15 @@
+package com.defano.wyldcard.runtime.compiler;
+
+import com.defano.hypertalk.ast.preemption.Preemption;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.wyldcard.runtime.ExecutionContext;
+
+/**
+ * A statement (or list of statements) compiled by {@link ClosureCompiler}; executing it has the same effect as
+ * executing the {@link com.defano.hypertalk.ast.statement.Statement} it was compiled from.
+ */
+@FunctionalInterface
+public interface CompiledStatement {
+
+    void execute(ExecutionContext context) throws HtException, Preemption;
+}
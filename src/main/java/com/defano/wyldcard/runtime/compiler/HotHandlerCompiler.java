@@ -0,0 +1,98 @@
+package com.defano.wyldcard.runtime.compiler;
+
+import com.defano.hypertalk.ast.model.NamedBlock;
+import com.defano.hypertalk.ast.preemption.Preemption;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.wyldcard.debug.DebugContext;
+import com.defano.wyldcard.runtime.ExecutionContext;
+
+/**
+ * Executes handlers and functions in one of two tiers: by walking the abstract syntax tree (see
+ * {@link com.defano.hypertalk.ast.statement.Statement#execute(ExecutionContext)}), or, once a handler has been invoked
+ * {@link #INVOCATION_THRESHOLD} times, by executing the closures it was compiled into by {@link ClosureCompiler}.
+ * <p>
+ * Walking the tree checks for an abort (command-period) and for a breakpoint before every statement. Compiled
+ * handlers check for an abort on entry and on each iteration of a loop, and are executed only while they cannot
+ * reach a breakpoint: that is, while no script is being debugged and no line of the executing part's script is
+ * marked as a breakpoint. Each compiled statement re-checks this before it executes and falls back to the tree-walker
+ * when a breakpoint is set or the debugger is activated, even in the middle of a running handler.
+ * <p>
+ * Compiled closures, like the tree itself, are shared by every part having an identical script and so hold no state
+ * specific to any one execution.
+ */
+public class HotHandlerCompiler {
+
+    /**
+     * The number of times a handler is executed by walking its tree before it is compiled.
+     */
+    public static final int INVOCATION_THRESHOLD = 10;
+
+    private static volatile boolean enabled = true;
+
+    private HotHandlerCompiler() {
+    }
+
+    /**
+     * Executes the statements of a handler or function in the current stack frame, compiling the statements first if
+     * the handler has become hot.
+     *
+     * @param context The execution context, whose current frame is that of the handler
+     * @param block   The handler or function to execute
+     * @throws HtException Thrown if an error occurs executing the handler
+     * @throws Preemption  Thrown if the handler's flow of control was interrupted (i.e., by 'return' or 'exit')
+     */
+    public static void execute(ExecutionContext context, NamedBlock block) throws HtException, Preemption {
+        if (!enabled || isTreeWalkingRequired(context)) {
+            block.statements.execute(context);
+            return;
+        }
+
+        CompiledStatement compiled = block.getCompiled();
+        if (compiled == null && block.countInvocation() >= INVOCATION_THRESHOLD) {
+            compiled = ClosureCompiler.compile(block.statements);
+            block.setCompiled(compiled);
+        }
+
+        if (compiled == null) {
+            block.statements.execute(context);
+        } else {
+            checkAbort(context);
+            compiled.execute(context);
+        }
+    }
+
+    /**
+     * Determines if statements must be executed by walking the tree, because execution may need to stop at a
+     * breakpoint.
+     *
+     * @param context The execution context
+     * @return True if compiled statements must not be executed
+     */
+    public static boolean isTreeWalkingRequired(ExecutionContext context) {
+        return DebugContext.getInstance().isDebugging() || context.getStackFrame().hasBreakpoints();
+    }
+
+    /**
+     * Throws an exception if the user has aborted script execution (by pressing command-period). Compiled loops
+     * invoke this on every iteration.
+     *
+     * @param context The execution context
+     * @throws HtSemanticException Thrown if the script was aborted
+     */
+    static void checkAbort(ExecutionContext context) throws HtSemanticException {
+        if (context.didAbort()) {
+            throw new HtSemanticException("Script aborted.");
+        }
+    }
+
+    /**
+     * Enables or disables compilation of hot handlers. When disabled, every handler is executed by walking its tree
+     * (handlers already compiled are not discarded, just not used).
+     *
+     * @param enabled True to compile and execute hot handlers; false to always walk the tree
+     */
+    public static void setEnabled(boolean enabled) {
+        HotHandlerCompiler.enabled = enabled;
+    }
+}
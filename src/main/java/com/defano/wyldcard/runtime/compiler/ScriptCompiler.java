@@ -36,7 +36,10 @@ public class ScriptCompiler {
     }
 
     /**
-     * Compiles the given script on the current thread.
+     * Compiles the given script on the current thread, or returns a previously compiled abstract syntax tree of
+     * identical script text from the {@link CompiledScriptCache}.
+     * <p>
+     * The returned tree may be shared with other parts and must not be modified.
      *
      * @param compilationUnit The type of script/scriptlet to compile
      * @param scriptText      The script text to parse.
@@ -44,7 +47,36 @@ public class ScriptCompiler {
      * @throws HtException Thrown if an error (i.e., syntax error) occurs when compiling.
      */
     public static Object blockingCompile(CompilationUnit compilationUnit, String scriptText) throws HtException {
-        return TwoPhaseParser.parseScript(compilationUnit, scriptText);
+        return CompiledScriptCache.getInstance().getCompiled(compilationUnit, scriptText);
+    }
+
+    /**
+     * Compiles text produced by a running script for immediate evaluation (i.e., the argument of 'do' or 'the value
+     * of', or a value being dereferenced as a part) on the current thread, or returns a previously compiled tree of
+     * the same text.
+     * <p>
+     * Such text is cached apart from the scripts of parts, so that a script evaluating many distinct strings does not
+     * evict them. The returned tree may be shared and must not be modified.
+     *
+     * @param compilationUnit The type of script/scriptlet to compile
+     * @param scriptText      The text to parse.
+     * @return The compiled Script object (the root of the abstract syntax tree)
+     * @throws HtException Thrown if an error (i.e., syntax error) occurs when compiling.
+     */
+    public static Object blockingCompileEvaluated(CompilationUnit compilationUnit, String scriptText) throws HtException {
+        return CompiledScriptCache.getEvaluationInstance().getCompiled(compilationUnit, scriptText);
+    }
+
+    /**
+     * Like {@link #blockingCompileEvaluated(CompilationUnit, String)}, but returns null rather than throwing an
+     * exception when the text is not valid HyperTalk. That the text could not be compiled is cached, too.
+     *
+     * @param compilationUnit The type of script/scriptlet to compile
+     * @param scriptText      The text to parse.
+     * @return The compiled Script object, or null if the text is empty or does not compile
+     */
+    public static Object blockingCompileEvaluatedOrNull(CompilationUnit compilationUnit, String scriptText) {
+        return CompiledScriptCache.getEvaluationInstance().getCompiledOrNull(compilationUnit, scriptText);
     }
 
     /**
@@ -73,7 +73,7 @@ public class TwoPhaseParser {
      * @return The root of the abstract syntax tree associated with the given compilation unit (i.e., {@link Script}).
      * @throws HtSyntaxException Thrown if an error occurs while parsing the script.
      */
-    private static Object parseLL(CompilationUnit compilationUnit, String scriptText) throws HtSyntaxException {
+    static Object parseLL(CompilationUnit compilationUnit, String scriptText) throws HtSyntaxException {
         HyperTalkErrorListener errors = new HyperTalkErrorListener();
         HyperTalkLexer lexer = new HyperTalkLexer(new CaseInsensitiveInputStream(scriptText));
         CommonTokenStream tokens = new CommonTokenStream(lexer);
@@ -108,7 +108,7 @@ public class TwoPhaseParser {
      * @return The root of the abstract syntax tree associated with the given compilation unit (i.e., {@link Script}),
      * or null if parsing fails.
      */
-    private static Object parseSLL(CompilationUnit compilationUnit, String scriptText) {
+    static Object parseSLL(CompilationUnit compilationUnit, String scriptText) {
         HyperTalkLexer lexer = new HyperTalkLexer(new CaseInsensitiveInputStream(scriptText));
         CommonTokenStream tokens = new CommonTokenStream(lexer);
         HyperTalkParser parser = new HyperTalkParser(tokens);
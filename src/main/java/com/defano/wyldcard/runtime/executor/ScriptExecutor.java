@@ -2,6 +2,7 @@ package com.defano.wyldcard.runtime.executor;
 
 import com.defano.hypertalk.ast.ASTNode;
 import com.defano.hypertalk.ast.expression.Expression;
+import com.defano.hypertalk.ast.expression.LiteralExp;
 import com.defano.hypertalk.ast.model.NamedBlock;
 import com.defano.hypertalk.ast.model.Script;
 import com.defano.hypertalk.ast.model.Value;
@@ -26,7 +27,10 @@ import com.google.common.util.concurrent.*;
 import org.checkerframework.checker.nullness.qual.Nullable;
 
 import javax.swing.*;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ThreadPoolExecutor;
@@ -68,8 +72,14 @@ public class ScriptExecutor {
     public static Value blockingEvaluate(String expression, ExecutionContext context) {
         ThreadChecker.assertWorkerThread();
 
+        // Numbers and quoted strings evaluate to themselves; no need to parse them
+        Value literal = getLiteralValue(expression);
+        if (literal != null) {
+            return literal;
+        }
+
         try {
-            Statement statement = ((Script) ScriptCompiler.blockingCompile(CompilationUnit.SCRIPTLET, expression)).getStatements().list.get(0);
+            Statement statement = getFirstStatement(expression);
             if (statement instanceof ExpressionStatement) {
                 return ((ExpressionStatement) statement).expression.evaluate(context);
             }
@@ -103,8 +113,13 @@ public class ScriptExecutor {
     public static <T> T blockingDereference(Value value, Class<T> klass) {
         ThreadChecker.assertWorkerThread();
 
+        // A number or quoted string can only be dereferenced as a literal expression
+        if (Expression.class.isAssignableFrom(klass) && !klass.isAssignableFrom(LiteralExp.class) && getLiteralValue(value.toString()) != null) {
+            return null;
+        }
+
         try {
-            Statement statement = ((Script) ScriptCompiler.blockingCompile(CompilationUnit.SCRIPTLET, value.toString())).getStatements().list.get(0);
+            Statement statement = getFirstStatement(value.toString());
 
             // Simple case; statement matches requested type
             if (statement.getClass().isAssignableFrom(klass)) {
@@ -123,47 +138,99 @@ public class ScriptExecutor {
         return null;
     }
 
+    /**
+     * Gets the value of the given text when it is a HyperTalk numeric literal or a quoted string literal, exactly as
+     * evaluating the text as an expression would produce, but without parsing it.
+     *
+     * @param text The text to inspect
+     * @return The value of the literal, or null if the text is not a number or quoted string literal.
+     */
+    private static Value getLiteralValue(String text) {
+        int length = text.length();
+
+        if (length >= 2 && text.charAt(0) == '"' && text.charAt(length - 1) == '"') {
+            for (int index = 1; index < length - 1; index++) {
+                char c = text.charAt(index);
+                if (c == '"' || c == '\r' || c == '\n') {
+                    return null;
+                }
+            }
+            return Value.ofQuotedLiteral(text.substring(1, length - 1));
+        }
+
+        boolean hasDigit = false, hasPoint = false;
+        for (int index = 0; index < length; index++) {
+            char c = text.charAt(index);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else if (c == '.' && !hasPoint) {
+                hasPoint = true;
+            } else {
+                return null;
+            }
+        }
+
+        return hasDigit ? new Value(text) : null;
+    }
+
+    /**
+     * Gets the first statement of the given text, compiled as a scriptlet, or null if the text is empty or does not
+     * compile.
+     *
+     * @param text The text to compile
+     * @return The first statement in the text, or null
+     */
+    private static Statement getFirstStatement(String text) {
+        Script script = (Script) ScriptCompiler.blockingCompileEvaluatedOrNull(CompilationUnit.SCRIPTLET, text);
+        return script == null || script.getStatements().list.isEmpty() ? null : script.getStatements().list.get(0);
+    }
+
     /**
      * Executes a user-defined function on the current thread and returns the result; may not be invoked from the Swing
      * dispatch thread.
      *
-     * @param context   The execution context
-     * @param me        The part that the 'me' keyword refers to.
-     * @param function  The compiled UserFunction
-     * @param arguments The arguments to be passed to the function
+     * @param context     The execution context
+     * @param me          The part that the 'me' keyword refers to.
+     * @param breakpoints The breakpoint-marked lines (counting from zero) of the script in which the function appears
+     * @param function    The compiled UserFunction
+     * @param arguments   The arguments to be passed to the function
      * @return The value returned by the function (an empty string if the function does not invoke 'return')
      * @throws HtSemanticException Thrown if an error occurs executing the function.
      */
-    public static Value blockingExecuteFunction(ExecutionContext context, ASTNode callingNode, PartSpecifier me, NamedBlock function, List<Value> arguments) throws HtException {
+    public static Value blockingExecuteFunction(ExecutionContext context, ASTNode callingNode, PartSpecifier me, Collection<Integer> breakpoints, NamedBlock function, List<Value> arguments) throws HtException {
         ThreadChecker.assertWorkerThread();
-        return new FunctionHandlerExecutionTask(context, callingNode, me, function, arguments).call();
+        return new FunctionHandlerExecutionTask(context, callingNode, me, breakpoints, function, arguments).call();
     }
 
     /**
      * Executes a script handler on a background thread and notifies an observer when complete.
      * <p>
      * Note that this method is asynchronous only when invoked from the Swing dispatch thread (or any thread not
-     * associated with script execution). Script executors that invoke this method will block pending completion of the
-     * executed handler.
+     * associated with script execution). When invoked on a script executor thread, both the handler and the completion
+     * observer run on the calling thread before this method returns. Thus, a message passed through the message
+     * hierarchy (or sent from within a handler, to any depth) occupies only the thread that sent it, rather than one
+     * pool thread for each handler waiting on another.
      * <p>
      * Any handler that does not 'pass' the handler name traps its behavior and prevents other scripts (or WyldCard)
      * from acting upon it. A script that does not implement a handler for a given message is assumed to 'pass' it.
      *
      * @param context            The execution context
      * @param me                 The part whose script is being executed (for the purposes of the 'me' keyword).
+     * @param breakpoints        The breakpoint-marked lines (counting from zero) of the part's script
      * @param script             The script of the part
      * @param message            The message whose handler should be executed.
      * @param completionObserver Invoked after the handler has executed on the same thread on which the handler ran.
      */
-    public static void asyncExecuteHandler(ExecutionContext context, ASTNode callingNode, PartSpecifier me, Script script, Message message, HandlerCompletionObserver completionObserver) {
+    public static void asyncExecuteHandler(ExecutionContext context, ASTNode callingNode, PartSpecifier me, Collection<Integer> breakpoints, Script script, Message message, HandlerCompletionObserver completionObserver) {
 
         // Find handler for message in the script
         NamedBlock handler = script == null ? null : script.getHandler(message.getMessageName());
+        Executor callbackExecutor = isScriptExecutorThread() ? MoreExecutors.directExecutor() : getExecutorForMessage(message);
         ListenableFuture<Boolean> future;
 
         // Script implements handler for message; execute it
         if (handler != null) {
-            future = submit(getExecutorForMessage(message), new MessageHandlerExecutionTask(context, callingNode, me, handler, message));
+            future = submit(getExecutorForMessage(message), new MessageHandlerExecutionTask(context, callingNode, me, breakpoints, handler, message));
         }
 
         // Special case: No handler in the script for this message; produce a "no-op" execution
@@ -191,7 +258,7 @@ public class ScriptExecutor {
             });
         }
 
-        Futures.addCallback(future, new HandlerExecutionFutureCallback(me, script, message.getMessageName(), completionObserver), getExecutorForMessage(message));
+        Futures.addCallback(future, new HandlerExecutionFutureCallback(me, script, message.getMessageName(), completionObserver), callbackExecutor);
     }
 
     /**
@@ -250,7 +317,7 @@ public class ScriptExecutor {
      * @throws HtException Thrown if an error occurs compiling the statements.
      */
     public static ListenableFuture<Boolean> asyncExecuteString(ExecutionContext context, PartSpecifier me, String statementList) throws HtException {
-        return submit(listeningDefaultExecutor, new MessageHandlerExecutionTask(context, null, me, NamedBlock.anonymousBlock(((Script) ScriptCompiler.blockingCompile(CompilationUnit.SCRIPTLET, statementList)).getStatements()), MessageBuilder.emptyMessage()));
+        return submit(listeningDefaultExecutor, new MessageHandlerExecutionTask(context, null, me, Collections.emptySet(), NamedBlock.anonymousBlock(((Script) ScriptCompiler.blockingCompileEvaluated(CompilationUnit.SCRIPTLET, statementList)).getStatements()), MessageBuilder.emptyMessage()));
     }
 
     /**
@@ -317,4 +384,4 @@ public class ScriptExecutor {
         }
     }
 
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.defano.wyldcard.runtime.executor;
+
+import com.defano.wyldcard.runtime.ExecutionContext;
+
+import javax.swing.*;
+
+/**
+ * Lets scripts wait for a condition (i.e., 'wait until the mouse is down') without re-evaluating it continuously.
+ * <p>
+ * The inputs that a wait condition may depend on report their changes here: mouse and keyboard events (from
+ * {@link com.defano.wyldcard.awt.mouse.WyldCardMouseManager} and
+ * {@link com.defano.wyldcard.awt.keyboard.WyldCardKeyboardManager}), property changes (from
+ * {@link com.defano.wyldcard.property.SimplePropertiesModel}) and changes to global variables (observed via a
+ * {@link com.defano.wyldcard.runtime.symbol.SymbolObserver}). A waiting script re-evaluates its condition only after
+ * one of these changes, or, to account for inputs that are not reported (like the time of day), after a bounded
+ * interval has passed without one.
+ * <p>
+ * Changes are counted rather than queued: a waiting script reads the count before evaluating its condition and then
+ * waits for the count to change, so a change made while the condition is being evaluated is never missed.
+ */
+public class WaitMonitor {
+
+    private static final WaitMonitor instance = new WaitMonitor();
+
+    private long changeCount;
+    private int waiting;
+
+    private WaitMonitor() {
+        // Symbol observers are notified on the dispatch thread; register there, too
+        SwingUtilities.invokeLater(() -> ExecutionContext.getGlobals().addObserver((symbolTable, id, oldValue, newValue) -> notifyChanged()));
+    }
+
+    public static WaitMonitor getInstance() {
+        return instance;
+    }
+
+    /**
+     * Indicates that an input which a wait condition may depend on has changed. May be invoked from any thread.
+     */
+    public synchronized void notifyChanged() {
+        changeCount++;
+
+        if (waiting > 0) {
+            notifyAll();
+        }
+    }
+
+    /**
+     * Gets the number of changes reported to this monitor so far. Read this before evaluating a wait condition, and
+     * pass it to {@link #awaitChange(long, long)} if the condition is not yet satisfied.
+     *
+     * @return The change count
+     */
+    public synchronized long getChangeCount() {
+        return changeCount;
+    }
+
+    /**
+     * Blocks the current thread until a change has been reported since the given change count was read, or until the
+     * timeout elapses, whichever comes first. Returns immediately if a change has already been reported.
+     *
+     * @param sinceCount The change count, as read prior to evaluating the wait condition
+     * @param timeoutMs  The longest time to wait, in milliseconds
+     * @return The change count at the time this method returns
+     * @throws InterruptedException Thrown if the thread is interrupted while waiting
+     */
+    public synchronized long awaitChange(long sinceCount, long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        waiting++;
+
+        try {
+            for (long remaining = timeoutMs; changeCount == sinceCount && remaining > 0; remaining = deadline - System.currentTimeMillis()) {
+                wait(remaining);
+            }
+        } finally {
+            waiting--;
+        }
+
+        return changeCount;
+    }
+}
@@ -10,7 +10,9 @@ import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.wyldcard.debug.message.HandlerInvocation;
 import com.defano.wyldcard.debug.message.HandlerInvocationCache;
 import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.compiler.HotHandlerCompiler;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.concurrent.Callable;
 
@@ -21,13 +23,15 @@ public class FunctionHandlerExecutionTask implements Callable<Value>, MeteredTas
     private final NamedBlock function;
     private final List<Value> evaluatedArguments;
     private final PartSpecifier me;
+    private final Collection<Integer> breakpoints;
 
-    public FunctionHandlerExecutionTask(ExecutionContext context, ASTNode callingNode, PartSpecifier me, NamedBlock function, List<Value> arguments) {
+    public FunctionHandlerExecutionTask(ExecutionContext context, ASTNode callingNode, PartSpecifier me, Collection<Integer> breakpoints, NamedBlock function, List<Value> arguments) {
         this.context = context;
         this.callingNode = callingNode;
         this.function = function;
         this.evaluatedArguments = arguments;
         this.me = me;
+        this.breakpoints = breakpoints;
     }
 
     @Override
@@ -36,7 +40,8 @@ public class FunctionHandlerExecutionTask implements Callable<Value>, MeteredTas
 
         HandlerInvocationCache.getInstance().notifyMessageHandled(new HandlerInvocation(Thread.currentThread().getName(), function.name, evaluatedArguments, me, true, context.getStackDepth(), true));
 
-        context.pushStackFrame(callingNode, function.name, me, evaluatedArguments);
+        context.pushStackFrame(callingNode, function.name, me, evaluatedArguments, function.locals);
+        context.getStackFrame().setBreakpoints(breakpoints);
 
         // Bind argument values to parameter variables in this context
         for (int index = 0; index < function.parameters.list.size(); index++) {
@@ -49,7 +54,7 @@ public class FunctionHandlerExecutionTask implements Callable<Value>, MeteredTas
         }
 
         try {
-            function.statements.execute(context);
+            HotHandlerCompiler.execute(context, function);
         } catch (TerminateIterationPreemption p) {
             throw new HtSemanticException("Can't continue from here.");
         } catch (TerminateLoopPreemption p) {
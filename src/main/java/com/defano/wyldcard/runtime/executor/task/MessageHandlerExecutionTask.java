@@ -13,7 +13,9 @@ import com.defano.wyldcard.debug.message.HandlerInvocation;
 import com.defano.wyldcard.debug.message.HandlerInvocationCache;
 import com.defano.wyldcard.message.Message;
 import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.compiler.HotHandlerCompiler;
 
+import java.util.Collection;
 import java.util.List;
 
 public class MessageHandlerExecutionTask implements HandlerExecutionTask, MeteredTask {
@@ -22,13 +24,15 @@ public class MessageHandlerExecutionTask implements HandlerExecutionTask, Metere
     private final ASTNode callingNode;
     private final NamedBlock handler;
     private final PartSpecifier me;
+    private final Collection<Integer> breakpoints;
     private final Message message;
 
-    public MessageHandlerExecutionTask(ExecutionContext context, ASTNode callingNode, PartSpecifier me, NamedBlock handler, Message message) {
+    public MessageHandlerExecutionTask(ExecutionContext context, ASTNode callingNode, PartSpecifier me, Collection<Integer> breakpoints, NamedBlock handler, Message message) {
         this.context = context;
         this.callingNode = callingNode;
         this.handler = handler;
         this.me = me;
+        this.breakpoints = breakpoints;
         this.message = message;
     }
 
@@ -51,7 +55,8 @@ public class MessageHandlerExecutionTask implements HandlerExecutionTask, Metere
                 true));
 
         // Push a new context
-        context.pushStackFrame(callingNode, handler.name, me, arguments);
+        context.pushStackFrame(callingNode, handler.name, me, arguments, handler.locals);
+        context.getStackFrame().setBreakpoints(breakpoints);
 
         // Target refers to the part first receiving the message
         if (context.getTarget() == null) {
@@ -69,7 +74,7 @@ public class MessageHandlerExecutionTask implements HandlerExecutionTask, Metere
 
         // Execute handler
         try {
-            handler.statements.execute(context);
+            HotHandlerCompiler.execute(context, handler);
             context.popStackFrame();
         }
 
@@ -0,0 +1,141 @@
+package com.defano.wyldcard.runtime.symbol;
+
+import com.defano.hypertalk.ast.model.Value;
+
+import javax.swing.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A table of local variables whose symbols have been assigned slots by a {@link SymbolLayout}. Variables are stored in
+ * an array indexed by slot, so that compiled variable references (which know their slot) can be read and written
+ * without hashing or case-converting the variable's name.
+ * <p>
+ * Symbols not present in the layout (for example, variables created by a `do` command or the message box, whose text
+ * was not compiled as part of the handler) are stored by name, so this table may be used anywhere a
+ * {@link SymbolTable} is expected (i.e., by the variable watcher and debugger).
+ */
+public class SlotSymbolTable implements SymbolTable {
+
+    private final SymbolLayout layout;
+    private final Value[] slots;
+    private final List<SymbolObserver> observers = new ArrayList<>();
+    private Map<String, Value> unslotted;                   // Lazily created; most handlers never need it
+
+    public SlotSymbolTable(SymbolLayout layout) {
+        this.layout = layout;
+        this.slots = new Value[layout.size()];
+    }
+
+    /**
+     * Determines if the given slot of this table holds the given symbol. A compiled variable reference may be evaluated
+     * in a frame whose layout it was not compiled against (i.e., by a `do` command); such references must fall back to
+     * accessing the variable by name.
+     *
+     * @param slot   The slot number, or -1 if the symbol has not been assigned a slot
+     * @param symbol The case-insensitive name of the variable
+     * @return True if {@link #get(int)} and {@link #set(int, Value)} may be used to access the symbol
+     */
+    public boolean isSlotOf(int slot, String symbol) {
+        String slotSymbol = layout.getSymbol(slot);
+        return slotSymbol != null && slotSymbol.equalsIgnoreCase(symbol);
+    }
+
+    /**
+     * Gets the value held in the given slot.
+     *
+     * @param slot A slot number of this table's layout
+     * @return The value of the variable in this slot, or null if the variable has not been assigned a value
+     */
+    public Value get(int slot) {
+        return slots[slot];
+    }
+
+    /**
+     * Sets the value held in the given slot.
+     *
+     * @param slot A slot number of this table's layout
+     * @param v    The value to assign the variable in this slot
+     */
+    public void set(int slot, Value v) {
+        Value oldValue = slots[slot];
+        slots[slot] = v;
+
+        fireObservers(layout.getSymbol(slot), oldValue, v);
+    }
+
+    @Override
+    public Value get(String id) {
+        Value v = lookup(id);
+        return v == null ? new Value() : v;
+    }
+
+    @Override
+    public void set(String id, Value v) {
+        int slot = layout.getSlot(id);
+
+        if (slot >= 0) {
+            set(slot, v);
+        } else {
+            if (unslotted == null) {
+                unslotted = new ConcurrentHashMap<>();
+            }
+
+            fireObservers(id, unslotted.put(id.toLowerCase(), v), v);
+        }
+    }
+
+    @Override
+    public boolean contains(String id) {
+        return lookup(id) != null;
+    }
+
+    @Override
+    public Collection<String> getSymbols() {
+        List<String> symbols = new ArrayList<>();
+
+        for (int slot = 0; slot < slots.length; slot++) {
+            if (slots[slot] != null) {
+                symbols.add(layout.getSymbol(slot));
+            }
+        }
+
+        if (unslotted != null) {
+            symbols.addAll(unslotted.keySet());
+        }
+
+        return symbols;
+    }
+
+    @Override
+    public void addObserver(SymbolObserver observer) {
+        observers.add(observer);
+    }
+
+    @Override
+    public void removeObserver(SymbolObserver observer) {
+        observers.remove(observer);
+    }
+
+    private Value lookup(String id) {
+        int slot = layout.getSlot(id);
+
+        if (slot >= 0) {
+            return slots[slot];
+        } else if (unslotted != null) {
+            return unslotted.get(id.toLowerCase());
+        } else {
+            return null;
+        }
+    }
+
+    private void fireObservers(String id, Value oldValue, Value newValue) {
+        if (!observers.isEmpty()) {
+            SwingUtilities.invokeLater(() -> {
+                for (SymbolObserver thisObserver : observers) {
+                    thisObserver.onSymbolChanged(SlotSymbolTable.this, id, oldValue, newValue);
+                }
+            });
+        }
+    }
+}
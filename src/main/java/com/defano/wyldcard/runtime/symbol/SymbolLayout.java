@@ -0,0 +1,71 @@
+package com.defano.wyldcard.runtime.symbol;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Assigns each local variable of a handler or function a numbered slot, allowing the variable to be stored in (and
+ * retrieved from) an array in the executing stack frame rather than looked up by name.
+ * <p>
+ * Slots are assigned when the handler is compiled; a layout is thereafter shared (read-only) by every invocation of the
+ * handler. Symbols are case-insensitive and are stored in lower-case form.
+ */
+public class SymbolLayout {
+
+    public static final SymbolLayout EMPTY = new SymbolLayout();
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+
+    /**
+     * Gets the slot assigned to the given symbol, assigning it the next available slot if it has none. Intended to be
+     * invoked only while compiling the handler owning this layout.
+     *
+     * @param symbol The case-insensitive name of a local variable
+     * @return The slot assigned to the symbol
+     */
+    public int resolve(String symbol) {
+        String canonicalSymbol = symbol.toLowerCase();
+        Integer slot = slots.get(canonicalSymbol);
+
+        if (slot == null) {
+            slot = symbols.size();
+            slots.put(canonicalSymbol, slot);
+            symbols.add(canonicalSymbol);
+        }
+
+        return slot;
+    }
+
+    /**
+     * Gets the slot assigned to the given symbol.
+     *
+     * @param symbol The case-insensitive name of a local variable
+     * @return The slot assigned to the symbol, or -1 if the symbol has no slot in this layout
+     */
+    public int getSlot(String symbol) {
+        Integer slot = slots.get(symbol.toLowerCase());
+        return slot == null ? -1 : slot;
+    }
+
+    /**
+     * Gets the (lower-case) symbol assigned to the given slot.
+     *
+     * @param slot The slot number
+     * @return The symbol occupying this slot, or null if the slot is not part of this layout
+     */
+    public String getSymbol(int slot) {
+        return slot >= 0 && slot < symbols.size() ? symbols.get(slot) : null;
+    }
+
+    /**
+     * Gets the number of slots in this layout.
+     *
+     * @return The number of slots
+     */
+    public int size() {
+        return symbols.size();
+    }
+}
@@ -0,0 +1,79 @@
+package com.defano.wyldcard.search;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The plain text of a single field text (see {@link TextKey}), along with the offset of every word in it, as recorded
+ * in a {@link SearchIndex}.
+ * <p>
+ * An indexed text is immutable; when the field's text changes, the search index replaces it with a new one.
+ */
+public class IndexedText {
+
+    private static final Pattern words = Pattern.compile("\\w+");
+
+    private final String text;
+    private final Map<String, int[]> wordOffsets = new HashMap<>();
+
+    public IndexedText(String text) {
+        this.text = text;
+
+        Map<String, Integer> wordCounts = new HashMap<>();
+        Matcher matcher = words.matcher(text);
+
+        while (matcher.find()) {
+            String word = text.substring(matcher.start(), matcher.end()).toLowerCase();
+            int count = wordCounts.getOrDefault(word, 0);
+            int[] offsets = wordOffsets.get(word);
+
+            if (offsets == null) {
+                offsets = new int[1];
+            } else if (count == offsets.length) {
+                offsets = Arrays.copyOf(offsets, count * 2);
+            }
+
+            offsets[count] = matcher.start();
+            wordOffsets.put(word, offsets);
+            wordCounts.put(word, count + 1);
+        }
+
+        // Trim each list of offsets to the number of occurrences of the word
+        for (Map.Entry<String, Integer> wordCount : wordCounts.entrySet()) {
+            wordOffsets.put(wordCount.getKey(), Arrays.copyOf(wordOffsets.get(wordCount.getKey()), wordCount.getValue()));
+        }
+    }
+
+    /**
+     * Gets the text that was indexed.
+     *
+     * @return The indexed text
+     */
+    public String getText() {
+        return text;
+    }
+
+    /**
+     * Gets the distinct (lower-case) words appearing in the indexed text.
+     *
+     * @return The words in the text
+     */
+    public Collection<String> getWords() {
+        return wordOffsets.keySet();
+    }
+
+    /**
+     * Gets the starting offset of every occurrence of a word in the indexed text, in ascending order.
+     *
+     * @param word The lower-case word
+     * @return The offsets at which the word occurs; an empty array if it does not occur
+     */
+    public int[] getWordOffsets(String word) {
+        int[] offsets = wordOffsets.get(word);
+        return offsets == null ? new int[0] : offsets;
+    }
+}
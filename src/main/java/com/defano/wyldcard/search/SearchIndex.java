@@ -0,0 +1,179 @@
+package com.defano.wyldcard.search;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * An inverted index of the words appearing in the fields of a stack, mapping each word to the field texts it appears
+ * in (and, via {@link IndexedText}, to its offsets within each text).
+ * <p>
+ * Texts are identified by {@link TextKey} (the card, field and whether the text is shared) rather than by the document
+ * holding them, so a text is indexed once and remains indexed even after its document has been evicted from memory
+ * (see {@link com.defano.wyldcard.serializer.LazyDocument}). The index is kept up to date incrementally: a field
+ * reports every modification of its text via {@link #invalidate(TextKey)}, and only those texts are re-indexed before
+ * the next query. This lets a search query determine which texts could possibly match it by consulting the index's
+ * vocabulary, without materializing (or decoding) the document of any field.
+ * <p>
+ * The index never reads a field's document itself, and field documents report their modifications while locked; the
+ * caller reads the text of each field returned by {@link #getKeysToIndex(Collection)} and supplies it via
+ * {@link #index(TextKey, String)}.
+ */
+public class SearchIndex {
+
+    private final Map<TextKey, IndexedText> texts = new HashMap<>();
+    private final Map<String, Set<TextKey>> postings = new HashMap<>();
+    private final NavigableSet<String> vocabulary = new TreeSet<>();
+    private final Set<TextKey> modified = new HashSet<>();
+
+    /**
+     * Indicates that a field's text has changed and must be re-indexed before it is next searched. May be invoked
+     * from any thread.
+     *
+     * @param key The key of the modified text
+     */
+    public synchronized void invalidate(TextKey key) {
+        modified.add(key);
+    }
+
+    /**
+     * Gets those keys, among the given keys, whose text has never been indexed or has changed since it was indexed.
+     * The text of each returned key should be supplied to {@link #index(TextKey, String)}; a text modified after this
+     * method returns is reported as modified again by the next call.
+     *
+     * @param keys The keys of the texts to be searched
+     * @return The keys whose text needs to be indexed
+     */
+    public synchronized List<TextKey> getKeysToIndex(Collection<TextKey> keys) {
+        List<TextKey> keysToIndex = new ArrayList<>();
+
+        for (TextKey key : keys) {
+            if (modified.remove(key) || !texts.containsKey(key)) {
+                keysToIndex.add(key);
+            }
+        }
+
+        return keysToIndex;
+    }
+
+    /**
+     * Indexes (or re-indexes) the text identified by the given key.
+     *
+     * @param key  The key of the text
+     * @param text The current plain text of the field
+     * @return The indexed text
+     */
+    public synchronized IndexedText index(TextKey key, String text) {
+        remove(key);
+
+        IndexedText indexed = new IndexedText(text);
+        texts.put(key, indexed);
+
+        for (String word : indexed.getWords()) {
+            postings.computeIfAbsent(word, w -> {
+                vocabulary.add(w);
+                return new HashSet<>();
+            }).add(key);
+        }
+
+        return indexed;
+    }
+
+    /**
+     * Gets the indexed text identified by the given key.
+     *
+     * @param key The key of the text
+     * @return The indexed text, or null if the text has not been indexed
+     */
+    public synchronized IndexedText getIndexedText(TextKey key) {
+        return texts.get(key);
+    }
+
+    /**
+     * Gets the key of every indexed text containing the given word.
+     *
+     * @param word The case-insensitive word
+     * @return The key of each text containing the word
+     */
+    public synchronized Set<TextKey> getTextsContaining(String word) {
+        Set<TextKey> keys = postings.get(word.toLowerCase());
+        return keys == null ? Collections.emptySet() : new HashSet<>(keys);
+    }
+
+    /**
+     * Gets the key of every indexed text containing a word that starts with the given prefix.
+     *
+     * @param prefix The case-insensitive prefix
+     * @return The key of each text containing a word starting with the prefix
+     */
+    public synchronized Set<TextKey> getTextsContainingPrefix(String prefix) {
+        String lowerPrefix = prefix.toLowerCase();
+        return getTextsContainingAny(vocabulary.subSet(lowerPrefix, true, lowerPrefix + Character.MAX_VALUE, false));
+    }
+
+    /**
+     * Gets the key of every indexed text containing a word matching the given predicate. Tests every word in the
+     * index's vocabulary, but does not examine any text.
+     *
+     * @param wordMatcher A predicate applied to each (lower-case) word in the vocabulary
+     * @return The key of each text containing a word matching the predicate
+     */
+    public synchronized Set<TextKey> getTextsContaining(Predicate<String> wordMatcher) {
+        List<String> words = new ArrayList<>();
+        for (String word : vocabulary) {
+            if (wordMatcher.test(word)) {
+                words.add(word);
+            }
+        }
+
+        return getTextsContainingAny(words);
+    }
+
+    /**
+     * Gets the key of every indexed text.
+     *
+     * @return The key of each text
+     */
+    public synchronized Set<TextKey> getTexts() {
+        return new HashSet<>(texts.keySet());
+    }
+
+    /**
+     * Removes every text from this index whose key is not in the given set of keys (i.e., the text of fields or cards
+     * that have since been deleted, or of background fields whose text has since become shared or unshared).
+     *
+     * @param retained The keys of every text that should remain indexed
+     */
+    public synchronized void retainAll(Set<TextKey> retained) {
+        for (TextKey key : new ArrayList<>(texts.keySet())) {
+            if (!retained.contains(key)) {
+                remove(key);
+            }
+        }
+
+        modified.retainAll(retained);
+    }
+
+    private Set<TextKey> getTextsContainingAny(Collection<String> words) {
+        Set<TextKey> keys = new HashSet<>();
+        for (String word : words) {
+            keys.addAll(postings.get(word));
+        }
+        return keys;
+    }
+
+    private void remove(TextKey key) {
+        IndexedText indexed = texts.remove(key);
+
+        if (indexed != null) {
+            for (String word : indexed.getWords()) {
+                Set<TextKey> keys = postings.get(word);
+                keys.remove(key);
+
+                if (keys.isEmpty()) {
+                    postings.remove(word);
+                    vocabulary.remove(word);
+                }
+            }
+        }
+    }
+}
@@ -10,9 +10,9 @@ import com.defano.hypertalk.exception.HtException;
 import com.defano.hypertalk.exception.HtSemanticException;
 import com.defano.hypertalk.util.Range;
 import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.search.strategy.SearchStrategy;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 
 public class SearchIndexer {
 
@@ -31,7 +31,12 @@ public class SearchIndexer {
         StackModel currentStack = context.getCurrentStack().getStackModel();
         CardModel card = currentStack.getCardModel(cardIndex);
 
-        indexCard(context, query, currentStack, card, cardIndex, results);
+        // Ignore cards ineligible for search
+        if (isCardSearchable(context, query, card)) {
+            List<IndexedField> fields = new ArrayList<>();
+            indexCards(context, cardIndex, cardIndex + 1, currentStack, fields);
+            searchFields(context, query, currentStack.getSearchIndex(), fields, results);
+        }
 
         return results;
     }
@@ -65,100 +70,144 @@ public class SearchIndexer {
             }
 
             if (isCardSearchable(context, query, card)) {
-                indexField(context, query, field, cardIndex, results);
+                List<IndexedField> fields = Collections.singletonList(new IndexedField(card, cardIndex, field, TextKey.of(field, card.getId(), field.isSharedText(context))));
+                updateIndex(context, thisStack.getSearchIndex(), fields);
+                searchFields(context, query, thisStack.getSearchIndex(), fields, results);
             }
         }
 
         // Indexing all fields on all cards
         else {
-            // Index this card to end of the stack...
-            indexCards(context, query, thisStack.getCurrentCardIndex(), thisStack.getCardCount(), thisStack, results);
+            SearchIndex index = thisStack.getSearchIndex();
+            List<IndexedField> fields = new ArrayList<>();
+
+            // Gather the text of this card to end of the stack...
+            indexCards(context, thisStack.getCurrentCardIndex(), thisStack.getCardCount(), thisStack, fields);
+
+            // ... then of first card up to this card
+            indexCards(context, 0, thisStack.getCurrentCardIndex(), thisStack, fields);
+
+            // Forget text that no longer belongs to any field (i.e., deleted cards or fields)
+            Set<TextKey> keys = new HashSet<>();
+            for (IndexedField thisField : fields) {
+                keys.add(thisField.key);
+            }
+            index.retainAll(keys);
 
-            // ... then index first card up to this card
-            indexCards(context, query, 0, thisStack.getCurrentCardIndex(), thisStack, results);
+            // Search only those fields whose text contains words that could match the query
+            SearchStrategy strategy = SearchFactory.searchBy(query.getSearchType());
+            Set<TextKey> candidates = strategy.getCandidates(index, query.getSearchTerm());
+
+            List<IndexedField> candidateFields = new ArrayList<>();
+            Map<CardModel, Boolean> searchableCards = new HashMap<>();
+
+            for (IndexedField thisField : fields) {
+                if (candidates.contains(thisField.key) && searchableCards.computeIfAbsent(thisField.card, card -> isCardSearchable(context, query, card))) {
+                    candidateFields.add(thisField);
+                }
+            }
+
+            searchFields(context, query, index, candidateFields, results);
         }
 
         return results;
     }
 
     /**
-     * Executes a given {@link SearchQuery} against a range of cards in the current stack.
+     * Identifies the text of every field on a range of cards in the stack, and brings the stack's search index up to
+     * date with it. Only text that has never been indexed, or which has been modified since it was last indexed, is
+     * read; the documents of every other field are left untouched.
      *
      * @param context The execution context
-     * @param query The search query
      * @param fromIndex The index of the first card in the stack to be indexed (inclusive)
      * @param toIndex The index of the last card in the stack to be indexed (exclusive)
-     * @param thisStack The stack whose cards should be searched
-     * @param results A mutable list of search results; each hit in the indexed field will be appended to this list
+     * @param thisStack The stack whose cards should be indexed
+     * @param fields A mutable list of indexed fields; each field on each card will be appended to this list in the
+     *               order in which it should be searched
      */
-    private static void indexCards(ExecutionContext context, SearchQuery query, int fromIndex, int toIndex, StackModel thisStack, List<SearchResult> results) {
+    private static void indexCards(ExecutionContext context, int fromIndex, int toIndex, StackModel thisStack, List<IndexedField> fields) {
+        List<IndexedField> cardFields = new ArrayList<>();
+        Map<FieldModel, Boolean> sharedText = new HashMap<>();
+
         for (int thisCardIndex = fromIndex; thisCardIndex < toIndex; thisCardIndex++) {
             CardModel thisCard = thisStack.getCardModel(thisCardIndex);
+            BackgroundModel thisBackground = thisStack.getBackground(thisCard.getBackgroundId());
+            int thisCardId = thisCard.getId();
+
+            for (FieldModel thisCardField : thisCard.getFieldModels()) {
+                cardFields.add(new IndexedField(thisCard, thisCardIndex, thisCardField, TextKey.of(thisCardField, thisCardId, true)));
+            }
 
-            indexCard(context, query, thisStack, thisCard, thisCardIndex, results);
+            for (FieldModel thisBkgndField : thisBackground.getFieldModels()) {
+                boolean shared = sharedText.computeIfAbsent(thisBkgndField, field -> field.isSharedText(context));
+                cardFields.add(new IndexedField(thisCard, thisCardIndex, thisBkgndField, TextKey.of(thisBkgndField, thisCardId, shared)));
+            }
         }
+
+        updateIndex(context, thisStack.getSearchIndex(), cardFields);
+        fields.addAll(cardFields);
     }
 
     /**
-     * Executes a given {@link SearchQuery} against all the fields on a given card. Has no effect (returns an
-     * empty list) if the specified card is eligible for searching (i.e., marked 'dontSearch')
+     * Indexes the text of those fields whose text has never been indexed, or has been modified since it was last
+     * indexed.
      *
      * @param context The execution context
-     * @param query The search query
-     * @param thisStack The stack whose card is to be searched
-     * @param thisCard The model of the card to be searched
-     * @param thisCardIndex The index (zero-based position) of the card in the stack
-     * @param results A mutable list of search results; each hit in the indexed field will be appended to this list
+     * @param index The search index to update
+     * @param fields The fields whose text is about to be searched
      */
-    private static void indexCard(ExecutionContext context, SearchQuery query, StackModel thisStack, CardModel thisCard, int thisCardIndex, List<SearchResult> results) {
+    private static void updateIndex(ExecutionContext context, SearchIndex index, List<IndexedField> fields) {
+        Map<TextKey, IndexedField> fieldsByKey = new HashMap<>();
+        for (IndexedField thisField : fields) {
+            fieldsByKey.putIfAbsent(thisField.key, thisField);
+        }
 
-        // Ignore cards ineligible for search
-        if (!isCardSearchable(context, query, thisCard)) {
-            return;
+        for (TextKey key : index.getKeysToIndex(fieldsByKey.keySet())) {
+            IndexedField thisField = fieldsByKey.get(key);
+            index.index(key, thisField.field.getText(context, thisField.card.getId()));
         }
+    }
 
-        BackgroundModel thisBackground = thisStack.getBackground(thisCard.getBackgroundId());
+    /**
+     * Executes a given {@link SearchQuery} against the indexed text of each of the given fields, ignoring fields
+     * marked "don't search".
+     *
+     * @param context The execution context
+     * @param query The search query
+     * @param index The search index holding the text of each field
+     * @param fields The fields to be searched, in the order they should be searched
+     * @param results A mutable list of search results; each hit in each field will be appended to this list
+     */
+    private static void searchFields(ExecutionContext context, SearchQuery query, SearchIndex index, List<IndexedField> fields, List<SearchResult> results) {
+        Map<FieldModel, Boolean> searchableFields = new HashMap<>();
 
-        for (FieldModel thisCardField : thisCard.getFieldModels()) {
-            indexField(context, query, thisCardField, thisCardIndex, results);
-        }
+        for (IndexedField thisField : fields) {
+            if (searchableFields.computeIfAbsent(thisField.field, field -> !field.get(context, FieldModel.PROP_DONTSEARCH).booleanValue())) {
+                IndexedText fieldText = index.getIndexedText(thisField.key);
+
+                // Text may have been forgotten by a concurrent query; read it again
+                if (fieldText == null) {
+                    fieldText = index.index(thisField.key, thisField.field.getText(context, thisField.card.getId()));
+                }
 
-        for (FieldModel thisBkgndField : thisBackground.getFieldModels()) {
-            indexField(context, query, thisBkgndField, thisCardIndex, results);
+                searchField(query, thisField.field, fieldText, thisField.cardIndex, results);
+            }
         }
     }
 
     /**
-     * Executes a given {@link SearchQuery} against the text present in a given field.
+     * Executes a given {@link SearchQuery} against the indexed text of a field.
      *
-     * @param context The execution context
      * @param query The search query
      * @param fieldModel The field that should be searched
+     * @param fieldText The indexed text of the field on the card being searched
      * @param cardIndex The index of the card (in the current stack) where the search field is found
      * @param results A mutable list of search results; each hit in the indexed field will be appended to this list
      */
-    private static void indexField(ExecutionContext context, SearchQuery query, FieldModel fieldModel, int cardIndex, List<SearchResult> results) {
-
-        // Ignore fields marked "don't search"
-        if (fieldModel.get(context, FieldModel.PROP_DONTSEARCH).booleanValue()) {
-            return;
+    private static void searchField(SearchQuery query, FieldModel fieldModel, IndexedText fieldText, int cardIndex, List<SearchResult> results) {
+        for (Range result : SearchFactory.searchBy(query.getSearchType()).searchAll(fieldText, query.getSearchTerm())) {
+            results.add(new SearchResult(fieldText.getText(), result, fieldModel, cardIndex));
         }
-
-        int searchFrom = 0;
-        Range result;
-
-        int cardId = context.getCurrentStack().getStackModel().getCardModel(cardIndex).getId();
-        String fieldText = fieldModel.getText(context, cardId);
-
-        do {
-            result = SearchFactory.searchBy(query.getSearchType()).search(fieldText, query.getSearchTerm(), searchFrom);
-
-            if (result != null) {
-                searchFrom = result.end;
-                results.add(new SearchResult(fieldText, result, fieldModel, cardIndex));
-            }
-
-        } while (result != null);
     }
 
     /**
@@ -176,4 +225,21 @@ public class SearchIndexer {
                 && !cardModel.getBackgroundModel().get(context, BackgroundModel.PROP_DONTSEARCH).booleanValue();
     }
 
+    /**
+     * A field, as it appears on a given card, and the key of its text in the search index.
+     */
+    private static class IndexedField {
+        private final CardModel card;
+        private final int cardIndex;
+        private final FieldModel field;
+        private final TextKey key;
+
+        private IndexedField(CardModel card, int cardIndex, FieldModel field, TextKey key) {
+            this.card = card;
+            this.cardIndex = cardIndex;
+            this.field = field;
+            this.key = key;
+        }
+    }
+
 }
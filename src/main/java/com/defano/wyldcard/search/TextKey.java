@@ -0,0 +1,83 @@
+package com.defano.wyldcard.search;
+
+import com.defano.hypertalk.ast.model.enums.Owner;
+import com.defano.wyldcard.part.field.FieldModel;
+
+import java.util.Objects;
+
+/**
+ * Identifies a single text held by a field, as indexed by a {@link SearchIndex}.
+ * <p>
+ * A card field, or a background field with shared text, holds a single text that appears on every card showing the
+ * field; that text is identified by the field and the card or background the field belongs to. A background field
+ * without shared text holds a different text on each card, identified by the field and the card.
+ * <p>
+ * Keys are made of part IDs (and not of the documents holding the text) so that a text remains indexed after its
+ * document has been evicted from memory (see {@link com.defano.wyldcard.serializer.LazyDocument}).
+ */
+public final class TextKey {
+
+    private final int partId;           // ID of the card holding the text; ID of the background for shared text
+    private final int fieldId;
+    private final Owner owner;
+    private final boolean shared;
+
+    public TextKey(int partId, int fieldId, Owner owner, boolean shared) {
+        this.partId = partId;
+        this.fieldId = fieldId;
+        this.owner = owner;
+        this.shared = shared;
+    }
+
+    /**
+     * Gets the key of a field's text as it appears on a given card.
+     *
+     * @param field      The field
+     * @param cardId     The ID of the card on which the text appears; ignored when the text is shared
+     * @param sharedText True if the field's text is shared by every card showing the field (see
+     *                   {@link FieldModel#isSharedText(com.defano.wyldcard.runtime.ExecutionContext)})
+     * @return The key of the text
+     */
+    public static TextKey of(FieldModel field, int cardId, boolean sharedText) {
+        int partId = sharedText ? field.getParentPartModel().getId() : cardId;
+        return new TextKey(partId, field.getId(), field.getOwner(), sharedText);
+    }
+
+    public int getPartId() {
+        return partId;
+    }
+
+    public int getFieldId() {
+        return fieldId;
+    }
+
+    public Owner getOwner() {
+        return owner;
+    }
+
+    public boolean isShared() {
+        return shared;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+
+        TextKey textKey = (TextKey) o;
+        return partId == textKey.partId &&
+                fieldId == textKey.fieldId &&
+                shared == textKey.shared &&
+                owner == textKey.owner;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(partId, fieldId, owner, shared);
+    }
+
+    @Override
+    public String toString() {
+        return "TextKey{" + owner + " field " + fieldId + " of " + partId + (shared ? " (shared)" : "") + "}";
+    }
+}
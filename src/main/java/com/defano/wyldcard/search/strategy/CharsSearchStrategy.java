@@ -1,7 +1,10 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.util.Range;
+import com.defano.wyldcard.search.SearchIndex;
+import com.defano.wyldcard.search.TextKey;
 
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,4 +33,11 @@ public class CharsSearchStrategy implements SearchStrategy {
 
         return null;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<TextKey> getCandidates(SearchIndex index, String term) {
+        String termTextLower = term.trim().toLowerCase();
+        return index.getTextsContaining(word -> word.contains(termTextLower));
+    }
 }
\ No newline at end of file
@@ -1,6 +1,13 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.util.Range;
+import com.defano.wyldcard.search.IndexedText;
+import com.defano.wyldcard.search.SearchIndex;
+import com.defano.wyldcard.search.TextKey;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 public interface SearchStrategy {
 
@@ -14,4 +21,40 @@ public interface SearchStrategy {
      * in the text the search term was found.
      */
     Range search(String text, String term, int searchFrom);
+
+    /**
+     * Consults the vocabulary of a search index to determine which indexed texts could contain the given search term.
+     * Texts not returned by this method are guaranteed not to contain the term and need not be searched (nor their
+     * documents read).
+     *
+     * @param index The search index
+     * @param term The term to find
+     * @return The keys of the indexed texts that may contain the term
+     */
+    Set<TextKey> getCandidates(SearchIndex index, String term);
+
+    /**
+     * Finds every occurrence of the search term in an indexed text.
+     *
+     * @param text The indexed text to search
+     * @param term The term to find in the indexed text
+     * @return A list of zero or more ranges of characters where the search term was found, in the order they appear
+     */
+    default List<Range> searchAll(IndexedText text, String term) {
+        List<Range> results = new ArrayList<>();
+        int searchFrom = 0;
+        Range result;
+
+        do {
+            result = search(text.getText(), term, searchFrom);
+
+            if (result != null) {
+                searchFrom = result.end;
+                results.add(result);
+            }
+
+        } while (result != null);
+
+        return results;
+    }
 }
@@ -1,6 +1,12 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.util.Range;
+import com.defano.wyldcard.search.SearchIndex;
+import com.defano.wyldcard.search.TextKey;
+
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 /**
  * Finds a substring occurring anywhere in the searchable text. Search term may including whitespace, and found text may
@@ -8,6 +14,8 @@ import com.defano.hypertalk.util.Range;
  */
 public class StringSearchStrategy implements SearchStrategy {
 
+    private static final Pattern words = Pattern.compile("\\w+");
+
     /** {@inheritDoc} */
     @Override
     public Range search(String text, String term, int searchFrom) {
@@ -19,4 +27,25 @@ public class StringSearchStrategy implements SearchStrategy {
             return new Range(searchFrom + start, searchFrom + start + term.length());
         }
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<TextKey> getCandidates(SearchIndex index, String term) {
+        Matcher matcher = words.matcher(term.toLowerCase());
+        String longestWord = "";
+
+        // Each run of word characters in the term must appear within a word of any text that contains the term
+        while (matcher.find()) {
+            if (matcher.end() - matcher.start() > longestWord.length()) {
+                longestWord = matcher.group();
+            }
+        }
+
+        if (longestWord.isEmpty()) {
+            return index.getTexts();
+        }
+
+        String requiredWord = longestWord;
+        return index.getTextsContaining(word -> word.contains(requiredWord));
+    }
 }
\ No newline at end of file
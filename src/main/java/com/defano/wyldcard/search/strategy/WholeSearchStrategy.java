@@ -1,7 +1,11 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.util.Range;
+import com.defano.wyldcard.search.SearchIndex;
+import com.defano.wyldcard.search.TextKey;
 
+import java.util.Collections;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,4 +34,17 @@ public class WholeSearchStrategy implements SearchStrategy {
 
         return null;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<TextKey> getCandidates(SearchIndex index, String term) {
+        Matcher matcher = words.matcher(term.toLowerCase());
+
+        // Matches start at the beginning of a word, so the term's leading characters must begin some word
+        if (matcher.lookingAt()) {
+            return index.getTextsContainingPrefix(matcher.group());
+        } else {
+            return term.isEmpty() ? index.getTexts() : Collections.emptySet();
+        }
+    }
 }
\ No newline at end of file
@@ -1,7 +1,13 @@
 package com.defano.wyldcard.search.strategy;
 
 import com.defano.hypertalk.util.Range;
+import com.defano.wyldcard.search.IndexedText;
+import com.defano.wyldcard.search.SearchIndex;
+import com.defano.wyldcard.search.TextKey;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -28,4 +34,23 @@ public class WordSearchStrategy implements SearchStrategy {
 
         return null;
     }
+
+    /** {@inheritDoc} */
+    @Override
+    public Set<TextKey> getCandidates(SearchIndex index, String term) {
+        return index.getTextsContaining(term);
+    }
+
+    /** {@inheritDoc} */
+    @Override
+    public List<Range> searchAll(IndexedText text, String term) {
+        List<Range> results = new ArrayList<>();
+
+        // Every occurrence of the word was recorded when the text was indexed; no need to scan it
+        for (int offset : text.getWordOffsets(term.toLowerCase())) {
+            results.add(new Range(offset, offset + term.length()));
+        }
+
+        return results;
+    }
 }
\ No newline at end of file
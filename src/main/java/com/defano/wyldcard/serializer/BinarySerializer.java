@@ -0,0 +1,1003 @@
+package com.defano.wyldcard.serializer;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.swing.text.StyledDocument;
+import java.awt.image.BufferedImage;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * A utility for serializing/de-serializing WyldCard objects (typically stacks) to and from a compact, binary file
+ * format.
+ * <p>
+ * A binary file is a versioned container of individually addressable sections. Images and field documents are each
+ * stored in a section of their own (as PNG and RTF bytes, respectively), as is each {@link Sectioned} model object
+ * (cards and backgrounds, as compact JSON). The remainder of the object graph is stored as compact JSON in a final
+ * model section. Sections are identified by a number that is unique within the file, and which the JSON of the model
+ * (or of a sectioned object) uses to refer to the section. The sections are followed by a table giving the type,
+ * identifier, offset and length of every section, and finally a fixed-length trailer locating the table:
+ * <pre>
+ * header:   magic (8 bytes) | format version (int)
+ * sections: section | section | ... | model section
+ * table:    for each section: type (byte) | id (long) | offset (long) | length (int)
+ * trailer:  table offset (long) | section count (int) | next section id (long) | magic (8 bytes)
+ * </pre>
+ * Unlike {@link Serializer#serialize(File, Object)}, which builds the entire JSON document (including Base64-encoded
+ * images and documents) in memory, images and documents are written to the file as they are encountered and only the
+ * model section (and the section of each sectioned object) is buffered.
+ * <p>
+ * {@link #serialize(File, Object)} writes a complete file to a temporary file that replaces the destination only once
+ * complete. {@link #append(File, Object)} instead saves incrementally: it appends a new set of sections, table and
+ * trailer to the end of the existing file, re-writing only the images, documents and sectioned objects that were
+ * modified since they were last saved; the new table refers to the unmodified sections written by earlier saves. A
+ * file is read from the last complete table in it, and a save's trailer is written only once its sections and table
+ * are on disk, so a failure while saving never damages the previously saved state. Sections that are no longer in use
+ * accumulate at the start of the file until it is compacted in the background.
+ * <p>
+ * {@link Serializer#deserialize(File, Class)} recognizes files in this format, so a stack saved in either format can be
+ * opened the same way (and re-saved in the other format to convert it).
+ * <p>
+ * {@link LazyContent} (card and background images, field text) is not read when a file is deserialized; each is
+ * instead given the location of its section, from which it is read and decoded when first used. When saving, lazy
+ * content that has not been modified is copied from its section to the new file without being decoded (or, when
+ * saving incrementally, simply left where it is), then re-located to the new file's section once the file is complete.
+ */
+public class BinarySerializer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(BinarySerializer.class);
+    private static final ExecutorService compactor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder().setNameFormat("stack-compactor").setDaemon(true).build());
+
+    public static final int FORMAT_VERSION = 2;
+
+    private static final byte[] MAGIC = "WYLDSTAK".getBytes(StandardCharsets.US_ASCII);
+    private static final long MAGIC_NUMBER = ByteBuffer.wrap(MAGIC).getLong();
+    private static final int HEADER_LENGTH = MAGIC.length + Integer.BYTES;
+    private static final int TABLE_ENTRY_LENGTH = Byte.BYTES + Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int TRAILER_LENGTH = Long.BYTES + Integer.BYTES + Long.BYTES + MAGIC.length;
+    private static final int V1_TABLE_ENTRY_LENGTH = Byte.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int V1_TRAILER_LENGTH = Long.BYTES + Integer.BYTES + MAGIC.length;
+
+    private static final int RECOVERY_SCAN_LENGTH = 64 * 1024;      // Bytes read at a time when finding the last save
+    private static final long COMPACTION_THRESHOLD = 1024 * 1024;   // Unused bytes a file may hold before compaction
+
+    private static final byte SECTION_MODEL = 0;
+    private static final byte SECTION_IMAGE = 1;
+    private static final byte SECTION_DOCUMENT = 2;
+    private static final byte SECTION_PART = 3;
+
+    private BinarySerializer() {
+    }
+
+    /**
+     * Determines if the given file was written in this binary format.
+     *
+     * @param file The file to inspect
+     * @return True if the file begins with the binary format's magic number; false otherwise
+     * @throws IOException Thrown if the file cannot be read
+     */
+    public static boolean isBinaryFile(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            readFully(channel, magic, 0);
+            return magic.remaining() == MAGIC.length && Arrays.equals(magic.array(), MAGIC);
+        }
+    }
+
+    /**
+     * Serializes the contents of an Object to a file in binary format, replacing the file if it exists.
+     *
+     * @param file   The file to be written.
+     * @param object The object graph to be serialized. Object graph cannot contain cycles!
+     * @throws IOException Thrown if an error occurs serializing the data or writing it to the file.
+     */
+    public static void serialize(File file, Object object) throws IOException {
+        StackFile stackFile = StackFile.forPath(file.toPath());
+        Path temporary = stackFile.getPath().resolveSibling(stackFile.getPath().getFileName() + ".tmp");
+
+        stackFile.getCommitLock().lock();
+        try {
+            SectionWriter sections;
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                sections = new SectionWriter(channel);
+                sections.writeModel(object);
+            } catch (IOException e) {
+                Files.deleteIfExists(temporary);
+                throw e;
+            }
+
+            // Lazy content can no longer be read from the file it was loaded from (which may be about to be replaced)
+            stackFile.getContentLock().writeLock().lock();
+            try {
+                move(temporary, stackFile.getPath());
+                stackFile.replaced();
+                sections.commit(stackFile);
+            } finally {
+                stackFile.getContentLock().writeLock().unlock();
+            }
+        } finally {
+            stackFile.getCommitLock().unlock();
+        }
+    }
+
+    /**
+     * Serializes the contents of an Object to a file in binary format, incrementally: if the file is a binary file
+     * (typically, the file the object was read from or last saved to) then only the parts of the object modified since
+     * they were last saved to the file are written, and are appended to it. Otherwise, the file is replaced as by
+     * {@link #serialize(File, Object)}.
+     * <p>
+     * Files that accumulate a significant amount of superseded content are compacted in the background.
+     *
+     * @param file   The file to be written.
+     * @param object The object graph to be serialized. Object graph cannot contain cycles!
+     * @throws IOException Thrown if an error occurs serializing the data or writing it to the file.
+     */
+    public static void append(File file, Object object) throws IOException {
+        StackFile stackFile = StackFile.forPath(file.toPath());
+
+        stackFile.getCommitLock().lock();
+        try {
+            Commit last = Commit.tryFind(stackFile.getPath());
+            if (last == null || last.version != FORMAT_VERSION) {
+                serialize(file, object);
+                return;
+            }
+
+            SectionWriter sections;
+            try (FileChannel channel = FileChannel.open(stackFile.getPath(), StandardOpenOption.WRITE)) {
+                // Discard whatever was written by a save that did not complete
+                channel.truncate(last.end);
+
+                sections = new SectionWriter(channel, stackFile, last);
+                sections.writeModel(object);
+            }
+
+            sections.commit(stackFile);
+
+            if (sections.getUnusedLength() > Math.max(COMPACTION_THRESHOLD, sections.getUsedLength())) {
+                compactLater(stackFile);
+            }
+        } finally {
+            stackFile.getCommitLock().unlock();
+        }
+    }
+
+    /**
+     * Deserializes the contents of a binary-formatted file into an Object of the requested type.
+     *
+     * @param file  The file to deserialize; should be a file generated using the {@link #serialize(File, Object)} method.
+     * @param clazz The class of object to deserialize into.
+     * @param <T>   A type representing the deserialized object class.
+     * @return A deserialized representation of the given file.
+     * @throws IOException Thrown if the file cannot be read or is not a valid binary file.
+     */
+    public static <T> T deserialize(File file, Class<T> clazz) throws IOException {
+        StackFile stackFile = StackFile.forPath(file.toPath());
+
+        // Don't let the file be compacted (moving its sections) while sections are being located in it
+        stackFile.getContentLock().readLock().lock();
+        try (FileChannel channel = FileChannel.open(stackFile.getPath(), StandardOpenOption.READ)) {
+            SectionReader sections = new SectionReader(stackFile, channel);
+            Gson gson = newGson(null, sections);
+
+            byte[] model = sections.read(sections.commit.getModelSection(), SECTION_MODEL);
+            try (Reader reader = new InputStreamReader(new ByteArrayInputStream(model), StandardCharsets.UTF_8)) {
+                return gson.fromJson(reader, clazz);
+            } catch (JsonIOException e) {
+                throw new IOException("Failed to read the file. The file may be corrupted.", e);
+            }
+        } finally {
+            stackFile.getContentLock().readLock().unlock();
+        }
+    }
+
+    /**
+     * Compacts a binary file that has been saved incrementally, discarding the sections that have been superseded by
+     * later saves. The compacted file is written to a temporary file that replaces the original only once complete;
+     * the file may continue to be read, and saved, while it is being compacted.
+     *
+     * @param file The file to compact
+     * @throws IOException Thrown if an error occurs reading the file or writing the compacted file
+     */
+    static void compact(File file) throws IOException {
+        new Compaction(StackFile.forPath(file.toPath())).run();
+    }
+
+    private static void compactLater(StackFile file) {
+        if (file.getCompactionPending().compareAndSet(false, true)) {
+            compactor.execute(() -> {
+                // Saves made while this compaction runs may schedule another
+                file.getCompactionPending().set(false);
+
+                try {
+                    new Compaction(file).run();
+                } catch (IOException e) {
+                    LOG.warn("Failed to compact stack file {}.", file.getPath(), e);
+                }
+            });
+        }
+    }
+
+    private static Gson newGson(SectionWriter writer, SectionReader reader) {
+        return Serializer.newGsonBuilder()
+                .registerTypeAdapter(BufferedImage.class, new ImageSectionAdapter(writer, reader))
+                .registerTypeAdapter(StyledDocument.class, new DocumentSectionAdapter(writer, reader))
+                .registerTypeAdapter(LazyImage.class, new LazyContentSectionAdapter<>(SECTION_IMAGE, LazyImage::new, writer, reader))
+                .registerTypeAdapter(LazyDocument.class, new LazyContentSectionAdapter<>(SECTION_DOCUMENT, LazyDocument::new, writer, reader))
+                .registerTypeAdapterFactory(new SectionedAdapterFactory(writer, reader))
+                .create();
+    }
+
+    private static void move(Path source, Path destination) throws IOException {
+        try {
+            Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(source, destination, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                break;
+            }
+            position += read;
+        }
+        buffer.flip();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * The type, identifier and location of a section, as recorded in a section table.
+     */
+    private static class Entry {
+        private final byte type;
+        private final long id;
+        private final long offset;
+        private final int length;
+
+        private Entry(byte type, long id, long offset, int length) {
+            this.type = type;
+            this.id = id;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        private Entry(FileSection section) {
+            this(section.getType(), section.getId(), section.getOffset(), section.getLength());
+        }
+    }
+
+    /**
+     * The section table written by a complete save; the sections in use as of that save.
+     */
+    private static class Commit {
+        private final int version;
+        private final Map<Long, Entry> entries;
+        private final long end;                 // Offset of the end of the save's trailer
+        private final long nextId;
+
+        private Commit(int version, Map<Long, Entry> entries, long end, long nextId) {
+            this.version = version;
+            this.entries = entries;
+            this.end = end;
+            this.nextId = nextId;
+        }
+
+        /**
+         * Finds the most recent complete save in a binary file. Normally this is the save whose trailer ends the
+         * file, but if a save was interrupted then the file is searched backwards for the last save that completed.
+         *
+         * @param channel The file to read
+         * @return The file's most recent complete save
+         * @throws IOException Thrown if the file cannot be read, is not a binary file, or contains no complete save
+         */
+        private static Commit find(FileChannel channel) throws IOException {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            readFully(channel, header, 0);
+            if (header.remaining() < HEADER_LENGTH || header.getLong() != MAGIC_NUMBER) {
+                throw new IOException("Not a WyldCard stack file.");
+            }
+
+            int version = header.getInt();
+            if (version > FORMAT_VERSION) {
+                throw new IOException("This stack was saved by a newer version of WyldCard (format version " + version + ").");
+            }
+
+            Commit commit = read(channel, version, channel.size());
+            if (commit != null) {
+                return commit;
+            }
+
+            // Search backwards for the trailer of the last complete save; chunks overlap so no trailer is split
+            ByteBuffer chunk = ByteBuffer.allocate(RECOVERY_SCAN_LENGTH);
+            long chunkEnd = channel.size();
+
+            while (chunkEnd >= HEADER_LENGTH + MAGIC.length) {
+                long chunkStart = Math.max(HEADER_LENGTH, chunkEnd - RECOVERY_SCAN_LENGTH);
+                chunk.clear();
+                chunk.limit((int) (chunkEnd - chunkStart));
+                readFully(channel, chunk, chunkStart);
+
+                for (int index = chunk.limit() - MAGIC.length; index >= 0; index--) {
+                    if (chunk.getLong(index) == MAGIC_NUMBER) {
+                        commit = read(channel, version, chunkStart + index + MAGIC.length);
+                        if (commit != null) {
+                            return commit;
+                        }
+                    }
+                }
+
+                chunkEnd = chunkStart + MAGIC.length - 1;
+            }
+
+            throw new IOException("The stack file is incomplete. The file may be corrupted.");
+        }
+
+        /**
+         * Finds the most recent complete save in a binary file.
+         *
+         * @param file The file to read
+         * @return The file's most recent complete save, or null if the file does not exist or is not a valid binary
+         * file
+         */
+        private static Commit tryFind(Path file) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return find(channel);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Reads the save whose trailer ends at the given offset.
+         *
+         * @param channel The file to read
+         * @param version The format version of the file
+         * @param end     The offset at which the trailer ends
+         * @return The save, or null if there is no valid trailer and table ending at the given offset
+         * @throws IOException Thrown if the file cannot be read
+         */
+        private static Commit read(FileChannel channel, int version, long end) throws IOException {
+            int trailerLength = version == 1 ? V1_TRAILER_LENGTH : TRAILER_LENGTH;
+            int entryLength = version == 1 ? V1_TABLE_ENTRY_LENGTH : TABLE_ENTRY_LENGTH;
+
+            if (end < HEADER_LENGTH + trailerLength) {
+                return null;
+            }
+
+            ByteBuffer trailer = ByteBuffer.allocate(trailerLength);
+            readFully(channel, trailer, end - trailerLength);
+            long tableOffset = trailer.getLong();
+            int sectionCount = trailer.getInt();
+            long nextId = version == 1 ? sectionCount : trailer.getLong();
+
+            if (trailer.getLong() != MAGIC_NUMBER || sectionCount <= 0 || tableOffset < HEADER_LENGTH ||
+                    tableOffset + (long) sectionCount * entryLength != end - trailerLength) {
+                return null;
+            }
+
+            ByteBuffer table = ByteBuffer.allocate(sectionCount * entryLength);
+            readFully(channel, table, tableOffset);
+
+            // Sections written by version 1 are identified by their position in the table
+            Map<Long, Entry> entries = new LinkedHashMap<>();
+            for (int section = 0; section < sectionCount; section++) {
+                byte type = table.get();
+                long id = version == 1 ? section : table.getLong();
+                long offset = table.getLong();
+                int length = table.getInt();
+
+                if (id < 0 || id >= nextId || offset < HEADER_LENGTH || length < 0 || offset + length > tableOffset) {
+                    return null;
+                }
+
+                entries.put(id, new Entry(type, id, offset, length));
+            }
+
+            return new Commit(version, entries, end, nextId);
+        }
+
+        private long getModelSection() throws IOException {
+            long model = -1;
+            for (Entry entry : entries.values()) {
+                if (entry.type == SECTION_MODEL) {
+                    model = entry.id;
+                }
+            }
+
+            if (model < 0) {
+                throw new IOException("The stack file contains no stack. The file may be corrupted.");
+            }
+
+            return model;
+        }
+    }
+
+    /**
+     * Appends sections to a binary file, recording the location of each, then writes the section table and trailer.
+     * When saving incrementally, sections written by earlier saves are re-used in place of unmodified content.
+     */
+    private static class SectionWriter {
+        private final FileChannel channel;
+        private final OutputStream out;
+        private final StackFile file;                       // File whose sections may be re-used; null for a new file
+        private final Map<Long, Entry> entries = new LinkedHashMap<>();
+        private final Map<Long, FileSection> reused = new HashMap<>();
+        private final List<SavedContent> savedContent = new ArrayList<>();
+        private final Deque<List<Long>> references = new ArrayDeque<>();   // Sections referenced by each sectioned object being written
+        private long position;                              // Offset in the file at which the next section begins
+        private long nextId;
+
+        private SectionWriter(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.out = Channels.newOutputStream(channel);
+            this.file = null;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+            header.put(MAGIC).putInt(FORMAT_VERSION).flip();
+            writeFully(channel, header);
+            position = HEADER_LENGTH;
+        }
+
+        private SectionWriter(FileChannel channel, StackFile file, Commit last) throws IOException {
+            this.channel = channel;
+            this.out = Channels.newOutputStream(channel);
+            this.file = file;
+            this.position = last.end;
+            this.nextId = last.nextId;
+
+            channel.position(position);
+        }
+
+        private void writeModel(Object object) throws IOException {
+            Gson gson = newGson(this, null);
+
+            // Images, documents and sectioned objects are written to their own sections as the model is serialized
+            ByteArrayOutputStream model = new ByteArrayOutputStream();
+            try (Writer writer = new OutputStreamWriter(model, StandardCharsets.UTF_8)) {
+                gson.toJson(object, writer);
+            } catch (JsonIOException e) {
+                throw new IOException("An error occurred while saving the file.", e);
+            }
+
+            write(SECTION_MODEL, model.toByteArray());
+            finish();
+        }
+
+        private long write(byte type, byte[] data) throws IOException {
+            long id = nextId++;
+            out.write(data);
+
+            entries.put(id, new Entry(type, id, position, data.length));
+            position += data.length;
+
+            reference(id);
+            return id;
+        }
+
+        private long write(byte type, LazyContent<?> content) throws IOException {
+            FileSection saved = content.getSavedSection(file);
+            if (saved != null) {
+                return reuse(saved);
+            }
+
+            int revision = content.getRevision();
+            long id = write(type, content.getEncoded());
+
+            savedContent.add(sections -> content.setSaved(sections.get(id), revision));
+            return id;
+        }
+
+        private long write(Sectioned object, JsonEncoder encoder) throws IOException {
+            SectionRevision sectionRevision = object.getSectionRevision();
+
+            FileSection saved = sectionRevision.getSavedSection(file);
+            if (saved != null) {
+                for (FileSection content : sectionRevision.getSavedContents()) {
+                    reuse(content);
+                }
+                return reuse(saved);
+            }
+
+            int revision = sectionRevision.getRevision();
+            List<Long> contents = new ArrayList<>();
+
+            references.push(contents);
+            byte[] data;
+            try {
+                data = encoder.encode();
+            } finally {
+                references.pop();
+            }
+
+            long id = write(SECTION_PART, data);
+            savedContent.add(sections -> {
+                List<FileSection> savedContents = new ArrayList<>();
+                for (long content : contents) {
+                    savedContents.add(sections.get(content));
+                }
+                sectionRevision.setSaved(sections.get(id), savedContents, revision);
+            });
+
+            return id;
+        }
+
+        private long reuse(FileSection section) {
+            entries.put(section.getId(), new Entry(section));
+            reused.put(section.getId(), section);
+
+            reference(section.getId());
+            return section.getId();
+        }
+
+        private void reference(long id) {
+            for (List<Long> referenced : references) {
+                referenced.add(id);
+            }
+        }
+
+        private void finish() throws IOException {
+            long tableOffset = position;
+
+            ByteBuffer table = ByteBuffer.allocate(entries.size() * TABLE_ENTRY_LENGTH);
+            for (Entry entry : entries.values()) {
+                table.put(entry.type).putLong(entry.id).putLong(entry.offset).putInt(entry.length);
+            }
+
+            table.flip();
+            writeFully(channel, table);
+            position += table.limit();
+
+            // Every section must be on disk before the trailer that makes them the file's current content
+            channel.force(false);
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+            trailer.putLong(tableOffset).putInt(entries.size()).putLong(nextId).put(MAGIC).flip();
+            writeFully(channel, trailer);
+            position += TRAILER_LENGTH;
+
+            channel.force(true);
+        }
+
+        /**
+         * Indicates that the file has been written, so that content saved to it may hereafter be read from it.
+         *
+         * @param file The file that was written
+         */
+        private void commit(StackFile file) {
+            Map<Long, FileSection> sections = new HashMap<>(reused);
+            for (Entry entry : entries.values()) {
+                sections.computeIfAbsent(entry.id, id -> file.newSection(entry.type, entry.id, entry.offset, entry.length));
+            }
+
+            for (SavedContent saved : savedContent) {
+                saved.commit(sections);
+            }
+        }
+
+        private long getUsedLength() {
+            long used = HEADER_LENGTH + (long) entries.size() * TABLE_ENTRY_LENGTH + TRAILER_LENGTH;
+            for (Entry entry : entries.values()) {
+                used += entry.length;
+            }
+            return used;
+        }
+
+        private long getUnusedLength() {
+            return position - getUsedLength();
+        }
+    }
+
+    /**
+     * An action to take once content has been saved, given the sections of the file that was written (by section
+     * identifier).
+     */
+    @FunctionalInterface
+    private interface SavedContent {
+        void commit(Map<Long, FileSection> sections);
+    }
+
+    /**
+     * Serializes an object to JSON.
+     */
+    @FunctionalInterface
+    private interface JsonEncoder {
+        byte[] encode() throws IOException;
+    }
+
+    /**
+     * Reads the section table of a binary file and provides random access to each section.
+     */
+    private static class SectionReader {
+        private final StackFile file;
+        private final FileChannel channel;
+        private final Commit commit;
+        private final Deque<List<FileSection>> references = new ArrayDeque<>();   // Sections referenced by each sectioned object being read
+
+        private SectionReader(StackFile file, FileChannel channel) throws IOException {
+            this.file = file;
+            this.channel = channel;
+            this.commit = Commit.find(channel);
+        }
+
+        private byte[] read(long id, byte type) throws IOException {
+            Entry entry = getEntry(id, type);
+
+            if (!references.isEmpty()) {
+                reference(file.newSection(entry.type, entry.id, entry.offset, entry.length));
+            }
+
+            return read(entry);
+        }
+
+        private FileSection getFileSection(long id, byte type) throws IOException {
+            Entry entry = getEntry(id, type);
+            FileSection section = file.newSection(entry.type, entry.id, entry.offset, entry.length);
+
+            reference(section);
+            return section;
+        }
+
+        private <T extends Sectioned> T read(long id, Gson gson, TypeAdapter<T> delegate) throws IOException {
+            FileSection section = getFileSection(id, SECTION_PART);
+            List<FileSection> contents = new ArrayList<>();
+
+            references.push(contents);
+            T object;
+            try (JsonReader reader = gson.newJsonReader(new InputStreamReader(new ByteArrayInputStream(read(getEntry(id, SECTION_PART))), StandardCharsets.UTF_8))) {
+                object = delegate.read(reader);
+            } finally {
+                references.pop();
+            }
+
+            SectionRevision sectionRevision = object.getSectionRevision();
+            sectionRevision.setSaved(section, contents, sectionRevision.getRevision());
+            return object;
+        }
+
+        private void reference(FileSection section) {
+            for (List<FileSection> referenced : references) {
+                referenced.add(section);
+            }
+        }
+
+        private Entry getEntry(long id, byte type) throws IOException {
+            Entry entry = commit.entries.get(id);
+            if (entry == null || entry.type != type) {
+                throw new IOException("The stack file refers to a missing section. The file may be corrupted.");
+            }
+
+            return entry;
+        }
+
+        private byte[] read(Entry entry) throws IOException {
+            ByteBuffer data = ByteBuffer.allocate(entry.length);
+            readFully(channel, data, entry.offset);
+
+            if (data.remaining() != entry.length) {
+                throw new IOException("The stack file is incomplete. The file may be corrupted.");
+            }
+
+            return data.array();
+        }
+    }
+
+    /**
+     * Rewrites a binary file containing only the sections in use: those in the file's most recent section table, and
+     * those still referenced by lazy content or sectioned objects in memory (which may, for example, belong to a
+     * deleted card that could yet be restored). Every section keeps its identifier, and the sections in memory are
+     * re-located to their offsets in the compacted file.
+     * <p>
+     * Sections are copied without holding the file's commit lock, so saves are not blocked while the file is
+     * compacted; saves only append to the file, so once every section has been copied the lock is taken, any
+     * sections saved in the meantime are copied, and the compacted file replaces the original.
+     */
+    private static class Compaction {
+        private final StackFile file;
+        private final Path temporary;
+        private final Map<Long, Entry> copied = new HashMap<>();
+        private long position = HEADER_LENGTH;
+
+        private Compaction(StackFile file) {
+            this.file = file;
+            this.temporary = file.getPath().resolveSibling(file.getPath().getFileName() + ".compact");
+        }
+
+        private void run() throws IOException {
+            file.getCompactionLock().lock();
+            try {
+                int replacements = file.getReplacements();
+
+                try (FileChannel source = FileChannel.open(file.getPath(), StandardOpenOption.READ);
+                     FileChannel destination = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                    Commit commit = Commit.find(source);
+                    if (commit.version != FORMAT_VERSION) {
+                        return;
+                    }
+
+                    ByteBuffer header = ByteBuffer.allocate(HEADER_LENGTH);
+                    header.put(MAGIC).putInt(FORMAT_VERSION).flip();
+                    writeFully(destination, header);
+
+                    copyLiveSections(source, destination, commit);
+                }
+
+                file.getCommitLock().lock();
+                try {
+                    // Nothing to do if the file was replaced (by a complete save) while it was being compacted
+                    if (file.getReplacements() != replacements) {
+                        return;
+                    }
+
+                    try (FileChannel source = FileChannel.open(file.getPath(), StandardOpenOption.READ);
+                         FileChannel destination = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                        destination.position(position);
+                        finish(destination, copyLiveSections(source, destination, Commit.find(source)));
+                    }
+
+                    file.getContentLock().writeLock().lock();
+                    try {
+                        move(temporary, file.getPath());
+                        relocateSections();
+                    } finally {
+                        file.getContentLock().writeLock().unlock();
+                    }
+                } finally {
+                    file.getCommitLock().unlock();
+                }
+            } finally {
+                Files.deleteIfExists(temporary);
+                file.getCompactionLock().unlock();
+            }
+        }
+
+        private Commit copyLiveSections(FileChannel source, FileChannel destination, Commit commit) throws IOException {
+            List<Entry> live = new ArrayList<>(commit.entries.values());
+            for (FileSection section : file.getSections()) {
+                if (section.isIn(file)) {
+                    live.add(new Entry(section));
+                }
+            }
+
+            for (Entry entry : live) {
+                if (!copied.containsKey(entry.id)) {
+                    long transferred = 0;
+                    while (transferred < entry.length) {
+                        long count = source.transferTo(entry.offset + transferred, entry.length - transferred, destination);
+                        if (count <= 0) {
+                            throw new IOException("The stack file is incomplete. The file may be corrupted.");
+                        }
+                        transferred += count;
+                    }
+
+                    copied.put(entry.id, new Entry(entry.type, entry.id, position, entry.length));
+                    position += entry.length;
+                }
+            }
+
+            return commit;
+        }
+
+        private void finish(FileChannel destination, Commit commit) throws IOException {
+            ByteBuffer table = ByteBuffer.allocate(commit.entries.size() * TABLE_ENTRY_LENGTH);
+            for (long id : commit.entries.keySet()) {
+                Entry entry = copied.get(id);
+                table.put(entry.type).putLong(entry.id).putLong(entry.offset).putInt(entry.length);
+            }
+
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_LENGTH);
+            trailer.putLong(position).putInt(commit.entries.size()).putLong(commit.nextId).put(MAGIC).flip();
+
+            table.flip();
+            writeFully(destination, table);
+            writeFully(destination, trailer);
+            destination.force(true);
+        }
+
+        private void relocateSections() {
+            for (FileSection section : file.getSections()) {
+                Entry entry = copied.get(section.getId());
+                if (entry != null && section.isIn(file)) {
+                    section.relocate(entry.offset);
+                } else {
+                    section.invalidate();
+                }
+            }
+        }
+    }
+
+    /**
+     * Serializes each image into a section of its own, represented in the model by its section identifier.
+     */
+    private static class ImageSectionAdapter extends TypeAdapter<BufferedImage> {
+        private final SectionWriter writer;
+        private final SectionReader reader;
+
+        private ImageSectionAdapter(SectionWriter writer, SectionReader reader) {
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        @Override
+        public void write(JsonWriter out, BufferedImage value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(writer.write(SECTION_IMAGE, BufferedImageSerializer.toPng(value)));
+            }
+        }
+
+        @Override
+        public BufferedImage read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            return BufferedImageSerializer.fromPng(reader.read(in.nextLong(), SECTION_IMAGE));
+        }
+    }
+
+    /**
+     * Serializes each styled document into a section of its own (as RTF), represented in the model by its section
+     * identifier.
+     */
+    private static class DocumentSectionAdapter extends TypeAdapter<StyledDocument> {
+        private final SectionWriter writer;
+        private final SectionReader reader;
+
+        private DocumentSectionAdapter(SectionWriter writer, SectionReader reader) {
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        @Override
+        public void write(JsonWriter out, StyledDocument value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(writer.write(SECTION_DOCUMENT, StyledDocumentSerializer.convertDocumentToRtf(value)));
+            }
+        }
+
+        @Override
+        public StyledDocument read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            return StyledDocumentSerializer.convertRtfToDocument(reader.read(in.nextLong(), SECTION_DOCUMENT));
+        }
+    }
+
+    /**
+     * Serializes each piece of lazy content into a section of its own, represented in the model by its section
+     * identifier. Deserialized content is given the location of its section, and is not read until it is first used.
+     */
+    private static class LazyContentSectionAdapter<T extends LazyContent<?>> extends TypeAdapter<T> {
+        private final byte type;
+        private final Function<LazyContent.ContentSource, T> factory;
+        private final SectionWriter writer;
+        private final SectionReader reader;
+
+        private LazyContentSectionAdapter(byte type, Function<LazyContent.ContentSource, T> factory, SectionWriter writer, SectionReader reader) {
+            this.type = type;
+            this.factory = factory;
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(writer.write(type, value));
+            }
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+
+            return factory.apply(reader.getFileSection(in.nextLong(), type));
+        }
+    }
+
+    /**
+     * Serializes each {@link Sectioned} object into a section of its own, represented in the model by its section
+     * identifier. The object itself is serialized as it otherwise would be.
+     */
+    private static class SectionedAdapterFactory implements TypeAdapterFactory {
+        private final SectionWriter writer;
+        private final SectionReader reader;
+
+        private SectionedAdapterFactory(SectionWriter writer, SectionReader reader) {
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> TypeAdapter<T> create(Gson gson, TypeToken<T> type) {
+            if (!Sectioned.class.isAssignableFrom(type.getRawType())) {
+                return null;
+            }
+
+            TypeAdapter<Sectioned> delegate = (TypeAdapter<Sectioned>) gson.getDelegateAdapter(this, type);
+            return (TypeAdapter<T>) new SectionedAdapter<>(gson, delegate, writer, reader);
+        }
+    }
+
+    private static class SectionedAdapter<T extends Sectioned> extends TypeAdapter<T> {
+        private final Gson gson;
+        private final TypeAdapter<T> delegate;
+        private final SectionWriter writer;
+        private final SectionReader reader;
+
+        private SectionedAdapter(Gson gson, TypeAdapter<T> delegate, SectionWriter writer, SectionReader reader) {
+            this.gson = gson;
+            this.delegate = delegate;
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        @Override
+        public void write(JsonWriter out, T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+            } else {
+                out.value(writer.write(value, () -> {
+                    ByteArrayOutputStream json = new ByteArrayOutputStream();
+                    try (JsonWriter objectWriter = gson.newJsonWriter(new OutputStreamWriter(json, StandardCharsets.UTF_8))) {
+                        delegate.write(objectWriter, value);
+                    }
+                    return json.toByteArray();
+                }));
+            }
+        }
+
+        @Override
+        public T read(JsonReader in) throws IOException {
+            switch (in.peek()) {
+                case NULL:
+                    in.nextNull();
+                    return null;
+                case BEGIN_OBJECT:
+                    // Version 1 files serialized every object in the model section
+                    return delegate.read(in);
+                default:
+                    return reader.read(in.nextLong(), gson, delegate);
+            }
+        }
+    }
+}
@@ -21,8 +21,7 @@ public class BufferedImageSerializer implements JsonSerializer<BufferedImage>, J
             throw new IllegalStateException("Bogus image size");
         } else {
             try {
-                ByteArrayInputStream stream = new ByteArrayInputStream(imageData);
-                return ImageIO.read(stream);
+                return fromPng(imageData);
             } catch (IOException e) {
                 throw new JsonIOException("An error occurred decoding an image. This stack is corrupted.", e);
             }
@@ -32,17 +31,40 @@ public class BufferedImageSerializer implements JsonSerializer<BufferedImage>, J
     @Override
     public JsonElement serialize(BufferedImage src, Type typeOfSrc, JsonSerializationContext context) {
         try {
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            ImageIO.write(src, "png", baos);
-            baos.flush();
-            byte[] serialized = baos.toByteArray();
-            baos.close();
-            return new JsonPrimitive(Base64.getEncoder().encodeToString(serialized));
+            return new JsonPrimitive(Base64.getEncoder().encodeToString(toPng(src)));
         } catch (IOException e) {
             throw new JsonIOException("An error occurred while trying to save the image.", e);
         }
     }
 
+    /**
+     * Encodes an image as PNG data.
+     *
+     * @param image The image to encode
+     * @return The PNG-encoded image
+     * @throws IOException Thrown if the image cannot be encoded
+     */
+    static byte[] toPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", baos);
+        baos.flush();
+        byte[] serialized = baos.toByteArray();
+        baos.close();
+        return serialized;
+    }
+
+    /**
+     * Decodes PNG data into an image.
+     *
+     * @param imageData The PNG-encoded image
+     * @return The decoded image
+     * @throws IOException Thrown if the data cannot be decoded
+     */
+    static BufferedImage fromPng(byte[] imageData) throws IOException {
+        ByteArrayInputStream stream = new ByteArrayInputStream(imageData);
+        return ImageIO.read(stream);
+    }
+
     public static BufferedImage emptyImage(Dimension dimension) {
         return new BufferedImage(dimension.width,dimension.height, BufferedImage.TYPE_INT_ARGB);
     }
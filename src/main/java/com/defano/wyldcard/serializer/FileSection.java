@@ -0,0 +1,88 @@
+package com.defano.wyldcard.serializer;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The location of a section within a binary stack file (see {@link BinarySerializer}), from which lazy content is read
+ * when it is first used.
+ * <p>
+ * A section keeps its identifier for as long as it remains in the file, but its offset changes when the file is
+ * compacted; every section of a file is therefore tracked by the file's {@link StackFile}, which re-locates it whenever
+ * the file is compacted, and invalidates it if the file is replaced.
+ */
+class FileSection implements LazyContent.ContentSource {
+
+    private final StackFile file;
+    private final byte type;
+    private final long id;
+    private final int length;
+    private volatile long offset;
+    private volatile boolean valid = true;
+
+    FileSection(StackFile file, byte type, long id, long offset, int length) {
+        this.file = file;
+        this.type = type;
+        this.id = id;
+        this.offset = offset;
+        this.length = length;
+    }
+
+    @Override
+    public byte[] read() throws IOException {
+        file.getContentLock().readLock().lock();
+        try (FileChannel channel = FileChannel.open(file.getPath(), StandardOpenOption.READ)) {
+            ByteBuffer data = ByteBuffer.allocate(length);
+            BinarySerializer.readFully(channel, data, offset);
+
+            if (!valid || data.remaining() != length) {
+                throw new IOException("The stack file has changed since it was opened.");
+            }
+
+            return data.array();
+        } finally {
+            file.getContentLock().readLock().unlock();
+        }
+    }
+
+    /**
+     * Determines if this section can be re-used by an incremental save to the given file; that is, if this section is
+     * in the given file and the file has not been replaced since this section was written.
+     *
+     * @param file The file being saved
+     * @return True if this section remains valid in the given file
+     */
+    boolean isIn(StackFile file) {
+        return this.file == file && valid;
+    }
+
+    StackFile getFile() {
+        return file;
+    }
+
+    byte getType() {
+        return type;
+    }
+
+    long getId() {
+        return id;
+    }
+
+    long getOffset() {
+        return offset;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    void relocate(long offset) {
+        this.offset = offset;
+    }
+
+    void invalidate() {
+        this.valid = false;
+    }
+}
@@ -0,0 +1,202 @@
+package com.defano.wyldcard.serializer;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+
+/**
+ * A piece of bulky stack content (like a card image or a field's styled text) that is decoded from its serialized form
+ * only when first used, and which may be discarded again when memory is needed.
+ * <p>
+ * Content read from a stack file is held as a {@link ContentSource}: the encoded bytes in memory or, for stacks saved
+ * in binary format, the location of the bytes in the stack file. The decoded value is held only softly, so the
+ * garbage collector may reclaim content that has not been used recently and it will be decoded again from its source
+ * the next time it is needed. Content that has been modified since it was last saved has no up-to-date source, and is
+ * therefore held strongly until the stack is saved.
+ *
+ * @param <T> The type of the decoded content
+ */
+public abstract class LazyContent<T> {
+
+    private ContentSource source;               // Encoded form of the content as last read or saved
+    private SoftReference<T> loaded;            // Decoded content, evictable while unmodified
+    private T modified;                         // Decoded content, modified since it was last read or saved
+    private int revision;                       // Incremented on every modification
+    private volatile Runnable modificationObserver;
+
+    protected LazyContent(T value) {
+        set(value);
+    }
+
+    protected LazyContent(ContentSource source) {
+        this.source = source;
+    }
+
+    /**
+     * Gets the decoded content, decoding it from its source if it has not been decoded or if it was evicted since it
+     * was last used.
+     *
+     * @return The content
+     */
+    public synchronized T get() {
+        T value = modified != null ? modified : loaded == null ? null : loaded.get();
+
+        if (value == null) {
+            try {
+                value = decode(source.read());
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to read the file. The file may be corrupted.", e);
+            }
+
+            loaded = new SoftReference<>(value);
+            onDecoded(value);
+        }
+
+        return value;
+    }
+
+    /**
+     * Replaces the content with the given value, which is held in memory until the content is next saved. Has no
+     * effect if the given value is the content already held.
+     *
+     * @param value The new content
+     */
+    public synchronized void set(T value) {
+        T current = modified != null ? modified : loaded == null ? null : loaded.get();
+
+        if (value != current) {
+            modified = value;
+            loaded = null;
+            revision++;
+            onDecoded(value);
+            fireModified();
+        }
+    }
+
+    /**
+     * Determines if the content is currently decoded in memory.
+     *
+     * @return True if the content is in memory; false if it would need to be decoded from its source
+     */
+    public synchronized boolean isLoaded() {
+        return modified != null || loaded != null && loaded.get() != null;
+    }
+
+    /**
+     * Indicates that the decoded content was modified in place, and must be held in memory until the content is next
+     * saved.
+     */
+    protected synchronized void setModified() {
+        if (modified == null) {
+            modified = loaded == null ? null : loaded.get();
+        }
+        revision++;
+        fireModified();
+    }
+
+    /**
+     * Sets an observer to be notified whenever this content is replaced or modified in place. Replaces any previously
+     * set observer.
+     *
+     * @param observer The observer, or null to remove the current observer
+     */
+    public void setModificationObserver(Runnable observer) {
+        this.modificationObserver = observer;
+    }
+
+    synchronized int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Gets the section of the given file from which this content was read (or to which it was last saved), provided
+     * that the content has not been modified since.
+     *
+     * @param file The file being saved
+     * @return The content's section, or null if the content must be re-written
+     */
+    synchronized FileSection getSavedSection(StackFile file) {
+        if (modified == null && source instanceof FileSection && ((FileSection) source).isIn(file)) {
+            return (FileSection) source;
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the encoded form of the content. Content that has not been modified is copied from its source without
+     * being decoded.
+     *
+     * @return The encoded content
+     * @throws IOException Thrown if the content cannot be encoded or read from its source
+     */
+    byte[] getEncoded() throws IOException {
+        T value;
+        ContentSource encoded;
+
+        // Don't encode while holding this object's lock; a document's listeners are notified while it is locked
+        synchronized (this) {
+            value = modified;
+            encoded = source;
+        }
+
+        return value != null ? encode(value) : encoded.read();
+    }
+
+    /**
+     * Indicates that the content has been saved and may hereafter be read from the given source.
+     *
+     * @param source   The source from which the saved content can be read
+     * @param revision The revision of the content that was saved (as returned by {@link #getRevision()} before the
+     *                 content was encoded); content that was modified while being saved remains held in memory.
+     */
+    synchronized void setSaved(ContentSource source, int revision) {
+        this.source = source;
+
+        if (modified != null && this.revision == revision) {
+            loaded = new SoftReference<>(modified);
+            modified = null;
+        }
+    }
+
+    private void fireModified() {
+        Runnable observer = modificationObserver;
+        if (observer != null) {
+            observer.run();
+        }
+    }
+
+    /**
+     * Decodes the content from its serialized form.
+     *
+     * @param data The encoded content
+     * @return The decoded content
+     * @throws IOException Thrown if the content cannot be decoded
+     */
+    protected abstract T decode(byte[] data) throws IOException;
+
+    /**
+     * Encodes the content into its serialized form.
+     *
+     * @param value The content to encode
+     * @return The encoded content
+     * @throws IOException Thrown if the content cannot be encoded
+     */
+    protected abstract byte[] encode(T value) throws IOException;
+
+    /**
+     * Invoked whenever a value is decoded or set; subclasses may use this to observe changes made to the value in
+     * place.
+     *
+     * @param value The decoded or newly set value
+     */
+    protected void onDecoded(T value) {
+    }
+
+    /**
+     * A source of the encoded form of some content.
+     */
+    @FunctionalInterface
+    public interface ContentSource {
+        byte[] read() throws IOException;
+    }
+}
@@ -0,0 +1,39 @@
+package com.defano.wyldcard.serializer;
+
+import com.google.gson.*;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Serializes lazily-decoded content as a Base64-encoded string (the same representation used for the equivalent
+ * {@link java.awt.image.BufferedImage} or {@link javax.swing.text.StyledDocument}). Content is not decoded when
+ * deserialized; its encoded bytes are retained until the content is first used.
+ *
+ * @param <T> The type of lazy content
+ */
+class LazyContentSerializer<T extends LazyContent<?>> implements JsonSerializer<T>, JsonDeserializer<T> {
+
+    private final Function<LazyContent.ContentSource, T> factory;
+
+    LazyContentSerializer(Function<LazyContent.ContentSource, T> factory) {
+        this.factory = factory;
+    }
+
+    @Override
+    public T deserialize(JsonElement json, Type typeOfT, JsonDeserializationContext context) throws JsonParseException {
+        byte[] data = Base64.getDecoder().decode(json.getAsString());
+        return factory.apply(() -> data);
+    }
+
+    @Override
+    public JsonElement serialize(T src, Type typeOfSrc, JsonSerializationContext context) {
+        try {
+            return new JsonPrimitive(Base64.getEncoder().encodeToString(src.getEncoded()));
+        } catch (IOException e) {
+            throw new JsonIOException("An error occurred while saving the stack.", e);
+        }
+    }
+}
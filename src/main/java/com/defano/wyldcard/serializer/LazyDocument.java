@@ -0,0 +1,53 @@
+package com.defano.wyldcard.serializer;
+
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.StyledDocument;
+
+/**
+ * A field's styled text that is decoded from RTF only when first used. See {@link LazyContent}.
+ * <p>
+ * Styled documents are edited in place (for example, as the user types into a field), so the decoded document is
+ * observed and held in memory as soon as it changes.
+ */
+public class LazyDocument extends LazyContent<StyledDocument> implements DocumentListener {
+
+    public LazyDocument(StyledDocument document) {
+        super(document);
+    }
+
+    public LazyDocument(ContentSource source) {
+        super(source);
+    }
+
+    @Override
+    protected StyledDocument decode(byte[] data) {
+        return StyledDocumentSerializer.convertRtfToDocument(data);
+    }
+
+    @Override
+    protected byte[] encode(StyledDocument value) {
+        return StyledDocumentSerializer.convertDocumentToRtf(value);
+    }
+
+    @Override
+    protected void onDecoded(StyledDocument value) {
+        value.removeDocumentListener(this);
+        value.addDocumentListener(this);
+    }
+
+    @Override
+    public void insertUpdate(DocumentEvent e) {
+        setModified();
+    }
+
+    @Override
+    public void removeUpdate(DocumentEvent e) {
+        setModified();
+    }
+
+    @Override
+    public void changedUpdate(DocumentEvent e) {
+        setModified();
+    }
+}
@@ -0,0 +1,50 @@
+package com.defano.wyldcard.serializer;
+
+import com.defano.wyldcard.util.PackedImageUtils;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * A card or background image that is decoded from PNG only when first used. See {@link LazyContent}.
+ * <p>
+ * Images are held packed into a palette-indexed form whenever possible (see {@link PackedImageUtils}); callers that
+ * display or paint into the image should expand it first.
+ */
+public class LazyImage extends LazyContent<BufferedImage> {
+
+    public LazyImage(BufferedImage image) {
+        super(PackedImageUtils.pack(image));
+    }
+
+    public LazyImage(ContentSource source) {
+        super(source);
+    }
+
+    /**
+     * Replaces the image, packing it if possible.
+     *
+     * @param value The new image
+     */
+    @Override
+    public void set(BufferedImage value) {
+        super.set(PackedImageUtils.pack(value));
+    }
+
+    @Override
+    protected BufferedImage decode(byte[] data) throws IOException {
+        BufferedImage image = BufferedImageSerializer.fromPng(data);
+
+        if (image == null) {
+            throw new IOException("An error occurred decoding an image. This stack is corrupted.");
+        }
+
+        // Images saved before packing was introduced are ARGB PNGs
+        return PackedImageUtils.pack(image);
+    }
+
+    @Override
+    protected byte[] encode(BufferedImage value) throws IOException {
+        return BufferedImageSerializer.toPng(value);
+    }
+}
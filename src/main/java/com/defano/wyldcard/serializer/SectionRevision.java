@@ -0,0 +1,72 @@
+package com.defano.wyldcard.serializer;
+
+import java.util.List;
+
+/**
+ * Tracks the modifications made to a {@link Sectioned} model object, and the section of the binary stack file it was
+ * last saved to (or read from), so that an incremental save can re-use that section if the object has not been
+ * modified since.
+ */
+public class SectionRevision {
+
+    private int revision;                   // Incremented on every modification
+    private FileSection saved;              // Section holding the object as of the saved revision
+    private List<FileSection> contents;     // Sections referenced by the saved object (like its images and text)
+    private int savedRevision;
+
+    /**
+     * Indicates that the object (or an object it contains) was modified.
+     */
+    public synchronized void recordModification() {
+        revision++;
+    }
+
+    synchronized int getRevision() {
+        return revision;
+    }
+
+    /**
+     * Gets the section holding the object, provided that the object has not been modified since it was saved to (or
+     * read from) the given file, and that every section it refers to remains valid.
+     *
+     * @param file The file being saved
+     * @return The object's section, or null if the object must be re-written
+     */
+    synchronized FileSection getSavedSection(StackFile file) {
+        if (saved == null || revision != savedRevision || !saved.isIn(file)) {
+            return null;
+        }
+
+        for (FileSection content : contents) {
+            if (!content.isIn(file)) {
+                return null;
+            }
+        }
+
+        return saved;
+    }
+
+    /**
+     * Gets the sections referenced by the object as of its saved revision; these must be retained by any save that
+     * re-uses the object's section.
+     *
+     * @return The sections referenced by the saved object
+     */
+    synchronized List<FileSection> getSavedContents() {
+        return contents;
+    }
+
+    /**
+     * Indicates that the object has been saved to (or read from) the given section.
+     *
+     * @param saved    The section holding the object
+     * @param contents The sections referenced by the object
+     * @param revision The revision of the object that was saved (as returned by {@link #getRevision()} before the
+     *                 object was serialized)
+     */
+    synchronized void setSaved(FileSection saved, List<FileSection> contents, int revision) {
+        this.saved = saved;
+        this.contents = contents;
+        this.savedRevision = revision;
+    }
+}
@@ -0,0 +1,16 @@
+package com.defano.wyldcard.serializer;
+
+/**
+ * A model object that {@link BinarySerializer} stores in a section of its own, so that an incremental save re-writes
+ * the object only if it was modified since it was last saved.
+ */
+public interface Sectioned {
+
+    /**
+     * Gets the record of this object's modifications, which the object must update whenever it (or any object it
+     * contains) is modified.
+     *
+     * @return This object's section revision
+     */
+    SectionRevision getSectionRevision();
+}
@@ -20,17 +20,29 @@ public class Serializer {
     private Serializer() {
     }
 
-    private static final Gson gson = new GsonBuilder()
-            .registerTypeAdapterFactory(new PostConstructAdapterFactory())
-            .registerTypeAdapter(Value.class, new ValueSerializer())
-            .registerTypeAdapter(byte[].class, new ByteArraySerializer())
+    private static final Gson gson = newGsonBuilder()
             .registerTypeAdapter(BufferedImage.class, new BufferedImageSerializer())
             .registerTypeAdapter(StyledDocument.class, new StyledDocumentSerializer())
-            .registerTypeAdapter(PropertyList.class, new PropertyListSerializer())
-            .enableComplexMapKeySerialization()
+            .registerTypeAdapter(LazyImage.class, new LazyContentSerializer<>(LazyImage::new))
+            .registerTypeAdapter(LazyDocument.class, new LazyContentSerializer<>(LazyDocument::new))
             .setPrettyPrinting()
             .create();
 
+    /**
+     * Creates a Gson builder configured to serialize WyldCard model objects, except for images and styled documents
+     * (and their lazily-decoded counterparts), whose representation depends on the file format being written.
+     *
+     * @return A partially configured Gson builder
+     */
+    static GsonBuilder newGsonBuilder() {
+        return new GsonBuilder()
+                .registerTypeAdapterFactory(new PostConstructAdapterFactory())
+                .registerTypeAdapter(Value.class, new ValueSerializer())
+                .registerTypeAdapter(byte[].class, new ByteArraySerializer())
+                .registerTypeAdapter(PropertyList.class, new PropertyListSerializer())
+                .enableComplexMapKeySerialization();
+    }
+
     @SuppressWarnings("unchecked")
     public static <T> T copy(T t) {
         return (T) deserialize(serialize(t), t.getClass());
@@ -71,15 +83,23 @@ public class Serializer {
 
     /**
      * Attempts to deserialize the contents of a file into an Object of the requested type.
+     * <p>
+     * Files written in WyldCard's binary format (see {@link BinarySerializer}) are detected and read accordingly, so
+     * this method may be used to open a stack saved in either format.
      *
      * @param file The file to deserialize; should a plain-text, JSON-formatted file generated using the
-     *             {@link #serialize(File, Object)} method.
+     *             {@link #serialize(File, Object)} method, or a binary file generated using
+     *             {@link BinarySerializer#serialize(File, Object)}.
      * @param clazz The class of object to deserialize into.
      * @param <T> A type representing the deserialized object class.
      * @return A deserialized representation of the given file.
      */
     public static <T> T deserialize (File file, Class<T> clazz) {
         try {
+            if (BinarySerializer.isBinaryFile(file)) {
+                return BinarySerializer.deserialize(file, clazz);
+            }
+
             return deserialize(new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8), clazz);
         } catch (IOException e) {
             throw new RuntimeException("Failed to read the file. The file may be corrupted.", e);
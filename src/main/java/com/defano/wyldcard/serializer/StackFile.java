@@ -0,0 +1,115 @@
+package com.defano.wyldcard.serializer;
+
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * The state shared by every reader and writer of a single binary stack file (see {@link BinarySerializer}): the
+ * sections of the file referenced by objects in memory, and the locks coordinating saves, compaction and reads of lazy
+ * content.
+ * <p>
+ * Saves (and the final step of compaction) are serialized by the file's commit lock, and compactions by the file's
+ * compaction lock. Lazy content is read under the read lock of the file's content lock, which compaction holds
+ * exclusively only while replacing the file and re-locating its sections.
+ */
+class StackFile {
+
+    private static final Map<Path, StackFile> files = new HashMap<>();
+
+    private final Path path;
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final ReentrantLock compactionLock = new ReentrantLock();
+    private final ReadWriteLock contentLock = new ReentrantReadWriteLock();
+    private final AtomicBoolean compactionPending = new AtomicBoolean();
+    private final Set<FileSection> sections = Collections.newSetFromMap(new WeakHashMap<>());
+    private int replacements;
+
+    private StackFile(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * Gets the state of the stack file at the given path.
+     *
+     * @param path The path of the stack file
+     * @return The file's state, shared with every other reader and writer of the file
+     */
+    static StackFile forPath(Path path) {
+        Path normalized = path.toAbsolutePath().normalize();
+
+        synchronized (files) {
+            return files.computeIfAbsent(normalized, StackFile::new);
+        }
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    ReentrantLock getCommitLock() {
+        return commitLock;
+    }
+
+    ReentrantLock getCompactionLock() {
+        return compactionLock;
+    }
+
+    ReadWriteLock getContentLock() {
+        return contentLock;
+    }
+
+    AtomicBoolean getCompactionPending() {
+        return compactionPending;
+    }
+
+    /**
+     * Creates a section of this file, which will be re-located should the file be compacted.
+     *
+     * @param type   The type of the section
+     * @param id     The section's identifier
+     * @param offset The offset of the section within the file
+     * @param length The length of the section, in bytes
+     * @return The section
+     */
+    synchronized FileSection newSection(byte type, long id, long offset, int length) {
+        FileSection section = new FileSection(this, type, id, offset, length);
+        sections.add(section);
+        return section;
+    }
+
+    /**
+     * Gets every section of this file that is still referenced.
+     *
+     * @return The sections of this file that have not been garbage collected
+     */
+    synchronized List<FileSection> getSections() {
+        return new ArrayList<>(sections);
+    }
+
+    /**
+     * Indicates that this file has been replaced by a newly written file; every section of the replaced file becomes
+     * unreadable.
+     */
+    synchronized void replaced() {
+        for (FileSection section : sections) {
+            section.invalidate();
+        }
+
+        sections.clear();
+        replacements++;
+    }
+
+    /**
+     * Gets the number of times this file has been replaced, so that compaction can detect that the file it compacted
+     * was replaced while it was being compacted.
+     *
+     * @return The number of times this file has been replaced
+     */
+    synchronized int getReplacements() {
+        return replacements;
+    }
+}
@@ -4,6 +4,7 @@ import com.defano.wyldcard.stackreader.block.*;
 import com.defano.wyldcard.stackreader.misc.ImportException;
 import com.defano.wyldcard.stackreader.misc.StackInputStream;
 import com.defano.wyldcard.stackreader.misc.UnsupportedVersionException;
+import com.defano.wyldcard.stackreader.record.BlockOffsetRecord;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.slf4j.Logger;
@@ -11,25 +12,73 @@ import org.slf4j.LoggerFactory;
 
 import java.awt.image.BufferedImage;
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * Represents a HyperCard stack file.
+ * <p>
+ * Blocks are indexed by type and id; blocks frequently refer to one another by id (a card to its background and
+ * bitmap, a page to its cards), and resolving each reference by scanning every block in the file made importing a
+ * large stack quadratic in its number of blocks.
+ * <p>
+ * A stack read from a file (see {@link #fromFile(File)}) is memory-mapped, and only the block headers listed in its
+ * master (MAST) block are read when it is opened. Each block is parsed the first time it is requested, and bitmaps are
+ * decoded on request into a bounded cache, so that a huge stack can be previewed (or selectively imported) without
+ * reading all of it into memory. A stack read from a stream is necessarily read (and every block parsed) up front.
  */
 @SuppressWarnings({"unused", "WeakerAccess"})
 public class HyperCardStack {
 
     private static final Logger LOG = LoggerFactory.getLogger(HyperCardStack.class);
-    private final List<Block> blocks = new ArrayList<>();
 
+    // Number of decoded bitmaps retained by a memory-mapped stack
+    private static final int IMAGE_CACHE_SIZE = 32;
+
+    private final List<BlockRecord> blocks = new ArrayList<>();
+    private final Map<Class<? extends Block>, List<BlockRecord>> blocksByClass = new HashMap<>();
+    private final Map<Class<? extends Block>, Map<Integer, BlockRecord>> blocksById = new HashMap<>();
+
+    private final ByteBuffer mappedFile;
+    private final Map<Integer, BufferedImage> images = new LinkedHashMap<Integer, BufferedImage>(IMAGE_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, BufferedImage> eldest) {
+            return size() > IMAGE_CACHE_SIZE;
+        }
+    };
+
+    private HyperCardStack(ByteBuffer mappedFile) {
+        this.mappedFile = mappedFile;
+    }
+
+    /**
+     * Opens a HyperCard stack file by memory-mapping it. Blocks are parsed (and bitmaps decoded) only as they are
+     * requested.
+     *
+     * @param f The stack file
+     * @return The stack
+     * @throws FileNotFoundException Thrown if the file does not exist
+     * @throws ImportException       Thrown if the file cannot be read, or is not a HyperCard 2.x stack
+     */
     public static HyperCardStack fromFile(File f) throws FileNotFoundException, ImportException {
-        return fromInputStream(new FileInputStream(f));
+        if (!f.isFile()) {
+            throw new FileNotFoundException(f.getAbsolutePath());
+        }
+
+        try (FileChannel channel = FileChannel.open(f.toPath(), StandardOpenOption.READ)) {
+            HyperCardStack stack = new HyperCardStack(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+            stack.index();
+            return stack;
+        } catch (IOException e) {
+            throw new ImportException("Unable to read stack file " + f.getAbsolutePath(), e);
+        }
     }
 
     public static HyperCardStack fromInputStream(InputStream sis) throws ImportException {
-        HyperCardStack stack = new HyperCardStack();
+        HyperCardStack stack = new HyperCardStack(null);
         stack.unpack(new StackInputStream(sis));
         return stack;
     }
@@ -40,7 +89,7 @@ public class HyperCardStack {
      * @return The list of all block records.
      */
     public List<Block> getBlocks() {
-        return blocks;
+        return resolveAll(blocks);
     }
 
     /**
@@ -50,9 +99,7 @@ public class HyperCardStack {
      * @return The list of matching blocks.
      */
     public List<Block> getBlocks(BlockType type) {
-        return blocks.stream()
-                .filter(b -> b.getBlockType() == type)
-                .collect(Collectors.toList());
+        return resolveAll(blocksByClass.getOrDefault(type.blockClass(), Collections.emptyList()));
     }
 
     /**
@@ -64,15 +111,17 @@ public class HyperCardStack {
      */
     @SuppressWarnings("unchecked")
     public <T extends Block> T getBlock(Class<T> klass) {
-        return blocks.stream()
-                .filter(b -> b.getClass() == klass)
-                .map(b -> (T) b)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("No block matching type " + klass));
+        List<BlockRecord> matching = blocksByClass.get(klass);
+
+        if (matching == null) {
+            throw new IllegalArgumentException("No block matching type " + klass);
+        }
+
+        return (T) resolve(matching.get(0));
     }
 
     public <T extends Block> boolean hasBlock(Class<T> klass) {
-        return blocks.stream().anyMatch(b -> b.getClass() == klass);
+        return blocksByClass.containsKey(klass);
     }
 
     /**
@@ -84,8 +133,7 @@ public class HyperCardStack {
      */
     @SuppressWarnings("unchecked")
     public <T extends Block> List<T> getBlocks(Class<T> klass) {
-        return blocks.stream()
-                .filter(b -> b.getClass() == klass)
+        return resolveAll(blocksByClass.getOrDefault(klass, Collections.emptyList())).stream()
                 .map(b -> (T) b)
                 .collect(Collectors.toList());
     }
@@ -102,12 +150,13 @@ public class HyperCardStack {
      */
     @SuppressWarnings("unchecked")
     public <T extends Block> T getBlock(Class<T> klass, int blockId) {
-        return blocks.stream()
-                .filter(b -> b.getBlockId() == blockId)
-                .filter(b -> b.getClass() == klass)
-                .map(b -> (T) b)
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("No block matching type " + klass + " and id " + blockId));
+        BlockRecord record = getRecord(klass, blockId);
+
+        if (record == null) {
+            throw new IllegalArgumentException("No block matching type " + klass + " and id " + blockId);
+        }
+
+        return (T) resolve(record);
     }
 
     /**
@@ -125,13 +174,172 @@ public class HyperCardStack {
         }
     }
 
+    /**
+     * Gets the decoded bitmap with the given id. May be invoked from any thread; bitmaps are decoded concurrently.
+     *
+     * @param bitmapId The id of the BMAP block
+     * @return The decoded image, or null if the stack has no such bitmap
+     */
     public BufferedImage getImage(int bitmapId) {
-        return blocks.stream()
-                .filter(b -> b.getBlockId() == bitmapId)
-                .filter(b -> b.getClass() == ImageBlock.class)
-                .map(b -> ((ImageBlock) b).getImage())
-                .findFirst()
-                .orElse(null);
+        BlockRecord record = getRecord(ImageBlock.class, bitmapId);
+
+        if (record == null) {
+            return null;
+        }
+
+        synchronized (images) {
+            BufferedImage image = images.get(bitmapId);
+            if (image != null) {
+                return image;
+            }
+        }
+
+        BufferedImage image = ((ImageBlock) resolve(record)).getImage();
+
+        // A stack read from a stream retains its image blocks (and their decoded images); no need to cache them
+        if (mappedFile != null) {
+            synchronized (images) {
+                images.put(bitmapId, image);
+            }
+        }
+
+        return image;
+    }
+
+    private BlockRecord getRecord(Class<? extends Block> klass, int blockId) {
+        return blocksById.getOrDefault(klass, Collections.emptyMap()).get(blockId);
+    }
+
+    private List<Block> resolveAll(List<BlockRecord> records) {
+        return records.stream()
+                .map(this::resolve)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Gets the block described by the given record, parsing it from the memory-mapped file if it has not yet been
+     * parsed. Parsed blocks are retained, except for bitmaps, whose decoded images are retained in a bounded cache
+     * instead.
+     *
+     * @param record The record describing the block
+     * @return The parsed block
+     */
+    private synchronized Block resolve(BlockRecord record) {
+        if (record.block != null) {
+            return record.block;
+        }
+
+        try {
+            Block block = parse(record);
+
+            if (record.blockType != BlockType.BMAP) {
+                record.block = block;
+            }
+
+            return block;
+        } catch (ImportException e) {
+            throw new IllegalStateException(e.getMessage(), e);
+        }
+    }
+
+    private Block parse(BlockRecord record) throws ImportException {
+        LOG.debug("Unpacking {} bytes of block {}, id={}", record.blockSize, record.blockType, record.blockId);
+
+        byte[] blockData = new byte[record.blockSize - 16];
+        ByteBuffer source = mappedFile.duplicate();
+        source.position(record.offset + 16);
+        source.get(blockData);
+
+        return record.blockType.instantiate(this, record.blockId, record.blockSize, blockData);
+    }
+
+    /**
+     * Indexes the blocks of a memory-mapped stack file using the offsets recorded in its master block, falling back to
+     * reading the header of every block in the file if the master block is inconsistent with the file's structure.
+     */
+    private void index() throws ImportException {
+        BlockRecord stackRecord = readHeader(0);
+        BlockRecord masterRecord = readHeader(stackRecord.blockSize);
+
+        if (stackRecord.blockType != BlockType.STAK || masterRecord.blockType != BlockType.MAST) {
+            throw new ImportException("Stack does not begin with STAK and MAST blocks; stack structure is corrupt.");
+        }
+
+        StackBlock stackBlock = (StackBlock) parse(stackRecord);
+        if (stackBlock.getMajorVersion(stackBlock.getModifyVersion()) < 2) {
+            throw new UnsupportedVersionException(stackBlock, "Cannot import stacks from HyperCard 1.x. Please use the \"Convert Stack...\" command in HyperCard 2.x to update this stack.");
+        }
+
+        List<BlockRecord> records;
+        try {
+            records = readMasterIndex((MasterBlock) parse(masterRecord));
+        } catch (ImportException e) {
+            LOG.warn("Master block does not match stack structure; reading every block header instead.", e);
+            records = readBlockHeaders(masterRecord.offset + masterRecord.blockSize);
+        }
+
+        stackRecord.block = stackBlock;
+        add(stackRecord);
+        add(masterRecord);
+
+        for (BlockRecord record : records) {
+            add(record);
+        }
+    }
+
+    /**
+     * Reads the header of each block listed in the master block. The STAK block is always first in the file, and the
+     * MAST block always second; the master block records the offset of every other live block (excluding FREE and TAIL
+     * blocks), in 32-byte units.
+     */
+    private List<BlockRecord> readMasterIndex(MasterBlock masterBlock) throws ImportException {
+        List<BlockRecord> records = new ArrayList<>();
+
+        for (BlockOffsetRecord entry : masterBlock.getBlockOffsets()) {
+            BlockRecord record = readHeader(entry.getBlockOffset() * 32);
+
+            // Master entries record only the low byte of each block's id
+            if ((byte) record.blockId != entry.getBlockId()) {
+                throw new ImportException("Master block refers to a missing block of type " + record.blockType + ".");
+            }
+
+            records.add(record);
+        }
+
+        records.sort(Comparator.comparingInt(r -> r.offset));
+        return records;
+    }
+
+    /**
+     * Reads the header of each block from the given offset through to the TAIL block.
+     */
+    private List<BlockRecord> readBlockHeaders(int offset) throws ImportException {
+        List<BlockRecord> records = new ArrayList<>();
+        BlockRecord record;
+
+        do {
+            record = readHeader(offset);
+            records.add(record);
+            offset += record.blockSize;
+        } while (record.blockType != BlockType.TAIL);
+
+        return records;
+    }
+
+    private BlockRecord readHeader(int offset) throws ImportException {
+        if (offset < 0 || offset + 16 > mappedFile.limit()) {
+            throw new ImportException("Block offset " + offset + " is beyond the end of the file; stack structure is corrupt.");
+        }
+
+        int blockSize = mappedFile.getInt(offset) & 0xffff;     // 4-byte block size, but never > 64KB
+        BlockType blockType = BlockType.fromBlockId(mappedFile.getInt(offset + 4));
+        int blockId = mappedFile.getInt(offset + 8);
+
+        if (blockSize < 16 || offset + blockSize > mappedFile.limit()) {
+            throw new ImportException("Malformed block of type " + blockType + "; stack structure is corrupt.");
+        }
+
+        return new BlockRecord(blockType, blockId, blockSize, offset);
     }
 
     private void unpack(StackInputStream fis) throws ImportException {
@@ -151,7 +359,9 @@ public class HyperCardStack {
                 blockType = BlockType.fromBlockId(blockTypeId);
                 Block block = blockType.instantiate(this, blockId, blockSize, blockData);
 
-                blocks.add(block);
+                BlockRecord record = new BlockRecord(blockType, blockId, blockSize, -1);
+                record.block = block;
+                add(record);
 
                 if (block instanceof StackBlock && block.getMajorVersion(((StackBlock) block).getModifyVersion()) < 2) {
                     throw new UnsupportedVersionException(block, "Cannot import stacks from HyperCard 1.x. Please use the \"Convert Stack...\" command in HyperCard 2.x to update this stack.");
@@ -164,9 +374,36 @@ public class HyperCardStack {
         }
     }
 
+    private void add(BlockRecord record) {
+        Class<? extends Block> klass = record.blockType.blockClass();
+
+        blocks.add(record);
+        blocksByClass.computeIfAbsent(klass, k -> new ArrayList<>()).add(record);
+
+        // When ids collide, the first block in the file wins
+        blocksById.computeIfAbsent(klass, k -> new HashMap<>()).putIfAbsent(record.blockId, record);
+    }
+
     @Override
     public String toString() {
-        return ToStringBuilder.reflectionToString(blocks.stream().map(Block::getBlockType).toArray(), ToStringStyle.SIMPLE_STYLE);
+        return ToStringBuilder.reflectionToString(blocks.stream().map(r -> r.blockType).toArray(), ToStringStyle.SIMPLE_STYLE);
     }
-}
 
+    /**
+     * The location and header of a block in the stack file, and the block itself once it has been parsed.
+     */
+    private static class BlockRecord {
+        private final BlockType blockType;
+        private final int blockId;
+        private final int blockSize;
+        private final int offset;
+        private Block block;
+
+        private BlockRecord(BlockType blockType, int blockId, int blockSize, int offset) {
+            this.blockType = blockType;
+            this.blockId = blockId;
+            this.blockSize = blockSize;
+            this.offset = offset;
+        }
+    }
+}
@@ -61,7 +61,7 @@ public class ImageBlock extends Block implements WOBAImageDecoder {
     private Rectangle boundRect;     // the image bounding rectangle
     private Rectangle maskRect;      // the image mask rectangle
     private Rectangle imageRect;     // the image rectangle
-    private BufferedImage image;     // the decoded image
+    private BufferedImage image;     // the decoded image; null until first requested
 
     public ImageBlock(HyperCardStack root, BlockType blockType, int blockSize, int blockId, byte[] blockData) {
         super(root, blockType, blockSize, blockId, blockData);
@@ -146,9 +146,21 @@ public class ImageBlock extends Block implements WOBAImageDecoder {
     /**
      * The decoded image represented by this block, in {@link BufferedImage#TYPE_INT_ARGB} format. Returns an empty,
      * 0x0 BufferedImage if the image data cannot be decoded.
+     * <p>
+     * Decoding is deferred until the image is first requested, so that unpacking a stack does not decode every bitmap
+     * in it serially; this method may be invoked from any thread.
+     *
      * @return The decoded BufferedImage.
      */
-    public BufferedImage getImage() {
+    public synchronized BufferedImage getImage() {
+        if (image == null) {
+            image = decodeImage(boundRect, maskRect, imageRect, imageSize, imageData, maskSize, maskData);
+
+            if (image == null) {
+                image = new BufferedImage(0, 0, BufferedImage.TYPE_INT_ARGB);
+            }
+        }
+
         return image;
     }
 
@@ -194,12 +206,6 @@ public class ImageBlock extends Block implements WOBAImageDecoder {
             imageSize = sis.readInt();
             maskData = sis.readBytes(maskSize);
             imageData = sis.readBytes(imageSize);
-
-            image = decodeImage(boundRect, maskRect, imageRect, imageSize, imageData, maskSize, maskData);
-
-            if (image == null) {
-                image = new BufferedImage(0, 0, BufferedImage.TYPE_INT_ARGB);
-            }
         }
     }
 }
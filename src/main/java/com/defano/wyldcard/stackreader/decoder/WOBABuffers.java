@@ -0,0 +1,109 @@
+package com.defano.wyldcard.stackreader.decoder;
+
+import java.util.Arrays;
+
+/**
+ * Lookup tables and per-thread scratch buffers used by {@link WOBAImageDecoder}.
+ */
+final class WOBABuffers {
+
+    /**
+     * Maps a byte of image bits to eight ARGB pixels: opaque black where a bit is set, zero otherwise.
+     */
+    static final int[][] IMAGE_PIXELS = newPixelTable(0xFF000000);
+
+    /**
+     * Maps a byte of mask bits to eight ARGB pixels: opaque white where a bit is set, zero otherwise.
+     */
+    static final int[][] MASK_PIXELS = newPixelTable(0xFFFFFFFF);
+
+    private static final int IMAGE = 0;
+    private static final int MASK = 1;
+    private static final int ROW = 2;
+
+    private static final ThreadLocal<byte[][]> scratch = ThreadLocal.withInitial(() -> new byte[3][0]);
+
+    private WOBABuffers() {
+    }
+
+    /**
+     * Gets this thread's zero-filled buffer for decoded image bits.
+     *
+     * @param size The size of the buffer
+     * @return A zero-filled buffer of exactly the given size
+     */
+    static byte[] getImageBuffer(int size) {
+        return getClearedBuffer(IMAGE, size);
+    }
+
+    /**
+     * Gets this thread's zero-filled buffer for decoded mask bits.
+     *
+     * @param size The size of the buffer
+     * @return A zero-filled buffer of exactly the given size
+     */
+    static byte[] getMaskBuffer(int size) {
+        return getClearedBuffer(MASK, size);
+    }
+
+    /**
+     * Gets this thread's buffer for a single row of bits; its contents are unspecified.
+     *
+     * @param size The minimum size of the buffer
+     * @return A buffer of at least the given size
+     */
+    static byte[] getRowBuffer(int size) {
+        byte[][] buffers = scratch.get();
+
+        if (buffers[ROW].length < size) {
+            buffers[ROW] = new byte[size];
+        }
+
+        return buffers[ROW];
+    }
+
+    /**
+     * Copies bytes as a byte-by-byte loop would, except that the copy fails (with no bytes copied) when either range
+     * is out of bounds. A copy of zero bytes never fails.
+     */
+    static void copy(byte[] src, int srcPos, byte[] dest, int destPos, int length) {
+        if (length > 0) {
+            System.arraycopy(src, srcPos, dest, destPos, length);
+        }
+    }
+
+    /**
+     * Fills bytes as a byte-by-byte loop would, except that the fill fails (with no bytes filled) when the range is
+     * out of bounds. A fill of zero bytes never fails.
+     */
+    static void fill(byte[] dest, int destPos, int length, byte value) {
+        if (length > 0) {
+            Arrays.fill(dest, destPos, destPos + length, value);
+        }
+    }
+
+    private static byte[] getClearedBuffer(int slot, int size) {
+        byte[][] buffers = scratch.get();
+
+        // Exactly sized, so that malformed data overrunning the bitmap fails as it would with a fresh array
+        if (buffers[slot].length != size) {
+            buffers[slot] = new byte[size];
+        } else {
+            Arrays.fill(buffers[slot], (byte) 0);
+        }
+
+        return buffers[slot];
+    }
+
+    private static int[][] newPixelTable(int setPixel) {
+        int[][] table = new int[256][8];
+
+        for (int bits = 0; bits < 256; bits++) {
+            for (int pixel = 0; pixel < 8; pixel++) {
+                table[bits][pixel] = (bits & (0x80 >> pixel)) != 0 ? setPixel : 0;
+            }
+        }
+
+        return table;
+    }
+}
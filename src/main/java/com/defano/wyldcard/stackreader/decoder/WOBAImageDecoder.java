@@ -32,32 +32,49 @@ package com.defano.wyldcard.stackreader.decoder;
 
 import java.awt.*;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
 
+/**
+ * Decodes bitmaps compressed in HyperCard's "Wrath of Bill Atkinson" (WOBA) format.
+ * <p>
+ * Decoding runs once for every card and background in an imported stack, so the decoder avoids per-pixel work: image
+ * and mask bits are expanded to ARGB pixels eight at a time (via {@link WOBABuffers#IMAGE_PIXELS} and
+ * {@link WOBABuffers#MASK_PIXELS}) directly into the image's raster, runs of bytes are copied in bulk, and the
+ * intermediate bit planes are decoded into per-thread buffers that are reused from one bitmap to the next.
+ */
 public interface WOBAImageDecoder {
 
-    @SuppressWarnings("PointlessArithmeticExpression")
     default BufferedImage decodeImage(Rectangle boundRect, Rectangle maskRect, Rectangle imageRect, int imageSize, byte[] imageData, int maskSize, byte[] maskData) {
-        BufferedImage image;
-
         try {
-            byte[] maskBytes = decodeWOBA(boundRect, maskRect, maskData, 0, maskSize);
-            byte[] imageBytes = decodeWOBA(boundRect, imageRect, imageData, 0, imageSize);
-            int[] pixels = new int[imageBytes.length * 8];
-            for (int ii = 0, mi = 0, pi = 0; ii < imageBytes.length && mi < maskBytes.length && pi < pixels.length; ii++, mi++, pi += 8) {
-                byte ibt = imageBytes[ii];
-                byte mbt = maskBytes[mi];
-                pixels[pi + 0] = ((ibt & 0x80) > 0) ? 0xFF000000 : ((mbt & 0x80) > 0) ? 0xFFFFFFFF : 0;
-                pixels[pi + 1] = ((ibt & 0x40) > 0) ? 0xFF000000 : ((mbt & 0x40) > 0) ? 0xFFFFFFFF : 0;
-                pixels[pi + 2] = ((ibt & 0x20) > 0) ? 0xFF000000 : ((mbt & 0x20) > 0) ? 0xFFFFFFFF : 0;
-                pixels[pi + 3] = ((ibt & 0x10) > 0) ? 0xFF000000 : ((mbt & 0x10) > 0) ? 0xFFFFFFFF : 0;
-                pixels[pi + 4] = ((ibt & 0x08) > 0) ? 0xFF000000 : ((mbt & 0x08) > 0) ? 0xFFFFFFFF : 0;
-                pixels[pi + 5] = ((ibt & 0x04) > 0) ? 0xFF000000 : ((mbt & 0x04) > 0) ? 0xFFFFFFFF : 0;
-                pixels[pi + 6] = ((ibt & 0x02) > 0) ? 0xFF000000 : ((mbt & 0x02) > 0) ? 0xFFFFFFFF : 0;
-                pixels[pi + 7] = ((ibt & 0x01) > 0) ? 0xFF000000 : ((mbt & 0x01) > 0) ? 0xFFFFFFFF : 0;
+            Rectangle tr = snap32(boundRect);
+            int stride = tr.width >> 3;
+            int size = stride * tr.height;
+
+            byte[] maskBytes = decodeWOBA(boundRect, maskRect, maskData, 0, maskSize, WOBABuffers.getMaskBuffer(size));
+            byte[] imageBytes = decodeWOBA(boundRect, imageRect, imageData, 0, imageSize, WOBABuffers.getImageBuffer(size));
+
+            int width = boundRect.width;
+            int height = boundRect.height;
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+            int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+
+            for (int y = 0; y < height; y++) {
+                for (int x = 0, src = y * stride, dst = y * width; x < width; x += 8, src++, dst += 8) {
+                    int imageBits = imageBytes[src] & 0xFF;
+                    int maskBits = maskBytes[src] & 0xFF & ~imageBits;   // Image bits are black, whatever the mask
+
+                    // Pixels are transparent where neither bit is set; the raster is already zero-filled
+                    if ((imageBits | maskBits) != 0) {
+                        int[] black = WOBABuffers.IMAGE_PIXELS[imageBits];
+                        int[] white = WOBABuffers.MASK_PIXELS[maskBits];
+
+                        for (int bit = 0, count = Math.min(8, width - x); bit < count; bit++) {
+                            pixels[dst + bit] = black[bit] | white[bit];
+                        }
+                    }
+                }
             }
 
-            image = new BufferedImage(boundRect.width, boundRect.height, BufferedImage.TYPE_INT_ARGB);
-            image.setRGB(0, 0, boundRect.width, boundRect.height, pixels, 0, snap32(boundRect).width);
             return image;
 
         } catch (ArrayIndexOutOfBoundsException e) {
@@ -66,11 +83,27 @@ public interface WOBAImageDecoder {
     }
 
     default byte[] decodeWOBA(Rectangle totr, Rectangle r, byte[] data, int offset, int l) throws ArrayIndexOutOfBoundsException {
+        Rectangle tr = snap32(totr);
+        return decodeWOBA(totr, r, data, offset, l, new byte[(tr.width >> 3) * tr.height]);
+    }
+
+    /**
+     * Decodes WOBA-compressed data into a bit plane.
+     *
+     * @param totr   The bounds of the bitmap
+     * @param r      The bounds of the compressed data within the bitmap
+     * @param data   The compressed data
+     * @param offset The offset of the compressed data in the data array
+     * @param l      The length of the compressed data; when zero, the plane is filled within the bounds of r
+     * @param stuff  A zero-filled array into which bits are decoded, sized to hold the 32-pixel aligned bitmap
+     * @return The given array
+     * @throws ArrayIndexOutOfBoundsException Thrown if the data is malformed
+     */
+    default byte[] decodeWOBA(Rectangle totr, Rectangle r, byte[] data, int offset, int l, byte[] stuff) throws ArrayIndexOutOfBoundsException {
         Rectangle tr = snap32(totr);
         int trw = tr.width >> 3;
         Rectangle rf = snap32(r);
         int rw = rf.width >> 3;
-        byte[] stuff = new byte[trw * tr.height];
         if (l == 0) {
             if (r.width > 0 && r.height > 0) {
                 int sbyte = r.x >> 3;
@@ -80,9 +113,7 @@ public interface WOBAImageDecoder {
                 int base = trw * r.y;
                 for (int y = r.y; y < r.y + r.height; y++) {
                     stuff[base + sbyte] = (byte) (0xFF >> sbit);
-                    for (int x = sbyte + 1; x < ebyte; x++) {
-                        stuff[base + x] = (byte) 0xFF;
-                    }
+                    WOBABuffers.fill(stuff, base + sbyte + 1, ebyte - sbyte - 1, (byte) 0xFF);
                     if (ebit > 0) stuff[base + ebyte] = (byte) (0xFF << (8 - ebit));
                     base += trw;
                 }
@@ -103,31 +134,33 @@ public interface WOBAImageDecoder {
                 if ((opcode & 0x80) == 0) {
                     int d = (opcode & 0x70) >> 4;
                     int z = opcode & 0x0F;
-                    byte[] dat = new byte[d];
-                    for (int i = 0; i < d; i++) dat[i] = data[p++];
+                    int dat = take(data, p, d);
+                    p += d;
                     while ((repeat--) > 0) {
                         pp += z;
-                        for (int i = 0; i < d; i++) stuff[pp++] = dat[i];
+                        WOBABuffers.copy(data, dat, stuff, pp, d);
+                        pp += d;
                     }
                 } else if ((opcode & 0xE0) == 0xA0) {
                     repeat = (opcode & 0x1F);
                     continue;
                 } else if ((opcode & 0xE0) == 0xC0) {
                     int d = (opcode & 0x1F) << 3;
-                    byte[] dat = new byte[d];
-                    for (int i = 0; i < d; i++) dat[i] = data[p++];
+                    int dat = take(data, p, d);
+                    p += d;
                     while ((repeat--) > 0) {
-                        for (int i = 0; i < d; i++) stuff[pp++] = dat[i];
+                        WOBABuffers.copy(data, dat, stuff, pp, d);
+                        pp += d;
                     }
                 } else if ((opcode & 0xE0) == 0xE0) {
                     pp += ((opcode & 0x1F) << 4) * repeat;
                 } else {
                     switch (opcode) {
                         case (byte) 0x80: {
-                            byte[] dat = new byte[rw];
-                            for (int i = 0; i < rw; i++) dat[i] = data[p++];
+                            int dat = take(data, p, rw);
+                            p += rw;
                             while ((repeat--) > 0) {
-                                for (int i = 0; i < rw; i++) stuff[pp++] = dat[i];
+                                WOBABuffers.copy(data, dat, stuff, pp, rw);
                                 y++;
                                 base += trw;
                                 pp = base;
@@ -144,7 +177,7 @@ public interface WOBAImageDecoder {
                         break;
                         case (byte) 0x82: {
                             while ((repeat--) > 0) {
-                                for (int i = 0; i < rw; i++) stuff[pp++] = -1;
+                                WOBABuffers.fill(stuff, pp, rw, (byte) -1);
                                 y++;
                                 base += trw;
                                 pp = base;
@@ -156,7 +189,7 @@ public interface WOBAImageDecoder {
                             byte pb = data[p++];
                             while ((repeat--) > 0) {
                                 patt[y & 0x7] = pb;
-                                for (int i = 0; i < rw; i++) stuff[pp++] = pb;
+                                WOBABuffers.fill(stuff, pp, rw, pb);
                                 y++;
                                 base += trw;
                                 pp = base;
@@ -166,34 +199,7 @@ public interface WOBAImageDecoder {
                         break;
                         case (byte) 0x84: {
                             while ((repeat--) > 0) {
-                                byte pb = patt[y & 0x7];
-                                for (int i = 0; i < rw; i++) stuff[pp++] = pb;
-                                y++;
-                                base += trw;
-                                pp = base;
-                            }
-                            repeat = 1;
-                        }
-                        break;
-                        case (byte) 0x85: {
-                            while ((repeat--) > 0) {
-                                for (int i = 0; i < rw; i++) {
-                                    stuff[pp] = stuff[pp - trw];
-                                    pp++;
-                                }
-                                y++;
-                                base += trw;
-                                pp = base;
-                            }
-                            repeat = 1;
-                        }
-                        break;
-                        case (byte) 0x86: {
-                            while ((repeat--) > 0) {
-                                for (int i = 0; i < rw; i++) {
-                                    stuff[pp] = stuff[pp - (trw * 2)];
-                                    pp++;
-                                }
+                                WOBABuffers.fill(stuff, pp, rw, patt[y & 0x7]);
                                 y++;
                                 base += trw;
                                 pp = base;
@@ -201,11 +207,16 @@ public interface WOBAImageDecoder {
                             repeat = 1;
                         }
                         break;
+                        case (byte) 0x85:
+                        case (byte) 0x86:
                         case (byte) 0x87: {
+                            int rows = opcode - (byte) 0x84;
                             while ((repeat--) > 0) {
-                                for (int i = 0; i < rw; i++) {
-                                    stuff[pp] = stuff[pp - (trw * 3)];
-                                    pp++;
+                                if (trw * rows >= rw) {
+                                    WOBABuffers.copy(stuff, pp - (trw * rows), stuff, pp, rw);
+                                } else {
+                                    // Source and destination overlap (only in malformed data); copy byte-by-byte
+                                    for (int i = 0; i < rw; i++, pp++) stuff[pp] = stuff[pp - (trw * rows)];
                                 }
                                 y++;
                                 base += trw;
@@ -253,8 +264,8 @@ public interface WOBAImageDecoder {
                 repeat = 1;
                 if (pp >= base + rw) {
                     if (dh != 0) {
-                        byte[] row = new byte[rw];
-                        for (int i = 0; i < rw; i++) row[i] = stuff[base + i];
+                        byte[] row = WOBABuffers.getRowBuffer(rw);
+                        WOBABuffers.copy(stuff, base, row, 0, rw);
                         int numshifts = (rw << 3) / dh;
                         while ((numshifts--) > 0) {
                             int acc = 0;
@@ -284,6 +295,17 @@ public interface WOBAImageDecoder {
         return stuff;
     }
 
+    /**
+     * Gets the offset of the next count bytes of compressed data, failing as a byte-by-byte read would if fewer than
+     * count bytes remain.
+     */
+    default int take(byte[] data, int p, int count) throws ArrayIndexOutOfBoundsException {
+        if (p + count > data.length) {
+            throw new ArrayIndexOutOfBoundsException(p + count - 1);
+        }
+        return p;
+    }
+
     default Rectangle snap32(Rectangle r) {
         int left = r.x & ~0x1F;
         int right = r.x + r.width;
@@ -0,0 +1,135 @@
+package com.defano.wyldcard.util;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.awt.image.WritableRaster;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Utilities for holding card and background graphics in a compact, palette-indexed form.
+ * <p>
+ * Most card art (and all art imported from HyperCard) consists of only black, white and transparent pixels, yet a
+ * {@code TYPE_INT_ARGB} image spends 32 bits on every pixel. An image using few enough distinct colors is instead
+ * packed into an image with an {@link IndexColorModel} of 1, 2, 4 or 8 bits per pixel (black, white and transparent
+ * art requires 2 bits, a sixteenth the size of ARGB), which PNG encodes natively as a paletted image. Packed images
+ * must be expanded back to ARGB to be displayed on, or painted into, a paint canvas.
+ */
+public class PackedImageUtils {
+
+    private static final int MAX_PALETTE_SIZE = 256;
+
+    private PackedImageUtils() {
+    }
+
+    /**
+     * Packs an image into a palette-indexed image with the fewest bits per pixel able to represent it. All fully
+     * transparent pixels are treated as the same color.
+     *
+     * @param image The image to pack
+     * @return An equivalent palette-indexed image; or the given image if it is already palette-indexed or uses more
+     * than 256 distinct colors
+     */
+    public static BufferedImage pack(BufferedImage image) {
+        if (image == null || image.getColorModel() instanceof IndexColorModel) {
+            return image;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        byte[][] indices = new byte[height][width];
+
+        Map<Integer, Integer> palette = new HashMap<>();
+        int lastColor = 0;
+        int lastIndex = -1;
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+
+            for (int x = 0; x < width; x++) {
+                int color = row[x] >>> 24 == 0 ? 0 : row[x];
+
+                // Art is mostly long runs of one color; avoid a map lookup for each pixel in a run
+                if (color != lastColor || lastIndex < 0) {
+                    Integer index = palette.get(color);
+                    if (index == null) {
+                        if (palette.size() == MAX_PALETTE_SIZE) {
+                            return image;
+                        }
+
+                        index = palette.size();
+                        palette.put(color, index);
+                    }
+
+                    lastColor = color;
+                    lastIndex = index;
+                }
+
+                indices[y][x] = (byte) lastIndex;
+            }
+        }
+
+        BufferedImage packed = newIndexedImage(width, height, palette);
+        WritableRaster raster = packed.getRaster();
+        int[] samples = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                samples[x] = indices[y][x] & 0xff;
+            }
+            raster.setSamples(0, y, width, 1, 0, samples);
+        }
+
+        return packed;
+    }
+
+    /**
+     * Expands an image into a {@code TYPE_INT_ARGB} image, suitable for display and painting.
+     *
+     * @param image The image to expand
+     * @return The given image, if it is already an ARGB image; otherwise, an ARGB copy of the image
+     */
+    public static BufferedImage expand(BufferedImage image) {
+        if (image == null || image.getType() == BufferedImage.TYPE_INT_ARGB) {
+            return image;
+        }
+
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] row = new int[width];
+        BufferedImage expanded = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            expanded.setRGB(0, y, width, 1, row, 0, width);
+        }
+
+        return expanded;
+    }
+
+    private static BufferedImage newIndexedImage(int width, int height, Map<Integer, Integer> palette) {
+        int size = palette.size();
+        byte[] reds = new byte[size];
+        byte[] greens = new byte[size];
+        byte[] blues = new byte[size];
+        byte[] alphas = new byte[size];
+
+        for (Map.Entry<Integer, Integer> color : palette.entrySet()) {
+            int argb = color.getKey();
+            int index = color.getValue();
+
+            alphas[index] = (byte) (argb >>> 24);
+            reds[index] = (byte) (argb >>> 16);
+            greens[index] = (byte) (argb >>> 8);
+            blues[index] = (byte) argb;
+        }
+
+        int bits = size <= 2 ? 1 : size <= 4 ? 2 : size <= 16 ? 4 : 8;
+        IndexColorModel model = new IndexColorModel(bits, size, reds, greens, blues, alphas);
+
+        return bits == 8 ?
+                new BufferedImage(width, height, BufferedImage.TYPE_BYTE_INDEXED, model) :
+                new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY, model);
+    }
+}
@@ -0,0 +1,123 @@
+package com.defano.hypertalk.ast.expression;
+
+import com.defano.hypertalk.ast.expression.operator.BinaryOperator;
+import com.defano.hypertalk.ast.expression.operator.BinaryOperatorExp;
+import com.defano.hypertalk.ast.expression.operator.UnaryOperator;
+import com.defano.hypertalk.ast.expression.operator.UnaryOperatorExp;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.wyldcard.runtime.ExecutionContext;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConstantFolderTest {
+
+    private static final Value[] OPERANDS = {
+            new Value(""), new Value("0"), new Value("1"), new Value("-7"), new Value("2.5"), new Value("1e3"),
+            new Value("9223372036854775807"), new Value("true"), new Value(" FALSE "), new Value("abc"),
+            Value.ofQuotedLiteral("1"), new Value("\n"), new Value("3,4"), new Value("1,1,10,10"), new Value("date")
+    };
+
+    @Test
+    public void testThatFoldedBinaryOperatorsAreEquivalent() {
+        for (BinaryOperator op : BinaryOperator.values()) {
+            for (Value lhs : OPERANDS) {
+                for (Value rhs : OPERANDS) {
+                    assertEquivalent(
+                            BinaryOperatorExp.forOperator(null, op, new LiteralExp(null, lhs), new LiteralExp(null, rhs)),
+                            ConstantFolder.fold(null, BinaryOperatorExp.forOperator(null, op, new LiteralExp(null, lhs), new LiteralExp(null, rhs))));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testThatFoldedUnaryOperatorsAreEquivalent() {
+        for (UnaryOperator op : new UnaryOperator[]{UnaryOperator.NEGATE, UnaryOperator.NOT}) {
+            for (Value rhs : OPERANDS) {
+                assertEquivalent(
+                        UnaryOperatorExp.forOperator(null, op, new LiteralExp(null, rhs)),
+                        ConstantFolder.fold(null, UnaryOperatorExp.forOperator(null, op, new LiteralExp(null, rhs))));
+            }
+        }
+    }
+
+    @Test
+    public void testThatNestedConstantsFoldToLiteral() throws HtException {
+        // ("a" & return) & "b", folded as the tree visitor would: from the bottom up
+        Expression group = ConstantFolder.fold(null, new GroupExp(null, ConstantFolder.fold(null, amp(literal("a"), literal("\n")))));
+        Expression folded = ConstantFolder.fold(null, amp(group, literal("b")));
+
+        assertTrue(folded instanceof LiteralExp);
+        assertEquals("a\nb", folded.evaluate(null).toString());
+    }
+
+    @Test
+    public void testThatGroupedLiteralIsUngrouped() {
+        LiteralExp literal = literal("1");
+        assertSame(literal, ConstantFolder.fold(null, new GroupExp(null, literal)));
+    }
+
+    @Test
+    public void testThatGroupedVariableExpressionIsPreserved() {
+        GroupExp group = new GroupExp(null, new VariableExp());
+        assertSame(group, ConstantFolder.fold(null, group));
+
+        BinaryOperatorExp sum = BinaryOperatorExp.forOperator(null, BinaryOperator.PLUS, literal("1"), new VariableExp());
+        assertSame(sum, ConstantFolder.fold(null, sum));
+    }
+
+    @Test
+    public void testThatErroneousExpressionIsNotFolded() {
+        BinaryOperatorExp quotient = BinaryOperatorExp.forOperator(null, BinaryOperator.DIVIDE, literal("1"), literal("0"));
+        assertSame(quotient, ConstantFolder.fold(null, quotient));
+    }
+
+    @Test
+    public void testThatExistenceIsNotFolded() {
+        UnaryOperatorExp exists = UnaryOperatorExp.forOperator(null, UnaryOperator.THERE_IS_A, literal("card 1"));
+        assertSame(exists, ConstantFolder.fold(null, exists));
+    }
+
+    private void assertEquivalent(Expression unfolded, Expression folded) {
+        Value expected;
+        try {
+            expected = unfolded.evaluate(null);
+        } catch (HtException | RuntimeException e) {
+            assertFalse(folded instanceof LiteralExp, unfolded.getClass().getSimpleName());
+            return;
+        }
+
+        assertTrue(folded instanceof LiteralExp, unfolded.getClass().getSimpleName());
+        try {
+            Value actual = folded.evaluate(null);
+            assertEquals(expected.toString(), actual.toString());
+            assertEquals(expected.isQuotedLiteral(), actual.isQuotedLiteral());
+        } catch (HtException e) {
+            fail(e);
+        }
+    }
+
+    private BinaryOperatorExp amp(Expression lhs, Expression rhs) {
+        return BinaryOperatorExp.forOperator(null, BinaryOperator.AMP, lhs, rhs);
+    }
+
+    private LiteralExp literal(String value) {
+        return new LiteralExp(null, new Value(value));
+    }
+
+    // An expression whose value may change from one evaluation to the next
+    private static class VariableExp extends Expression {
+        private int value;
+
+        VariableExp() {
+            super(null);
+        }
+
+        @Override
+        protected Value onEvaluate(ExecutionContext context) {
+            return new Value(value++);
+        }
+    }
+}
@@ -14,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 
 import java.awt.*;
+import java.util.Collections;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -269,6 +270,38 @@ public class ValueTest extends GuiceTest<Value> {
         assertIterableEquals(Lists.newArrayList(new Value("1"), new Value("2")), new Value("1-2").getItems(mockExecutionContext));
     }
 
+    @Test
+    public void testItemsOfSameValueFollowItemDelimiter() throws HtException {
+        Value value = new Value("a,b-c,d");
+
+        Mockito.when(mockWyldCardPart.get(mockExecutionContext, WyldCardProperties.PROP_ITEMDELIMITER)).thenReturn(new Value(","));
+        assertEquals(3, value.itemCount(mockExecutionContext));
+        assertEquals("b-c", value.getChunk(mockExecutionContext, TestChunkBuilder.buildSingleChunk(ChunkType.ITEM, 2)).toString());
+
+        Mockito.when(mockWyldCardPart.get(mockExecutionContext, WyldCardProperties.PROP_ITEMDELIMITER)).thenReturn(new Value("-"));
+        assertEquals(2, value.itemCount(mockExecutionContext));
+        assertEquals("c,d", value.getChunk(mockExecutionContext, TestChunkBuilder.buildSingleChunk(ChunkType.ITEM, 2)).toString());
+    }
+
+    @Test
+    public void testRepeatedChunksOfLargeValue() throws HtException {
+        StringBuilder builder = new StringBuilder();
+        for (int line = 1; line <= 1000; line++) {
+            builder.append(line == 1 ? "" : "\n").append("line ").append(line);
+        }
+
+        Value value = new Value(builder.toString());
+        assertEquals(1000, value.lineCount(mockExecutionContext));
+
+        for (int line = 1; line <= 1000; line++) {
+            assertEquals("line " + line, value.getChunk(mockExecutionContext, TestChunkBuilder.buildSingleChunk(ChunkType.LINE, line)).toString());
+            assertEquals(String.valueOf(line), value.getChunk(mockExecutionContext, TestChunkBuilder.buildSingleChunk(ChunkType.WORD, line * 2)).toString());
+        }
+
+        assertEquals("line 2\nline 3", value.getChunk(mockExecutionContext, TestChunkBuilder.buildChunkRange(ChunkType.LINERANGE, 2, 3)).toString());
+        assertEquals("", value.getChunk(mockExecutionContext, TestChunkBuilder.buildSingleChunk(ChunkType.LINE, 2000)).toString());
+    }
+
     @Test
     public void testGetItemAt() {
         Mockito.when(mockWyldCardPart.get(mockExecutionContext, WyldCardProperties.PROP_ITEMDELIMITER)).thenReturn(new Value(","));
@@ -945,4 +978,70 @@ public class ValueTest extends GuiceTest<Value> {
         assertEquals(new Value("thatthis"), Value.ofValue(new Value("this"), Preposition.BEFORE, new Value("that")));
         assertEquals(new Value("thisthat"), Value.ofValue(new Value("this"), Preposition.AFTER, new Value("that")));
     }
+
+    @Test
+    public void testRepeatedAppendToLargeValue() {
+        StringBuilder expected = new StringBuilder();
+        Value report = new Value();
+
+        for (int line = 0; line < 1000; line++) {
+            report = Value.ofValue(report, Preposition.AFTER, new Value("Line " + line + "\n"));
+            expected.append("Line ").append(line).append("\n");
+        }
+
+        assertEquals(expected.toString(), report.toString());
+        assertEquals(1000, report.lineCount(mockExecutionContext));
+    }
+
+    @Test
+    public void testThatAppendingDoesNotModifyAppendedValue() {
+        String large = String.join("", Collections.nCopies(300, "x"));
+
+        Value original = Value.ofValue(new Value(large), Preposition.AFTER, new Value("a"));
+        Value first = Value.ofValue(original, Preposition.AFTER, new Value("b"));
+        Value second = Value.ofValue(original, Preposition.AFTER, new Value("c"));
+        Value concatenated = original.concat(new Value("d"));
+
+        assertEquals(large + "a", original.toString());
+        assertEquals(large + "ab", first.toString());
+        assertEquals(large + "ac", second.toString());
+        assertEquals(large + "ad", concatenated.toString());
+        assertEquals(large + "ab", Value.ofValue(first, Preposition.AFTER, new Value()).toString());
+    }
+
+    @Test
+    public void testThatNumericValuesBehaveAsTheirStrings() {
+        Value[] numbers = {new Value(0), new Value(-17), new Value(Long.MAX_VALUE), new Value(3.0), new Value(-0.5), new Value(1e21), new Value(Double.NaN)};
+
+        for (Value number : numbers) {
+            Value string = new Value(number.toString());
+
+            assertEquals(string.toString(), number.toString());
+            assertEquals(string.isInteger(), number.isInteger());
+            assertEquals(string.isNumber(), number.isNumber());
+            assertEquals(string.isBoolean(), number.isBoolean());
+            assertEquals(string.isEmpty(), number.isEmpty());
+            assertEquals(string.longValue(), number.longValue());
+            assertEquals(string.hashCode(), number.hashCode());
+        }
+    }
+
+    @Test
+    public void testThatSmallIntegersAreShared() throws HtSemanticException {
+        assertSame(Value.ofInteger(0), Value.ofInteger(0));
+        assertSame(Value.ofInteger(1023), new Value(1000).add(new Value(23)));
+        assertNotSame(Value.ofInteger(1024), Value.ofInteger(1024));
+        assertEquals("-1", Value.ofInteger(-1).toString());
+    }
+
+    @Test
+    public void testCountingWithNumericValues() throws HtSemanticException {
+        Value counter = new Value();
+        for (int index = 1; index <= 2000; index++) {
+            counter = counter.add(Value.ofInteger(index));
+        }
+
+        assertEquals("2001000", counter.toString());
+        assertEquals(new Value("2001000"), counter);
+    }
 }
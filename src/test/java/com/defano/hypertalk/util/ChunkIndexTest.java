@@ -0,0 +1,100 @@
+package com.defano.hypertalk.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ChunkIndexTest {
+
+    // The regular expressions that previously identified chunks; the scanner must agree with them. (The item
+    // expression used '$', which also matched before a line terminator ending the string, and so wrongly dropped that
+    // terminator from the last item; here it's '\z'.)
+    private static final Pattern WORD_REGEX = Pattern.compile("\\S+");
+    private static final Pattern LINE_REGEX = Pattern.compile("(?m)^.*$");
+    private static final Pattern COMMA_ITEM_REGEX = Pattern.compile("^(?=,)|(?<=,)\\z|(?<=,)(?=,)|[^,]+");
+
+    private static final char[] ALPHABET = {'a', 'b', ' ', ' ', '\t', '\n', '\n', '\r', ',', ',', '\u000B', '\f', '\u0085', '\u2028', '\u2029', '\u00E9'};
+
+    @Test
+    public void testThatWordsAreRunsOfNonWhitespace() {
+        ChunkIndex index = ChunkIndex.ofWords("  one\ttwo\n\nthree ");
+
+        assertEquals(3, index.getCount());
+        assertRange(2, 5, index.getRange(1));
+        assertRange(6, 9, index.getRange(2));
+        assertRange(11, 16, index.getRange(3));
+        assertEquals(0, ChunkIndex.countWords(" \t\r\n"));
+    }
+
+    @Test
+    public void testThatTrailingLineTerminatorDoesNotBeginLine() {
+        assertEquals(0, ChunkIndex.countLines(""));
+        assertEquals(1, ChunkIndex.countLines("one\n"));
+        assertEquals(2, ChunkIndex.countLines("one\r\ntwo\r\n"));
+        assertEquals(3, ChunkIndex.countLines("\n\n\n"));
+
+        ChunkIndex index = ChunkIndex.ofLines("one\r\n\rtwo");
+        assertRange(0, 3, index.getRange(1));
+        assertRange(5, 5, index.getRange(2));
+        assertRange(6, 9, index.getRange(3));
+    }
+
+    @Test
+    public void testThatEveryDelimiterBeginsAnItem() {
+        assertEquals(0, ChunkIndex.countItems("", ","));
+        assertEquals(1, ChunkIndex.countItems("one", ","));
+        assertEquals(4, ChunkIndex.countItems(",one,,", ","));
+        assertRange(4, 5, ChunkIndex.ofItems("one,\n", ",").getRange(2));
+
+        ChunkIndex index = ChunkIndex.ofItems("a::bc::::d", "::");
+        assertEquals(4, index.getCount());
+        assertRange(0, 1, index.getRange(1));
+        assertRange(3, 5, index.getRange(2));
+        assertRange(7, 7, index.getRange(3));
+        assertRange(9, 10, index.getRange(4));
+        assertTrue(index.isDelimitedBy("::"));
+        assertFalse(index.isDelimitedBy(","));
+    }
+
+    @Test
+    public void testThatGeneratedStringsAreChunkedAsRegexWould() {
+        Random random = new Random(0xC4C4);
+
+        for (int trial = 0; trial < 5000; trial++) {
+            char[] chars = new char[random.nextInt(24)];
+            for (int i = 0; i < chars.length; i++) {
+                chars[i] = ALPHABET[random.nextInt(ALPHABET.length)];
+            }
+            String value = new String(chars);
+
+            assertChunks(WORD_REGEX, value, ChunkIndex.ofWords(value), ChunkIndex.countWords(value));
+            assertChunks(LINE_REGEX, value, ChunkIndex.ofLines(value), ChunkIndex.countLines(value));
+            assertChunks(COMMA_ITEM_REGEX, value, ChunkIndex.ofItems(value, ","), ChunkIndex.countItems(value, ","));
+        }
+    }
+
+    private void assertChunks(Pattern pattern, String value, ChunkIndex index, int count) {
+        List<Range> expected = new ArrayList<>();
+        Matcher matcher = pattern.matcher(value);
+        while (matcher.find()) {
+            expected.add(new Range(matcher.start(), matcher.end()));
+        }
+
+        assertEquals(expected.size(), index.getCount(), pattern.pattern());
+        assertEquals(expected.size(), count, pattern.pattern());
+        for (int i = 0; i < expected.size(); i++) {
+            assertRange(expected.get(i).start, expected.get(i).end, index.getRangeAt(i));
+        }
+    }
+
+    private void assertRange(int start, int end, Range range) {
+        assertEquals(start, range.start);
+        assertEquals(end, range.end);
+    }
+}
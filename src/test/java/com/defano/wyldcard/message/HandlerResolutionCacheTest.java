@@ -0,0 +1,101 @@
+package com.defano.wyldcard.message;
+
+import com.defano.hypertalk.GuiceTest;
+import com.defano.hypertalk.ast.model.Script;
+import com.defano.hypertalk.ast.model.enums.PartType;
+import com.defano.hypertalk.ast.model.specifier.PartSpecifier;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.compiler.CompilationUnit;
+import com.defano.wyldcard.runtime.compiler.TwoPhaseParser;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.util.Collection;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HandlerResolutionCacheTest extends GuiceTest {
+
+    private final HandlerResolutionCache uut = HandlerResolutionCache.getInstance();
+
+    private TestPart stack;
+    private TestPart card;
+
+    @BeforeEach
+    public void setup() throws HtException {
+        initialize();
+        uut.invalidate();
+
+        stack = new TestPart("on doSomething\nend doSomething", mockWyldCardPart);
+        card = new TestPart("", stack);
+    }
+
+    @Test
+    public void testThatUnhandledMessageResolvesToNoPart() {
+        assertNull(uut.getHandlingPart(mockExecutionContext, card, "mouseUp"));
+    }
+
+    @Test
+    public void testThatHandledMessageResolvesToFirstImplementingPart() {
+        assertSame(stack, uut.getHandlingPart(mockExecutionContext, card, "DOSOMETHING"));
+    }
+
+    @Test
+    public void testThatResolutionIsCachedUntilInvalidated() throws HtException {
+        assertNull(uut.getHandlingPart(mockExecutionContext, card, "mouseUp"));
+
+        card.setScript("on mouseUp\nend mouseUp");
+        assertNull(uut.getHandlingPart(mockExecutionContext, card, "mouseUp"));
+
+        uut.invalidate();
+        assertSame(card, uut.getHandlingPart(mockExecutionContext, card, "mouseUp"));
+    }
+
+    @Test
+    public void testThatResolutionDependsOnHierarchy() throws HtException {
+        TestPart otherCard = new TestPart("on doSomething\nend doSomething", stack);
+
+        assertSame(stack, uut.getHandlingPart(mockExecutionContext, card, "doSomething"));
+        assertSame(otherCard, uut.getHandlingPart(mockExecutionContext, otherCard, "doSomething"));
+    }
+
+    private static class TestPart implements Messagable {
+
+        private final PartSpecifier me = Mockito.mock(PartSpecifier.class);
+        private final Messagable next;
+        private Script script;
+
+        private TestPart(String script, Messagable next) throws HtException {
+            this.next = next;
+            setScript(script);
+            Mockito.when(me.getType()).thenReturn(PartType.CARD);
+        }
+
+        private void setScript(String script) throws HtException {
+            this.script = (Script) TwoPhaseParser.parseScript(CompilationUnit.SCRIPT, script);
+        }
+
+        @Override
+        public Script getScript(ExecutionContext context) {
+            return script;
+        }
+
+        @Override
+        public PartSpecifier getMe(ExecutionContext context) {
+            return me;
+        }
+
+        @Override
+        public Collection<Integer> getBreakpoints() {
+            return Collections.emptySet();
+        }
+
+        @Override
+        public Messagable getNextMessageRecipient(ExecutionContext context, PartType type) {
+            return next;
+        }
+    }
+}
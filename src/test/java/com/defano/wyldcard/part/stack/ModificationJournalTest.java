@@ -0,0 +1,44 @@
+package com.defano.wyldcard.part.stack;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ModificationJournalTest {
+
+    private final ModificationJournal uut = new ModificationJournal();
+
+    @Test
+    public void testThatNewJournalIsUnmodified() {
+        assertFalse(uut.isModified());
+        assertEquals(0, uut.getGeneration());
+    }
+
+    @Test
+    public void testThatModificationsAdvanceGeneration() {
+        assertEquals(1, uut.recordModification());
+        assertEquals(2, uut.recordModification());
+
+        assertEquals(2, uut.getGeneration());
+        assertTrue(uut.isModified());
+    }
+
+    @Test
+    public void testThatSavingClearsModifications() {
+        uut.recordModification();
+        uut.markSaved(uut.getGeneration());
+
+        assertFalse(uut.isModified());
+    }
+
+    @Test
+    public void testThatModificationDuringSaveIsNotLost() {
+        uut.recordModification();
+        long saving = uut.getGeneration();
+
+        uut.recordModification();
+        uut.markSaved(saving);
+
+        assertTrue(uut.isModified());
+    }
+}
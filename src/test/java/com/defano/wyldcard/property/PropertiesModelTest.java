@@ -6,7 +6,11 @@ import com.defano.wyldcard.runtime.ExecutionContext;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 public class PropertiesModelTest extends GuiceTest {
 
@@ -60,4 +64,51 @@ public class PropertiesModelTest extends GuiceTest {
         assertEquals(new Value(20), model.get(context, "that"));
     }
 
+    @Test
+    public void testThatAliasesAddedLaterAreFound() {
+        model.define("rectangle").asValue("1,2,3,4");
+        model.define("rect").asAliasOf("rectangle");
+        assertEquals(new Value("1,2,3,4"), model.get(context, "RECT"));
+
+        model.set(context, "rect", new Value("5,6,7,8"));
+        assertEquals(new Value("5,6,7,8"), model.get(context, "rectangle"));
+    }
+
+    @Test
+    public void testThatRedefinedPropertyReplacesExisting() {
+        model.define("one", "two").asConstant(1);
+        model.define("one").asConstant(2);
+
+        assertEquals(new Value(2), model.get(context, "one"));
+        assertFalse(model.hasProperty("two"));
+    }
+
+    @Test
+    public void testThatClearedPropertiesDoNotExist() {
+        model.define("basic").asValue(10);
+        model.clear();
+
+        assertFalse(model.hasProperty("basic"));
+        assertNull(model.findProperty("basic"));
+    }
+
+    @Test
+    public void testThatOnlyChangedValuesAreReportedAsModified() {
+        List<String> modified = new ArrayList<>();
+        SimplePropertiesModel observed = new SimplePropertiesModel() {
+            @Override
+            protected void onPropertyModified(ExecutionContext context, String propertyName) {
+                modified.add(propertyName);
+            }
+        };
+
+        observed.define("basic").asValue(10);
+        observed.set(context, "basic", new Value(10));
+        observed.setQuietly(context, "basic", new Value(10));
+        assertTrue(modified.isEmpty());
+
+        observed.set(context, "basic", new Value(11));
+        observed.setQuietly(context, "basic", new Value(12));
+        assertEquals(Arrays.asList("basic", "basic"), modified);
+    }
 }
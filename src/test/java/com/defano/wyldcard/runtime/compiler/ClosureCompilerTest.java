@@ -0,0 +1,271 @@
+package com.defano.wyldcard.runtime.compiler;
+
+import com.defano.hypertalk.ast.expression.Expression;
+import com.defano.hypertalk.ast.expression.LiteralExp;
+import com.defano.hypertalk.ast.expression.container.VariableExp;
+import com.defano.hypertalk.ast.expression.operator.binary.*;
+import com.defano.hypertalk.ast.expression.operator.unary.NegateOp;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.ast.model.enums.Preposition;
+import com.defano.hypertalk.ast.preemption.Preemption;
+import com.defano.hypertalk.ast.statement.*;
+import com.defano.hypertalk.ast.statement.command.PutCmd;
+import com.defano.hypertalk.ast.statement.conditional.IfStatement;
+import com.defano.hypertalk.ast.statement.conditional.ThenElseBlock;
+import com.defano.hypertalk.ast.statement.repeat.*;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.wyldcard.message.Message;
+import com.defano.wyldcard.part.card.CardModel;
+import com.defano.wyldcard.part.card.CardPart;
+import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.callstack.StackFrame;
+import com.defano.wyldcard.runtime.executor.observer.MessageCompletionObserver;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Executes statements both by walking their tree and by compiling them with {@link ClosureCompiler}, asserting that
+ * each produces the same trace of effects.
+ */
+public class ClosureCompilerTest {
+
+    private final ExecutionContext context = mock(ExecutionContext.class);
+    private final StackFrame frame = mock(StackFrame.class);
+    private final CardModel card = mock(CardModel.class);
+
+    private final List<String> trace = new ArrayList<>();
+    private final Map<String, Value> variables = new HashMap<>();
+    private int abortAfter = Integer.MAX_VALUE;
+    private boolean hasBreakpoints;
+    private boolean trapsPut;
+    private int count;
+
+    @BeforeEach
+    public void setup() throws HtException {
+        CardPart cardPart = mock(CardPart.class);
+        when(cardPart.getPartModel()).thenReturn(card);
+
+        when(context.getStackFrame()).thenReturn(frame);
+        when(context.getCurrentCard()).thenReturn(cardPart);
+        when(context.didAbort()).thenAnswer(invocation -> trace.size() >= abortAfter);
+        when(frame.hasBreakpoints()).thenAnswer(invocation -> hasBreakpoints);
+
+        when(context.getVariable(anyString(), anyInt())).thenAnswer(invocation -> variables.getOrDefault((String) invocation.getArguments()[0], new Value()));
+        doAnswer(invocation -> variables.put((String) invocation.getArguments()[0], (Value) invocation.getArguments()[2]))
+                .when(context).setVariable(anyString(), anyInt(), any(Value.class));
+        doAnswer(invocation -> trace.add(invocation.getArguments()[0] + "=" + invocation.getArguments()[4]))
+                .when(context).setVariable(anyString(), anyInt(), any(Preposition.class), any(), any(Value.class));
+
+        doAnswer(invocation -> trace.add("it=" + invocation.getArguments()[0])).when(context).setIt(any());
+        doAnswer(invocation -> trace.add("result=" + invocation.getArguments()[0])).when(context).setResult(any(Value.class));
+        doAnswer(invocation -> trace.add("return=" + invocation.getArguments()[0])).when(frame).setReturnValue(any(Value.class));
+
+        doAnswer(invocation -> {
+            trace.add("message");
+            ((MessageCompletionObserver) invocation.getArguments()[3]).onMessagePassed((Message) invocation.getArguments()[2], trapsPut, null);
+            return null;
+        }).when(card).receiveMessage(any(ExecutionContext.class), any(), any(Message.class), any(MessageCompletionObserver.class));
+    }
+
+    @Test
+    public void testThatRepeatCountMatchesTreeWalker() {
+        assertSameAsWalked(Arrays.asList("it=x", "it=x", "it=x"), new RepeatStatement(null, new RepeatCount(literal(3)), list(setIt(literal("x")))));
+        assertSameAsWalked(Collections.singletonList("HtSemanticException: Repeat range must be a natural number, got 'abc' instead."),
+                new RepeatStatement(null, new RepeatCount(literal("abc")), list(setIt(literal("x")))));
+    }
+
+    @Test
+    public void testThatRepeatWithMatchesTreeWalker() {
+        // repeat with i = 1 to 5; if i = 2 then next repeat; if i = 4 then exit repeat; i
+        StatementList body = list(
+                new IfStatement(null, new EqualsOp(null, variable("i"), literal(2)), new ThenElseBlock(new NextRepeatStatement(null), null)),
+                new IfStatement(null, new EqualsOp(null, variable("i"), literal(4)), new ThenElseBlock(new ExitRepeatStatement(null), null)),
+                setIt(new AddOp(null, variable("i"), literal(0))));
+
+        assertSameAsWalked(Arrays.asList("it=1", "it=3"), new RepeatStatement(null, new RepeatWith("i", -1, new RepeatRange(RepeatRange.POLARITY_UPTO, literal(1), literal(5))), body));
+        assertSameAsWalked(Arrays.asList("it=3", "it=1"), new RepeatStatement(null, new RepeatWith("i", -1, new RepeatRange(RepeatRange.POLARITY_DOWNTO, literal(3), literal(1))), body));
+        assertSameAsWalked(Collections.singletonList("HtSemanticException: Start of repeat range is greater than end: 5 > 1"),
+                new RepeatStatement(null, new RepeatWith("i", -1, new RepeatRange(RepeatRange.POLARITY_UPTO, literal(5), literal(1))), body));
+    }
+
+    @Test
+    public void testThatRepeatWhileAndUntilMatchTreeWalker() {
+        assertSameAsWalked(Arrays.asList("it=x", "it=x", "it=x"),
+                new RepeatStatement(null, new RepeatDuration(RepeatDuration.POLARITY_WHILE, new LessThanOp(null, new Counter(), literal(4))), list(setIt(literal("x")))));
+        assertSameAsWalked(Arrays.asList("it=x", "it=x", "it=x"),
+                new RepeatStatement(null, new RepeatDuration(RepeatDuration.POLARITY_UNTIL, new GreaterThanOp(null, new Counter(), literal(3))), list(setIt(literal("x")))));
+        assertSameAsWalked(Collections.singletonList("HtSemanticException: Repeat condition expects a true or false value."),
+                new RepeatStatement(null, new RepeatDuration(RepeatDuration.POLARITY_WHILE, literal("abc")), list(setIt(literal("x")))));
+    }
+
+    @Test
+    public void testThatRepeatForeverMatchesTreeWalker() {
+        StatementList body = list(
+                setIt(literal("x")),
+                new IfStatement(null, new GreaterThanOp(null, new Counter(), literal(2)), new ThenElseBlock(new ExitRepeatStatement(null), null)));
+
+        assertSameAsWalked(Arrays.asList("it=x", "it=x", "it=x", "it=done"),
+                list(new RepeatStatement(null, new RepeatForever(), body), setIt(literal("done"))));
+    }
+
+    @Test
+    public void testThatAbortedRepeatForeverMatchesTreeWalker() {
+        abortAfter = 3;
+
+        assertSameAsWalked(Arrays.asList("it=x", "it=x", "it=x", "HtSemanticException: Script aborted."),
+                list(new RepeatStatement(null, new RepeatForever(), list(setIt(literal("x")))), setIt(literal("done"))));
+    }
+
+    @Test
+    public void testThatReturnMatchesTreeWalker() {
+        assertSameAsWalked(Arrays.asList("it=x", "return=3", "result=3", "TerminateHandlerPreemption"),
+                list(setIt(literal("x")), new ReturnStatement(null, new AddOp(null, literal(1), literal(2))), setIt(literal("y"))));
+    }
+
+    @Test
+    public void testThatBreakpointSetMidHandlerFallsBackToTreeWalker() throws Exception {
+        WalkedStatement before = new WalkedStatement(literal("before"));
+        WalkedStatement after = new WalkedStatement(literal("after"));
+        Statement setBreakpoint = new Statement(null) {
+            @Override
+            protected void onExecute(ExecutionContext context) {
+                hasBreakpoints = true;
+            }
+        };
+
+        ClosureCompiler.compile(list(before, setBreakpoint, after)).execute(context);
+
+        assertEquals(Arrays.asList("it=before", "it=after"), trace);
+        assertEquals(0, before.walked);
+        assertEquals(1, after.walked);
+    }
+
+    @Test
+    public void testThatPutSendsMessageWhenDispatchRequired() {
+        PutCmd put = new PutCmd(null, literal("x"), Preposition.INTO, variable("v"));
+
+        assertSameAsWalked(Arrays.asList("message", "v=x"), put);
+
+        trapsPut = true;
+        assertSameAsWalked(Collections.singletonList("message"), put);
+    }
+
+    @Test
+    public void testThatIsInEvaluatesContainerFirst() {
+        assertSameAsWalked(Arrays.asList("rhs", "lhs", "it=true"), setIt(new IsInOp(null, new Traced("lhs", "b"), new Traced("rhs", "abc"))));
+        assertSameAsWalked(Arrays.asList("rhs", "lhs", "it=false"), setIt(new IsNotInOp(null, new Traced("lhs", "b"), new Traced("rhs", "abc"))));
+        assertSameAsWalked(Arrays.asList("lhs", "rhs", "it=true"), setIt(new ContainsOp(null, new Traced("lhs", "abc"), new Traced("rhs", "b"))));
+    }
+
+    @Test
+    public void testThatNegationErrorsAreReportedAtNegation() {
+        ParserRuleContext negation = mock(ParserRuleContext.class);
+        Token token = mock(Token.class);
+        when(negation.getStart()).thenReturn(token);
+
+        Expression expression = new AddOp(null, literal(1), new NegateOp(negation, literal("abc")));
+
+        HtException walked = assertThrows(HtException.class, () -> expression.evaluate(context));
+        HtException compiled = assertThrows(HtException.class, () -> ClosureCompiler.compile(expression).evaluate(context));
+
+        assertSame(token, walked.getBreadcrumb().getToken());
+        assertSame(token, compiled.getBreadcrumb().getToken());
+    }
+
+    private void assertSameAsWalked(List<String> expected, Statement statement) {
+        assertEquals(expected, execute(statement::execute), "Walked");
+        assertEquals(expected, execute(ClosureCompiler.compile(statement)), "Compiled");
+    }
+
+    private List<String> execute(CompiledStatement statement) {
+        trace.clear();
+        variables.clear();
+        count = 0;
+
+        try {
+            statement.execute(context);
+        } catch (HtException e) {
+            trace.add(e.getClass().getSimpleName() + ": " + e.getMessage());
+        } catch (Preemption p) {
+            trace.add(p.getClass().getSimpleName());
+        }
+
+        return new ArrayList<>(trace);
+    }
+
+    private static StatementList list(Statement... statements) {
+        StatementList list = new StatementList();
+        list.list.addAll(Arrays.asList(statements));
+        return list;
+    }
+
+    private static ExpressionStatement setIt(Expression expression) {
+        return new ExpressionStatement(null, expression);
+    }
+
+    private static LiteralExp literal(Object value) {
+        return new LiteralExp(null, value);
+    }
+
+    private static VariableExp variable(String symbol) {
+        return new VariableExp(null, symbol);
+    }
+
+    /**
+     * Evaluates to 1, 2, 3... on each successive evaluation.
+     */
+    private class Counter extends Expression {
+        private Counter() {
+            super(null);
+        }
+
+        @Override
+        protected Value onEvaluate(ExecutionContext context) {
+            return new Value(++count);
+        }
+    }
+
+    /**
+     * Records its evaluation in the trace.
+     */
+    private class Traced extends Expression {
+        private final String name;
+        private final Value value;
+
+        private Traced(String name, String value) {
+            super(null);
+            this.name = name;
+            this.value = new Value(value);
+        }
+
+        @Override
+        protected Value onEvaluate(ExecutionContext context) {
+            trace.add(name);
+            return value;
+        }
+    }
+
+    /**
+     * An expression statement that counts how many times it was executed by walking its tree.
+     */
+    private static class WalkedStatement extends ExpressionStatement {
+        private int walked;
+
+        private WalkedStatement(Expression expression) {
+            super(null, expression);
+        }
+
+        @Override
+        public void execute(ExecutionContext context) throws HtException, Preemption {
+            walked++;
+            super.execute(context);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.defano.wyldcard.runtime.compiler;
+
+import com.defano.hypertalk.exception.HtException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompiledScriptCacheTest {
+
+    private final CompiledScriptCache uut = new CompiledScriptCache(2);
+
+    @Test
+    public void testThatIdenticalScriptsShareCompiledTree() throws HtException {
+        Object first = uut.getCompiled(CompilationUnit.SCRIPT, "on mouseUp\n  beep\nend mouseUp");
+        Object second = uut.getCompiled(CompilationUnit.SCRIPT, "on mouseUp\n  beep\nend mouseUp");
+
+        assertNotNull(first);
+        assertSame(first, second);
+        assertEquals(1, uut.getMissCount());
+        assertEquals(1, uut.getHitCount());
+    }
+
+    @Test
+    public void testThatCompilationUnitIsPartOfKey() throws HtException {
+        Object script = uut.getCompiled(CompilationUnit.SCRIPTLET, "beep");
+        Object expression = uut.getCompiled(CompilationUnit.LIST_EXPRESSION, "beep");
+
+        assertNotSame(script, expression);
+        assertEquals(2, uut.getMissCount());
+    }
+
+    @Test
+    public void testThatLeastRecentlyUsedScriptIsEvicted() throws HtException {
+        Object first = uut.getCompiled(CompilationUnit.SCRIPTLET, "put 1");
+        uut.getCompiled(CompilationUnit.SCRIPTLET, "put 2");
+        uut.getCompiled(CompilationUnit.SCRIPTLET, "put 1");
+        uut.getCompiled(CompilationUnit.SCRIPTLET, "put 3");
+
+        assertEquals(2, uut.size());
+        assertEquals(1, uut.getEvictionCount());
+        assertSame(first, uut.getCompiled(CompilationUnit.SCRIPTLET, "put 1"));
+    }
+
+    @Test
+    public void testThatEmptyScriptsAreNotCached() throws HtException {
+        assertNull(uut.getCompiled(CompilationUnit.SCRIPT, "  "));
+        assertEquals(0, uut.size());
+    }
+
+    @Test
+    public void testThatSyntaxErrorsAreNotCached() {
+        assertThrows(HtException.class, () -> uut.getCompiled(CompilationUnit.SCRIPT, "on mouseUp\n  put 3 +\nend mouseUp"));
+        assertEquals(0, uut.size());
+    }
+
+    @Test
+    public void testThatTextThatDoesNotCompileIsParsedOnce() {
+        assertNull(uut.getCompiledOrNull(CompilationUnit.SCRIPTLET, "put 3 +"));
+        assertNull(uut.getCompiledOrNull(CompilationUnit.SCRIPTLET, "put 3 +"));
+
+        assertEquals(1, uut.getMissCount());
+        assertEquals(1, uut.getHitCount());
+        assertThrows(HtException.class, () -> uut.getCompiled(CompilationUnit.SCRIPTLET, "put 3 +"));
+    }
+
+    @Test
+    public void testThatCompilableTextIsSharedWithGetCompiled() throws HtException {
+        Object compiled = uut.getCompiledOrNull(CompilationUnit.SCRIPTLET, "card field 1");
+
+        assertNotNull(compiled);
+        assertSame(compiled, uut.getCompiled(CompilationUnit.SCRIPTLET, "card field 1"));
+    }
+}
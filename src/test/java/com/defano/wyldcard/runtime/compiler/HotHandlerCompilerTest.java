@@ -0,0 +1,117 @@
+package com.defano.wyldcard.runtime.compiler;
+
+import com.defano.hypertalk.ast.expression.Expression;
+import com.defano.hypertalk.ast.expression.GroupExp;
+import com.defano.hypertalk.ast.expression.LiteralExp;
+import com.defano.hypertalk.ast.expression.operator.binary.AddOp;
+import com.defano.hypertalk.ast.expression.operator.binary.AmpAmpOp;
+import com.defano.hypertalk.ast.expression.operator.binary.LessThanOp;
+import com.defano.hypertalk.ast.expression.operator.binary.MultiplyOp;
+import com.defano.hypertalk.ast.expression.operator.unary.NegateOp;
+import com.defano.hypertalk.ast.model.NamedBlock;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.ast.statement.ExpressionStatement;
+import com.defano.hypertalk.ast.statement.StatementList;
+import com.defano.hypertalk.ast.statement.repeat.RepeatForever;
+import com.defano.hypertalk.ast.statement.repeat.RepeatStatement;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.hypertalk.exception.HtSemanticException;
+import com.defano.wyldcard.runtime.ExecutionContext;
+import com.defano.wyldcard.runtime.callstack.StackFrame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+public class HotHandlerCompilerTest {
+
+    private final ExecutionContext context = mock(ExecutionContext.class);
+    private final StackFrame frame = mock(StackFrame.class);
+
+    @BeforeEach
+    public void setup() {
+        when(context.getStackFrame()).thenReturn(frame);
+        HotHandlerCompiler.setEnabled(true);
+    }
+
+    @AfterEach
+    public void teardown() {
+        HotHandlerCompiler.setEnabled(true);
+    }
+
+    @Test
+    public void testThatCompiledExpressionsMatchTreeWalker() throws HtException {
+        Expression arithmetic = new MultiplyOp(null,
+                new GroupExp(null, new AddOp(null, new LiteralExp(null, 2), new LiteralExp(null, 3))),
+                new NegateOp(null, new LiteralExp(null, 4)));
+        Expression comparison = new LessThanOp(null, arithmetic, new LiteralExp(null, 0));
+        Expression concatenation = new AmpAmpOp(null, new LiteralExp(null, "Line"), arithmetic);
+
+        assertEquals(arithmetic.evaluate(context).toString(), ClosureCompiler.compile(arithmetic).evaluate(context).toString());
+        assertEquals(comparison.evaluate(context).toString(), ClosureCompiler.compile(comparison).evaluate(context).toString());
+        assertEquals("Line -20", ClosureCompiler.compile(concatenation).evaluate(context).toString());
+    }
+
+    @Test
+    public void testThatHandlerIsCompiledOnceHot() throws Exception {
+        NamedBlock handler = newHandler();
+
+        for (int invocation = 1; invocation < HotHandlerCompiler.INVOCATION_THRESHOLD; invocation++) {
+            HotHandlerCompiler.execute(context, handler);
+            assertNull(handler.getCompiled());
+        }
+
+        HotHandlerCompiler.execute(context, handler);
+        HotHandlerCompiler.execute(context, handler);
+
+        assertNotNull(handler.getCompiled());
+        verify(context, times(HotHandlerCompiler.INVOCATION_THRESHOLD + 1)).setIt(any(Value.class));
+    }
+
+    @Test
+    public void testThatHandlerWithBreakpointsIsNeverCompiled() throws Exception {
+        NamedBlock handler = newHandler();
+        when(frame.hasBreakpoints()).thenReturn(true);
+
+        for (int invocation = 0; invocation < HotHandlerCompiler.INVOCATION_THRESHOLD * 2; invocation++) {
+            HotHandlerCompiler.execute(context, handler);
+        }
+
+        assertNull(handler.getCompiled());
+        verify(context, times(HotHandlerCompiler.INVOCATION_THRESHOLD * 2)).setIt(any(Value.class));
+    }
+
+    @Test
+    public void testThatDisabledCompilerWalksTree() throws Exception {
+        NamedBlock handler = newHandler();
+        HotHandlerCompiler.setEnabled(false);
+
+        for (int invocation = 0; invocation < HotHandlerCompiler.INVOCATION_THRESHOLD * 2; invocation++) {
+            HotHandlerCompiler.execute(context, handler);
+        }
+
+        assertNull(handler.getCompiled());
+    }
+
+    @Test
+    public void testThatAbortStopsCompiledRepeatForever() {
+        int[] iterations = new int[1];
+        doAnswer(invocation -> iterations[0]++).when(context).setIt(any());
+        when(context.didAbort()).thenAnswer(invocation -> iterations[0] >= 3);
+
+        StatementList loop = new StatementList(new ExpressionStatement(null, new LiteralExp(null, "x")));
+        NamedBlock handler = new NamedBlock(null, "handler", "handler", new StatementList(new RepeatStatement(null, new RepeatForever(), loop)));
+        handler.setCompiled(ClosureCompiler.compile(handler.statements));
+
+        HtSemanticException e = assertThrows(HtSemanticException.class, () -> HotHandlerCompiler.execute(context, handler));
+        assertEquals("Script aborted.", e.getMessage());
+        assertEquals(3, iterations[0]);
+    }
+
+    private NamedBlock newHandler() {
+        StatementList statements = new StatementList(new ExpressionStatement(null, new AddOp(null, new LiteralExp(null, 1), new LiteralExp(null, 2))));
+        return new NamedBlock(null, "handler", "handler", statements);
+    }
+}
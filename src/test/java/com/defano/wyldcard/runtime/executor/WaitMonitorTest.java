@@ -0,0 +1,48 @@
+package com.defano.wyldcard.runtime.executor;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WaitMonitorTest {
+
+    private final WaitMonitor uut = WaitMonitor.getInstance();
+
+    @Test
+    public void testThatChangeBeforeWaitingReturnsImmediately() throws InterruptedException {
+        long count = uut.getChangeCount();
+        uut.notifyChanged();
+
+        long start = System.currentTimeMillis();
+        assertTrue(uut.awaitChange(count, 10000) > count);
+        assertTrue(System.currentTimeMillis() - start < 5000);
+    }
+
+    @Test
+    public void testThatWaitEndsWhenChangeIsReported() throws InterruptedException {
+        long count = uut.getChangeCount();
+        Thread notifier = new Thread(() -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            uut.notifyChanged();
+        });
+
+        long start = System.currentTimeMillis();
+        notifier.start();
+        assertTrue(uut.awaitChange(count, 10000) > count);
+        assertTrue(System.currentTimeMillis() - start < 5000);
+        notifier.join();
+    }
+
+    @Test
+    public void testThatWaitEndsAfterTimeoutWithoutChange() throws InterruptedException {
+        long count = uut.getChangeCount();
+        long start = System.currentTimeMillis();
+
+        assertEquals(count, uut.awaitChange(count, 100));
+        assertTrue(System.currentTimeMillis() - start >= 100);
+    }
+}
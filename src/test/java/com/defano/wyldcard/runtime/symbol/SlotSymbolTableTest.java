@@ -0,0 +1,73 @@
+package com.defano.wyldcard.runtime.symbol;
+
+import com.defano.hypertalk.ast.model.NamedBlock;
+import com.defano.hypertalk.ast.model.Script;
+import com.defano.hypertalk.ast.model.Value;
+import com.defano.hypertalk.exception.HtException;
+import com.defano.wyldcard.runtime.compiler.CompilationUnit;
+import com.defano.wyldcard.runtime.compiler.TwoPhaseParser;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SlotSymbolTableTest {
+
+    @Test
+    public void testThatSlottedVariablesAreVisibleByName() {
+        SymbolLayout layout = new SymbolLayout();
+        int slot = layout.resolve("myVar");
+        SlotSymbolTable uut = new SlotSymbolTable(layout);
+
+        assertFalse(uut.contains("myvar"));
+
+        uut.set(slot, new Value("hello"));
+        assertTrue(uut.contains("MYVAR"));
+        assertEquals(new Value("hello"), uut.get("myVar"));
+
+        uut.set("MyVar", new Value("goodbye"));
+        assertEquals(new Value("goodbye"), uut.get(slot));
+    }
+
+    @Test
+    public void testThatUnslottedVariablesAreStoredByName() {
+        SlotSymbolTable uut = new SlotSymbolTable(SymbolLayout.EMPTY);
+        uut.set("each", new Value(3));
+
+        assertTrue(uut.contains("EACH"));
+        assertEquals(new Value(3), uut.get("each"));
+        assertTrue(uut.getSymbols().contains("each"));
+    }
+
+    @Test
+    public void testThatSlotsAreOnlyUsedForTheirOwnSymbols() {
+        SymbolLayout layout = new SymbolLayout();
+        int x = layout.resolve("x");
+        int y = layout.resolve("Y");
+        SlotSymbolTable uut = new SlotSymbolTable(layout);
+
+        assertTrue(uut.isSlotOf(x, "X"));
+        assertTrue(uut.isSlotOf(y, "y"));
+        assertFalse(uut.isSlotOf(x, "y"));
+        assertFalse(uut.isSlotOf(-1, "x"));
+        assertFalse(uut.isSlotOf(layout.size(), "x"));
+    }
+
+    @Test
+    public void testThatCompiledHandlerAssignsSlotsToLocals() throws HtException {
+        Script script = (Script) TwoPhaseParser.parseScript(CompilationUnit.SCRIPT,
+                "on doSomething a, b\n" +
+                "  put a + b into total\n" +
+                "  repeat with i = 1 to 3\n" +
+                "    add i to Total\n" +
+                "  end repeat\n" +
+                "end doSomething");
+
+        NamedBlock handler = script.getHandler("doSomething");
+
+        assertEquals(4, handler.locals.size());
+        assertTrue(handler.locals.getSlot("a") >= 0);
+        assertTrue(handler.locals.getSlot("b") >= 0);
+        assertTrue(handler.locals.getSlot("i") >= 0);
+        assertEquals(handler.locals.getSlot("total"), handler.locals.getSlot("TOTAL"));
+    }
+}
@@ -0,0 +1,92 @@
+package com.defano.wyldcard.search;
+
+import com.defano.hypertalk.ast.model.enums.Owner;
+import com.defano.hypertalk.util.Range;
+import com.defano.wyldcard.search.strategy.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SearchIndexTest {
+
+    private final SearchIndex uut = new SearchIndex();
+
+    private final TextKey firstKey = new TextKey(1, 10, Owner.CARD, true);
+    private final TextKey secondKey = new TextKey(2, 10, Owner.BACKGROUND, false);
+    private IndexedText first;
+
+    @BeforeEach
+    public void setup() {
+        assertEquals(Arrays.asList(firstKey, secondKey), uut.getKeysToIndex(Arrays.asList(firstKey, secondKey)));
+
+        first = uut.index(firstKey, "The quick brown fox jumps over the lazy dog");
+        uut.index(secondKey, "Quicksilver, quickly!");
+    }
+
+    @Test
+    public void testThatWordsAreIndexedCaseInsensitively() {
+        assertEquals(Collections.singleton(firstKey), uut.getTextsContaining("THE"));
+        assertArrayEquals(new int[]{0, 31}, first.getWordOffsets("the"));
+        assertTrue(uut.getTextsContaining("cat").isEmpty());
+    }
+
+    @Test
+    public void testThatOnlyModifiedTextIsReindexed() {
+        assertTrue(uut.getKeysToIndex(Arrays.asList(firstKey, secondKey)).isEmpty());
+
+        uut.invalidate(firstKey);
+        assertEquals(Collections.singletonList(firstKey), uut.getKeysToIndex(Arrays.asList(firstKey, secondKey)));
+
+        IndexedText reindexed = uut.index(firstKey, "The quick brown fox jumps over the lazy cat");
+        assertNotSame(first, reindexed);
+        assertSame(reindexed, uut.getIndexedText(firstKey));
+        assertEquals(Collections.singleton(firstKey), uut.getTextsContaining("cat"));
+        assertTrue(uut.getTextsContaining("dog").isEmpty());
+    }
+
+    @Test
+    public void testThatTextsAreKeyedByCardFieldAndSharing() {
+        assertEquals(firstKey, new TextKey(1, 10, Owner.CARD, true));
+        assertNotEquals(firstKey, new TextKey(1, 10, Owner.BACKGROUND, true));
+        assertNotEquals(secondKey, new TextKey(2, 10, Owner.BACKGROUND, true));
+
+        TextKey unindexed = new TextKey(3, 10, Owner.BACKGROUND, false);
+        assertEquals(Collections.singletonList(unindexed), uut.getKeysToIndex(Arrays.asList(firstKey, unindexed)));
+    }
+
+    @Test
+    public void testThatRemovedTextsAreForgotten() {
+        uut.retainAll(Collections.singleton(secondKey));
+
+        assertTrue(uut.getTextsContaining("fox").isEmpty());
+        assertNull(uut.getIndexedText(firstKey));
+        assertEquals(Collections.singleton(secondKey), uut.getTexts());
+    }
+
+    @Test
+    public void testThatCandidatesMatchStrategies() {
+        assertEquals(Collections.singleton(firstKey), new WordSearchStrategy().getCandidates(uut, "Quick"));
+        assertEquals(new HashSet<>(Arrays.asList(firstKey, secondKey)), new WholeSearchStrategy().getCandidates(uut, "quick"));
+        assertEquals(Collections.singleton(secondKey), new WholeSearchStrategy().getCandidates(uut, "quicks"));
+        assertEquals(Collections.singleton(secondKey), new CharsSearchStrategy().getCandidates(uut, "silver"));
+        assertEquals(Collections.singleton(firstKey), new StringSearchStrategy().getCandidates(uut, "x jumps o"));
+        assertTrue(new WholeSearchStrategy().getCandidates(uut, " quick").isEmpty());
+    }
+
+    @Test
+    public void testThatIndexedWordSearchFindsEveryWord() {
+        List<Range> results = new WordSearchStrategy().searchAll(first, "the");
+
+        assertEquals(2, results.size());
+        assertEquals(0, results.get(0).start);
+        assertEquals(3, results.get(0).end);
+        assertEquals(31, results.get(1).start);
+        assertEquals(34, results.get(1).end);
+    }
+}
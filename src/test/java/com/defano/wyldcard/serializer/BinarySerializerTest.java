@@ -0,0 +1,291 @@
+package com.defano.wyldcard.serializer;
+
+import com.defano.hypertalk.ast.model.Value;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.annotation.PostConstruct;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.DefaultStyledDocument;
+import javax.swing.text.StyledDocument;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinarySerializerTest {
+
+    private File file;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        file = File.createTempFile("binary-serializer", ".stack");
+    }
+
+    @AfterEach
+    public void teardown() throws IOException {
+        Files.deleteIfExists(file.toPath());
+    }
+
+    @Test
+    public void testThatObjectSurvivesRoundTrip() throws Exception {
+        TestModel original = new TestModel();
+        BinarySerializer.serialize(file, original);
+
+        assertTrue(BinarySerializer.isBinaryFile(file));
+        assertModelEquals(original, BinarySerializer.deserialize(file, TestModel.class));
+    }
+
+    @Test
+    public void testThatSerializerReadsEitherFormat() throws Exception {
+        TestModel original = new TestModel();
+
+        Serializer.serialize(file, original);
+        assertFalse(BinarySerializer.isBinaryFile(file));
+        TestModel fromJson = Serializer.deserialize(file, TestModel.class);
+        assertModelEquals(original, fromJson);
+
+        BinarySerializer.serialize(file, fromJson);
+        assertModelEquals(original, Serializer.deserialize(file, TestModel.class));
+    }
+
+    @Test
+    public void testThatTruncatedFileIsRejected() throws Exception {
+        BinarySerializer.serialize(file, new TestModel());
+
+        byte[] data = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), java.util.Arrays.copyOf(data, data.length - 4));
+
+        assertThrows(IOException.class, () -> BinarySerializer.deserialize(file, TestModel.class));
+    }
+
+    @Test
+    public void testThatLazyContentIsReadWhenFirstUsed() throws Exception {
+        BinarySerializer.serialize(file, new LazyModel());
+        LazyModel deserialized = BinarySerializer.deserialize(file, LazyModel.class);
+
+        assertFalse(deserialized.image.isLoaded());
+        assertFalse(deserialized.document.isLoaded());
+
+        assertEquals(0xff00ff00, deserialized.image.get().getRGB(3, 4));
+        assertEquals("Hello world", getText(deserialized.document.get()));
+        assertTrue(deserialized.image.isLoaded());
+    }
+
+    @Test
+    public void testThatUnreadLazyContentIsCopiedWhenSaved() throws Exception {
+        BinarySerializer.serialize(file, new LazyModel());
+        LazyModel deserialized = BinarySerializer.deserialize(file, LazyModel.class);
+
+        File other = File.createTempFile("binary-serializer", ".stack");
+        try {
+            BinarySerializer.serialize(other, deserialized);
+            Files.delete(file.toPath());
+
+            // Content is now read from the file it was most recently saved to
+            assertEquals(0xff00ff00, deserialized.image.get().getRGB(3, 4));
+            assertEquals("Hello world", getText(Serializer.deserialize(other, LazyModel.class).document.get()));
+        } finally {
+            Files.deleteIfExists(other.toPath());
+        }
+    }
+
+    @Test
+    public void testThatEditedLazyDocumentIsSaved() throws Exception {
+        BinarySerializer.serialize(file, new LazyModel());
+        LazyModel deserialized = BinarySerializer.deserialize(file, LazyModel.class);
+
+        StyledDocument document = deserialized.document.get();
+        document.insertString(document.getLength(), "!", null);
+
+        assertEquals("Hello world!", getText(Serializer.copy(deserialized).document.get()));
+        BinarySerializer.serialize(file, deserialized);
+        assertEquals("Hello world!", getText(BinarySerializer.deserialize(file, LazyModel.class).document.get()));
+    }
+
+    @Test
+    public void testThatAppendWritesOnlyModifiedSections() throws Exception {
+        BinarySerializer.append(file, new SectionedModel());
+        SectionedModel deserialized = BinarySerializer.deserialize(file, SectionedModel.class);
+
+        long length = file.length();
+        BinarySerializer.append(file, deserialized);
+        assertTrue(file.length() - length < 1024);
+
+        deserialized.parts.get(1).setName("Renamed");
+        BinarySerializer.append(file, deserialized);
+        assertTrue(file.length() - length < 2048);
+
+        SectionedModel appended = BinarySerializer.deserialize(file, SectionedModel.class);
+        assertEquals("Renamed", appended.parts.get(1).name);
+        assertEquals("Part 2", appended.parts.get(2).name);
+        assertEquals(0xff000002, appended.parts.get(2).image.get().getRGB(3, 4));
+    }
+
+    @Test
+    public void testThatIncompleteAppendIsIgnored() throws Exception {
+        BinarySerializer.append(file, new SectionedModel());
+        SectionedModel deserialized = BinarySerializer.deserialize(file, SectionedModel.class);
+        long length = file.length();
+
+        deserialized.parts.get(0).setImage(0xff0000ff);
+        BinarySerializer.append(file, deserialized);
+
+        // Simulate a failure part way through saving
+        byte[] data = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), java.util.Arrays.copyOf(data, (int) length + (data.length - (int) length) / 2));
+
+        SectionedModel recovered = BinarySerializer.deserialize(file, SectionedModel.class);
+        assertEquals(0xff000000, recovered.parts.get(0).image.get().getRGB(3, 4));
+
+        recovered.parts.get(0).setName("Recovered");
+        BinarySerializer.append(file, recovered);
+        assertEquals("Recovered", BinarySerializer.deserialize(file, SectionedModel.class).parts.get(0).name);
+    }
+
+    @Test
+    public void testThatCompactionDiscardsSupersededSections() throws Exception {
+        BinarySerializer.append(file, new SectionedModel());
+        SectionedModel deserialized = BinarySerializer.deserialize(file, SectionedModel.class);
+
+        for (int rgb = 0xff0000f0; rgb < 0xff000100; rgb++) {
+            deserialized.parts.get(0).setImage(rgb);
+            BinarySerializer.append(file, deserialized);
+        }
+
+        // Sections still referenced in memory are retained, so compact a copy of the file that nothing references
+        File copy = File.createTempFile("binary-serializer", ".stack");
+        try {
+            Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            BinarySerializer.compact(copy);
+
+            assertTrue(copy.length() < file.length() / 2);
+            assertEquals(0xff0000ff, BinarySerializer.deserialize(copy, SectionedModel.class).parts.get(0).image.get().getRGB(3, 4));
+        } finally {
+            Files.deleteIfExists(copy.toPath());
+        }
+
+        // Unread content is re-located to the compacted file
+        BinarySerializer.compact(file);
+        assertFalse(deserialized.parts.get(2).image.isLoaded());
+        assertEquals(0xff000002, deserialized.parts.get(2).image.get().getRGB(3, 4));
+
+        SectionedModel compacted = BinarySerializer.deserialize(file, SectionedModel.class);
+        assertEquals(0xff0000ff, compacted.parts.get(0).image.get().getRGB(3, 4));
+        assertEquals("Part 1", compacted.parts.get(1).name);
+    }
+
+    private void assertModelEquals(TestModel expected, TestModel actual) throws BadLocationException {
+        assertEquals(expected.name, actual.name);
+        assertNull(actual.missingImage);
+        assertEquals(expected.image.getWidth(), actual.image.getWidth());
+        assertEquals(expected.image.getRGB(3, 4), actual.image.getRGB(3, 4));
+        assertEquals(getText(expected.documents.get(1)), getText(actual.documents.get(1)));
+        assertEquals(getText(expected.documents.get(2)), getText(actual.documents.get(2)));
+    }
+
+    private String getText(StyledDocument document) throws BadLocationException {
+        return document.getText(0, document.getLength());
+    }
+
+    private static class LazyModel {
+        private LazyImage image;
+        private LazyDocument document;
+
+        private LazyModel() {
+            BufferedImage bitmap = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+            bitmap.setRGB(3, 4, 0xff00ff00);
+            image = new LazyImage(bitmap);
+
+            try {
+                StyledDocument text = new DefaultStyledDocument();
+                text.insertString(0, "Hello world", null);
+                document = new LazyDocument(text);
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class SectionedModel {
+        private List<TestPart> parts = new ArrayList<>();
+
+        private SectionedModel() {
+            for (int part = 0; part < 3; part++) {
+                parts.add(new TestPart("Part " + part, 0xff000000 + part));
+            }
+        }
+    }
+
+    private static class TestPart implements Sectioned {
+        private String name;
+        private LazyImage image;
+        private transient SectionRevision sectionRevision;
+
+        private TestPart(String name, int rgb) {
+            this.name = name;
+            this.image = new LazyImage(newImage(rgb));
+            postConstructTestPart();
+        }
+
+        @PostConstruct
+        private void postConstructTestPart() {
+            sectionRevision = new SectionRevision();
+        }
+
+        @Override
+        public SectionRevision getSectionRevision() {
+            return sectionRevision;
+        }
+
+        private void setName(String name) {
+            this.name = name;
+            sectionRevision.recordModification();
+        }
+
+        private void setImage(int rgb) {
+            image.set(newImage(rgb));
+            sectionRevision.recordModification();
+        }
+
+        private static BufferedImage newImage(int rgb) {
+            BufferedImage image = new BufferedImage(100, 100, BufferedImage.TYPE_INT_ARGB);
+            for (int x = 0; x < 100; x++) {
+                image.setRGB(x, (x * 31) % 100, 0xff000000 | x * 997);
+            }
+            image.setRGB(3, 4, rgb);
+            return image;
+        }
+    }
+
+    private static class TestModel {
+        private Value name = new Value("My Stack");
+        private BufferedImage image = new BufferedImage(10, 10, BufferedImage.TYPE_INT_ARGB);
+        private BufferedImage missingImage = null;
+        private Map<Integer, StyledDocument> documents = new HashMap<>();
+
+        private TestModel() {
+            image.setRGB(3, 4, 0xff00ff00);
+
+            try {
+                StyledDocument first = new DefaultStyledDocument();
+                first.insertString(0, "Hello world", null);
+                StyledDocument second = new DefaultStyledDocument();
+                second.insertString(0, "Line 1\nLine 2", null);
+
+                documents.put(1, first);
+                documents.put(2, second);
+            } catch (BadLocationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
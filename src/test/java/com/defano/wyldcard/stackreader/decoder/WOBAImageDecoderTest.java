@@ -0,0 +1,413 @@
+package com.defano.wyldcard.stackreader.decoder;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WOBAImageDecoderTest {
+
+    private final WOBAImageDecoder uut = new WOBAImageDecoder() {};
+    private final LegacyDecoder golden = new LegacyDecoder();
+
+    @Test
+    public void testThatRowOpcodesDecodeToKnownPixels() {
+        Rectangle bounds = new Rectangle(0, 0, 40, 3);
+        byte[] image = new byte[]{(byte) 0x82, (byte) 0x81, 0x11, (byte) 0xFF};
+
+        // Row 0 is black; row 1 is skipped (and so white, within the mask); row 2 has 8 black pixels at x = 8
+        BufferedImage decoded = uut.decodeImage(bounds, bounds, bounds, image.length, image, 0, new byte[0]);
+
+        assertEquals(0xFF000000, decoded.getRGB(39, 0));
+        assertEquals(0xFFFFFFFF, decoded.getRGB(0, 1));
+        assertEquals(0xFFFFFFFF, decoded.getRGB(7, 2));
+        assertEquals(0xFF000000, decoded.getRGB(8, 2));
+        assertEquals(0xFF000000, decoded.getRGB(15, 2));
+        assertEquals(0xFFFFFFFF, decoded.getRGB(16, 2));
+    }
+
+    @Test
+    public void testThatGeneratedBitmapsDecodeIdentically() {
+        Random random = new Random(0x70BA);
+        int decoded = 0;
+
+        for (int trial = 0; trial < 2000; trial++) {
+            Rectangle bounds = new Rectangle(random.nextInt(40), random.nextInt(8), 1 + random.nextInt(300), 1 + random.nextInt(60));
+            Rectangle maskRect = randomRect(random, bounds);
+            Rectangle imageRect = randomRect(random, bounds);
+
+            byte[] mask = random.nextBoolean() ? new byte[0] : randomStream(random, uut.snap32(maskRect).width >> 3);
+            byte[] image = randomStream(random, uut.snap32(imageRect).width >> 3);
+
+            if (assertDecodesIdentically(bounds, maskRect, imageRect, image, mask)) {
+                decoded++;
+            }
+        }
+
+        // Generated streams often overrun the bitmap; be sure enough of them don't
+        assertTrue(decoded > 500, "Only " + decoded + " bitmaps decoded");
+    }
+
+    @Test
+    public void testThatReusedBuffersDoNotLeakBetweenBitmaps() {
+        Random random = new Random(0x8A7);
+        Rectangle bounds = new Rectangle(0, 0, 64, 16);
+
+        for (int trial = 0; trial < 200; trial++) {
+            byte[] mask = randomStream(random, 8);
+            byte[] image = randomStream(random, 8);
+            assertDecodesIdentically(bounds, bounds, bounds, image, mask);
+        }
+    }
+
+    private boolean assertDecodesIdentically(Rectangle bounds, Rectangle maskRect, Rectangle imageRect, byte[] image, byte[] mask) {
+        BufferedImage expected = golden.decodeImage(bounds, maskRect, imageRect, image.length, image, mask.length, mask);
+        BufferedImage actual = uut.decodeImage(bounds, maskRect, imageRect, image.length, image, mask.length, mask);
+
+        if (expected == null) {
+            assertNull(actual);
+            return false;
+        }
+
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertEquals(expected.getType(), actual.getType());
+        assertArrayEquals(
+                expected.getRGB(0, 0, expected.getWidth(), expected.getHeight(), null, 0, expected.getWidth()),
+                actual.getRGB(0, 0, actual.getWidth(), actual.getHeight(), null, 0, actual.getWidth()));
+        return true;
+    }
+
+    private Rectangle randomRect(Random random, Rectangle bounds) {
+        if (random.nextInt(4) == 0) {
+            return new Rectangle(bounds);
+        }
+
+        int x = bounds.x + random.nextInt(bounds.width);
+        int y = bounds.y + random.nextInt(bounds.height);
+        return new Rectangle(x, y, 1 + random.nextInt(bounds.x + bounds.width - x), 1 + random.nextInt(bounds.y + bounds.height - y));
+    }
+
+    /**
+     * Generates a WOBA stream exercising every opcode, for a bitmap whose rows are the given number of bytes wide.
+     */
+    private byte[] randomStream(Random random, int rowBytes) {
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+
+        for (int op = random.nextInt(60); op > 0; op--) {
+            switch (random.nextInt(9)) {
+                case 0:     // dz: skip z bytes, then copy d bytes
+                    int d = random.nextInt(8);
+                    stream.write(d << 4 | random.nextInt(16));
+                    writeRandom(random, stream, d);
+                    break;
+                case 1:     // repeat the next instruction
+                    stream.write(0xA0 | random.nextInt(4));
+                    break;
+                case 2:     // copy 8n bytes
+                    int n = random.nextInt(3);
+                    stream.write(0xC0 | n);
+                    writeRandom(random, stream, n << 3);
+                    break;
+                case 3:     // skip 16n bytes
+                    stream.write(0xE0 | random.nextInt(2));
+                    break;
+                case 4:     // one row of data
+                    stream.write(0x80);
+                    writeRandom(random, stream, rowBytes);
+                    break;
+                case 5:     // pattern row
+                    stream.write(0x83);
+                    writeRandom(random, stream, 1);
+                    break;
+                case 6:     // row operations
+                    stream.write(0x81 + random.nextInt(7));
+                    break;
+                case 7:     // set shift and xor mode
+                    stream.write(0x88 + random.nextInt(8));
+                    break;
+                default:
+                    writeRandom(random, stream, 1);
+                    break;
+            }
+        }
+
+        return stream.toByteArray();
+    }
+
+    private void writeRandom(Random random, ByteArrayOutputStream stream, int count) {
+        byte[] bytes = new byte[count];
+        random.nextBytes(bytes);
+        stream.write(bytes, 0, count);
+    }
+
+    /**
+     * The original, unoptimized decoder, against which the output of {@link WOBAImageDecoder} is compared.
+     */
+    private static class LegacyDecoder {
+
+
+        @SuppressWarnings("PointlessArithmeticExpression")
+        BufferedImage decodeImage(Rectangle boundRect, Rectangle maskRect, Rectangle imageRect, int imageSize, byte[] imageData, int maskSize, byte[] maskData) {
+            BufferedImage image;
+
+            try {
+                byte[] maskBytes = decodeWOBA(boundRect, maskRect, maskData, 0, maskSize);
+                byte[] imageBytes = decodeWOBA(boundRect, imageRect, imageData, 0, imageSize);
+                int[] pixels = new int[imageBytes.length * 8];
+                for (int ii = 0, mi = 0, pi = 0; ii < imageBytes.length && mi < maskBytes.length && pi < pixels.length; ii++, mi++, pi += 8) {
+                    byte ibt = imageBytes[ii];
+                    byte mbt = maskBytes[mi];
+                    pixels[pi + 0] = ((ibt & 0x80) > 0) ? 0xFF000000 : ((mbt & 0x80) > 0) ? 0xFFFFFFFF : 0;
+                    pixels[pi + 1] = ((ibt & 0x40) > 0) ? 0xFF000000 : ((mbt & 0x40) > 0) ? 0xFFFFFFFF : 0;
+                    pixels[pi + 2] = ((ibt & 0x20) > 0) ? 0xFF000000 : ((mbt & 0x20) > 0) ? 0xFFFFFFFF : 0;
+                    pixels[pi + 3] = ((ibt & 0x10) > 0) ? 0xFF000000 : ((mbt & 0x10) > 0) ? 0xFFFFFFFF : 0;
+                    pixels[pi + 4] = ((ibt & 0x08) > 0) ? 0xFF000000 : ((mbt & 0x08) > 0) ? 0xFFFFFFFF : 0;
+                    pixels[pi + 5] = ((ibt & 0x04) > 0) ? 0xFF000000 : ((mbt & 0x04) > 0) ? 0xFFFFFFFF : 0;
+                    pixels[pi + 6] = ((ibt & 0x02) > 0) ? 0xFF000000 : ((mbt & 0x02) > 0) ? 0xFFFFFFFF : 0;
+                    pixels[pi + 7] = ((ibt & 0x01) > 0) ? 0xFF000000 : ((mbt & 0x01) > 0) ? 0xFFFFFFFF : 0;
+                }
+
+                image = new BufferedImage(boundRect.width, boundRect.height, BufferedImage.TYPE_INT_ARGB);
+                image.setRGB(0, 0, boundRect.width, boundRect.height, pixels, 0, snap32(boundRect).width);
+                return image;
+
+            } catch (ArrayIndexOutOfBoundsException e) {
+                return null;
+            }
+        }
+
+        byte[] decodeWOBA(Rectangle totr, Rectangle r, byte[] data, int offset, int l) throws ArrayIndexOutOfBoundsException {
+            Rectangle tr = snap32(totr);
+            int trw = tr.width >> 3;
+            Rectangle rf = snap32(r);
+            int rw = rf.width >> 3;
+            byte[] stuff = new byte[trw * tr.height];
+            if (l == 0) {
+                if (r.width > 0 && r.height > 0) {
+                    int sbyte = r.x >> 3;
+                    int sbit = r.x & 0x7;
+                    int ebyte = (r.x + r.width) >> 3;
+                    int ebit = (r.x + r.width) & 0x7;
+                    int base = trw * r.y;
+                    for (int y = r.y; y < r.y + r.height; y++) {
+                        stuff[base + sbyte] = (byte) (0xFF >> sbit);
+                        for (int x = sbyte + 1; x < ebyte; x++) {
+                            stuff[base + x] = (byte) 0xFF;
+                        }
+                        if (ebit > 0) stuff[base + ebyte] = (byte) (0xFF << (8 - ebit));
+                        base += trw;
+                    }
+                }
+            } else {
+                int p = offset;
+                int y = rf.y - tr.y;
+                int base = trw * y + ((rf.x - tr.x) >> 3);
+                int pp = base;
+                int repeat = 1;
+                int dh = 0, dv = 0;
+                byte[] patt = new byte[]{
+                        (byte) 0xAA, (byte) 0x55, (byte) 0xAA, (byte) 0x55,
+                        (byte) 0xAA, (byte) 0x55, (byte) 0xAA, (byte) 0x55
+                };
+                while (y < rf.y - tr.y + rf.height && p < data.length) {
+                    byte opcode = data[p++];
+                    if ((opcode & 0x80) == 0) {
+                        int d = (opcode & 0x70) >> 4;
+                        int z = opcode & 0x0F;
+                        byte[] dat = new byte[d];
+                        for (int i = 0; i < d; i++) dat[i] = data[p++];
+                        while ((repeat--) > 0) {
+                            pp += z;
+                            for (int i = 0; i < d; i++) stuff[pp++] = dat[i];
+                        }
+                    } else if ((opcode & 0xE0) == 0xA0) {
+                        repeat = (opcode & 0x1F);
+                        continue;
+                    } else if ((opcode & 0xE0) == 0xC0) {
+                        int d = (opcode & 0x1F) << 3;
+                        byte[] dat = new byte[d];
+                        for (int i = 0; i < d; i++) dat[i] = data[p++];
+                        while ((repeat--) > 0) {
+                            for (int i = 0; i < d; i++) stuff[pp++] = dat[i];
+                        }
+                    } else if ((opcode & 0xE0) == 0xE0) {
+                        pp += ((opcode & 0x1F) << 4) * repeat;
+                    } else {
+                        switch (opcode) {
+                            case (byte) 0x80: {
+                                byte[] dat = new byte[rw];
+                                for (int i = 0; i < rw; i++) dat[i] = data[p++];
+                                while ((repeat--) > 0) {
+                                    for (int i = 0; i < rw; i++) stuff[pp++] = dat[i];
+                                    y++;
+                                    base += trw;
+                                    pp = base;
+                                }
+                                repeat = 1;
+                            }
+                            break;
+                            case (byte) 0x81: {
+                                y += repeat;
+                                base += trw * repeat;
+                                pp = base;
+                                repeat = 1;
+                            }
+                            break;
+                            case (byte) 0x82: {
+                                while ((repeat--) > 0) {
+                                    for (int i = 0; i < rw; i++) stuff[pp++] = -1;
+                                    y++;
+                                    base += trw;
+                                    pp = base;
+                                }
+                                repeat = 1;
+                            }
+                            break;
+                            case (byte) 0x83: {
+                                byte pb = data[p++];
+                                while ((repeat--) > 0) {
+                                    patt[y & 0x7] = pb;
+                                    for (int i = 0; i < rw; i++) stuff[pp++] = pb;
+                                    y++;
+                                    base += trw;
+                                    pp = base;
+                                }
+                                repeat = 1;
+                            }
+                            break;
+                            case (byte) 0x84: {
+                                while ((repeat--) > 0) {
+                                    byte pb = patt[y & 0x7];
+                                    for (int i = 0; i < rw; i++) stuff[pp++] = pb;
+                                    y++;
+                                    base += trw;
+                                    pp = base;
+                                }
+                                repeat = 1;
+                            }
+                            break;
+                            case (byte) 0x85: {
+                                while ((repeat--) > 0) {
+                                    for (int i = 0; i < rw; i++) {
+                                        stuff[pp] = stuff[pp - trw];
+                                        pp++;
+                                    }
+                                    y++;
+                                    base += trw;
+                                    pp = base;
+                                }
+                                repeat = 1;
+                            }
+                            break;
+                            case (byte) 0x86: {
+                                while ((repeat--) > 0) {
+                                    for (int i = 0; i < rw; i++) {
+                                        stuff[pp] = stuff[pp - (trw * 2)];
+                                        pp++;
+                                    }
+                                    y++;
+                                    base += trw;
+                                    pp = base;
+                                }
+                                repeat = 1;
+                            }
+                            break;
+                            case (byte) 0x87: {
+                                while ((repeat--) > 0) {
+                                    for (int i = 0; i < rw; i++) {
+                                        stuff[pp] = stuff[pp - (trw * 3)];
+                                        pp++;
+                                    }
+                                    y++;
+                                    base += trw;
+                                    pp = base;
+                                }
+                                repeat = 1;
+                            }
+                            break;
+                            case (byte) 0x88:
+                                dh = 16;
+                                dv = 0;
+                                break;
+                            case (byte) 0x89:
+                                dh = 0;
+                                dv = 0;
+                                break;
+                            case (byte) 0x8A:
+                                dh = 0;
+                                dv = 1;
+                                break;
+                            case (byte) 0x8B:
+                                dh = 0;
+                                dv = 2;
+                                break;
+                            case (byte) 0x8C:
+                                dh = 1;
+                                dv = 0;
+                                break;
+                            case (byte) 0x8D:
+                                dh = 1;
+                                dv = 1;
+                                break;
+                            case (byte) 0x8E:
+                                dh = 2;
+                                dv = 2;
+                                break;
+                            case (byte) 0x8F:
+                                dh = 8;
+                                dv = 0;
+                                break;
+                        }
+                        continue;
+                    }
+
+                    repeat = 1;
+                    if (pp >= base + rw) {
+                        if (dh != 0) {
+                            byte[] row = new byte[rw];
+                            for (int i = 0; i < rw; i++) row[i] = stuff[base + i];
+                            int numshifts = (rw << 3) / dh;
+                            while ((numshifts--) > 0) {
+                                int acc = 0;
+                                for (int i = 0; i < rw; i += 4) {
+                                    int tmp = ((row[i] & 0xFF) << 24) | ((row[i + 1] & 0xFF) << 16) | ((row[i + 2] & 0xFF) << 8) | (row[i + 3] & 0xFF);
+                                    int rowi = acc | (tmp >>> dh);
+                                    row[i] = (byte) ((rowi >>> 24) & 0xFF);
+                                    row[i + 1] = (byte) ((rowi >>> 16) & 0xFF);
+                                    row[i + 2] = (byte) ((rowi >>> 8) & 0xFF);
+                                    row[i + 3] = (byte) (rowi & 0xFF);
+                                    acc = tmp << (32 - dh);
+                                }
+                                for (int i = 0; i < rw; i++) stuff[base + i] ^= row[i];
+                            }
+                        }
+                        if (dv != 0 && y - dv >= 0) {
+                            for (int i = 0; i < rw; i++)
+                                stuff[base + i] = (byte) (stuff[base + i] ^ stuff[(base - (trw * dv)) + i]);
+                        }
+                        y++;
+                        base += trw;
+                        pp = base;
+                    }
+                }
+            }
+
+            return stuff;
+        }
+
+        Rectangle snap32(Rectangle r) {
+            int left = r.x & ~0x1F;
+            int right = r.x + r.width;
+            if ((right & 0x1F) != 0) {
+                right |= 0x1F;
+                right++;
+            }
+            return new Rectangle(left, r.y, right - left, r.height);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.defano.wyldcard.util;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.awt.image.IndexColorModel;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PackedImageUtilsTest {
+
+    @Test
+    public void testThatBlackAndWhiteArtPacksIntoTwoBits() {
+        BufferedImage image = newImage(0xff000000, 0xffffffff, 0x00000000, 0x00123456);
+        BufferedImage packed = PackedImageUtils.pack(image);
+
+        assertTrue(packed.getColorModel() instanceof IndexColorModel);
+        assertEquals(2, packed.getColorModel().getPixelSize());
+        assertPixelsEqual(image, packed);
+    }
+
+    @Test
+    public void testThatManyColoredArtIsNotPacked() {
+        BufferedImage image = new BufferedImage(32, 32, BufferedImage.TYPE_INT_ARGB);
+        for (int pixel = 0; pixel < 32 * 32; pixel++) {
+            image.setRGB(pixel % 32, pixel / 32, 0xff000000 | pixel * 4099);
+        }
+
+        assertSame(image, PackedImageUtils.pack(image));
+    }
+
+    @Test
+    public void testThatExpandedImageMatchesOriginal() {
+        BufferedImage image = newImage(0xff000000, 0x80ff0000, 0xffffffff, 0xff00ff00, 0xff0000ff);
+        BufferedImage expanded = PackedImageUtils.expand(PackedImageUtils.pack(image));
+
+        assertEquals(BufferedImage.TYPE_INT_ARGB, expanded.getType());
+        assertPixelsEqual(image, expanded);
+    }
+
+    @Test
+    public void testThatPackedImageSurvivesPng() throws IOException {
+        BufferedImage packed = PackedImageUtils.pack(newImage(0xff000000, 0xffffffff, 0x00000000));
+
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        ImageIO.write(packed, "png", png);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png.toByteArray()));
+
+        assertSame(decoded, PackedImageUtils.pack(decoded));
+        assertPixelsEqual(packed, decoded);
+    }
+
+    private BufferedImage newImage(int... colors) {
+        BufferedImage image = new BufferedImage(37, 23, BufferedImage.TYPE_INT_ARGB);
+        for (int x = 0; x < image.getWidth(); x++) {
+            for (int y = 0; y < image.getHeight(); y++) {
+                image.setRGB(x, y, colors[(x * 7 + y / 3) % colors.length]);
+            }
+        }
+        return image;
+    }
+
+    private void assertPixelsEqual(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+
+        for (int x = 0; x < expected.getWidth(); x++) {
+            for (int y = 0; y < expected.getHeight(); y++) {
+                int expectedPixel = expected.getRGB(x, y);
+                assertEquals(expectedPixel >>> 24 == 0 ? 0 : expectedPixel, actual.getRGB(x, y));
+            }
+        }
+    }
+}